@@ -0,0 +1,219 @@
+package org.irods.jargon.core.connection;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.ModAvuMetadataInp;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.irods.jargon.core.utils.IRODSConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sends runs of metadata requests to a mock agent on the loopback interface
+ * that answers each request a fixed delay after it arrives, standing in for
+ * the round trip to a remote agent. The serial method sends each request with
+ * {@code irodsFunction} and waits for its reply, the pipelined method sends
+ * them with {@code irodsFunctionPipelined}, keeping up to {@code window}
+ * requests in flight.
+ * <p>
+ * Each operation is one request, so the reported ops/s are requests a second.
+ * With a 2ms delay the serial method cannot do better than 500.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PipelinedRequestBenchmark {
+
+	static final int REQUESTS = 200;
+
+	@Param({ "2" })
+	public long replyDelayMillis;
+
+	@Param({ "8", "32" })
+	public int window;
+
+	private MockAgent mockAgent;
+	private Socket socket;
+	private IRODSMidLevelProtocol protocol;
+	private List<ModAvuMetadataInp> requests;
+
+	@Setup
+	public void setUp() throws Exception {
+		mockAgent = new MockAgent(replyDelayMillis);
+		socket = mockAgent.connect();
+		IRODSAccount irodsAccount = IRODSAccount.instance("localhost", 1247,
+				"user", "password", "/zone/home/user", "zone", "");
+		IRODSProtocolManager irodsProtocolManager = IRODSSimpleProtocolManager
+				.instance();
+		AbstractConnection connection = new IRODSBasicTCPConnection(
+				irodsAccount,
+				PipelineConfiguration.instance(new SettableJargonProperties()),
+				irodsProtocolManager, socket,
+				IRODSSession.instance(irodsProtocolManager));
+		protocol = new IRODSMidLevelProtocol(connection, irodsProtocolManager);
+
+		requests = new ArrayList<ModAvuMetadataInp>();
+		for (int i = 0; i < REQUESTS; i++) {
+			requests.add(ModAvuMetadataInp.instanceForAddDataObjectMetadata(
+					"/zone/home/user/file.txt",
+					AvuData.instance("attribute" + i, "value" + i, "unit")));
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		socket.close();
+		mockAgent.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(REQUESTS)
+	public void serial() throws JargonException {
+		for (ModAvuMetadataInp request : requests) {
+			protocol.irodsFunction(request);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(REQUESTS)
+	public void pipelined() throws JargonException {
+		protocol.irodsFunctionPipelined(requests, window,
+				new PipelinedReplyHandler() {
+					@Override
+					public void replyReceived(final int index, final Tag reply,
+							final JargonException error) {
+						// only the round trips are measured
+					}
+				});
+	}
+
+	/**
+	 * Reads each API request as it arrives and answers it, in order, once the
+	 * delay has passed since it arrived, so that requests written ahead are
+	 * delayed together, as on a network
+	 */
+	static final class MockAgent {
+
+		private final ServerSocket serverSocket;
+		private final long replyDelayMillis;
+		private final BlockingQueue<Long> arrivals = new LinkedBlockingQueue<Long>();
+		private Socket socket;
+
+		MockAgent(final long replyDelayMillis) throws IOException {
+			this.replyDelayMillis = replyDelayMillis;
+			serverSocket = new ServerSocket(0, 1,
+					InetAddress.getLoopbackAddress());
+		}
+
+		Socket connect() throws IOException {
+			Socket client = new Socket(InetAddress.getLoopbackAddress(),
+					serverSocket.getLocalPort());
+			socket = serverSocket.accept();
+			socket.setTcpNoDelay(true);
+			client.setTcpNoDelay(true);
+			start(new Reader(new DataInputStream(socket.getInputStream())),
+					"mock-agent-reader");
+			start(new Writer(new DataOutputStream(socket.getOutputStream())),
+					"mock-agent-writer");
+			return client;
+		}
+
+		private static void start(final Runnable runnable, final String name) {
+			Thread thread = new Thread(runnable, name);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		void close() throws IOException {
+			if (socket != null) {
+				socket.close();
+			}
+			serverSocket.close();
+		}
+
+		private final class Reader implements Runnable {
+
+			private final DataInputStream in;
+
+			Reader(final DataInputStream in) {
+				this.in = in;
+			}
+
+			@Override
+			public void run() {
+				try {
+					while (true) {
+						byte[] header = new byte[in.readInt()];
+						in.readFully(header);
+						Tag headerTag = Tag.readNextTag(header, "utf-8");
+						in.readFully(new byte[headerTag.getTag("msgLen")
+								.getIntValue()]);
+						arrivals.put(System.nanoTime());
+					}
+				} catch (Exception e) {
+					// closed at tear down
+				}
+			}
+		}
+
+		private final class Writer implements Runnable {
+
+			private final DataOutputStream out;
+
+			Writer(final DataOutputStream out) {
+				this.out = out;
+			}
+
+			@Override
+			public void run() {
+				try {
+					byte[] header = AbstractIRODSMidLevelProtocol
+							.createHeaderBytesFromData(
+									IRODSConstants.RODS_API_REPLY, 0, 0, 0, 0,
+									"utf-8");
+					while (true) {
+						long due = arrivals.take() + replyDelayMillis
+								* 1000000L;
+						long wait = due - System.nanoTime();
+						if (wait > 0) {
+							Thread.sleep(wait / 1000000L,
+									(int) (wait % 1000000L));
+						}
+						out.writeInt(header.length);
+						out.write(header);
+						out.flush();
+					}
+				} catch (Exception e) {
+					// closed at tear down
+				}
+			}
+		}
+	}
+
+}
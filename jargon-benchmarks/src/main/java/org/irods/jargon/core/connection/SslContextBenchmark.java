@@ -0,0 +1,167 @@
+package org.irods.jargon.core.connection;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.security.KeyStore;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Opens TLS connections to a TLSv1.2 server on the loopback interface, the
+ * way {@link SslConnectionUtilities} layers TLS over an iRODS connection, and
+ * closes each once its handshake is done. The new context method builds an
+ * {@code SSLContext} for each connection, as every SSL connection did before,
+ * the shared context method takes the one from
+ * {@link IRODSSession#getSslContext()}, so that a connection resumes the TLS
+ * session of an earlier one.
+ * <p>
+ * Each operation is one connection, and the reported time is milliseconds
+ * for each. The server certificate is made with {@code keytool} at set up.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SslContextBenchmark {
+
+	static final String STORE_PASSWORD = "benchmark";
+
+	private File keyStoreFile;
+	private SSLServerSocket serverSocket;
+	private IRODSSession irodsSession;
+
+	@Setup
+	public void setUp() throws Exception {
+		keyStoreFile = File.createTempFile("sslContextBenchmark", ".p12");
+		keyStoreFile.delete();
+		Process keytool = new ProcessBuilder(System.getProperty("java.home")
+				+ File.separator + "bin" + File.separator + "keytool",
+				"-genkeypair", "-alias", "server", "-keyalg", "RSA",
+				"-keysize", "2048", "-dname", "CN=localhost", "-validity",
+				"1", "-storetype", "PKCS12", "-keystore",
+				keyStoreFile.getAbsolutePath(), "-storepass", STORE_PASSWORD,
+				"-keypass", STORE_PASSWORD).inheritIO().start();
+		if (keytool.waitFor() != 0) {
+			throw new IllegalStateException("keytool could not make a key");
+		}
+
+		KeyStore keyStore = KeyStore.getInstance("PKCS12");
+		InputStream in = new FileInputStream(keyStoreFile);
+		try {
+			keyStore.load(in, STORE_PASSWORD.toCharArray());
+		} finally {
+			in.close();
+		}
+		KeyManagerFactory keyManagerFactory = KeyManagerFactory
+				.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		keyManagerFactory.init(keyStore, STORE_PASSWORD.toCharArray());
+		SSLContext serverContext = SSLContext.getInstance("TLSv1.2");
+		serverContext.init(keyManagerFactory.getKeyManagers(), null, null);
+		serverSocket = (SSLServerSocket) serverContext.getServerSocketFactory()
+				.createServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+		Thread server = new Thread(new Server(serverSocket),
+				"ssl-context-benchmark-server");
+		server.setDaemon(true);
+		server.start();
+
+		irodsSession = new IRODSSession(new SettableJargonProperties());
+		// the certificate is self signed
+		irodsSession.setX509TrustManager(new TrustAllX509TrustManager());
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		serverSocket.close();
+		keyStoreFile.delete();
+	}
+
+	@Benchmark
+	public SSLSession newContext() throws IOException {
+		return connect(SslConnectionUtilities
+				.createSslContext(irodsSession.getX509TrustManager()));
+	}
+
+	@Benchmark
+	public SSLSession sharedContext() throws IOException {
+		return connect(irodsSession.getSslContext());
+	}
+
+	/**
+	 * Layer TLS over a plain connection to the server, for its host and port,
+	 * and do the handshake
+	 *
+	 * @return {@link SSLSession} of the connection, which is an earlier one if
+	 *         it was resumed
+	 */
+	private SSLSession connect(final SSLContext sslContext) throws IOException {
+		String host = serverSocket.getInetAddress().getHostAddress();
+		int port = serverSocket.getLocalPort();
+		Socket socket = new Socket(serverSocket.getInetAddress(), port);
+		SSLSocket sslSocket = (SSLSocket) sslContext.getSocketFactory()
+				.createSocket(socket, host, port, true);
+		try {
+			sslSocket.setUseClientMode(true);
+			sslSocket.startHandshake();
+			return sslSocket.getSession();
+		} finally {
+			sslSocket.close();
+		}
+	}
+
+	/**
+	 * Does the handshake for each connection, one at a time, and waits for the
+	 * client to close it
+	 */
+	private static final class Server implements Runnable {
+
+		private final SSLServerSocket serverSocket;
+
+		Server(final SSLServerSocket serverSocket) {
+			this.serverSocket = serverSocket;
+		}
+
+		@Override
+		public void run() {
+			while (!serverSocket.isClosed()) {
+				try {
+					SSLSocket socket = (SSLSocket) serverSocket.accept();
+					try {
+						socket.startHandshake();
+						while (socket.getInputStream().read() >= 0) {
+							// nothing is sent after the handshake
+						}
+					} finally {
+						socket.close();
+					}
+				} catch (IOException e) {
+					// a failed connection, or closed at tear down
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+package org.irods.jargon.core.packinstr;
+
+import java.io.UnsupportedEncodingException;
+
+/**
+ * The string based reader {@link Tag#readNextTag(byte[], boolean, String)}
+ * used before {@link TagParser}, kept as it was so the two can be compared
+ */
+final class LegacyTagReader {
+
+	private LegacyTagReader() {
+	}
+
+	static Tag readNextTag(final byte[] data, final boolean decode,
+			final String encoding) throws UnsupportedEncodingException {
+		if (data == null) {
+			return null;
+		}
+
+		String d = new String(data, encoding);
+
+		// remove the random '\n'
+		// had to find the end, sometimes '\n' is there, sometimes not.
+		d = d.replaceAll(Tag.CLOSE_END_TAG_WITH_CR, Tag.CLOSE_END_TAG_STR);
+		int start = d.indexOf(Tag.OPEN_START_TAG), end = d.indexOf(
+				Tag.CLOSE_START_TAG, start);
+		int offset = 0;
+		if (start < 0) {
+			return null;
+		}
+
+		String tagName = d.substring(start + 1, end);
+		StringBuilder sb = new StringBuilder();
+		sb.append(Tag.OPEN_END_TAG);
+		sb.append(tagName);
+		sb.append(Tag.CLOSE_END_TAG);
+		end = d.lastIndexOf(sb.toString());
+
+		Tag tag = new Tag(tagName);
+		offset = start + tagName.length() + 2;
+
+		while (d.indexOf(Tag.OPEN_START_TAG, offset) >= 0 && offset >= 0
+				&& offset < end) {
+			// send the rest of the bytes read
+			offset = readSubTag(tag, d, offset, decode);
+		}
+
+		return tag;
+	}
+
+	private static int readSubTag(final Tag tag, final String data, int offset,
+			final boolean decode) throws UnsupportedEncodingException {
+		int start = data.indexOf(Tag.OPEN_START_TAG, offset);
+		if (start < 0) {
+			return 1;
+		}
+		int closeStart = data.indexOf(Tag.CLOSE_START_TAG, start);
+		String tagName = data.substring(start + 1, closeStart);
+		StringBuilder sb = new StringBuilder();
+		sb.append(Tag.OPEN_END_TAG);
+		sb.append(tagName);
+		sb.append(Tag.CLOSE_END_TAG);
+		int end = data.indexOf(sb.toString(), closeStart);
+		int subTagStart = data.indexOf(Tag.OPEN_START_TAG, closeStart);
+
+		Tag subTag = new Tag(tagName);
+		tag.addTag(subTag);
+		offset = start + tagName.length() + 2;
+		if (subTagStart == end) {
+			subTag.setValue(data.substring(offset, end), decode);
+			return end + tagName.length() + 3; // endTagLocation + </endTag>
+		} else {
+			while (data.indexOf(Tag.OPEN_START_TAG, offset) >= 0
+					&& offset >= 0 && offset < end) {
+				// read the subTag, get new offset
+				offset = readSubTag(subTag, data, offset, decode);
+			}
+			return offset + tagName.length() + 3; // endTagLocation + </endTag>
+		}
+	}
+
+}
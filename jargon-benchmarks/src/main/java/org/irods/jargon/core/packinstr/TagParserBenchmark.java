@@ -0,0 +1,74 @@
+package org.irods.jargon.core.packinstr;
+
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses a GenQueryOut_PI reply with the single pass {@link TagParser} and
+ * with the string based reader it replaced. With 5000 rows of 10 columns the
+ * message is about 3MB and holds 50k values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TagParserBenchmark {
+
+	private static final String ENCODING = "UTF-8";
+	private static final int COLUMNS = 10;
+
+	@Param({ "500", "5000" })
+	public int rows;
+
+	private byte[] message;
+
+	@Setup
+	public void setUp() throws UnsupportedEncodingException {
+		Tag genQueryOut = new Tag("GenQueryOut_PI");
+		genQueryOut.addTag("rowCnt", rows);
+		genQueryOut.addTag("attriCnt", COLUMNS);
+		genQueryOut.addTag("continueInx", 0);
+		genQueryOut.addTag("totalRowCount", 0);
+
+		for (int column = 0; column < COLUMNS; column++) {
+			Tag sqlResult = new Tag("SqlResult_PI");
+			sqlResult.addTag("attriInx", 400 + column);
+			sqlResult.addTag("reslen", 1088);
+			for (int row = 0; row < rows; row++) {
+				// some values need entities, as names with & or < do
+				String value = (row % 16 == 0) ? "/zone/home/user/a & b <"
+						+ row + ">" : "/zone/home/user/collection/file_" + row
+						+ ".dat";
+				sqlResult.addTag("value", value);
+			}
+			genQueryOut.addTag(sqlResult);
+		}
+
+		message = genQueryOut.parseTag().getBytes(ENCODING);
+	}
+
+	@Benchmark
+	public Tag singlePass() throws UnsupportedEncodingException {
+		return Tag.readNextTag(message, true, ENCODING);
+	}
+
+	@Benchmark
+	public Tag stringBased() throws UnsupportedEncodingException {
+		return LegacyTagReader.readNextTag(message, true, ENCODING);
+	}
+
+}
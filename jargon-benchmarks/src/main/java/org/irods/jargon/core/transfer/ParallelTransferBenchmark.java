@@ -0,0 +1,263 @@
+package org.irods.jargon.core.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Moves a 1 GiB file through a {@link ParallelTransferChannel} on the loopback
+ * interface, in chunks of the parallel copy buffer size, the way the put and
+ * get threads do. The buffered methods copy each chunk through a direct
+ * {@code ByteBuffer}, the zero copy methods use {@code transferTo} and
+ * {@code transferFrom}. A peer thread drains the socket for puts and feeds it
+ * for gets. Only puts use zero copy in jargon-core, {@code transferFrom} from
+ * a socket copies through a small buffer inside the JDK and is slower than
+ * the buffered get, {@link #getZeroCopy(Get)} shows by how much.
+ * <p>
+ * Each operation is one MB moved, so the reported ops/s are MB/s. Run with
+ * {@code -prof perfnorm} on Linux to see the CPU cost per MB.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelTransferBenchmark {
+
+	static final int FILE_MB = 1024;
+	static final long FILE_SIZE = FILE_MB * 1024L * 1024L;
+
+	@State(Scope.Thread)
+	public static class Put {
+
+		@Param({ "4194304" })
+		public int chunkSize;
+
+		LoopbackTransfer transfer;
+
+		@Setup
+		public void setUp() throws IOException {
+			transfer = new LoopbackTransfer(chunkSize, true);
+		}
+
+		@TearDown
+		public void tearDown() throws IOException, InterruptedException {
+			transfer.close();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Get {
+
+		@Param({ "4194304" })
+		public int chunkSize;
+
+		LoopbackTransfer transfer;
+
+		@Setup
+		public void setUp() throws IOException {
+			transfer = new LoopbackTransfer(chunkSize, false);
+		}
+
+		@TearDown
+		public void tearDown() throws IOException, InterruptedException {
+			transfer.close();
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FILE_MB)
+	public void putBuffered(final Put put) throws IOException {
+		LoopbackTransfer transfer = put.transfer;
+		ByteBuffer buffer = transfer.buffer;
+		for (long position = 0; position < FILE_SIZE; position += buffer
+				.capacity()) {
+			buffer.clear();
+			transfer.fileChannel.read(buffer, position);
+			buffer.flip();
+			transfer.channel.writeFully(buffer);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FILE_MB)
+	public void putZeroCopy(final Put put) throws IOException {
+		LoopbackTransfer transfer = put.transfer;
+		int chunkSize = transfer.buffer.capacity();
+		for (long position = 0; position < FILE_SIZE; position += chunkSize) {
+			transfer.channel.transferTo(transfer.fileChannel, position,
+					Math.min(chunkSize, FILE_SIZE - position));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FILE_MB)
+	public void getBuffered(final Get get) throws IOException {
+		LoopbackTransfer transfer = get.transfer;
+		ByteBuffer buffer = transfer.buffer;
+		for (long position = 0; position < FILE_SIZE; position += buffer
+				.capacity()) {
+			buffer.clear();
+			transfer.channel.readFully(buffer);
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				transfer.fileChannel.write(buffer,
+						position + buffer.position());
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FILE_MB)
+	public void getZeroCopy(final Get get) throws IOException {
+		LoopbackTransfer transfer = get.transfer;
+		int chunkSize = transfer.buffer.capacity();
+		for (long position = 0; position < FILE_SIZE; position += chunkSize) {
+			transferFrom(transfer.channel, transfer.fileChannel, position,
+					Math.min(chunkSize, FILE_SIZE - position));
+		}
+	}
+
+	/**
+	 * Receive a file segment with {@code FileChannel.transferFrom}, the way the
+	 * get threads did before they went back to the buffered path. The feed
+	 * never ends, so there is no end of stream handling.
+	 */
+	private static void transferFrom(final ParallelTransferChannel channel,
+			final FileChannel fileChannel, long position, final long count)
+			throws IOException {
+		long remaining = count;
+		while (remaining > 0) {
+			long moved = fileChannel.transferFrom(channel.getSocketChannel(),
+					position, remaining);
+			if (moved == 0) {
+				channel.await(SelectionKey.OP_READ);
+				continue;
+			}
+			position += moved;
+			remaining -= moved;
+		}
+	}
+
+	/**
+	 * A local file, and a channel connected to a peer thread that drains or
+	 * feeds the other end of the socket
+	 */
+	static final class LoopbackTransfer {
+
+		final File file;
+		final FileChannel fileChannel;
+		final ServerSocketChannel server;
+		final SocketChannel peerSide;
+		final ParallelTransferChannel channel;
+		final ByteBuffer buffer;
+		final Thread peer;
+
+		LoopbackTransfer(final int chunkSize, final boolean drain)
+				throws IOException {
+			file = File.createTempFile("parallelTransferBenchmark", ".dat");
+			file.deleteOnExit();
+			fileChannel = FileChannel.open(file.toPath(),
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+			buffer = ByteBuffer.allocateDirect(chunkSize);
+
+			for (long position = 0; position < FILE_SIZE; position += chunkSize) {
+				buffer.clear();
+				while (buffer.hasRemaining()) {
+					fileChannel.write(buffer, position + buffer.position());
+				}
+			}
+
+			server = ServerSocketChannel.open();
+			server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+					0));
+			SocketChannel client = SocketChannel.open(server
+					.getLocalAddress());
+			peerSide = server.accept();
+			// no timeout, the peer never stalls
+			channel = new ParallelTransferChannel(client, 0);
+
+			peer = new Thread(drain ? new Drain(peerSide) : new Feed(peerSide),
+					"parallel-transfer-benchmark-peer");
+			peer.setDaemon(true);
+			peer.start();
+		}
+
+		void close() throws IOException, InterruptedException {
+			channel.close();
+			peerSide.close();
+			server.close();
+			peer.join(10000);
+			fileChannel.close();
+			file.delete();
+		}
+	}
+
+	private static final class Drain implements Runnable {
+
+		private final SocketChannel socketChannel;
+
+		Drain(final SocketChannel socketChannel) {
+			this.socketChannel = socketChannel;
+		}
+
+		@Override
+		public void run() {
+			ByteBuffer sink = ByteBuffer.allocateDirect(1024 * 1024);
+			try {
+				while (socketChannel.read(sink) >= 0) {
+					sink.clear();
+				}
+			} catch (IOException e) {
+				// closed at tear down
+			}
+		}
+	}
+
+	private static final class Feed implements Runnable {
+
+		private final SocketChannel socketChannel;
+
+		Feed(final SocketChannel socketChannel) {
+			this.socketChannel = socketChannel;
+		}
+
+		@Override
+		public void run() {
+			ByteBuffer source = ByteBuffer.allocateDirect(1024 * 1024);
+			try {
+				while (true) {
+					source.clear();
+					while (source.hasRemaining()) {
+						socketChannel.write(source);
+					}
+				}
+			} catch (IOException e) {
+				// closed at tear down
+			}
+		}
+	}
+
+}
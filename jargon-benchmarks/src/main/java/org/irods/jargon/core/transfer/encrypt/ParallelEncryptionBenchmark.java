@@ -0,0 +1,122 @@
+package org.irods.jargon.core.transfer.encrypt;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.core.connection.NegotiatedClientServerConfiguration;
+import org.irods.jargon.core.connection.PipelineConfiguration;
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.protovalues.EncryptionAlgorithmEnum;
+import org.irods.jargon.core.utils.RandomUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encrypts and decrypts 4 MiB chunks with AES-256-CBC the way the parallel
+ * put and get threads do. The array methods copy each chunk out of the direct
+ * buffer it was read into and use {@code encrypt(byte[])} and
+ * {@code decrypt(byte[])}, as the threads did before, the buffer methods
+ * encrypt and decrypt between direct buffers allocated once, with a pooled
+ * cipher for each thread.
+ * <p>
+ * Each operation is one MB, so the reported ops/s are MB/s. Each thread has
+ * its own wrappers and buffers, as a transfer thread does, so with
+ * {@code -t} set to the number of cores the score divided by {@code -t} is
+ * MB/s per core.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelEncryptionBenchmark {
+
+	static final int CHUNK_MB = 4;
+	static final int CHUNK_SIZE = CHUNK_MB * 1024 * 1024;
+
+	@State(Scope.Thread)
+	public static class Chunk {
+
+		AesCipherEncryptWrapper encryptWrapper;
+		AesCipherDecryptWrapper decryptWrapper;
+		ByteBuffer plain;
+		ByteBuffer encrypted;
+		ByteBuffer output;
+
+		@Setup
+		public void setUp() throws JargonException {
+			SettableJargonProperties props = new SettableJargonProperties();
+			props.setEncryptionAlgorithmEnum(EncryptionAlgorithmEnum.AES_256_CBC);
+			props.setEncryptionKeySize(EncryptionAlgorithmEnum.AES_256_CBC
+					.getKeySize());
+			props.setEncryptionNumberHashRounds(8);
+			props.setEncryptionSaltSize(8);
+			PipelineConfiguration pipelineConfiguration = PipelineConfiguration
+					.instance(props);
+			NegotiatedClientServerConfiguration config = new NegotiatedClientServerConfiguration(
+					true);
+			config.setSecretKey(new AESKeyGenerator(pipelineConfiguration,
+					config).generateKey());
+			encryptWrapper = new AesCipherEncryptWrapper(pipelineConfiguration,
+					config);
+			decryptWrapper = new AesCipherDecryptWrapper(pipelineConfiguration,
+					config);
+
+			plain = ByteBuffer.allocateDirect(CHUNK_SIZE);
+			plain.put(RandomUtils.generateRandomBytesOfLength(CHUNK_SIZE));
+			plain.flip();
+			encrypted = ByteBuffer.allocateDirect(encryptWrapper
+					.getEncryptedLength(CHUNK_SIZE));
+			output = ByteBuffer.allocateDirect(encrypted.capacity());
+
+			encryptWrapper.encrypt(plain.duplicate(), encrypted);
+			encrypted.flip();
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CHUNK_MB)
+	public EncryptionBuffer encryptArray(final Chunk chunk)
+			throws JargonException {
+		ByteBuffer plain = chunk.plain.duplicate();
+		byte[] plainData = new byte[plain.remaining()];
+		plain.get(plainData);
+		return chunk.encryptWrapper.encrypt(plainData);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CHUNK_MB)
+	public int encryptBuffer(final Chunk chunk) throws JargonException {
+		chunk.output.clear();
+		return chunk.encryptWrapper.encrypt(chunk.plain.duplicate(),
+				chunk.output);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CHUNK_MB)
+	public byte[] decryptArray(final Chunk chunk) throws JargonException {
+		ByteBuffer encrypted = chunk.encrypted.duplicate();
+		byte[] fullBuffer = new byte[encrypted.remaining()];
+		encrypted.get(fullBuffer);
+		return chunk.decryptWrapper.decrypt(fullBuffer);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CHUNK_MB)
+	public int decryptBuffer(final Chunk chunk) throws JargonException {
+		chunk.output.clear();
+		return chunk.decryptWrapper.decrypt(chunk.encrypted.duplicate(),
+				chunk.output);
+	}
+
+}
@@ -3,7 +3,10 @@
  */
 package org.irods.jargon.core.checksum;
 
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import org.irods.jargon.core.exception.JargonException;
 
@@ -28,4 +31,72 @@ public abstract class AbstractChecksumComputeStrategy {
 			final String localFileAbsolutePath) throws FileNotFoundException,
 			JargonException;
 
+	/**
+	 * Get the name of the {@link MessageDigest} algorithm behind this checksum.
+	 * By default there is none, and the checksum is only computed by
+	 * {@link #computeChecksumValueForLocalFile(String)}. A strategy that
+	 * returns an algorithm should also override
+	 * {@link #checksumValueFromDigest(byte[])}.
+	 *
+	 * @return {@code String} with the algorithm name, or {@code null} if the
+	 *         checksum cannot be computed from a {@link MessageDigest}
+	 */
+	public String getDigestAlgorithm() {
+		return null;
+	}
+
+	/**
+	 * Build the checksum value from a digest computed elsewhere, such as while
+	 * the file was being transferred. By default this is not supported, and
+	 * callers compute the checksum from the file with
+	 * {@link #computeChecksumValueForLocalFile(String)} instead.
+	 *
+	 * @param digest
+	 *            {@code byte[]} from a {@link MessageDigest} of the
+	 *            {@link #getDigestAlgorithm()} algorithm
+	 * @return {@link ChecksumValue} with a checksum in digest (string) form,
+	 *         or {@code null} if the strategy cannot build one from a digest
+	 */
+	public ChecksumValue checksumValueFromDigest(final byte[] digest) {
+		return null;
+	}
+
+	/**
+	 * Create a new digest for this checksum, to be fed the bytes of a file and
+	 * then given to {@link #checksumValueFromDigest(byte[])}
+	 *
+	 * @return {@link MessageDigest}
+	 * @throws JargonException
+	 *             if the strategy has no digest algorithm, or the algorithm is
+	 *             not available
+	 */
+	public MessageDigest instanceMessageDigest() throws JargonException {
+		if (getDigestAlgorithm() == null) {
+			throw new JargonException(
+					"checksum strategy has no digest algorithm");
+		}
+
+		try {
+			return MessageDigest.getInstance(getDigestAlgorithm());
+		} catch (NoSuchAlgorithmException e) {
+			throw new JargonException("no such algorithm exception for "
+					+ getDigestAlgorithm(), e);
+		}
+	}
+
+	/**
+	 * Digest a local file with this checksum's algorithm
+	 *
+	 * @param localFileAbsolutePath
+	 *            {@code String} with the absolute path to a local file
+	 * @return {@code byte[]} with the digest
+	 * @throws FileNotFoundException
+	 * @throws JargonException
+	 */
+	protected byte[] digestLocalFile(final String localFileAbsolutePath)
+			throws FileNotFoundException, JargonException {
+		return LocalFileDigester.digest(new File(localFileAbsolutePath),
+				instanceMessageDigest());
+	}
+
 }
@@ -0,0 +1,212 @@
+/**
+ *
+ */
+package org.irods.jargon.core.checksum;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a local file through a {@link MessageDigest}, in a single pass.
+ * <p>
+ * MD5 and SHA-256 must see the bytes in order, so the hash of one file cannot
+ * be split across threads. For a large file the work is split the other way:
+ * the file is read in chunks into two buffers used in turn, and the next chunk
+ * is read on a read ahead thread while the current one is hashed, so the disk
+ * and the digest are busy at the same time. Smaller files are read through a
+ * plain stream.
+ */
+public final class LocalFileDigester {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(LocalFileDigester.class);
+
+	/**
+	 * Files at least this long are read ahead
+	 */
+	public static final long READ_AHEAD_THRESHOLD = 32L * 1024L * 1024L;
+
+	/**
+	 * Bytes read ahead at a time
+	 */
+	static final int CHUNK_SIZE = 8 * 1024 * 1024;
+
+	/**
+	 * Buffer for files read through a stream
+	 */
+	static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+	private static final ExecutorService readAheadExecutor = Executors
+			.newCachedThreadPool(new ThreadFactory() {
+
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(final Runnable runnable) {
+					Thread thread = new Thread(runnable,
+							"jargon-checksum-read-ahead-"
+									+ count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	private LocalFileDigester() {
+	}
+
+	/**
+	 * Digest the whole of a local file
+	 *
+	 * @param localFile
+	 *            {@code File} to digest
+	 * @param messageDigest
+	 *            {@link MessageDigest} to update, which is reset first
+	 * @return {@code byte[]} with the digest
+	 * @throws FileNotFoundException
+	 *             if the file is missing
+	 * @throws JargonException
+	 *             if the file cannot be read
+	 */
+	public static byte[] digest(final File localFile,
+			final MessageDigest messageDigest) throws FileNotFoundException,
+			JargonException {
+
+		if (localFile == null) {
+			throw new IllegalArgumentException("null localFile");
+		}
+
+		if (messageDigest == null) {
+			throw new IllegalArgumentException("null messageDigest");
+		}
+
+		if (!localFile.isFile()) {
+			throw new FileNotFoundException("local file not found:"
+					+ localFile.getAbsolutePath());
+		}
+
+		messageDigest.reset();
+
+		try {
+			if (localFile.length() >= READ_AHEAD_THRESHOLD) {
+				digestReadAhead(localFile, messageDigest);
+			} else {
+				digestStreamed(localFile, messageDigest);
+			}
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			log.error("error digesting local file:{}", localFile, e);
+			throw new JargonException("error computing checksum for:"
+					+ localFile.getAbsolutePath(), e);
+		}
+
+		return messageDigest.digest();
+	}
+
+	private static void digestStreamed(final File localFile,
+			final MessageDigest messageDigest) throws IOException {
+		InputStream in = new FileInputStream(localFile);
+		try {
+			byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+			int numRead;
+			while ((numRead = in.read(buffer)) != -1) {
+				messageDigest.update(buffer, 0, numRead);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void digestReadAhead(final File localFile,
+			final MessageDigest messageDigest) throws IOException {
+
+		log.debug("digesting file with read ahead:{}", localFile);
+
+		RandomAccessFile file = new RandomAccessFile(localFile, "r");
+		FileChannel channel = file.getChannel();
+		ByteBuffer[] buffers = new ByteBuffer[] {
+				ByteBuffer.allocate(CHUNK_SIZE), ByteBuffer.allocate(CHUNK_SIZE) };
+		int turn = 0;
+		Future<ByteBuffer> next = null;
+		try {
+			long size = channel.size();
+			long position = 0L;
+			next = readAhead(channel, buffers[turn], position, size);
+			while (position < size) {
+				ByteBuffer chunk = awaitChunk(next);
+				next = null;
+				if (!chunk.hasRemaining()) {
+					throw new EOFException("file shortened while computing checksum");
+				}
+				position += chunk.remaining();
+				turn = 1 - turn;
+				if (position < size) {
+					next = readAhead(channel, buffers[turn], position, size);
+				}
+				messageDigest.update(chunk);
+			}
+		} finally {
+			if (next != null) {
+				next.cancel(false);
+			}
+			file.close();
+		}
+	}
+
+	/**
+	 * Fill the buffer from the position on the read ahead thread
+	 */
+	private static Future<ByteBuffer> readAhead(final FileChannel channel,
+			final ByteBuffer buffer, final long position, final long size) {
+		buffer.clear();
+		buffer.limit((int) Math.min(buffer.capacity(), size - position));
+		return readAheadExecutor.submit(new Callable<ByteBuffer>() {
+			@Override
+			public ByteBuffer call() throws IOException {
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer, position + buffer.position()) < 0) {
+						break;
+					}
+				}
+				buffer.flip();
+				return buffer;
+			}
+		});
+	}
+
+	private static ByteBuffer awaitChunk(final Future<ByteBuffer> future)
+			throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted reading file for checksum", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("error reading file for checksum",
+					e.getCause());
+		}
+	}
+
+}
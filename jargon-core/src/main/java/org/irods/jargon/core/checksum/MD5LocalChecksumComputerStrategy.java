@@ -40,15 +40,27 @@ AbstractChecksumComputeStrategy {
 					"null or empty localFileAbsolutePath");
 		}
 
-		byte[] digest = LocalFileUtils
-				.computeMD5FileCheckSumViaAbsolutePath(localFileAbsolutePath);
+		return checksumValueFromDigest(digestLocalFile(localFileAbsolutePath));
+
+	}
+
+	@Override
+	public String getDigestAlgorithm() {
+		return "MD5";
+	}
+
+	@Override
+	public ChecksumValue checksumValueFromDigest(final byte[] digest) {
+		if (digest == null) {
+			throw new IllegalArgumentException("null digest");
+		}
+
 		ChecksumValue value = new ChecksumValue();
 		value.setChecksumEncoding(ChecksumEncodingEnum.MD5);
 		value.setChecksumStringValue(LocalFileUtils
 				.digestByteArrayToString(digest));
 		value.setChecksumTransmissionFormat(value.getChecksumStringValue());
 		return value;
-
 	}
 
 }
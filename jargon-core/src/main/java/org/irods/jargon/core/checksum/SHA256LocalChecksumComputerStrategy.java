@@ -8,7 +8,6 @@ import java.io.FileNotFoundException;
 import org.apache.commons.codec.binary.Base64;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.protovalues.ChecksumEncodingEnum;
-import org.irods.jargon.core.utils.LocalFileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,8 +40,20 @@ AbstractChecksumComputeStrategy {
 					"null or empty localFileAbsolutePath");
 		}
 
-		byte[] digest = LocalFileUtils
-				.computeSHA256FileCheckSumViaAbsolutePath(localFileAbsolutePath);
+		return checksumValueFromDigest(digestLocalFile(localFileAbsolutePath));
+
+	}
+
+	@Override
+	public String getDigestAlgorithm() {
+		return "SHA-256";
+	}
+
+	@Override
+	public ChecksumValue checksumValueFromDigest(final byte[] digest) {
+		if (digest == null) {
+			throw new IllegalArgumentException("null digest");
+		}
 
 		ChecksumValue value = new ChecksumValue();
 		value.setChecksumEncoding(ChecksumEncodingEnum.SHA256);
@@ -52,7 +63,6 @@ AbstractChecksumComputeStrategy {
 		sb.append(value.getChecksumStringValue());
 		value.setChecksumTransmissionFormat(sb.toString().trim());
 		return value;
-
 	}
 
 }
@@ -7,10 +7,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.net.Socket;
 import java.nio.channels.ClosedChannelException;
 
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.packinstr.TagSerializer;
 import org.irods.jargon.core.utils.Host;
 import org.irods.jargon.core.utils.LocalFileUtils;
 import org.slf4j.Logger;
@@ -61,6 +64,11 @@ public abstract class AbstractConnection {
 	 * Holds the offset into the outputBuffer array for adding new data.
 	 */
 	private int outputOffset = 0;
+	/**
+	 * Serializer for packing instructions in the pipeline encoding, created on
+	 * first use
+	 */
+	private TagSerializer tagSerializer = null;
 
 	/**
 	 * Configured negotation policy, either from jargon default properties, or
@@ -391,6 +399,69 @@ public abstract class AbstractConnection {
 
 	}
 
+	/**
+	 * Writes the given packing instruction to the output stream. When the
+	 * message fits in the internal cache buffer it is serialized directly into
+	 * that buffer, otherwise it is serialized into a single array of exactly
+	 * the needed size.
+	 *
+	 * @param message
+	 *            {@link Tag} with the packing instruction to be sent, may be
+	 *            {@code null} in which case nothing is sent
+	 * @param length
+	 *            {@code int} with the encoded length of the message, as
+	 *            computed by {@link TagSerializer#byteLength(Tag)} when
+	 *            building the header
+	 * @throws IOException
+	 *             If an IOException occurs
+	 */
+	public void send(final Tag message, final int length) throws IOException {
+		if (message == null) {
+			log.debug("null input packing instruction, do not send");
+			return;
+		}
+
+		TagSerializer serializer = getTagSerializer();
+		int bufferSize = pipelineConfiguration.getInternalCacheBufferSize();
+
+		try {
+			if (bufferSize <= 0) {
+				irodsOutputStream.write(serializer.toBytes(message));
+				return;
+			}
+
+			if ((length + outputOffset) >= bufferSize) {
+				irodsOutputStream.write(outputBuffer, 0, outputOffset);
+				outputOffset = 0;
+			}
+
+			if (length < bufferSize) {
+				outputOffset = serializer.write(message, outputBuffer, outputOffset);
+			} else {
+				irodsOutputStream.write(serializer.toBytes(message));
+			}
+		} catch (IOException ioe) {
+			getIrodsSession().discardSessionForErrors(getIrodsAccount());
+			log.error("ioException in send", ioe);
+			throw ioe;
+		}
+	}
+
+	/**
+	 * Get the serializer that writes packing instructions in the encoding of
+	 * this connection
+	 *
+	 * @return {@link TagSerializer}
+	 * @throws UnsupportedEncodingException
+	 *             if the configured encoding is not supported
+	 */
+	TagSerializer getTagSerializer() throws UnsupportedEncodingException {
+		if (tagSerializer == null) {
+			tagSerializer = TagSerializer.instance(pipelineConfiguration.getDefaultEncoding());
+		}
+		return tagSerializer;
+	}
+
 	/**
 	 * Writes an int to the output stream as four bytes, network order (high
 	 * byte first).
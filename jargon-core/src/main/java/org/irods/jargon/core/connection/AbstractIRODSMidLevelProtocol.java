@@ -6,9 +6,12 @@ import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.channels.ClosedChannelException;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.irods.jargon.core.connection.auth.AuthResponse;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.exception.JargonRuntimeException;
 import org.irods.jargon.core.packinstr.AbstractIRODSPackingInstruction;
 import org.irods.jargon.core.packinstr.IRodsPI;
 import org.irods.jargon.core.packinstr.RErrMsg;
@@ -19,21 +22,49 @@ import org.irods.jargon.core.utils.IRODSConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Base of the mid level protocol that sends messages to, and reads responses
+ * from, an iRODS agent.
+ * <p>
+ * Exchanges on the socket are serialized by a {@link ReentrantLock} that is
+ * held only for the duration of the i/o. Connection metadata such as the
+ * account, server properties and session are published through volatile fields
+ * and may be read without waiting for an exchange in progress on another
+ * thread. A caller that needs several calls to reach the agent without any
+ * interleaving, such as a request followed by a read of the returned bytes,
+ * should hold a {@link SocketLease} for the whole exchange. A connection handed
+ * over to a helper thread for a longer time is reserved for it with
+ * {@link #reserveSocket(Thread)}.
+ *
+ * @author Mike Conway - DICE
+ *
+ */
 public abstract class AbstractIRODSMidLevelProtocol {
 
-	private AbstractConnection irodsConnection;
-	private AbstractConnection irodsConnectionNonEncryptedRef = null;
-	private IRODSProtocolManager irodsProtocolManager;
-	private IRODSServerProperties irodsServerProperties;
-	private IRODSSession irodsSession = null;
-	private StartupResponseData startupResponseData;
+	private volatile AbstractConnection irodsConnection;
+	private volatile AbstractConnection irodsConnectionNonEncryptedRef = null;
+	private volatile IRODSProtocolManager irodsProtocolManager;
+	private volatile IRODSServerProperties irodsServerProperties;
+	private volatile IRODSSession irodsSession = null;
+	private volatile StartupResponseData startupResponseData;
+
+	/**
+	 * Guards the socket, reentrant so that a {@link SocketLease} holder may make
+	 * the usual protocol calls
+	 */
+	private final ReentrantLock socketLock = new ReentrantLock();
+
+	/**
+	 * Thread the connection is reserved for, see {@link #reserveSocket(Thread)}
+	 */
+	private volatile Thread reservedFor = null;
 
 	/**
 	 * This is an overhead for iRODS 4.0 - 4.0.3 servers per
 	 * https://github.com/DICE-UNC/jargon/issues/70
 	 *
 	 */
-	private boolean forceSslFlush = false;
+	private volatile boolean forceSslFlush = false;
 
 	public static final int EIRODS_MIN = 301;
 	public static final int EIRODS_MAX = 301;
@@ -48,7 +79,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * as standard IRODS authentication using a temporary password generated in
 	 * the PAM authentication process.
 	 */
-	private AuthResponse authResponse = null;
+	private volatile AuthResponse authResponse = null;
 
 	/**
 	 * This account will represent the account information used for the actual
@@ -56,7 +87,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * broken down into the account presented, and the account actually used in
 	 * the {@code AuthResponse} object.
 	 */
-	private IRODSAccount irodsAccount;
+	private volatile IRODSAccount irodsAccount;
 
 	/**
 	 * Create a base instance of the mid level protocol, which may be processed
@@ -93,11 +124,92 @@ public abstract class AbstractIRODSMidLevelProtocol {
 
 	}
 
-	synchronized boolean isForceSslFlush() {
+	/**
+	 * Take exclusive use of the socket until the returned lease is closed. This
+	 * is meant for exchanges that span several protocol calls, for example
+	 * sending a read request and then reading the bytes that follow it, and
+	 * that must not be interleaved with calls from another thread sharing this
+	 * connection. Protocol calls made by the holder of the lease proceed as
+	 * normal.
+	 *
+	 * <pre>
+	 * try (SocketLease lease = protocol.leaseSocket()) {
+	 * 	protocol.irodsFunction(...);
+	 * 	protocol.read(...);
+	 * }
+	 * </pre>
+	 *
+	 * @return {@link SocketLease} that must be closed to release the socket
+	 */
+	public SocketLease leaseSocket() {
+		lockSocket();
+		return new SocketLease(socketLock);
+	}
+
+	/**
+	 * Reserve the connection for one thread, typically a helper thread that
+	 * keeps making requests on behalf of the caller, such as the prefetch of a
+	 * {@code GenQueryResultIterator}. Until the reservation is released,
+	 * protocol calls from any other thread fail with a
+	 * {@link JargonRuntimeException} rather than interleave with the exchanges
+	 * of the owner. Disconnecting is still allowed.
+	 *
+	 * @param owner
+	 *            {@link Thread} that may use the connection
+	 */
+	public void reserveSocket(final Thread owner) {
+		if (owner == null) {
+			throw new IllegalArgumentException("null owner");
+		}
+
+		lockSocket();
+		try {
+			reservedFor = owner;
+		} finally {
+			socketLock.unlock();
+		}
+	}
+
+	/**
+	 * Release a reservation made by {@link #reserveSocket(Thread)}, has no
+	 * effect if the connection is not reserved for the given thread
+	 *
+	 * @param owner
+	 *            {@link Thread} the connection was reserved for
+	 */
+	public void releaseSocketReservation(final Thread owner) {
+		if (reservedFor == owner) {
+			reservedFor = null;
+		}
+	}
+
+	/**
+	 * @return the {@link ReentrantLock} serializing i/o on the socket
+	 */
+	protected ReentrantLock getSocketLock() {
+		return socketLock;
+	}
+
+	/**
+	 * Take the socket lock for an exchange, failing if the connection is
+	 * reserved for another thread
+	 */
+	protected void lockSocket() {
+		socketLock.lock();
+		Thread owner = reservedFor;
+		if (owner != null && owner != Thread.currentThread()) {
+			socketLock.unlock();
+			throw new JargonRuntimeException(
+					"connection is reserved for thread:" + owner.getName()
+							+ ", close the GenQueryResultIterator using it first");
+		}
+	}
+
+	boolean isForceSslFlush() {
 		return forceSslFlush;
 	}
 
-	synchronized void setForceSslFlush(final boolean forceSslFlush) {
+	void setForceSslFlush(final boolean forceSslFlush) {
 		this.forceSslFlush = forceSslFlush;
 	}
 
@@ -169,7 +281,25 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * @return {@link Tag} with the iRODS protocol response
 	 * @throws JargonException
 	 */
-	public synchronized Tag irodsFunction(final String type, final String message, final int intInfo)
+	public Tag irodsFunction(final String type, final String message, final int intInfo)
+			throws JargonException {
+		return irodsFunction(type, message, null, 0, 0, null, 0, 0, intInfo);
+	}
+
+	/**
+	 * Create a typical iRODS function call where no binary data is streamed to
+	 * iRODS, serializing the message directly to the connection
+	 *
+	 * @param type
+	 *            {@code String} with the protocol type
+	 * @param message
+	 *            {@link Tag} with the actual protocol message
+	 * @param intInfo
+	 *            {@code int} with the iRODS api number
+	 * @return {@link Tag} with the iRODS protocol response
+	 * @throws JargonException
+	 */
+	public Tag irodsFunction(final String type, final Tag message, final int intInfo)
 			throws JargonException {
 		return irodsFunction(type, message, null, 0, 0, null, 0, 0, intInfo);
 	}
@@ -207,6 +337,58 @@ public abstract class AbstractIRODSMidLevelProtocol {
 			final int errorOffset, final int errorLength, final byte[] bytes, final int byteOffset,
 			final int byteStringLength, final int intInfo) throws JargonException;
 
+	/**
+	 * Send the given iRODS protocol request with any included binary data, and
+	 * return the iRODS response as a {@code Tag} object. This is the same as
+	 * the variant that takes a {@code String} message, except that the message
+	 * is measured and then serialized straight into the connection output
+	 * buffer, without building the XML as a {@code String} first.
+	 *
+	 * @param type
+	 *            {@code String} with the type of request, typically an
+	 *            iRODS protocol request
+	 * @param message
+	 *            {@link Tag} with the packing instruction, may be
+	 *            {@code null} for some operations
+	 * @param errorBytes
+	 *            {@code byte[]} with any error data to send to iRODS, can
+	 *            be set to {@code null}
+	 * @param errorOffset
+	 *            {@code int} with offset into the error data to send
+	 * @param errorLength
+	 *            {@code int} with the length of error data
+	 * @param bytes
+	 *            {@code byte[]} with binary data to send to iRODS.
+	 * @param byteOffset
+	 *            {@code int} with an offset into the byte array to send
+	 * @param byteStringLength
+	 *            {@code int} with the length of the bytes to send
+	 * @param intInfo
+	 *            {@code int} with the iRODS API number
+	 * @return {@link Tag}
+	 * @throws JargonException
+	 */
+	public abstract Tag irodsFunction(final String type, final Tag message, final byte[] errorBytes,
+			final int errorOffset, final int errorLength, final byte[] bytes, final int byteOffset,
+			final int byteStringLength, final int intInfo) throws JargonException;
+
+	/**
+	 * Compute the encoded length of a packing instruction in the connection
+	 * encoding, as sent in the message header
+	 *
+	 * @param message
+	 *            {@link Tag} with the message, may be {@code null}
+	 * @return {@code int} with the length in bytes, zero for a
+	 *         {@code null} message
+	 * @throws UnsupportedEncodingException
+	 */
+	int messageLength(final Tag message) throws UnsupportedEncodingException {
+		if (message == null) {
+			return 0;
+		}
+		return irodsConnection.getTagSerializer().byteLength(message);
+	}
+
 	/**
 	 * iRODS protocol request that sends data to iRODS using the
 	 * {@code OpenedDataObjInp} protocol interaction to send binary data in
@@ -241,53 +423,55 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 *         will send the appropriate operation complete messages
 	 * @throws JargonException
 	 */
-	public synchronized long irodsFunctionForStreamingToIRODSInFrames(final IRodsPI irodsPI, final int byteStreamLength,
+	public long irodsFunctionForStreamingToIRODSInFrames(final IRodsPI irodsPI, final int byteStreamLength,
 			final InputStream byteStream, final ConnectionProgressStatusListener connectionProgressStatusListener)
 			throws JargonException {
+		lockSocket();
+		try {
 
-		if (irodsPI == null) {
-			throw new IllegalArgumentException("null irodsPI");
-		}
+			if (irodsPI == null) {
+				throw new IllegalArgumentException("null irodsPI");
+			}
 
-		if (byteStream == null) {
-			throw new IllegalArgumentException("null byteStream");
-		}
+			if (byteStream == null) {
+				throw new IllegalArgumentException("null byteStream");
+			}
 
-		log.debug("calling irodsFunctionForStreamingToIRODSInFrames");
-		log.debug("calling irods function with:{}", irodsPI);
-		log.debug("api number is:{}", irodsPI.getApiNumber());
+			log.debug("calling irodsFunctionForStreamingToIRODSInFrames");
+			log.debug("calling irods function with:{}", irodsPI);
+			log.debug("api number is:{}", irodsPI.getApiNumber());
 
-		long dataSent = 0;
+			long dataSent = 0;
 
-		try {
-			int length = 0;
-			String message = irodsPI.getParsedTags();
-			if (message != null) {
-				length = message.getBytes(irodsConnection.getPipelineConfiguration().getDefaultEncoding()).length;
-			}
-			sendHeader(IRODSConstants.RODS_API_REQ, length, 0, byteStreamLength, irodsPI.getApiNumber());
-			irodsConnection.send(message);
+			try {
+				Tag message = irodsPI.getTagValue();
+				int length = messageLength(message);
+				sendHeader(IRODSConstants.RODS_API_REQ, length, 0, byteStreamLength, irodsPI.getApiNumber());
+				irodsConnection.send(message, length);
+
+				if (byteStreamLength > 0) {
+					dataSent += irodsConnection.send(byteStream, byteStreamLength, connectionProgressStatusListener);
+					// do not close stream, it may be sent again in a subsequent
+					// call, and will maintain its internal pointer
+				}
 
-			if (byteStreamLength > 0) {
-				dataSent += irodsConnection.send(byteStream, byteStreamLength, connectionProgressStatusListener);
-				// do not close stream, it may be sent again in a subsequent
-				// call, and will maintain its internal pointer
+			} catch (UnsupportedEncodingException e) {
+				log.error("unsupported encoding", e);
+				throw new JargonException(e);
+			} catch (IOException e) {
+				log.error("ioexception", e);
+				disconnectWithForce();
+				throw new JargonException(e);
 			}
 
-		} catch (UnsupportedEncodingException e) {
-			log.error("unsupported encoding", e);
-			throw new JargonException(e);
-		} catch (IOException e) {
-			log.error("ioexception", e);
-			disconnectWithForce();
-			throw new JargonException(e);
+			log.debug("reading message from frame send...");
+			log.debug("read commented out");
+			readMessage();
+			log.debug("message read");
+			return dataSent;
+		} finally {
+			socketLock.unlock();
 		}
-
-		log.debug("reading message from frame send...");
-		log.debug("read commented out");
-		readMessage();
-		log.debug("message read");
-		return dataSent;
 	}
 
 	/**
@@ -333,104 +517,112 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * @return {@code long} with total bytes sent.
 	 * @throws JargonException
 	 */
-	public synchronized Tag irodsFunctionIncludingAllDataInStream(final IRodsPI irodsPI, final long byteStreamLength,
+	public Tag irodsFunctionIncludingAllDataInStream(final IRodsPI irodsPI, final long byteStreamLength,
 			final InputStream byteStream, final ConnectionProgressStatusListener connectionProgressStatusListener)
 			throws JargonException {
+		lockSocket();
+		try {
 
-		if (irodsPI == null) {
-			throw new IllegalArgumentException("null irodsPI");
-		}
+			if (irodsPI == null) {
+				throw new IllegalArgumentException("null irodsPI");
+			}
 
-		if (byteStream == null) {
-			throw new IllegalArgumentException("null byteStream");
-		}
+			if (byteStream == null) {
+				throw new IllegalArgumentException("null byteStream");
+			}
 
-		log.debug("calling irods function with streams");
-		log.debug("calling irods function with:{}", irodsPI);
-		log.debug("api number is:{}", irodsPI.getApiNumber());
+			log.debug("calling irods function with streams");
+			log.debug("calling irods function with:{}", irodsPI);
+			log.debug("api number is:{}", irodsPI.getApiNumber());
 
-		try {
-			int length = 0;
-			String message = irodsPI.getParsedTags();
-			if (message != null) {
-				length = message.getBytes(getEncoding()).length;
-			}
+			try {
+				Tag message = irodsPI.getTagValue();
+				int length = messageLength(message);
 
-			log.debug("message:{}", message);
+				if (log.isDebugEnabled() && message != null) {
+					log.debug("message:{}", message.parseTag());
+				}
 
-			sendHeader(IRODSConstants.RODS_API_REQ, length, 0, byteStreamLength, irodsPI.getApiNumber());
-			irodsConnection.send(message);
+				sendHeader(IRODSConstants.RODS_API_REQ, length, 0, byteStreamLength, irodsPI.getApiNumber());
+				irodsConnection.send(message, length);
 
-			if (byteStreamLength > 0) {
-				irodsConnection.send(byteStream, byteStreamLength, connectionProgressStatusListener);
-				byteStream.close();
-			} else {
-				log.debug("no byte stream data, so flush output");
-				irodsConnection.flush();
-			}
+				if (byteStreamLength > 0) {
+					irodsConnection.send(byteStream, byteStreamLength, connectionProgressStatusListener);
+					byteStream.close();
+				} else {
+					log.debug("no byte stream data, so flush output");
+					irodsConnection.flush();
+				}
 
-		} catch (UnsupportedEncodingException e) {
-			log.error("unsupported encoding", e);
-			throw new JargonException(e);
-		} catch (IOException e) {
-			log.error("ioexception", e);
-			disconnectWithForce();
+			} catch (UnsupportedEncodingException e) {
+				log.error("unsupported encoding", e);
+				throw new JargonException(e);
+			} catch (IOException e) {
+				log.error("ioexception", e);
+				disconnectWithForce();
 
-			throw new JargonException(e);
-		}
+				throw new JargonException(e);
+			}
 
-		log.debug("data sent, getting response");
-		return readMessage();
+			log.debug("data sent, getting response");
+			return readMessage();
+		} finally {
+			socketLock.unlock();
+		}
 	}
 
 	/**
 	 * Create an iRODS message Tag, including header. Send the bytes of the byte
 	 * array, no error stream.
 	 */
-	public synchronized Tag irodsFunction(final IRodsPI irodsPI, final byte[] errorStream, final int errorOffset,
+	public Tag irodsFunction(final IRodsPI irodsPI, final byte[] errorStream, final int errorOffset,
 			final int errorLength, final byte[] bytes, final int byteOffset, final int byteStreamLength)
 			throws JargonException {
+		lockSocket();
+		try {
 
-		if (irodsPI == null) {
-			String err = "null irodsPI";
-			log.error(err);
-			throw new IllegalArgumentException(err);
-		}
+			if (irodsPI == null) {
+				String err = "null irodsPI";
+				log.error(err);
+				throw new IllegalArgumentException(err);
+			}
 
-		String out = irodsPI.getParsedTags();
+			Tag out = irodsPI.getTagValue();
 
-		if (out == null || out.length() == 0) {
-			String err = "null or missing message returned from parse";
-			log.error(err);
-			throw new IllegalArgumentException(err);
-		}
+			if (out == null) {
+				String err = "null or missing message returned from parse";
+				log.error(err);
+				throw new IllegalArgumentException(err);
+			}
 
-		if (log.isDebugEnabled()) {
-			log.debug(out);
-		}
+			if (log.isDebugEnabled()) {
+				log.debug(out.parseTag());
+			}
 
-		try {
-			sendHeader(IRODSConstants.RODS_API_REQ, out.getBytes(getEncoding()).length, errorLength, byteStreamLength,
-					irodsPI.getApiNumber());
-			irodsConnection.send(out);
+			try {
+				int length = messageLength(out);
+				sendHeader(IRODSConstants.RODS_API_REQ, length, errorLength, byteStreamLength, irodsPI.getApiNumber());
+				irodsConnection.send(out, length);
 
-			if (byteStreamLength > 0) {
-				irodsConnection.send(bytes, byteOffset, byteStreamLength);
-			}
+				if (byteStreamLength > 0) {
+					irodsConnection.send(bytes, byteOffset, byteStreamLength);
+				}
 
-			irodsConnection.flush();
-			return readMessage();
+				irodsConnection.flush();
+				return readMessage();
 
-		} catch (UnsupportedEncodingException e) {
-			log.error("unsupported encoding", e);
-			throw new JargonException(e);
-		} catch (IOException e) {
-			log.error("io exception sending irods command", e);
-			disconnectWithForce();
+			} catch (UnsupportedEncodingException e) {
+				log.error("unsupported encoding", e);
+				throw new JargonException(e);
+			} catch (IOException e) {
+				log.error("io exception sending irods command", e);
+				disconnectWithForce();
 
-			throw new JargonException(e);
+				throw new JargonException(e);
+			}
+		} finally {
+			socketLock.unlock();
 		}
-
 	}
 
 	/**
@@ -448,29 +640,34 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * @return {@code int}
 	 * @throws JargonException
 	 */
-	public synchronized int read(final byte[] value, final int offset, final int length) throws JargonException {
+	public int read(final byte[] value, final int offset, final int length) throws JargonException {
+		lockSocket();
+		try {
 
-		if (value == null || value.length == 0) {
-			throw new JargonException("null or empty value");
-		}
+			if (value == null || value.length == 0) {
+				throw new JargonException("null or empty value");
+			}
 
-		if (offset < 0 || offset > value.length) {
-			throw new JargonException("offset out of range");
-		}
+			if (offset < 0 || offset > value.length) {
+				throw new JargonException("offset out of range");
+			}
 
-		if (length <= 0 || length > value.length) {
-			throw new JargonException("length out of range");
-		}
+			if (length <= 0 || length > value.length) {
+				throw new JargonException("length out of range");
+			}
 
-		try {
-			return irodsConnection.read(value, offset, length);
-		} catch (UnsupportedEncodingException e) {
-			log.error("unsupported encoding", e);
-			throw new JargonException(e);
-		} catch (IOException e) {
-			log.error("io exception sending irods command", e);
-			disconnectWithForce();
-			throw new JargonException(e);
+			try {
+				return irodsConnection.read(value, offset, length);
+			} catch (UnsupportedEncodingException e) {
+				log.error("unsupported encoding", e);
+				throw new JargonException(e);
+			} catch (IOException e) {
+				log.error("io exception sending irods command", e);
+				disconnectWithForce();
+				throw new JargonException(e);
+			}
+		} finally {
+			socketLock.unlock();
 		}
 	}
 
@@ -487,7 +684,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 *            {@code long} length of data to be read and written out.
 	 * @throws JargonException
 	 */
-	public synchronized void read(final OutputStream destination, final long length) throws JargonException {
+	public void read(final OutputStream destination, final long length) throws JargonException {
 
 		read(destination, length, null);
 	}
@@ -510,26 +707,31 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 *            progress with a small peformance penalty.
 	 * @throws JargonException
 	 */
-	public synchronized void read(final OutputStream destination, final long length,
+	public void read(final OutputStream destination, final long length,
 			final ConnectionProgressStatusListener intraFileStatusListener) throws JargonException {
+		lockSocket();
+		try {
 
-		if (length <= 0) {
-			throw new JargonException("length out of range");
-		}
+			if (length <= 0) {
+				throw new JargonException("length out of range");
+			}
 
-		if (destination == null) {
-			throw new JargonException("destination is null");
-		}
+			if (destination == null) {
+				throw new JargonException("destination is null");
+			}
 
-		try {
-			irodsConnection.read(destination, length, intraFileStatusListener);
-		} catch (UnsupportedEncodingException e) {
-			log.error("unsupported encoding", e);
-			throw new JargonException(e);
-		} catch (IOException e) {
-			log.error("io exception sending irods command", e);
-			disconnectWithForce();
-			throw new JargonException(e);
+			try {
+				irodsConnection.read(destination, length, intraFileStatusListener);
+			} catch (UnsupportedEncodingException e) {
+				log.error("unsupported encoding", e);
+				throw new JargonException(e);
+			} catch (IOException e) {
+				log.error("io exception sending irods command", e);
+				disconnectWithForce();
+				throw new JargonException(e);
+			}
+		} finally {
+			socketLock.unlock();
 		}
 	}
 
@@ -538,7 +740,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * suitable for operations that do not require error or binary streams, and
 	 * will set up empty streams for the method call.
 	 */
-	public synchronized Tag irodsFunction(final IRodsPI irodsPI) throws JargonException {
+	public Tag irodsFunction(final IRodsPI irodsPI) throws JargonException {
 
 		if (irodsPI == null) {
 			String err = "null irodsPI";
@@ -546,7 +748,144 @@ public abstract class AbstractIRODSMidLevelProtocol {
 			throw new IllegalArgumentException(err);
 		}
 
-		return irodsFunction(IRODSConstants.RODS_API_REQ, irodsPI.getParsedTags(), irodsPI.getApiNumber());
+		return irodsFunction(IRODSConstants.RODS_API_REQ, irodsPI.getTagValue(), irodsPI.getApiNumber());
+	}
+
+	/**
+	 * Send a run of API requests that carry no binary data, writing up to
+	 * {@code maxRequestsInFlight} of them ahead of their replies. The agent
+	 * reads and answers requests one at a time, so the replies come back in
+	 * the order the requests were sent, and only the first request pays the
+	 * full round trip.
+	 * <p>
+	 * An error iRODS returns for one request is handed to the
+	 * {@link PipelinedReplyHandler} and the rest of the replies are still
+	 * read. Any other failure while replies are still outstanding, such as an
+	 * i/o error or an exception from the handler, ends the exchange and is
+	 * thrown. The connection is then out of step with the agent, so it is
+	 * disconnected. The socket is held for the whole exchange.
+	 * <p>
+	 * The window should be kept small enough that the requests in flight fit
+	 * in the socket buffers, otherwise the agent may block writing replies
+	 * that are not being read while this method blocks writing requests.
+	 *
+	 * @param irodsPIs
+	 *            {@code List} of {@link IRodsPI} to send, in order
+	 * @param maxRequestsInFlight
+	 *            {@code int} with the most requests that will be sent before
+	 *            their reply has been read
+	 * @param pipelinedReplyHandler
+	 *            {@link PipelinedReplyHandler} that is given each reply, in
+	 *            order
+	 * @throws JargonException
+	 */
+	public void irodsFunctionPipelined(final List<? extends IRodsPI> irodsPIs, final int maxRequestsInFlight,
+			final PipelinedReplyHandler pipelinedReplyHandler) throws JargonException {
+
+		if (irodsPIs == null) {
+			throw new IllegalArgumentException("null irodsPIs");
+		}
+
+		if (maxRequestsInFlight < 1) {
+			throw new IllegalArgumentException("maxRequestsInFlight < 1");
+		}
+
+		if (pipelinedReplyHandler == null) {
+			throw new IllegalArgumentException("null pipelinedReplyHandler");
+		}
+
+		for (IRodsPI irodsPI : irodsPIs) {
+			if (irodsPI == null) {
+				throw new IllegalArgumentException("null irodsPI in pipelined requests");
+			}
+		}
+
+		log.debug("pipelining {} requests", irodsPIs.size());
+
+		lockSocket();
+		int sent = 0;
+		int received = 0;
+		try {
+			while (received < irodsPIs.size()) {
+				if (sent < irodsPIs.size() && sent - received < maxRequestsInFlight) {
+					sendPipelinedRequest(irodsPIs.get(sent));
+					sent++;
+					continue;
+				}
+
+				try {
+					irodsConnection.flush();
+				} catch (IOException e) {
+					log.error("io exception sending pipelined irods commands", e);
+					disconnectWithForce();
+					throw new JargonException(e);
+				}
+
+				readPipelinedReply(received, pipelinedReplyHandler);
+				received++;
+			}
+		} finally {
+			try {
+				if (received < sent) {
+					log.error("pipelined exchange failed with {} replies outstanding, disconnecting",
+							sent - received);
+					disconnectPipelinedExchange();
+				}
+			} finally {
+				socketLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Drop a connection left out of step by a failed pipelined exchange,
+	 * without masking the failure
+	 */
+	private void disconnectPipelinedExchange() {
+		try {
+			disconnectWithForce();
+		} catch (Exception e) {
+			log.warn("error disconnecting after failed pipelined exchange, ignored", e);
+		}
+	}
+
+	private void sendPipelinedRequest(final IRodsPI irodsPI) throws JargonException {
+
+		Tag out = irodsPI.getTagValue();
+
+		if (log.isDebugEnabled() && out != null) {
+			log.debug(out.parseTag());
+		}
+
+		try {
+			int length = messageLength(out);
+			sendHeader(IRODSConstants.RODS_API_REQ, length, 0, 0, irodsPI.getApiNumber());
+			irodsConnection.send(out, length);
+		} catch (UnsupportedEncodingException e) {
+			log.error("unsupported encoding", e);
+			throw new JargonException(e);
+		} catch (IOException e) {
+			log.error("io exception sending pipelined irods command", e);
+			disconnectWithForce();
+			throw new JargonException(e);
+		}
+	}
+
+	private void readPipelinedReply(final int index, final PipelinedReplyHandler pipelinedReplyHandler)
+			throws JargonException {
+		Tag reply;
+		try {
+			reply = readMessage();
+		} catch (JargonException e) {
+			if (!irodsConnection.isConnected() || e.getCause() instanceof IOException) {
+				log.error("connection failed reading pipelined replies", e);
+				throw e;
+			}
+			log.debug("error returned for pipelined request {}", index);
+			pipelinedReplyHandler.replyReceived(index, null, e);
+			return;
+		}
+		pipelinedReplyHandler.replyReceived(index, reply, null);
 	}
 
 	/**
@@ -555,7 +894,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * error or binary streams, and will set up empty streams for the method
 	 * call.
 	 */
-	public synchronized Tag irodsFunctionForNegotiation(final IRodsPI irodsPI) throws JargonException {
+	public Tag irodsFunctionForNegotiation(final IRodsPI irodsPI) throws JargonException {
 
 		if (irodsPI == null) {
 			String err = "null irodsPI";
@@ -563,7 +902,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 			throw new IllegalArgumentException(err);
 		}
 
-		return irodsFunction(IRODSConstants.RODS_NEG_REQ, irodsPI.getParsedTags(), irodsPI.getApiNumber());
+		return irodsFunction(IRODSConstants.RODS_NEG_REQ, irodsPI.getTagValue(), irodsPI.getApiNumber());
 	}
 
 	/**
@@ -655,7 +994,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * @return {@link Tag} with the iRODS protocol response
 	 * @throws JargonException
 	 */
-	public synchronized Tag readMessage() throws JargonException {
+	public Tag readMessage() throws JargonException {
 		return readMessage(true);
 	}
 
@@ -670,63 +1009,68 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * @return {@link Tag} with the iRODS protocol response
 	 * @throws JargonException
 	 */
-	public synchronized Tag readMessage(final boolean decode) throws JargonException {
-		log.debug("reading message from irods");
-		Tag header = readHeader();
-		Tag message = null;
-
-		int messageLength = header.getTags()[1].getIntValue();
-		int errorLength = header.getTags()[2].getIntValue();
-		int bytesLength = header.getTags()[3].getIntValue();
-		int info = header.getTags()[4].getIntValue();
-
-		if (log.isDebugEnabled()) {
-			log.debug("message length:{}", messageLength);
-			log.debug("error length:{}", errorLength);
-			log.debug("bytesLength:{}", bytesLength);
-			log.debug("info value:{}", info);
-		}
-
-		// Reports iRODS errors, throw exception if appropriate
-		if (info < 0) {
-			processMessageInfoLessThanZero(messageLength, errorLength, info);
-			log.debug("returning null, no results");
-			// query with no results
-			return null;
-		}
+	public Tag readMessage(final boolean decode) throws JargonException {
+		lockSocket();
+		try {
+			log.debug("reading message from irods");
+			Tag header = readHeader();
+			Tag message = null;
 
-		if (messageLength > 0) {
-			log.debug("message length greater than zero");
-			message = readMessageBody(messageLength, decode);
+			int messageLength = header.getTags()[1].getIntValue();
+			int errorLength = header.getTags()[2].getIntValue();
+			int bytesLength = header.getTags()[3].getIntValue();
+			int info = header.getTags()[4].getIntValue();
 
-			// squelch genqueryout data for nicer logs
 			if (log.isDebugEnabled()) {
-				String messageAsString = message.parseTag();
-				int idx = messageAsString.indexOf("GenQueryOut");
-				if (idx == -1 || ConnectionConstants.DUMP_GEN_QUERY_OUT) {
-					log.debug("message from IRODS read back:{}", messageAsString);
+				log.debug("message length:{}", messageLength);
+				log.debug("error length:{}", errorLength);
+				log.debug("bytesLength:{}", bytesLength);
+				log.debug("info value:{}", info);
+			}
+
+			// Reports iRODS errors, throw exception if appropriate
+			if (info < 0) {
+				processMessageInfoLessThanZero(messageLength, errorLength, info);
+				log.debug("returning null, no results");
+				// query with no results
+				return null;
+			}
+
+			if (messageLength > 0) {
+				log.debug("message length greater than zero");
+				message = readMessageBody(messageLength, decode);
+
+				// squelch genqueryout data for nicer logs
+				if (log.isDebugEnabled()) {
+					String messageAsString = message.parseTag();
+					int idx = messageAsString.indexOf("GenQueryOut");
+					if (idx == -1 || ConnectionConstants.DUMP_GEN_QUERY_OUT) {
+						log.debug("message from IRODS read back:{}", messageAsString);
+					}
 				}
 			}
-		}
-		// previous will have returned or thrown exception
+			// previous will have returned or thrown exception
 
-		if (errorLength != 0) {
-			processMessageErrorNotEqualZero(errorLength);
-		}
+			if (errorLength != 0) {
+				processMessageErrorNotEqualZero(errorLength);
+			}
+
+			if (bytesLength != 0 || info > 0) {
+				log.debug("bytes length is not zero");
+				if (message == null) {
+					message = new Tag(IRodsPI.MSG_HEADER_PI_TAG);
+				}
 
-		if (bytesLength != 0 || info > 0) {
-			log.debug("bytes length is not zero");
-			if (message == null) {
-				message = new Tag(IRodsPI.MSG_HEADER_PI_TAG);
+				message.addTag(header);
 			}
 
-			message.addTag(header);
+			return message;
+		} finally {
+			socketLock.unlock();
 		}
-
-		return message;
 	}
 
-	public synchronized boolean isConnected() {
+	public boolean isConnected() {
 		return irodsConnection.isConnected();
 	}
 
@@ -744,42 +1088,46 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 *
 	 * @throws JargonException
 	 */
-	public synchronized void shutdown() throws JargonException {
-		log.debug("shutting down, need to send disconnect to irods");
-		if (isConnected()) {
-
-			preDisconnectAction();
-
-			log.debug("sending disconnect message");
-			try {
-				sendHeader(RequestTypes.RODS_DISCONNECT.getRequestType(), 0, 0, 0, 0);
-				irodsConnection.flush();
-				log.debug("finally, shutdown is being called on the given connection");
-				irodsConnection.shutdown();
-				if (getIrodsConnectionNonEncryptedRef() != null) {
-					getIrodsConnectionNonEncryptedRef().shutdown();
+	public void shutdown() throws JargonException {
+		socketLock.lock();
+		try {
+			log.debug("shutting down, need to send disconnect to irods");
+			if (isConnected()) {
+
+				preDisconnectAction();
+
+				log.debug("sending disconnect message");
+				try {
+					sendHeader(RequestTypes.RODS_DISCONNECT.getRequestType(), 0, 0, 0, 0);
+					irodsConnection.flush();
+					log.debug("finally, shutdown is being called on the given connection");
+					irodsConnection.shutdown();
+					if (getIrodsConnectionNonEncryptedRef() != null) {
+						getIrodsConnectionNonEncryptedRef().shutdown();
+					}
+				} catch (ClosedChannelException e) {
+					log.error("closed channel", e);
+					disconnectWithForce();
+
+					throw new JargonException(e);
+				} catch (InterruptedIOException e) {
+					log.error("interrupted io", e);
+					disconnectWithForce();
+
+					throw new JargonException(e);
+				} catch (IOException e) {
+					log.error("io exception", e);
+					disconnectWithForce();
+					throw new JargonException(e);
 				}
-			} catch (ClosedChannelException e) {
-				log.error("closed channel", e);
-				disconnectWithForce();
-
-				throw new JargonException(e);
-			} catch (InterruptedIOException e) {
-				log.error("interrupted io", e);
-				disconnectWithForce();
 
-				throw new JargonException(e);
-			} catch (IOException e) {
-				log.error("io exception", e);
-				disconnectWithForce();
-				throw new JargonException(e);
+			} else {
+				log.warn(
+						"disconnect called, but isConnected() is false, this is an unexpected condition that is logged and ignored");
 			}
-
-		} else {
-			log.warn(
-					"disconnect called, but isConnected() is false, this is an unexpected condition that is logged and ignored");
+		} finally {
+			socketLock.unlock();
 		}
-
 	}
 
 	/**
@@ -802,7 +1150,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 *
 	 * @throws JargonException
 	 */
-	public synchronized void disconnect() throws JargonException {
+	public void disconnect() throws JargonException {
 		log.debug("closing connection");
 		getIrodsSession().closeSession(getIrodsAccount());
 
@@ -820,7 +1168,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * {@code IRODSProtocolManager} that needs to directly manipulate
 	 * connections in a pool or cache.
 	 */
-	public synchronized void disconnectWithForce() throws JargonException {
+	public void disconnectWithForce() throws JargonException {
 		if (getIrodsAccount() != null) {
 			getIrodsSession().discardSessionForErrors(getIrodsAccount());
 		}
@@ -837,7 +1185,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 *
 	 * @return {@link IRODSServerProperties}
 	 */
-	public synchronized IRODSServerProperties getIRODSServerProperties() {
+	public IRODSServerProperties getIRODSServerProperties() {
 		return irodsServerProperties;
 	}
 
@@ -846,7 +1194,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 *
 	 * @return {@link IRODSAccount}
 	 */
-	public synchronized IRODSAccount getIrodsAccount() {
+	public IRODSAccount getIrodsAccount() {
 		return irodsAccount;
 	}
 
@@ -857,10 +1205,10 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * @param status
 	 * @throws IOException
 	 */
-	public synchronized void operationComplete(final int status) throws JargonException {
+	public void operationComplete(final int status) throws JargonException {
 		Tag message = new Tag(AbstractIRODSPackingInstruction.INT_PI,
 				new Tag[] { new Tag(AbstractIRODSPackingInstruction.MY_INT, status), });
-		irodsFunction(IRODSConstants.RODS_API_REQ, message.parseTag(), IRODSConstants.OPR_COMPLETE_AN);
+		irodsFunction(IRODSConstants.RODS_API_REQ, message, IRODSConstants.OPR_COMPLETE_AN);
 	}
 
 	/**
@@ -871,12 +1219,17 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 *            {@code int} with
 	 * @throws JargonException
 	 */
-	public synchronized void sendInNetworkOrder(final int value) throws JargonException {
+	public void sendInNetworkOrder(final int value) throws JargonException {
+		lockSocket();
 		try {
-			irodsConnection.sendInNetworkOrder(value);
-		} catch (IOException e) {
-			disconnectWithForce();
-			throw new JargonException(e);
+			try {
+				irodsConnection.sendInNetworkOrder(value);
+			} catch (IOException e) {
+				disconnectWithForce();
+				throw new JargonException(e);
+			}
+		} finally {
+			socketLock.unlock();
 		}
 	}
 
@@ -889,13 +1242,18 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 *            {@code int} with
 	 * @throws JargonException
 	 */
-	public synchronized void sendInNetworkOrderWithFlush(final int value) throws JargonException {
+	public void sendInNetworkOrderWithFlush(final int value) throws JargonException {
+		lockSocket();
 		try {
-			// irodsConnection.flush();
-			irodsConnection.sendInNetworkOrder(value, true);
-		} catch (IOException e) {
-			disconnectWithForce();
-			throw new JargonException(e);
+			try {
+				// irodsConnection.flush();
+				irodsConnection.sendInNetworkOrder(value, true);
+			} catch (IOException e) {
+				disconnectWithForce();
+				throw new JargonException(e);
+			}
+		} finally {
+			socketLock.unlock();
 		}
 	}
 
@@ -904,14 +1262,14 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 *
 	 * @return {@link IRODSSession}
 	 */
-	public synchronized IRODSSession getIrodsSession() {
+	public IRODSSession getIrodsSession() {
 		return irodsSession;
 	}
 
 	/**
 	 * Set the {@code IRODSSession} that was used to obtain this connection
 	 */
-	public synchronized void setIrodsSession(final IRODSSession irodsSession) {
+	public void setIrodsSession(final IRODSSession irodsSession) {
 		if (irodsSession == null) {
 			throw new IllegalArgumentException("null irodsSession");
 		}
@@ -922,7 +1280,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	/**
 	 * @return the irodsProtocolManager
 	 */
-	public synchronized IRODSProtocolManager getIrodsProtocolManager() {
+	public IRODSProtocolManager getIrodsProtocolManager() {
 		return irodsProtocolManager;
 	}
 
@@ -940,47 +1298,51 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 *            {@code Tag} containing status messages from IRODS
 	 * @throws IOException
 	 */
-	public synchronized void processClientStatusMessages(final Tag reply) throws JargonException {
+	public void processClientStatusMessages(final Tag reply) throws JargonException {
+		lockSocket();
+		try {
 
-		boolean done = false;
-		Tag ackResult = reply;
+			boolean done = false;
+			Tag ackResult = reply;
 
-		while (!done) {
-			if (ackResult.getLength() > 0) {
-				if (ackResult.getName().equals(IRODSConstants.CollOprStat_PI)) {
-					// formulate an answer status reply
+			while (!done) {
+				if (ackResult.getLength() > 0) {
+					if (ackResult.getName().equals(IRODSConstants.CollOprStat_PI)) {
+						// formulate an answer status reply
 
-					// if the total file count is 0, then I will continue and
-					// send
-					// the coll stat reply, otherwise, just ignore and
-					// don't send the reply.
+						// if the total file count is 0, then I will continue and
+						// send
+						// the coll stat reply, otherwise, just ignore and
+						// don't send the reply.
 
-					Tag fileCountTag = ackResult.getTag("filesCnt");
-					int fileCount = Integer.parseInt((String) fileCountTag.getValue());
+						Tag fileCountTag = ackResult.getTag("filesCnt");
+						int fileCount = Integer.parseInt((String) fileCountTag.getValue());
 
-					if (fileCount < IRODSConstants.SYS_CLI_TO_SVR_COLL_STAT_SIZE) {
-						done = true;
-					} else {
-						sendInNetworkOrder(IRODSConstants.SYS_CLI_TO_SVR_COLL_STAT_REPLY);
-						ackResult = readMessage();
+						if (fileCount < IRODSConstants.SYS_CLI_TO_SVR_COLL_STAT_SIZE) {
+							done = true;
+						} else {
+							sendInNetworkOrder(IRODSConstants.SYS_CLI_TO_SVR_COLL_STAT_REPLY);
+							ackResult = readMessage();
+						}
 					}
 				}
 			}
+		} finally {
+			socketLock.unlock();
 		}
-
 	}
 
 	/**
 	 * @return the authResponse
 	 */
-	public synchronized AuthResponse getAuthResponse() {
+	public AuthResponse getAuthResponse() {
 		return authResponse;
 	}
 
 	/**
 	 * @return the irodsServerProperties
 	 */
-	synchronized IRODSServerProperties getIrodsServerProperties() {
+	IRODSServerProperties getIrodsServerProperties() {
 		return irodsServerProperties;
 	}
 
@@ -988,7 +1350,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * @param irodsServerProperties
 	 *            the irodsServerProperties to set
 	 */
-	synchronized void setIrodsServerProperties(final IRODSServerProperties irodsServerProperties) {
+	void setIrodsServerProperties(final IRODSServerProperties irodsServerProperties) {
 		this.irodsServerProperties = irodsServerProperties;
 	}
 
@@ -996,7 +1358,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * @param irodsAccount
 	 *            the irodsAccount to set
 	 */
-	synchronized void setIrodsAccount(final IRODSAccount irodsAccount) {
+	void setIrodsAccount(final IRODSAccount irodsAccount) {
 		this.irodsAccount = irodsAccount;
 	}
 
@@ -1004,7 +1366,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * @param authResponse
 	 *            the authResponse to set
 	 */
-	protected synchronized void setAuthResponse(final AuthResponse authResponse) {
+	protected void setAuthResponse(final AuthResponse authResponse) {
 		this.authResponse = authResponse;
 	}
 
@@ -1159,7 +1521,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * @see org.irods.jargon.core.connection.IRODSManagedConnection#
 	 * obliterateConnectionAndDiscardErrors()
 	 */
-	public synchronized void obliterateConnectionAndDiscardErrors() {
+	public void obliterateConnectionAndDiscardErrors() {
 		log.warn("obliterateConnectionAndDiscardErrors() will forcefully close the connection");
 		irodsConnection.obliterateConnectionAndDiscardErrors();
 	}
@@ -1348,4 +1710,31 @@ public abstract class AbstractIRODSMidLevelProtocol {
 		this.irodsConnectionNonEncryptedRef = irodsConnectionNonEncryptedRef;
 	}
 
+	/**
+	 * Exclusive use of the socket of a connection, released by
+	 * {@link #close()}. Closing more than once has no effect.
+	 */
+	public static final class SocketLease implements AutoCloseable {
+
+		private final ReentrantLock lock;
+		private boolean released = false;
+
+		private SocketLease(final ReentrantLock lock) {
+			this.lock = lock;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.AutoCloseable#close()
+		 */
+		@Override
+		public void close() {
+			if (!released) {
+				released = true;
+				lock.unlock();
+			}
+		}
+	}
+
 }
@@ -0,0 +1,154 @@
+package org.irods.jargon.core.connection;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exclusive use of one pooled connection to iRODS, obtained from a
+ * {@link ConnectionLeasePool}, typically through
+ * {@link IRODSSession#leaseConnection(IRODSAccount)}. Closing the lease
+ * returns the connection to the pool for the next caller.
+ * <p>
+ * A lease may be taken again by code already running inside it, in which case
+ * the same lease is handed out and the connection goes back to the pool when
+ * the outermost holder closes it. Calling {@link #invalidate()} before closing
+ * discards the connection rather than pooling it, which is what happens when
+ * the connection is closed for errors.
+ */
+public final class ConnectionLease implements AutoCloseable {
+
+	private final ConnectionLeasePool connectionLeasePool;
+	private final IRODSAccount irodsAccount;
+	private final AbstractIRODSMidLevelProtocol irodsProtocol;
+	private final AtomicInteger holds = new AtomicInteger(1);
+	private final boolean newConnection;
+	private volatile boolean invalid = false;
+
+	/**
+	 * session that has this lease in scope, if any, told when it is released
+	 */
+	private volatile IRODSSession boundSession = null;
+
+	ConnectionLease(final ConnectionLeasePool connectionLeasePool,
+			final IRODSAccount irodsAccount,
+			final AbstractIRODSMidLevelProtocol irodsProtocol,
+			final boolean newConnection) {
+		this.connectionLeasePool = connectionLeasePool;
+		this.irodsAccount = irodsAccount;
+		this.irodsProtocol = irodsProtocol;
+		this.newConnection = newConnection;
+	}
+
+	/**
+	 * @return {@link IRODSAccount} the connection was leased for
+	 */
+	public IRODSAccount getIrodsAccount() {
+		return irodsAccount;
+	}
+
+	/**
+	 * @return {@link AbstractIRODSMidLevelProtocol} held by this lease
+	 */
+	public AbstractIRODSMidLevelProtocol getIrodsProtocol() {
+		return irodsProtocol;
+	}
+
+	/**
+	 * @return {@code boolean} that is {@code true} while the connection is
+	 *         held by this lease
+	 */
+	public boolean isHeld() {
+		return holds.get() > 0;
+	}
+
+	/**
+	 * Mark the connection as unusable, so that it is shut down instead of
+	 * returned to the pool when the lease is released
+	 */
+	public void invalidate() {
+		invalid = true;
+	}
+
+	/**
+	 * Give up one hold on the lease, returning the connection to the pool once
+	 * the last hold is given up. Extra calls have no effect.
+	 */
+	@Override
+	public void close() {
+		int remaining = holds.decrementAndGet();
+		if (remaining == 0) {
+			released();
+		} else if (remaining < 0) {
+			holds.set(0);
+		}
+	}
+
+	/**
+	 * Take another hold on a lease that is still held
+	 *
+	 * @return {@code boolean} that is {@code false} if the lease was already
+	 *         released
+	 */
+	boolean reenter() {
+		while (true) {
+			int current = holds.get();
+			if (current <= 0) {
+				return false;
+			}
+			if (holds.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Release the connection regardless of how many holds are outstanding
+	 */
+	void releaseAll() {
+		if (holds.getAndSet(0) > 0) {
+			released();
+		}
+	}
+
+	void bindTo(final IRODSSession irodsSession) {
+		boundSession = irodsSession;
+	}
+
+	private void released() {
+		connectionLeasePool.release(this);
+		IRODSSession irodsSession = boundSession;
+		if (irodsSession != null) {
+			irodsSession.unbindLease(this);
+		}
+	}
+
+	/**
+	 * @return {@code boolean} that is {@code true} if the connection was
+	 *         opened for this lease rather than taken from the idle pool
+	 */
+	boolean isNewConnection() {
+		return newConnection;
+	}
+
+	boolean isInvalid() {
+		return invalid;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("ConnectionLease [irodsAccount=");
+		builder.append(irodsAccount);
+		builder.append(", holds=");
+		builder.append(holds.get());
+		builder.append(", invalid=");
+		builder.append(invalid);
+		builder.append("]");
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,304 @@
+package org.irods.jargon.core.connection;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of connections to iRODS, keyed by {@code IRODSAccount}, that
+ * hands out connections as explicit {@link ConnectionLease}s instead of tying
+ * them to a thread. Any number of callers, including short lived or virtual
+ * threads, may lease from the pool; at most
+ * {@code maxConnectionsPerAccount} connections are open for an account, and
+ * callers beyond that wait, in order, for a lease to be closed.
+ * <p>
+ * Leasing an idle connection is a permit acquisition and a deque poll, with no
+ * round trip to iRODS. Idle connections are reused most recently returned
+ * first. A connection that is found disconnected, was invalidated, or is older
+ * than the socket renewal interval in its {@link PipelineConfiguration} is
+ * shut down instead of being handed out again.
+ * <p>
+ * The pool is installed with
+ * {@link IRODSSession#setConnectionLeasePool(ConnectionLeasePool)}, and new
+ * connections are obtained from the {@code IRODSProtocolManager} of the session
+ * that asks for the lease.
+ */
+public class ConnectionLeasePool {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(ConnectionLeasePool.class);
+
+	private final int maxConnectionsPerAccount;
+	private final long leaseWaitMillis;
+	private final ConcurrentHashMap<String, AccountConnections> connections = new ConcurrentHashMap<String, AccountConnections>();
+	private volatile boolean closed = false;
+
+	/**
+	 * Create a pool
+	 *
+	 * @param maxConnectionsPerAccount
+	 *            {@code int} with the most connections that may be open at one
+	 *            time for a single account
+	 * @param leaseWaitMillis
+	 *            {@code long} with the time to wait for a connection when all
+	 *            of those for the account are leased, after which
+	 *            {@link #lease(IRODSAccount, IRODSSession)} fails
+	 */
+	public ConnectionLeasePool(final int maxConnectionsPerAccount,
+			final long leaseWaitMillis) {
+
+		if (maxConnectionsPerAccount <= 0) {
+			throw new IllegalArgumentException(
+					"maxConnectionsPerAccount must be > 0");
+		}
+
+		if (leaseWaitMillis < 0) {
+			throw new IllegalArgumentException("leaseWaitMillis must be >= 0");
+		}
+
+		this.maxConnectionsPerAccount = maxConnectionsPerAccount;
+		this.leaseWaitMillis = leaseWaitMillis;
+	}
+
+	/**
+	 * Lease a connection for the given account, reusing an idle one if
+	 * available, otherwise connecting through the protocol manager of the
+	 * session. The returned lease must be closed.
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} for the connection
+	 * @param irodsSession
+	 *            {@link IRODSSession} used to create a new connection if
+	 *            needed
+	 * @return {@link ConnectionLease}
+	 * @throws JargonException
+	 *             if no connection becomes available within the lease wait
+	 *             time, or a new connection cannot be made
+	 */
+	public ConnectionLease lease(final IRODSAccount irodsAccount,
+			final IRODSSession irodsSession) throws JargonException {
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		if (irodsSession == null) {
+			throw new IllegalArgumentException("null irodsSession");
+		}
+
+		if (closed) {
+			throw new JargonException("connection lease pool is closed");
+		}
+
+		AccountConnections accountConnections = accountConnections(irodsAccount);
+		acquirePermit(accountConnections, irodsAccount);
+
+		try {
+			AbstractIRODSMidLevelProtocol irodsProtocol;
+			while ((irodsProtocol = accountConnections.idle.pollFirst()) != null) {
+				if (isReusable(irodsProtocol)) {
+					log.debug("leasing idle connection:{}", irodsProtocol);
+					return new ConnectionLease(this, irodsAccount, irodsProtocol,
+							false);
+				}
+				shutdown(irodsProtocol, false);
+			}
+
+			log.debug("no idle connection, connecting for account:{}",
+					irodsAccount);
+			irodsProtocol = irodsSession.getIrodsProtocolManager()
+					.getIRODSProtocol(
+							irodsAccount,
+							irodsSession
+									.buildPipelineConfigurationBasedOnJargonProperties(),
+							irodsSession);
+			if (irodsProtocol == null) {
+				throw new JargonException(
+						"null connection returned from connection manager");
+			}
+			return new ConnectionLease(this, irodsAccount, irodsProtocol, true);
+
+		} catch (JargonException e) {
+			accountConnections.permits.release();
+			throw e;
+		} catch (RuntimeException e) {
+			accountConnections.permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Shut down all idle connections and refuse further leases. Connections
+	 * that are leased are shut down as their leases are closed.
+	 */
+	public void close() {
+		log.info("closing connection lease pool");
+		closed = true;
+		for (AccountConnections accountConnections : connections.values()) {
+			drain(accountConnections);
+		}
+	}
+
+	/**
+	 * @param irodsAccount
+	 *            {@link IRODSAccount}
+	 * @return {@code int} with the number of idle connections pooled for the
+	 *         account
+	 */
+	public int getIdleCount(final IRODSAccount irodsAccount) {
+		AccountConnections accountConnections = connections
+				.get(irodsAccount.toString());
+		return accountConnections == null ? 0 : accountConnections.idle
+				.size();
+	}
+
+	/**
+	 * @param irodsAccount
+	 *            {@link IRODSAccount}
+	 * @return {@code int} with the number of connections currently leased for
+	 *         the account
+	 */
+	public int getLeasedCount(final IRODSAccount irodsAccount) {
+		AccountConnections accountConnections = connections
+				.get(irodsAccount.toString());
+		return accountConnections == null ? 0 : maxConnectionsPerAccount
+				- accountConnections.permits.availablePermits();
+	}
+
+	/**
+	 * @return {@code int} with the most connections open at one time for an
+	 *         account
+	 */
+	public int getMaxConnectionsPerAccount() {
+		return maxConnectionsPerAccount;
+	}
+
+	/**
+	 * @return {@code long} with the time a lease waits for a connection
+	 */
+	public long getLeaseWaitMillis() {
+		return leaseWaitMillis;
+	}
+
+	/**
+	 * Return the connection of a released lease to the pool, or shut it down
+	 * if it can't be reused
+	 */
+	void release(final ConnectionLease connectionLease) {
+		AccountConnections accountConnections = accountConnections(connectionLease
+				.getIrodsAccount());
+		AbstractIRODSMidLevelProtocol irodsProtocol = connectionLease
+				.getIrodsProtocol();
+		try {
+			if (connectionLease.isInvalid()) {
+				log.warn("discarding invalidated connection:{}", irodsProtocol);
+				shutdown(irodsProtocol, true);
+			} else if (closed || !isReusable(irodsProtocol)) {
+				shutdown(irodsProtocol, false);
+			} else {
+				accountConnections.idle.offerFirst(irodsProtocol);
+				if (closed) {
+					drain(accountConnections);
+				}
+			}
+		} finally {
+			accountConnections.permits.release();
+		}
+	}
+
+	private AccountConnections accountConnections(
+			final IRODSAccount irodsAccount) {
+		String key = irodsAccount.toString();
+		AccountConnections accountConnections = connections.get(key);
+		if (accountConnections == null) {
+			AccountConnections created = new AccountConnections(
+					maxConnectionsPerAccount);
+			accountConnections = connections.putIfAbsent(key, created);
+			if (accountConnections == null) {
+				accountConnections = created;
+			}
+		}
+		return accountConnections;
+	}
+
+	private void acquirePermit(final AccountConnections accountConnections,
+			final IRODSAccount irodsAccount) throws JargonException {
+		try {
+			if (!accountConnections.permits.tryAcquire(leaseWaitMillis,
+					TimeUnit.MILLISECONDS)) {
+				log.error("timed out waiting for a connection for:{}",
+						irodsAccount);
+				throw new JargonException(
+						"timed out waiting for a connection lease for:"
+								+ irodsAccount);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JargonException(
+					"interrupted waiting for a connection lease", e);
+		}
+	}
+
+	private boolean isReusable(final AbstractIRODSMidLevelProtocol irodsProtocol) {
+		if (!irodsProtocol.isConnected()) {
+			return false;
+		}
+
+		int renewalInterval = irodsProtocol.getPipelineConfiguration()
+				.getSocketRenewalIntervalInSeconds();
+		// 0 means ignore
+		if (renewalInterval == 0) {
+			return true;
+		}
+
+		return System.currentTimeMillis() <= irodsProtocol
+				.getConnectTimeInMillis() + renewalInterval * 1000L;
+	}
+
+	private void drain(final AccountConnections accountConnections) {
+		Iterator<AbstractIRODSMidLevelProtocol> idle = accountConnections.idle
+				.iterator();
+		while (idle.hasNext()) {
+			AbstractIRODSMidLevelProtocol irodsProtocol = idle.next();
+			idle.remove();
+			shutdown(irodsProtocol, false);
+		}
+	}
+
+	private void shutdown(final AbstractIRODSMidLevelProtocol irodsProtocol,
+			final boolean force) {
+		log.debug("shutting down pooled connection:{}", irodsProtocol);
+		IRODSProtocolManager irodsProtocolManager = irodsProtocol
+				.getIrodsProtocolManager();
+		if (force || !irodsProtocol.isConnected()) {
+			irodsProtocolManager.returnWithForce(irodsProtocol);
+			return;
+		}
+
+		try {
+			irodsProtocolManager.returnIRODSProtocol(irodsProtocol);
+		} catch (JargonException e) {
+			log.warn("error shutting down pooled connection, discarding", e);
+			irodsProtocolManager.returnWithForce(irodsProtocol);
+		}
+	}
+
+	/**
+	 * Permits and idle connections for one account
+	 */
+	private static final class AccountConnections {
+		private final Semaphore permits;
+		private final ConcurrentLinkedDeque<AbstractIRODSMidLevelProtocol> idle = new ConcurrentLinkedDeque<AbstractIRODSMidLevelProtocol>();
+
+		AccountConnections(final int maxConnections) {
+			permits = new Semaphore(maxConnections, true);
+		}
+	}
+
+}
@@ -79,6 +79,16 @@ public class DefaultPropertiesJargonConfig implements JargonProperties {
 		return verifyPropExistsAndGetAsInt("transfer.max.parallel.threads");
 	}
 
+	@Override
+	public int getConcurrentFileTransferThreads() {
+		return verifyPropExistsAndGetAsInt("transfer.concurrent.file.threads");
+	}
+
+	@Override
+	public int getAsyncTransfersPerHost() {
+		return verifyPropExistsAndGetAsInt("transfer.async.max.per.host");
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -283,6 +293,11 @@ public class DefaultPropertiesJargonConfig implements JargonProperties {
 		return verifyPropExistsAndGetAsInt("jargon.put.buffer.size");
 	}
 
+	@Override
+	public int getPutReadAheadBuffers() {
+		return verifyPropExistsAndGetAsInt("jargon.put.read.ahead.buffers");
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -512,11 +527,56 @@ public class DefaultPropertiesJargonConfig implements JargonProperties {
 		return verifyPropExistsAndGetAsBoolean("transfer.long.file.restart");
 	}
 
+	@Override
+	public String getLongTransferRestartJournalDirectory() {
+		return verifyPropExistsAndGetAsString("transfer.long.file.restart.journal.directory");
+	}
+
 	@Override
 	public int getParallelCopyBufferSize() {
 		return verifyPropExistsAndGetAsInt("jargon.parallel.copy.buffer.size");
 	}
 
+	@Override
+	public boolean isParallelZeroCopyTransfer() {
+		return verifyPropExistsAndGetAsBoolean("jargon.parallel.zero.copy");
+	}
+
+	@Override
+	public boolean isParallelStagedEncryption() {
+		return verifyPropExistsAndGetAsBoolean("jargon.parallel.staged.encryption");
+	}
+
+	@Override
+	public boolean isAdaptiveParallelThreads() {
+		return verifyPropExistsAndGetAsBoolean("jargon.parallel.adaptive.threads");
+	}
+
+	@Override
+	public int getRandomAccessCachePageSize() {
+		return verifyPropExistsAndGetAsInt("jargon.io.random.access.cache.page.size");
+	}
+
+	@Override
+	public int getRandomAccessCachePages() {
+		return verifyPropExistsAndGetAsInt("jargon.io.random.access.cache.pages");
+	}
+
+	@Override
+	public int getRandomAccessReadAheadPages() {
+		return verifyPropExistsAndGetAsInt("jargon.io.random.access.read.ahead.pages");
+	}
+
+	@Override
+	public long getObjStatCacheTimeToLiveMillis() {
+		return verifyPropExistsAndGetAsLong("jargon.objstat.cache.ttl.millis");
+	}
+
+	@Override
+	public int getObjStatCacheMaxEntries() {
+		return verifyPropExistsAndGetAsInt("jargon.objstat.cache.max.entries");
+	}
+
 	@Override
 	public int getIntraFileStatusCallbacksNumberCallsInterval() {
 		return verifyPropExistsAndGetAsInt("transfer.intra.file.callback.after.n.calls");
@@ -16,9 +16,11 @@ import org.slf4j.LoggerFactory;
  * <p>
  * Note that the IRODS Connection object that this protocol utilizes is not
  * synchronized. Since a connection manager may also be managing the connection.
- * This {@code IRODSProtocol} object manages any necessary synchronization
- * on the connection to the underlying {@link IRODSBasicTCPConnection
- * IRODSConnection} This connection should not be shared between threads. A rule
+ * This {@code IRODSProtocol} object serializes i/o on the connection to the
+ * underlying {@link IRODSBasicTCPConnection IRODSConnection} with the socket
+ * lock of {@link AbstractIRODSMidLevelProtocol}, see
+ * {@link AbstractIRODSMidLevelProtocol#leaseSocket()}. This connection should
+ * not be shared between threads. A rule
  * of thumb is to treat a connection to IRODS the same way you would treat a
  * JDBC database connection.
  * <p>
@@ -101,9 +103,14 @@ public class IRODSMidLevelProtocol extends AbstractIRODSMidLevelProtocol {
 	}
 
 	@Override
-	synchronized void closeOutSocketAndSetAsDisconnected() throws IOException {
-		getIrodsConnection().getConnection().close();
-		getIrodsConnection().setConnected(false);
+	void closeOutSocketAndSetAsDisconnected() throws IOException {
+		getSocketLock().lock();
+		try {
+			getIrodsConnection().getConnection().close();
+			getIrodsConnection().setConnected(false);
+		} finally {
+			getSocketLock().unlock();
+		}
 	}
 
 	/**
@@ -161,63 +168,111 @@ public class IRODSMidLevelProtocol extends AbstractIRODSMidLevelProtocol {
 	 * @throws JargonException
 	 */
 	@Override
-	public synchronized Tag irodsFunction(final String type,
+	public Tag irodsFunction(final String type,
 			final String message, final byte[] errorBytes,
 			final int errorOffset, final int errorLength, final byte[] bytes,
 			final int byteOffset, final int byteBufferLength, final int intInfo)
 			throws JargonException {
 
-		log.debug("calling irods function with byte array");
-
 		if (intInfo != 1201) {
 			log.debug("calling irods function with:{}", message);
 		}
 
-		log.debug("api number is:{}", intInfo);
+		return sendIrodsFunction(type, message, null, errorLength, bytes,
+				byteOffset, byteBufferLength, intInfo);
+	}
 
-		if (type == null || type.length() == 0) {
-			String err = "null or blank type";
-			log.error(err);
-			throw new JargonException(err);
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol#irodsFunction
+	 * (java.lang.String, org.irods.jargon.core.packinstr.Tag, byte[], int, int,
+	 * byte[], int, int, int)
+	 */
+	@Override
+	public Tag irodsFunction(final String type,
+			final Tag message, final byte[] errorBytes,
+			final int errorOffset, final int errorLength, final byte[] bytes,
+			final int byteOffset, final int byteBufferLength, final int intInfo)
+			throws JargonException {
+
+		if (intInfo != 1201 && message != null && log.isDebugEnabled()) {
+			log.debug("calling irods function with:{}", message.parseTag());
 		}
 
-		// message may be null for some operations
+		return sendIrodsFunction(type, null, message, errorLength, bytes,
+				byteOffset, byteBufferLength, intInfo);
+	}
 
+	/**
+	 * Send a request and read the response, with the message given either as
+	 * a {@code String} or as a {@link Tag} serialized straight into the
+	 * connection, the other being {@code null}
+	 */
+	private Tag sendIrodsFunction(final String type,
+			final String stringMessage, final Tag tagMessage,
+			final int errorLength, final byte[] bytes, final int byteOffset,
+			final int byteBufferLength, final int intInfo)
+			throws JargonException {
+		lockSocket();
 		try {
-			int messageLength = 0;
 
-			if (message != null) {
-				messageLength = message.getBytes(getEncoding()).length;
+			log.debug("calling irods function with byte array");
+			log.debug("api number is:{}", intInfo);
+
+			if (type == null || type.length() == 0) {
+				String err = "null or blank type";
+				log.error(err);
+				throw new JargonException(err);
 			}
 
-			sendHeader(type, messageLength, errorLength, byteBufferLength,
-					intInfo);
+			// message may be null for some operations
+
+			try {
+				int messageLength = 0;
+
+				if (stringMessage != null) {
+					messageLength = stringMessage.getBytes(getEncoding()).length;
+				} else {
+					messageLength = messageLength(tagMessage);
+				}
 
-			if (getStartupResponseData() == null) {
-				log.debug("no ssl flush checking during negotiation");
-			} else if (isPamFlush()) {
-				log.debug("doing extra pam flush for iRODS 3.2");
+				sendHeader(type, messageLength, errorLength, byteBufferLength,
+						intInfo);
+
+				if (getStartupResponseData() == null) {
+					log.debug("no ssl flush checking during negotiation");
+				} else if (isPamFlush()) {
+					log.debug("doing extra pam flush for iRODS 3.2");
+					getIrodsConnection().flush();
+				}
+
+				if (stringMessage != null) {
+					getIrodsConnection().send(stringMessage);
+				} else {
+					getIrodsConnection().send(tagMessage, messageLength);
+				}
 				getIrodsConnection().flush();
-			}
 
-			getIrodsConnection().send(message);
-			getIrodsConnection().flush();
+				if (byteBufferLength > 0) {
+					getIrodsConnection().send(bytes, byteOffset, byteBufferLength);
+				}
 
-			if (byteBufferLength > 0) {
-				getIrodsConnection().send(bytes, byteOffset, byteBufferLength);
-			}
+				getIrodsConnection().flush();
 
-			getIrodsConnection().flush();
+			} catch (UnsupportedEncodingException e) {
+				log.error("unsupported encoding", e);
+				throw new JargonException(e);
+			} catch (IOException e) {
+				disconnectWithForce();
+				throw new JargonException(e);
+			}
 
-		} catch (UnsupportedEncodingException e) {
-			log.error("unsupported encoding", e);
-			throw new JargonException(e);
-		} catch (IOException e) {
-			disconnectWithForce();
-			throw new JargonException(e);
+			return readMessage();
+		} finally {
+			getSocketLock().unlock();
 		}
-
-		return readMessage();
 	}
 
 	/**
@@ -249,60 +304,64 @@ public class IRODSMidLevelProtocol extends AbstractIRODSMidLevelProtocol {
 	 * @throws JargonException
 	 */
 	@Override
-	public synchronized void irodsFunctionUnidirectional(final String type,
+	public void irodsFunctionUnidirectional(final String type,
 			final byte[] message, final byte[] errorBytes,
 			final int errorOffset, final int errorLength, final byte[] bytes,
 			final int byteOffset, final int byteBufferLength, final int intInfo)
 			throws JargonException {
+		lockSocket();
+		try {
 
-		log.debug("calling irods function with byte array");
-		log.debug("calling irods function with:{}", message);
-		log.debug("api number is:{}", intInfo);
+			log.debug("calling irods function with byte array");
+			log.debug("calling irods function with:{}", message);
+			log.debug("api number is:{}", intInfo);
 
-		if (type == null || type.length() == 0) {
-			String err = "null or blank type";
-			log.error(err);
-			throw new JargonException(err);
-		}
+			if (type == null || type.length() == 0) {
+				String err = "null or blank type";
+				log.error(err);
+				throw new JargonException(err);
+			}
 
-		// message may be null for some operations
+			// message may be null for some operations
 
-		try {
-			int messageLength = 0;
+			try {
+				int messageLength = 0;
 
-			if (message != null) {
-				messageLength = message.length;
-			}
+				if (message != null) {
+					messageLength = message.length;
+				}
 
-			sendHeader(type, messageLength, errorLength, byteBufferLength,
-					intInfo);
+				sendHeader(type, messageLength, errorLength, byteBufferLength,
+						intInfo);
 
-			if (getStartupResponseData() == null) {
-				log.debug("no pam flush check during negotiation phase");
-			} else if (isPamFlush()) {
-				log.debug("doing extra pam flush for iRODS 3.2");
-				getIrodsConnection().flush();
-			}
+				if (getStartupResponseData() == null) {
+					log.debug("no pam flush check during negotiation phase");
+				} else if (isPamFlush()) {
+					log.debug("doing extra pam flush for iRODS 3.2");
+					getIrodsConnection().flush();
+				}
 
-			if (messageLength > 0) {
-				getIrodsConnection().send(message);
-				getIrodsConnection().flush();
-			}
+				if (messageLength > 0) {
+					getIrodsConnection().send(message);
+					getIrodsConnection().flush();
+				}
 
-			if (byteBufferLength > 0) {
-				getIrodsConnection().send(bytes, byteOffset, byteBufferLength);
-			}
+				if (byteBufferLength > 0) {
+					getIrodsConnection().send(bytes, byteOffset, byteBufferLength);
+				}
 
-			getIrodsConnection().flush();
+				getIrodsConnection().flush();
 
-		} catch (UnsupportedEncodingException e) {
-			log.error("unsupported encoding", e);
-			throw new JargonException(e);
-		} catch (IOException e) {
-			disconnectWithForce();
-			throw new JargonException(e);
+			} catch (UnsupportedEncodingException e) {
+				log.error("unsupported encoding", e);
+				throw new JargonException(e);
+			} catch (IOException e) {
+				disconnectWithForce();
+				throw new JargonException(e);
+			}
+		} finally {
+			getSocketLock().unlock();
 		}
-
 	}
 
 	/*
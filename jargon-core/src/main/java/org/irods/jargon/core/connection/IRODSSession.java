@@ -3,13 +3,19 @@
  */
 package org.irods.jargon.core.connection;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.net.ssl.SSLContext;
 import javax.net.ssl.X509TrustManager;
 
 import org.irods.jargon.core.checksum.LocalChecksumComputerFactory;
@@ -32,7 +38,12 @@ import org.irods.jargon.core.query.RodsGenQueryEnum;
 import org.irods.jargon.core.query.TranslatedIRODSGenQuery;
 import org.irods.jargon.core.transfer.AbstractRestartManager;
 import org.irods.jargon.core.transfer.DefaultTransferControlBlock;
+import org.irods.jargon.core.transfer.FileRestartManagementException;
+import org.irods.jargon.core.transfer.JournalBasedTransferRestartManager;
 import org.irods.jargon.core.transfer.MemoryBasedTransferRestartManager;
+import org.irods.jargon.core.transfer.ParallelTransferTuner;
+import org.irods.jargon.core.transfer.RestartJournalInUseException;
+import org.irods.jargon.core.transfer.TransferAdmissionControl;
 import org.irods.jargon.core.transfer.TransferControlBlock;
 import org.irods.jargon.core.utils.MiscIRODSUtils;
 import org.slf4j.Logger;
@@ -62,6 +73,16 @@ import org.slf4j.LoggerFactory;
  * cache. The actual operative account is stored within the iRODS protocol. For
  * example, a PAM login may create a temp irods user under the covers, so a user
  * presents his pam iRODS account, but the system uses the derived account.
+ * <p>
+ * Installing a {@link ConnectionLeasePool} switches the session from one
+ * connection per thread to connections leased from a bounded pool shared by
+ * all threads. Connections are then held only within an explicit
+ * {@link ConnectionLease} scope, see {@link #leaseConnection(IRODSAccount)}, so
+ * that many concurrent requests, such as those run on virtual threads, share a
+ * small number of iRODS agents. {@link #currentConnection(IRODSAccount)} keeps
+ * working in this mode: inside a lease scope it returns the leased
+ * connection, and outside of one it takes a lease that is held until the
+ * session is closed for the account.
  *
  * @author Mike Conway - DICE (www.irods.org)
  *
@@ -75,6 +96,21 @@ public class IRODSSession {
 	 */
 	public static final ThreadLocal<Map<String, AbstractIRODSMidLevelProtocol>> sessionMap = new ThreadLocal<Map<String, AbstractIRODSMidLevelProtocol>>();
 
+	/**
+	 * Leases from the {@link ConnectionLeasePool} of this session that are in
+	 * scope on the current thread, keyed by the {@link IRODSAccount}. Unlike
+	 * {@link #sessionMap}, this is per session, so that sessions used on the
+	 * same thread keep their own leases, an entry only lives as long as its
+	 * lease, and the map is cleared when the last lease is released.
+	 */
+	private final ThreadLocal<Map<String, ConnectionLease>> leaseMap = new ThreadLocal<Map<String, ConnectionLease>>();
+
+	/**
+	 * Optional pool of connections, if set, connections are leased from the
+	 * pool rather than kept per thread
+	 */
+	private volatile ConnectionLeasePool connectionLeasePool = null;
+
 	/**
 	 * The parallel transfer thread pool is lazily initialized on the first
 	 * parallel transfer operation. This will use the
@@ -84,6 +120,36 @@ public class IRODSSession {
 	 * effect.
 	 */
 	private ExecutorService parallelTransferThreadPool = null;
+
+	/**
+	 * Threads that run asynchronous transfers, lazily created unless one is
+	 * provided
+	 */
+	private ExecutorService asyncTransferExecutor = null;
+
+	/**
+	 * Whether the async transfer executor was created here, and so is shut
+	 * down here, rather than provided by the caller
+	 */
+	private boolean asyncTransferExecutorCreated = false;
+
+	/**
+	 * Per host limit on asynchronous transfers, lazily created from the
+	 * {@code JargonProperties}
+	 */
+	private TransferAdmissionControl transferAdmissionControl = null;
+
+	/**
+	 * History of parallel transfers to each host, used to choose the number of
+	 * threads to ask for
+	 */
+	private final ParallelTransferTuner parallelTransferTuner = new ParallelTransferTuner();
+
+	/**
+	 * Object stats and listing entries shared by the access objects, created
+	 * on first use from the {@code JargonProperties}
+	 */
+	private ObjStatCache objStatCache = null;
 	private IRODSProtocolManager irodsProtocolManager;
 	private static final Logger log = LoggerFactory.getLogger(IRODSSession.class);
 
@@ -96,6 +162,13 @@ public class IRODSSession {
 	 */
 	private X509TrustManager x509TrustManager = null;
 
+	/**
+	 * SSL context shared by the SSL connections of this session, and the trust
+	 * manager it was built with
+	 */
+	private SSLContext sslContext = null;
+	private X509TrustManager sslContextTrustManager = null;
+
 	/**
 	 * @return the x509TrustManager that is currently set for SSL connections,
 	 *         it may be {@code null}, which will take a default for any
@@ -121,6 +194,24 @@ public class IRODSSession {
 		this.x509TrustManager = x509TrustManager;
 	}
 
+	/**
+	 * Get the SSL context for the SSL connections of this session, built when
+	 * first needed and again if the trust manager has been changed. Sharing
+	 * one context lets connections to a host and port resume an earlier TLS
+	 * session instead of doing a full handshake each time.
+	 *
+	 * @return {@link SSLContext}
+	 */
+	synchronized SSLContext getSslContext() {
+		if (sslContext == null || sslContextTrustManager != x509TrustManager) {
+			log.info("building ssl context");
+			sslContext = SslConnectionUtilities
+					.createSslContext(x509TrustManager);
+			sslContextTrustManager = x509TrustManager;
+		}
+		return sslContext;
+	}
+
 	/**
 	 * Manager for long file restarts. Defaults to a simple in-memory manager,
 	 * but can have an alternative manager injected. There is no harm in leaving
@@ -129,6 +220,12 @@ public class IRODSSession {
 	 */
 	private AbstractRestartManager restartManager = null;
 
+	/**
+	 * Whether the restart manager is a journal opened here, and so is closed
+	 * here
+	 */
+	private boolean journalRestartManagerCreated = false;
+
 	/**
 	 * General configuration properties for operation of jargon, buffer sizes,
 	 * thread counts, etc.
@@ -217,6 +314,7 @@ public class IRODSSession {
 		synchronized (this) {
 			transferOptions.setMaxThreads(jargonProperties.getMaxParallelThreads());
 			transferOptions.setUseParallelTransfer(jargonProperties.isUseParallelTransfer());
+			transferOptions.setConcurrentFileTransferThreads(jargonProperties.getConcurrentFileTransferThreads());
 			transferOptions.setAllowPutGetResourceRedirects(jargonProperties.isAllowPutGetResourceRedirects());
 			transferOptions.setComputeAndVerifyChecksumAfterTransfer(
 					jargonProperties.isComputeAndVerifyChecksumAfterTransfer());
@@ -244,6 +342,7 @@ public class IRODSSession {
 	 */
 	public void closeSession() throws JargonException {
 		log.debug("closing all irods sessions");
+		releaseAllLeases();
 		final Map<String, AbstractIRODSMidLevelProtocol> irodsProtocols = sessionMap.get();
 
 		if (irodsProtocols == null) {
@@ -343,6 +442,13 @@ public class IRODSSession {
 	 * connection from the cache. This connection is per-Thread, so if another
 	 * thread has a cached connection, it is not visible from here, and must be
 	 * properly closed on that Thread.
+	 * <p>
+	 * With a {@link ConnectionLeasePool} installed, this returns the leased
+	 * connection when called inside a {@link #leaseConnection(IRODSAccount)}
+	 * scope. Called outside of one, it leases a connection that stays bound to
+	 * this thread, and out of the pool, until the session is closed for the
+	 * account, as a per thread connection would. Code that should give the
+	 * connection back to the pool as soon as it is done must use a lease scope.
 	 *
 	 * @param irodsAccount
 	 *            {@code IRODSAccount} that describes this connection to
@@ -365,6 +471,10 @@ public class IRODSSession {
 			throw new IllegalArgumentException("irodsAccount is null");
 		}
 
+		if (connectionLeasePool != null) {
+			return currentLease(irodsAccount).getIrodsProtocol();
+		}
+
 		AbstractIRODSMidLevelProtocol irodsProtocol = null;
 
 		Map<String, AbstractIRODSMidLevelProtocol> irodsProtocols = sessionMap.get();
@@ -398,6 +508,156 @@ public class IRODSSession {
 		return irodsProtocol;
 	}
 
+	/**
+	 * Lease a connection for the given account from the
+	 * {@link ConnectionLeasePool} installed in this session. Until the lease
+	 * is closed, {@link #currentConnection(IRODSAccount)} on this thread
+	 * returns the leased connection, so access objects used inside the scope
+	 * share it:
+	 *
+	 * <pre>
+	 * try (ConnectionLease lease = irodsSession.leaseConnection(irodsAccount)) {
+	 * 	collectionAO.findByAbsolutePath(path);
+	 * }
+	 * </pre>
+	 *
+	 * If a lease for the account is already in scope on this thread, that
+	 * lease is returned, and the connection is released when the outermost
+	 * scope closes it.
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} that describes the connection
+	 * @return {@link ConnectionLease} that must be closed
+	 * @throws JargonException
+	 */
+	public ConnectionLease leaseConnection(final IRODSAccount irodsAccount) throws JargonException {
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		if (connectionLeasePool == null) {
+			log.error("no connection lease pool provided");
+			throw new JargonRuntimeException("IRODSSession has no ConnectionLeasePool to lease connections from");
+		}
+
+		Map<String, ConnectionLease> leases = leaseMap.get();
+		if (leases != null) {
+			ConnectionLease connectionLease = leases.get(irodsAccount.toString());
+			if (connectionLease != null && connectionLease.reenter()) {
+				log.debug("reentering lease in scope:{}", connectionLease);
+				return connectionLease;
+			}
+		}
+
+		return leaseAndBind(irodsAccount);
+	}
+
+	/**
+	 * Find the lease in scope for the account, or lease a connection and bind
+	 * it to this thread until the session is closed for the account
+	 *
+	 * @param irodsAccount
+	 * @return {@link ConnectionLease}
+	 * @throws JargonException
+	 */
+	private ConnectionLease currentLease(final IRODSAccount irodsAccount) throws JargonException {
+		Map<String, ConnectionLease> leases = leaseMap.get();
+		if (leases != null) {
+			ConnectionLease connectionLease = leases.get(irodsAccount.toString());
+			if (connectionLease != null && connectionLease.isHeld()) {
+				if (connectionLease.getIrodsProtocol().isConnected()) {
+					log.debug("session using leased connection:{}", connectionLease);
+					return connectionLease;
+				}
+				log.warn("leased connection is marked closed, discard and lease another:{}", connectionLease);
+				connectionLease.invalidate();
+				connectionLease.releaseAll();
+			}
+		}
+
+		return leaseAndBind(irodsAccount);
+	}
+
+	private ConnectionLease leaseAndBind(final IRODSAccount irodsAccount) throws JargonException {
+		ConnectionLease connectionLease = connectionLeasePool.lease(irodsAccount, this);
+
+		if (connectionLease.isNewConnection() && irodsAccount.getAuthenticationScheme() == AuthScheme.GSI) {
+			log.debug("adding user information to iRODS account for GSI");
+			try {
+				addUserInfoForGSIAccount(irodsAccount, connectionLease.getIrodsProtocol());
+			} catch (JargonException e) {
+				connectionLease.close();
+				throw e;
+			}
+		}
+
+		Map<String, ConnectionLease> leases = leaseMap.get();
+		if (leases == null) {
+			leases = new HashMap<String, ConnectionLease>();
+			leaseMap.set(leases);
+		}
+		connectionLease.bindTo(this);
+		leases.put(irodsAccount.toString(), connectionLease);
+		log.debug("bound lease:{}", connectionLease);
+		return connectionLease;
+	}
+
+	/**
+	 * Called by a {@link ConnectionLease} bound by this session when it has
+	 * been released. This is a no-op unless called on the thread that holds the
+	 * binding.
+	 *
+	 * @param connectionLease
+	 *            {@link ConnectionLease} that was released
+	 */
+	void unbindLease(final ConnectionLease connectionLease) {
+		Map<String, ConnectionLease> leases = leaseMap.get();
+		if (leases == null) {
+			return;
+		}
+
+		String key = connectionLease.getIrodsAccount().toString();
+		if (leases.get(key) == connectionLease) {
+			leases.remove(key);
+			if (leases.isEmpty()) {
+				leaseMap.remove();
+			}
+		}
+	}
+
+	private boolean releaseLease(final IRODSAccount irodsAccount, final boolean invalidate) {
+		Map<String, ConnectionLease> leases = leaseMap.get();
+		if (leases == null) {
+			return false;
+		}
+
+		ConnectionLease connectionLease = leases.get(irodsAccount.toString());
+		if (connectionLease == null) {
+			return false;
+		}
+
+		if (invalidate) {
+			connectionLease.invalidate();
+		}
+		connectionLease.releaseAll();
+		unbindLease(connectionLease);
+		return true;
+	}
+
+	private void releaseAllLeases() {
+		Map<String, ConnectionLease> leases = leaseMap.get();
+		if (leases == null) {
+			return;
+		}
+
+		for (ConnectionLease connectionLease : new ArrayList<ConnectionLease>(leases.values())) {
+			log.debug("releasing lease:{}", connectionLease);
+			connectionLease.releaseAll();
+		}
+		leaseMap.remove();
+	}
+
 	/**
 	 * Given an already established connection, renew the underlying connection
 	 * using the existing credentials. This is used to seamlessly renew a socket
@@ -572,6 +832,11 @@ public class IRODSSession {
 		}
 
 		log.debug("closing irods session for: {}", irodsAccount.toString());
+		if (releaseLease(irodsAccount, false)) {
+			log.debug("released leased connection");
+			return;
+		}
+
 		final Map<String, AbstractIRODSMidLevelProtocol> irodsProtocols = sessionMap.get();
 		if (irodsProtocols == null) {
 			log.warn("closing session that is already closed, silently ignore");
@@ -610,6 +875,11 @@ public class IRODSSession {
 	public void discardSessionForErrors(final IRODSAccount irodsAccount) {
 
 		log.warn("discarding irods session for: {}", irodsAccount.toString());
+		if (releaseLease(irodsAccount, true)) {
+			log.warn("discarded leased connection");
+			return;
+		}
+
 		final Map<String, AbstractIRODSMidLevelProtocol> irodsProtocols = sessionMap.get();
 		if (irodsProtocols == null) {
 			log.warn("discarding session that is already closed, silently ignore");
@@ -633,11 +903,45 @@ public class IRODSSession {
 	 * This method is not particularly useful, but does provide a route to get a
 	 * direct handle on the connections for this Thread in cases where such
 	 * status information needs to be kept. Returns null if no map is available.
+	 * When connections are leased, this is a snapshot of the leases in scope.
 	 *
 	 * @return {@code Map<String, AbstractIRODSMidLevelProtocol>}
 	 */
 	public Map<String, AbstractIRODSMidLevelProtocol> getIRODSCommandsMap() {
-		return sessionMap.get();
+		Map<String, ConnectionLease> leases = leaseMap.get();
+		if (leases == null) {
+			return sessionMap.get();
+		}
+
+		Map<String, AbstractIRODSMidLevelProtocol> irodsProtocols = new HashMap<String, AbstractIRODSMidLevelProtocol>();
+		Map<String, AbstractIRODSMidLevelProtocol> threadProtocols = sessionMap.get();
+		if (threadProtocols != null) {
+			irodsProtocols.putAll(threadProtocols);
+		}
+		for (Map.Entry<String, ConnectionLease> entry : leases.entrySet()) {
+			irodsProtocols.put(entry.getKey(), entry.getValue().getIrodsProtocol());
+		}
+		return irodsProtocols;
+	}
+
+	/**
+	 * @return {@link ConnectionLeasePool} that connections are leased from, or
+	 *         {@code null} if connections are kept per thread
+	 */
+	public ConnectionLeasePool getConnectionLeasePool() {
+		return connectionLeasePool;
+	}
+
+	/**
+	 * Install a pool to lease connections from, instead of keeping a connection
+	 * per thread. This should be set before connections are made, setting
+	 * {@code null} restores per thread connections.
+	 *
+	 * @param connectionLeasePool
+	 *            {@link ConnectionLeasePool} or {@code null}
+	 */
+	public void setConnectionLeasePool(final ConnectionLeasePool connectionLeasePool) {
+		this.connectionLeasePool = connectionLeasePool;
 	}
 
 	public IRODSProtocolManager getIrodsProtocolManager() {
@@ -693,6 +997,125 @@ public class IRODSSession {
 		}
 	}
 
+	/**
+	 * Get (lazily) the threads that asynchronous transfers run on. Unless an
+	 * executor has been set, this is a pool of daemon threads that grows as
+	 * needed and lets idle threads go. The number of transfers running against
+	 * one host is limited by the {@link #getTransferAdmissionControl()}, not
+	 * by this executor.
+	 * <p>
+	 * Each thread holds its own connections, which the asynchronous
+	 * operations close when each transfer is done. The default pool is shut
+	 * down by {@link #shutdown()}.
+	 *
+	 * @return {@link ExecutorService} for asynchronous transfers
+	 */
+	public synchronized ExecutorService getAsyncTransferExecutor() {
+		if (asyncTransferExecutor == null) {
+			log.debug("creating the async transfer executor");
+			asyncTransferExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(final Runnable runnable) {
+					Thread thread = new Thread(runnable, "jargon-async-transfer-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			asyncTransferExecutorCreated = true;
+		}
+		return asyncTransferExecutor;
+	}
+
+	/**
+	 * Provide the threads that asynchronous transfers run on, in place of the
+	 * default pool. The caller is responsible for shutting it down.
+	 *
+	 * @param asyncTransferExecutor
+	 *            {@link ExecutorService} for asynchronous transfers
+	 */
+	public synchronized void setAsyncTransferExecutor(final ExecutorService asyncTransferExecutor) {
+		this.asyncTransferExecutor = asyncTransferExecutor;
+		asyncTransferExecutorCreated = false;
+	}
+
+	/**
+	 * Release what this session holds beyond the connections of single
+	 * threads. The connections of the calling thread are closed, the
+	 * asynchronous transfer threads created by this session are shut down once
+	 * the transfers already submitted are done, and the restart journal the
+	 * session opened is closed. The session may still be used afterwards, in
+	 * which case these are created again as needed.
+	 *
+	 * @throws JargonException
+	 */
+	public void shutdown() throws JargonException {
+		log.info("shutdown()");
+		try {
+			closeSession();
+		} finally {
+			ExecutorService executor = null;
+			synchronized (this) {
+				if (asyncTransferExecutorCreated) {
+					executor = asyncTransferExecutor;
+					asyncTransferExecutor = null;
+					asyncTransferExecutorCreated = false;
+				}
+			}
+
+			if (executor != null) {
+				log.debug("shutting down the async transfer executor");
+				executor.shutdown();
+			}
+
+			closeCreatedJournalRestartManager();
+		}
+	}
+
+	/**
+	 * Get (lazily) the limit on asynchronous transfers running at once against
+	 * each host, shared by all asynchronous operations of this session. Once
+	 * created, changing the {@code JargonProperties} has no effect.
+	 *
+	 * @return {@link TransferAdmissionControl}
+	 */
+	public synchronized TransferAdmissionControl getTransferAdmissionControl() {
+		if (transferAdmissionControl == null) {
+			log.debug("creating transfer admission control, max per host:{}",
+					jargonProperties.getAsyncTransfersPerHost());
+			transferAdmissionControl = new TransferAdmissionControl(jargonProperties.getAsyncTransfersPerHost());
+		}
+		return transferAdmissionControl;
+	}
+
+	/**
+	 * Get the history of parallel transfers to each host that chooses the
+	 * number of threads to ask for when adaptive parallel threads are turned on
+	 * in the {@code JargonProperties}
+	 *
+	 * @return {@link ParallelTransferTuner}
+	 */
+	public ParallelTransferTuner getParallelTransferTuner() {
+		return parallelTransferTuner;
+	}
+
+	/**
+	 * Get the cache of object stats and listing entries shared by the access
+	 * objects of this session. It caches nothing unless a time to live is set
+	 * in the {@code JargonProperties}.
+	 *
+	 * @return {@link ObjStatCache}
+	 */
+	public synchronized ObjStatCache getObjStatCache() {
+		if (objStatCache == null) {
+			objStatCache = new ObjStatCache(jargonProperties.getObjStatCacheTimeToLiveMillis(),
+					Math.max(1, jargonProperties.getObjStatCacheMaxEntries()));
+		}
+		return objStatCache;
+	}
+
 	/**
 	 * Set the Jargon properties
 	 *
@@ -702,6 +1125,8 @@ public class IRODSSession {
 	public void setJargonProperties(final JargonProperties jargonProperties) {
 		synchronized (this) {
 			this.jargonProperties = jargonProperties;
+			// pick up the cache settings on next use
+			objStatCache = null;
 		}
 	}
 
@@ -750,8 +1175,23 @@ public class IRODSSession {
 
 		if (restartManager == null) {
 			if (jargonProperties.isLongTransferRestart()) {
-				log.warn("no restart manager provided, long file restart is on, create default memory based manager");
-				restartManager = new MemoryBasedTransferRestartManager();
+				String journalDirectory = jargonProperties.getLongTransferRestartJournalDirectory();
+				if (journalDirectory == null || journalDirectory.trim().isEmpty()) {
+					log.warn("no restart manager provided, long file restart is on, create default memory based manager");
+					restartManager = new MemoryBasedTransferRestartManager();
+				} else {
+					log.info("no restart manager provided, create journal based manager in:{}", journalDirectory);
+					try {
+						restartManager = new JournalBasedTransferRestartManager(new File(journalDirectory.trim()));
+						journalRestartManagerCreated = true;
+					} catch (RestartJournalInUseException e) {
+						log.warn("restart journal is held elsewhere, create default memory based manager", e);
+						restartManager = new MemoryBasedTransferRestartManager();
+					} catch (FileRestartManagementException e) {
+						log.error("unable to create journal based restart manager", e);
+						throw new JargonRuntimeException("unable to create journal based restart manager", e);
+					}
+				}
 			}
 		}
 
@@ -759,9 +1199,23 @@ public class IRODSSession {
 	}
 
 	public synchronized void setRestartManager(final AbstractRestartManager restartManager) {
+		closeCreatedJournalRestartManager();
 		this.restartManager = restartManager;
 	}
 
+	/**
+	 * Close the journal of a restart manager this session created, a manager
+	 * set by the caller is left to the caller
+	 */
+	private synchronized void closeCreatedJournalRestartManager() {
+		if (journalRestartManagerCreated) {
+			log.debug("closing the restart journal");
+			((JournalBasedTransferRestartManager) restartManager).close();
+			restartManager = null;
+			journalRestartManagerCreated = false;
+		}
+	}
+
 	/**
 	 * Retrieve an instance of SSL connection utilities that can manage SSL
 	 * connections to iRODS
@@ -50,6 +50,23 @@ public interface JargonProperties {
 	 */
 	int getMaxParallelThreads();
 
+	/**
+	 * How many files of a recursive put or get should be transferred at once,
+	 * each on its own connection? 0 or 1 transfers the files one at a time.
+	 *
+	 * @return {@code int}
+	 */
+	int getConcurrentFileTransferThreads();
+
+	/**
+	 * How many asynchronous transfers may run at once against one iRODS host?
+	 * Further transfers wait, without holding a thread, until one finishes. 0
+	 * for no limit.
+	 *
+	 * @return {@code int}
+	 */
+	int getAsyncTransfersPerHost();
+
 	/**
 	 * The file length above which a numThreads will be sent to iRODS in DataObjInp.
 	 * This is done for backwards compatibility. Older versions of iRODS will
@@ -250,6 +267,17 @@ public interface JargonProperties {
 	 */
 	int getPutBufferSize();
 
+	/**
+	 * Get the number of buffers the local file is read ahead into during a
+	 * normal (not parallel) put. The file is read on its own thread into these
+	 * buffers while the data already read is sent to iRODS. Each buffer is
+	 * {@link #getInputToOutputCopyBufferByteSize()} bytes.
+	 *
+	 * @return {@code int} with the number of buffers, {@code 0} to read the
+	 *         file on the sending thread
+	 */
+	int getPutReadAheadBuffers();
+
 	/**
 	 * Get the size of the file segment for each successive call in normal get
 	 * operations.
@@ -419,6 +447,88 @@ public interface JargonProperties {
 	 */
 	int getParallelCopyBufferSize();
 
+	/**
+	 * Should parallel puts hand file data directly from the local file to the
+	 * transfer socket ({@code FileChannel.transferTo}) rather than copying it
+	 * through a buffer? This only applies when parallel transfers are not
+	 * encrypted, otherwise the buffered path is used. Gets always use the
+	 * buffered path, which is faster than {@code transferFrom} from a socket.
+	 *
+	 * @return {@code boolean} of {@code true} to use zero copy parallel
+	 *         transfers when possible
+	 */
+	boolean isParallelZeroCopyTransfer();
+
+	/**
+	 * Should encrypted parallel transfers encrypt and decrypt on a pool of
+	 * threads shared by all transfers, while each stream carries on reading
+	 * and writing its socket? Otherwise each stream does its crypto and its
+	 * socket I/O one after the other on its own thread.
+	 *
+	 * @return {@code boolean} of {@code true} to stage the crypto of
+	 *         encrypted parallel transfers on a shared pool
+	 */
+	boolean isParallelStagedEncryption();
+
+	/**
+	 * Should the number of threads asked for in a parallel transfer be tuned
+	 * for each host from the throughput of earlier parallel transfers to that
+	 * host? The number asked for is never more than
+	 * {@link #getMaxParallelThreads()}.
+	 *
+	 * @return {@code boolean} of {@code true} to tune the parallel thread count
+	 *         for each host
+	 */
+	boolean isAdaptiveParallelThreads();
+
+	/**
+	 * Get the size in bytes of the pages held by the block cache of an
+	 * {@code IRODSRandomAccessFile}. Reads and writes of the random access
+	 * file are served from these pages, so small reads such as
+	 * {@code readInt()} do not each go to iRODS.
+	 *
+	 * @return {@code int} with the page size, {@code 0} to read and write
+	 *         directly to iRODS without the cache
+	 */
+	int getRandomAccessCachePageSize();
+
+	/**
+	 * Get the most pages the block cache of an {@code IRODSRandomAccessFile}
+	 * will hold before the least recently used page is dropped, or written to
+	 * iRODS if it has changed
+	 *
+	 * @return {@code int} with the number of pages in the cache
+	 */
+	int getRandomAccessCachePages();
+
+	/**
+	 * Get the most pages the block cache of an {@code IRODSRandomAccessFile}
+	 * will read in one call when the file is being read in sequence
+	 *
+	 * @return {@code int} with the number of pages to read ahead,
+	 *         {@code 1} to read one page at a time
+	 */
+	int getRandomAccessReadAheadPages();
+
+	/**
+	 * Get the time in milliseconds an object stat or listing entry is kept in
+	 * the client side cache shared by the access objects of a session. Writes,
+	 * deletes and renames made through those access objects clear the affected
+	 * paths, changes made elsewhere are seen once the entry expires.
+	 *
+	 * @return {@code long} with the time to live, {@code 0} to turn the cache
+	 *         off
+	 */
+	long getObjStatCacheTimeToLiveMillis();
+
+	/**
+	 * Get the most paths held in the object stat cache before the least
+	 * recently used is dropped
+	 *
+	 * @return {@code int} with the number of paths in the cache
+	 */
+	int getObjStatCacheMaxEntries();
+
 	/**
 	 * Is TCP keep alive set for the primary irods Socket?
 	 *
@@ -491,6 +601,14 @@ public interface JargonProperties {
 	 */
 	boolean isLongTransferRestart();
 
+	/**
+	 * Get the directory to keep the long file restart journal in, so that
+	 * restarts survive the JVM. If blank, restarts are only kept in memory.
+	 *
+	 * @return {@code String} with the journal directory, or blank
+	 */
+	String getLongTransferRestartJournalDirectory();
+
 	/**
 	 *
 	 * @return {@link SslNegotiationPolicy}
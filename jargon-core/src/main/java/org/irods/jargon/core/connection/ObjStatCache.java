@@ -0,0 +1,317 @@
+/**
+ *
+ */
+package org.irods.jargon.core.connection;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Client side cache of {@link ObjStat} and
+ * {@link CollectionAndDataObjectListingEntry} by path, kept by the
+ * {@code IRODSSession} and shared by the access objects of the session.
+ * <p>
+ * Callers often ask whether a file exists, whether it is a file, its length
+ * and its modified time one after another, and each of those is an object stat
+ * against iRODS. With the cache on, the first is sent and the rest are
+ * answered here until the entry expires.
+ * <p>
+ * Entries are kept by zone, user and absolute path, as what a user can see of
+ * a path depends on the user. The cache holds a bounded number of paths,
+ * dropping the least recently used. Writes, deletes and renames done through
+ * the access objects invalidate the path, its parent and anything under it.
+ * Changes made by other clients are seen when the entry expires.
+ */
+public class ObjStatCache {
+
+	public static final Logger log = LoggerFactory
+			.getLogger(ObjStatCache.class);
+
+	/**
+	 * What is cached for a path
+	 */
+	private static final class CacheEntry {
+		private ObjStat objStat;
+		private CollectionAndDataObjectListingEntry listingEntry;
+		private long objStatExpires;
+		private long listingEntryExpires;
+	}
+
+	private final long timeToLiveMillis;
+	private final int maxEntries;
+	private final LinkedHashMap<String, CacheEntry> entries;
+
+	private long hitCount = 0L;
+	private long missCount = 0L;
+	private long evictionCount = 0L;
+
+	/**
+	 * Create a cache
+	 *
+	 * @param timeToLiveMillis
+	 *            {@code long} with the time an entry is kept, {@code 0} to cache
+	 *            nothing
+	 * @param maxEntries
+	 *            {@code int} with the most paths to hold
+	 */
+	public ObjStatCache(final long timeToLiveMillis, final int maxEntries) {
+
+		if (timeToLiveMillis < 0) {
+			throw new IllegalArgumentException("timeToLiveMillis < 0");
+		}
+
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("maxEntries < 1");
+		}
+
+		this.timeToLiveMillis = timeToLiveMillis;
+		this.maxEntries = maxEntries;
+		entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<String, CacheEntry> eldest) {
+				if (size() > ObjStatCache.this.maxEntries) {
+					evictionCount++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * @return {@code boolean} that is {@code true} if anything is cached
+	 */
+	public boolean isEnabled() {
+		return timeToLiveMillis > 0;
+	}
+
+	/**
+	 * Get a cached object stat
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} the stat was made as
+	 * @param irodsAbsolutePath
+	 *            {@code String} with the absolute path
+	 * @return {@link ObjStat} or {@code null} if not cached or expired
+	 */
+	public synchronized ObjStat getObjStat(final IRODSAccount irodsAccount,
+			final String irodsAbsolutePath) {
+		if (!isEnabled()) {
+			return null;
+		}
+
+		CacheEntry entry = entries.get(buildKey(irodsAccount,
+				irodsAbsolutePath));
+		if (entry != null && entry.objStat != null
+				&& entry.objStatExpires > System.currentTimeMillis()) {
+			hitCount++;
+			return entry.objStat;
+		}
+
+		missCount++;
+		return null;
+	}
+
+	/**
+	 * Cache an object stat
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} the stat was made as
+	 * @param irodsAbsolutePath
+	 *            {@code String} with the absolute path
+	 * @param objStat
+	 *            {@link ObjStat} for the path
+	 */
+	public synchronized void putObjStat(final IRODSAccount irodsAccount,
+			final String irodsAbsolutePath, final ObjStat objStat) {
+		if (!isEnabled() || objStat == null) {
+			return;
+		}
+
+		CacheEntry entry = entryForUpdate(irodsAccount, irodsAbsolutePath);
+		entry.objStat = objStat;
+		entry.objStatExpires = System.currentTimeMillis() + timeToLiveMillis;
+	}
+
+	/**
+	 * Get a cached listing entry
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} the listing was made as
+	 * @param irodsAbsolutePath
+	 *            {@code String} with the absolute path
+	 * @return {@link CollectionAndDataObjectListingEntry} or {@code null} if
+	 *         not cached or expired
+	 */
+	public synchronized CollectionAndDataObjectListingEntry getListingEntry(
+			final IRODSAccount irodsAccount, final String irodsAbsolutePath) {
+		if (!isEnabled()) {
+			return null;
+		}
+
+		CacheEntry entry = entries.get(buildKey(irodsAccount,
+				irodsAbsolutePath));
+		if (entry != null && entry.listingEntry != null
+				&& entry.listingEntryExpires > System.currentTimeMillis()) {
+			hitCount++;
+			return entry.listingEntry;
+		}
+
+		missCount++;
+		return null;
+	}
+
+	/**
+	 * Cache a listing entry
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} the listing was made as
+	 * @param irodsAbsolutePath
+	 *            {@code String} with the absolute path
+	 * @param listingEntry
+	 *            {@link CollectionAndDataObjectListingEntry} for the path
+	 */
+	public synchronized void putListingEntry(final IRODSAccount irodsAccount,
+			final String irodsAbsolutePath,
+			final CollectionAndDataObjectListingEntry listingEntry) {
+		if (!isEnabled() || listingEntry == null) {
+			return;
+		}
+
+		CacheEntry entry = entryForUpdate(irodsAccount, irodsAbsolutePath);
+		entry.listingEntry = listingEntry;
+		entry.listingEntryExpires = System.currentTimeMillis()
+				+ timeToLiveMillis;
+	}
+
+	/**
+	 * Drop what is cached for a path that has been written, deleted or
+	 * renamed, along with its parent and anything under it, for all users
+	 *
+	 * @param irodsAbsolutePath
+	 *            {@code String} with the absolute path
+	 */
+	public synchronized void invalidate(final String irodsAbsolutePath) {
+		if (!isEnabled() || entries.isEmpty()) {
+			return;
+		}
+
+		if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsAbsolutePath");
+		}
+
+		String path = trimTrailingSlash(irodsAbsolutePath);
+		String parent = parentOf(path);
+		log.debug("invalidating cached stats at and under:{}", path);
+
+		Iterator<String> keys = entries.keySet().iterator();
+		while (keys.hasNext()) {
+			String key = keys.next();
+			int pathStart = key.indexOf('/');
+			if (pathStart < 0) {
+				continue;
+			}
+			String keyPath = key.substring(pathStart);
+			if (keyPath.equals(path) || keyPath.equals(parent)
+					|| keyPath.startsWith(path + "/")) {
+				keys.remove();
+			}
+		}
+	}
+
+	/**
+	 * Drop everything cached
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * @return {@code long} with the lookups answered from the cache
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return {@code long} with the lookups that had to go to iRODS
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * @return {@code long} with the paths dropped to keep the cache in bounds
+	 */
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * @return {@code int} with the paths now cached
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private CacheEntry entryForUpdate(final IRODSAccount irodsAccount,
+			final String irodsAbsolutePath) {
+		String key = buildKey(irodsAccount, irodsAbsolutePath);
+		CacheEntry entry = entries.get(key);
+		if (entry == null) {
+			entry = new CacheEntry();
+			entries.put(key, entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * Key by zone, user and path. The path is last and starts with the first
+	 * '/' of the key.
+	 */
+	private String buildKey(final IRODSAccount irodsAccount,
+			final String irodsAbsolutePath) {
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsAbsolutePath");
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(irodsAccount.getZone());
+		sb.append('#');
+		sb.append(irodsAccount.getUserName());
+		sb.append(trimTrailingSlash(irodsAbsolutePath));
+		return sb.toString();
+	}
+
+	private static String trimTrailingSlash(final String path) {
+		if (path.length() > 1 && path.endsWith("/")) {
+			return path.substring(0, path.length() - 1);
+		}
+		return path;
+	}
+
+	private static String parentOf(final String path) {
+		int lastSlash = path.lastIndexOf('/');
+		if (lastSlash <= 0) {
+			return "/";
+		}
+		return path.substring(0, lastSlash);
+	}
+
+}
@@ -0,0 +1,29 @@
+/**
+ *
+ */
+package org.irods.jargon.core.connection;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.Tag;
+
+/**
+ * Receives, in order, the replies to requests sent with
+ * {@link AbstractIRODSMidLevelProtocol#irodsFunctionPipelined(java.util.List, int, PipelinedReplyHandler)}
+ */
+public interface PipelinedReplyHandler {
+
+	/**
+	 * Called once for each request, in the order the requests were given
+	 *
+	 * @param index
+	 *            {@code int} with the position of the request in the list
+	 * @param reply
+	 *            {@link Tag} with the reply, which may be {@code null} if
+	 *            iRODS returned no message or returned an error
+	 * @param error
+	 *            {@link JargonException} for the error iRODS returned for the
+	 *            request, or {@code null} if it succeeded
+	 */
+	void replyReceived(int index, Tag reply, JargonException error);
+
+}
@@ -23,6 +23,8 @@ public class SettableJargonProperties implements JargonProperties {
 	private boolean useParallelTransfer = true;
 	private final boolean useNIOForParallelTransfers = false;
 	private int maxParallelThreads = 4;
+	private int concurrentFileTransferThreads = 0;
+	private int asyncTransfersPerHost = 4;
 	private int maxFilesAndDirsQueryMax = 5000;
 	private boolean useTransferThreadsPool = false;
 	private int transferThreadPoolMaxSimultaneousTransfers = 4;
@@ -40,6 +42,7 @@ public class SettableJargonProperties implements JargonProperties {
 	private int localFileOutputStreamBufferSize = 0;
 	private int localFileInputStreamBufferSize = 0;
 	private int putBufferSize = 4194304;
+	private int putReadAheadBuffers = 3;
 	private int getBufferSize = 4194304;
 	private int inputToOutputCopyBufferByteSize = 65536;
 	private String encoding = "UTF-8";
@@ -68,6 +71,7 @@ public class SettableJargonProperties implements JargonProperties {
 	private int primaryTcpPerformancePrefsBandwidth;
 	private int socketRenewalIntervalInSeconds;
 	private boolean longTransferRestart = true;
+	private String longTransferRestartJournalDirectory = "";
 	private String defaultIrodsRuleEngineIdentifier = "irods_rule_engine_plugin-irods_rule_language-instance";
 	private String defaultPythonRuleEngineIdentifier = "irods_rule_engine_plugin-cpp_default_policy-instance";
 	private String defaultCppRuleEngineIdentifier = "irods_rule_engine_plugin-cpp_default_policy-instance";
@@ -77,6 +81,14 @@ public class SettableJargonProperties implements JargonProperties {
 	 * parallel transfers
 	 */
 	private int parallelCopyBufferSize;
+	private boolean parallelZeroCopyTransfer = false;
+	private boolean parallelStagedEncryption = false;
+	private boolean adaptiveParallelThreads = false;
+	private int randomAccessCachePageSize = 65536;
+	private int randomAccessCachePages = 32;
+	private int randomAccessReadAheadPages = 8;
+	private long objStatCacheTimeToLiveMillis = 0L;
+	private int objStatCacheMaxEntries = 10000;
 	/**
 	 * Number of callbacks before an intra file callback listener will be notified,
 	 * no matter how many bytes passed
@@ -157,6 +169,8 @@ public class SettableJargonProperties implements JargonProperties {
 		irodsParallelSocketTimeout = jargonProperties.getIRODSParallelTransferSocketTimeout();
 		irodsSocketTimeout = jargonProperties.getIRODSSocketTimeout();
 		maxParallelThreads = jargonProperties.getMaxParallelThreads();
+		concurrentFileTransferThreads = jargonProperties.getConcurrentFileTransferThreads();
+		asyncTransfersPerHost = jargonProperties.getAsyncTransfersPerHost();
 		transferThreadPoolTimeoutMillis = jargonProperties.getTransferThreadPoolTimeoutMillis();
 		transferThreadPoolMaxSimultaneousTransfers = jargonProperties.getTransferThreadPoolMaxSimultaneousTransfers();
 		internalInputStreamBufferSize = jargonProperties.getInternalInputStreamBufferSize();
@@ -166,6 +180,7 @@ public class SettableJargonProperties implements JargonProperties {
 		localFileOutputStreamBufferSize = jargonProperties.getLocalFileOutputStreamBufferSize();
 		localFileInputStreamBufferSize = jargonProperties.getLocalFileInputStreamBufferSize();
 		putBufferSize = jargonProperties.getPutBufferSize();
+		putReadAheadBuffers = jargonProperties.getPutReadAheadBuffers();
 		getBufferSize = jargonProperties.getGetBufferSize();
 		encoding = jargonProperties.getEncoding();
 		inputToOutputCopyBufferByteSize = jargonProperties.getInputToOutputCopyBufferByteSize();
@@ -193,7 +208,16 @@ public class SettableJargonProperties implements JargonProperties {
 		primaryTcpSendWindowSize = jargonProperties.getPrimaryTcpSendWindowSize();
 		socketRenewalIntervalInSeconds = jargonProperties.getSocketRenewalIntervalInSeconds();
 		longTransferRestart = jargonProperties.isLongTransferRestart();
+		longTransferRestartJournalDirectory = jargonProperties.getLongTransferRestartJournalDirectory();
 		parallelCopyBufferSize = jargonProperties.getParallelCopyBufferSize();
+		parallelZeroCopyTransfer = jargonProperties.isParallelZeroCopyTransfer();
+		parallelStagedEncryption = jargonProperties.isParallelStagedEncryption();
+		adaptiveParallelThreads = jargonProperties.isAdaptiveParallelThreads();
+		randomAccessCachePageSize = jargonProperties.getRandomAccessCachePageSize();
+		randomAccessCachePages = jargonProperties.getRandomAccessCachePages();
+		randomAccessReadAheadPages = jargonProperties.getRandomAccessReadAheadPages();
+		objStatCacheTimeToLiveMillis = jargonProperties.getObjStatCacheTimeToLiveMillis();
+		objStatCacheMaxEntries = jargonProperties.getObjStatCacheMaxEntries();
 		intraFileStatusCallbacksNumberCallsInterval = jargonProperties.getIntraFileStatusCallbacksNumberCallsInterval();
 		intraFileStatusCallbacksTotalBytesInterval = jargonProperties.getIntraFileStatusCallbacksTotalBytesInterval();
 		negotiationPolicy = jargonProperties.getNegotiationPolicy();
@@ -252,6 +276,38 @@ public class SettableJargonProperties implements JargonProperties {
 		return maxParallelThreads;
 	}
 
+	@Override
+	public synchronized int getConcurrentFileTransferThreads() {
+		return concurrentFileTransferThreads;
+	}
+
+	/**
+	 * Set the number of files of a recursive put or get that are transferred at
+	 * once, each on its own connection. 0 or 1 means one file at a time.
+	 *
+	 * @param concurrentFileTransferThreads
+	 *            {@code int} with the number of files to transfer at once
+	 */
+	public synchronized void setConcurrentFileTransferThreads(final int concurrentFileTransferThreads) {
+		this.concurrentFileTransferThreads = concurrentFileTransferThreads;
+	}
+
+	@Override
+	public synchronized int getAsyncTransfersPerHost() {
+		return asyncTransfersPerHost;
+	}
+
+	/**
+	 * Set how many asynchronous transfers may run at once against one iRODS
+	 * host, 0 for no limit
+	 *
+	 * @param asyncTransfersPerHost
+	 *            {@code int} with the most transfers per host
+	 */
+	public synchronized void setAsyncTransfersPerHost(final int asyncTransfersPerHost) {
+		this.asyncTransfersPerHost = asyncTransfersPerHost;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -604,6 +660,21 @@ public class SettableJargonProperties implements JargonProperties {
 		this.putBufferSize = putBufferSize;
 	}
 
+	@Override
+	public synchronized int getPutReadAheadBuffers() {
+		return putReadAheadBuffers;
+	}
+
+	/**
+	 * Set the number of buffers the local file is read ahead into during a
+	 * normal put, {@code 0} to read the file on the sending thread
+	 *
+	 * @param putReadAheadBuffers
+	 */
+	public synchronized void setPutReadAheadBuffers(final int putReadAheadBuffers) {
+		this.putReadAheadBuffers = putReadAheadBuffers;
+	}
+
 	/**
 	 * @param getBufferSize
 	 *            the getBufferSize to set
@@ -978,7 +1049,9 @@ public class SettableJargonProperties implements JargonProperties {
 		StringBuilder builder = new StringBuilder();
 		builder.append("SettableJargonProperties [useParallelTransfer=").append(useParallelTransfer)
 				.append(", useNIOForParallelTransfers=").append(useNIOForParallelTransfers)
-				.append(", maxParallelThreads=").append(maxParallelThreads).append(", maxFilesAndDirsQueryMax=")
+				.append(", maxParallelThreads=").append(maxParallelThreads)
+				.append(", concurrentFileTransferThreads=").append(concurrentFileTransferThreads)
+				.append(", asyncTransfersPerHost=").append(asyncTransfersPerHost).append(", maxFilesAndDirsQueryMax=")
 				.append(maxFilesAndDirsQueryMax).append(", useTransferThreadsPool=").append(useTransferThreadsPool)
 				.append(", transferThreadPoolMaxSimultaneousTransfers=")
 				.append(transferThreadPoolMaxSimultaneousTransfers).append(", transferThreadPoolTimeoutMillis=")
@@ -994,7 +1067,8 @@ public class SettableJargonProperties implements JargonProperties {
 				.append(", sendInputStreamBufferSize=").append(sendInputStreamBufferSize)
 				.append(", localFileOutputStreamBufferSize=").append(localFileOutputStreamBufferSize)
 				.append(", localFileInputStreamBufferSize=").append(localFileInputStreamBufferSize)
-				.append(", putBufferSize=").append(putBufferSize).append(", getBufferSize=").append(getBufferSize)
+				.append(", putBufferSize=").append(putBufferSize)
+				.append(", putReadAheadBuffers=").append(putReadAheadBuffers).append(", getBufferSize=").append(getBufferSize)
 				.append(", inputToOutputCopyBufferByteSize=").append(inputToOutputCopyBufferByteSize).append(", ");
 		if (encoding != null) {
 			builder.append("encoding=").append(encoding).append(", ");
@@ -1027,7 +1101,8 @@ public class SettableJargonProperties implements JargonProperties {
 				.append(", primaryTcpPerformancePrefsLatency=").append(primaryTcpPerformancePrefsLatency)
 				.append(", primaryTcpPerformancePrefsBandwidth=").append(primaryTcpPerformancePrefsBandwidth)
 				.append(", socketRenewalIntervalInSeconds=").append(socketRenewalIntervalInSeconds)
-				.append(", longTransferRestart=").append(longTransferRestart).append(", ");
+				.append(", longTransferRestart=").append(longTransferRestart)
+				.append(", longTransferRestartJournalDirectory=").append(longTransferRestartJournalDirectory).append(", ");
 		if (defaultIrodsRuleEngineIdentifier != null) {
 			builder.append("defaultIrodsRuleEngineIdentifier=").append(defaultIrodsRuleEngineIdentifier).append(", ");
 		}
@@ -1038,6 +1113,14 @@ public class SettableJargonProperties implements JargonProperties {
 			builder.append("defaultCppRuleEngineIdentifier=").append(defaultCppRuleEngineIdentifier).append(", ");
 		}
 		builder.append("parallelCopyBufferSize=").append(parallelCopyBufferSize)
+				.append(", parallelZeroCopyTransfer=").append(parallelZeroCopyTransfer)
+				.append(", parallelStagedEncryption=").append(parallelStagedEncryption)
+				.append(", adaptiveParallelThreads=").append(adaptiveParallelThreads)
+				.append(", randomAccessCachePageSize=").append(randomAccessCachePageSize)
+				.append(", randomAccessCachePages=").append(randomAccessCachePages)
+				.append(", randomAccessReadAheadPages=").append(randomAccessReadAheadPages)
+				.append(", objStatCacheTimeToLiveMillis=").append(objStatCacheTimeToLiveMillis)
+				.append(", objStatCacheMaxEntries=").append(objStatCacheMaxEntries)
 				.append(", intraFileStatusCallbacksNumberCallsInterval=")
 				.append(intraFileStatusCallbacksNumberCallsInterval)
 				.append(", intraFileStatusCallbacksTotalBytesInterval=")
@@ -1089,6 +1172,21 @@ public class SettableJargonProperties implements JargonProperties {
 		longTransferRestart = longFileTransferRestart;
 	}
 
+	@Override
+	public synchronized String getLongTransferRestartJournalDirectory() {
+		return longTransferRestartJournalDirectory;
+	}
+
+	/**
+	 * Sets the directory to keep the long file restart journal in, or blank to
+	 * keep restarts only in memory
+	 *
+	 * @param longTransferRestartJournalDirectory
+	 */
+	public synchronized void setLongTransferRestartJournalDirectory(final String longTransferRestartJournalDirectory) {
+		this.longTransferRestartJournalDirectory = longTransferRestartJournalDirectory;
+	}
+
 	@Override
 	public synchronized int getParallelCopyBufferSize() {
 		return parallelCopyBufferSize;
@@ -1104,6 +1202,125 @@ public class SettableJargonProperties implements JargonProperties {
 		this.parallelCopyBufferSize = parallelCopyBufferSize;
 	}
 
+	@Override
+	public synchronized boolean isParallelZeroCopyTransfer() {
+		return parallelZeroCopyTransfer;
+	}
+
+	/**
+	 * Set whether unencrypted parallel puts move file data directly from the
+	 * local file to the transfer socket
+	 *
+	 * @param parallelZeroCopyTransfer
+	 */
+	public synchronized void setParallelZeroCopyTransfer(final boolean parallelZeroCopyTransfer) {
+		this.parallelZeroCopyTransfer = parallelZeroCopyTransfer;
+	}
+
+	@Override
+	public synchronized boolean isParallelStagedEncryption() {
+		return parallelStagedEncryption;
+	}
+
+	/**
+	 * Set whether encrypted parallel transfers do their crypto on a shared
+	 * pool of threads while each stream carries on with its socket
+	 *
+	 * @param parallelStagedEncryption
+	 */
+	public synchronized void setParallelStagedEncryption(final boolean parallelStagedEncryption) {
+		this.parallelStagedEncryption = parallelStagedEncryption;
+	}
+
+	@Override
+	public synchronized boolean isAdaptiveParallelThreads() {
+		return adaptiveParallelThreads;
+	}
+
+	/**
+	 * Set whether the number of threads asked for in a parallel transfer is
+	 * tuned for each host from earlier transfers to that host
+	 *
+	 * @param adaptiveParallelThreads
+	 */
+	public synchronized void setAdaptiveParallelThreads(final boolean adaptiveParallelThreads) {
+		this.adaptiveParallelThreads = adaptiveParallelThreads;
+	}
+
+	@Override
+	public synchronized int getRandomAccessCachePageSize() {
+		return randomAccessCachePageSize;
+	}
+
+	/**
+	 * Set the size in bytes of the pages in the block cache of an
+	 * {@code IRODSRandomAccessFile}, {@code 0} to turn the cache off
+	 *
+	 * @param randomAccessCachePageSize
+	 */
+	public synchronized void setRandomAccessCachePageSize(final int randomAccessCachePageSize) {
+		this.randomAccessCachePageSize = randomAccessCachePageSize;
+	}
+
+	@Override
+	public synchronized int getRandomAccessCachePages() {
+		return randomAccessCachePages;
+	}
+
+	/**
+	 * Set the most pages held in the block cache of an
+	 * {@code IRODSRandomAccessFile}
+	 *
+	 * @param randomAccessCachePages
+	 */
+	public synchronized void setRandomAccessCachePages(final int randomAccessCachePages) {
+		this.randomAccessCachePages = randomAccessCachePages;
+	}
+
+	@Override
+	public synchronized int getRandomAccessReadAheadPages() {
+		return randomAccessReadAheadPages;
+	}
+
+	/**
+	 * Set the most pages an {@code IRODSRandomAccessFile} reads in one call when
+	 * the file is read in sequence
+	 *
+	 * @param randomAccessReadAheadPages
+	 */
+	public synchronized void setRandomAccessReadAheadPages(final int randomAccessReadAheadPages) {
+		this.randomAccessReadAheadPages = randomAccessReadAheadPages;
+	}
+
+	@Override
+	public synchronized long getObjStatCacheTimeToLiveMillis() {
+		return objStatCacheTimeToLiveMillis;
+	}
+
+	/**
+	 * Set the time in milliseconds an object stat or listing entry is kept in
+	 * the session's cache, {@code 0} to turn the cache off
+	 *
+	 * @param objStatCacheTimeToLiveMillis
+	 */
+	public synchronized void setObjStatCacheTimeToLiveMillis(final long objStatCacheTimeToLiveMillis) {
+		this.objStatCacheTimeToLiveMillis = objStatCacheTimeToLiveMillis;
+	}
+
+	@Override
+	public synchronized int getObjStatCacheMaxEntries() {
+		return objStatCacheMaxEntries;
+	}
+
+	/**
+	 * Set the most paths held in the object stat cache
+	 *
+	 * @param objStatCacheMaxEntries
+	 */
+	public synchronized void setObjStatCacheMaxEntries(final int objStatCacheMaxEntries) {
+		this.objStatCacheMaxEntries = objStatCacheMaxEntries;
+	}
+
 	@Override
 	public synchronized int getIntraFileStatusCallbacksNumberCallsInterval() {
 		return intraFileStatusCallbacksNumberCallsInterval;
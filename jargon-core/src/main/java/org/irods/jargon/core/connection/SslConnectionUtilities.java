@@ -17,6 +17,7 @@ import javax.net.ssl.SSLParameters;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
 
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.exception.JargonRuntimeException;
@@ -35,7 +36,8 @@ class SslConnectionUtilities {
 	@SuppressWarnings("unused")
 	private final IRODSSession irodsSession;
 
-	private Logger log = LoggerFactory.getLogger(SslConnectionUtilities.class);
+	private static final Logger log = LoggerFactory
+			.getLogger(SslConnectionUtilities.class);
 
 	SslConnectionUtilities(final IRODSSession irodsSession) {
 		super();
@@ -43,32 +45,19 @@ class SslConnectionUtilities {
 	}
 
 	/**
-	 * @param irodsAccount
-	 *            {@link IRODSAccount} for connection
-	 * @param irodsCommands
-	 *            {@link AbstractIRODSMidLevelProtocol} that represents the
-	 *            current connection
-	 * @param doSslStartupSequence
-	 *            {@code boolean} that indicates that
-	 * @return {@link SSLSocket} that can be inserted into the existing
-	 *         connection. Note that this method will not manipulate the mid
-	 *         level protocol object, it is up to the caller to handle the
-	 *         disposition of that socket object.
-	 * @throws JargonException
+	 * Build an SSL context for iRODS connections. Building one is costly, and
+	 * TLS sessions are only resumed by sockets of the same context, so this is
+	 * done once for an {@link IRODSSession}, see
+	 * {@link IRODSSession#getSslContext()}.
+	 *
+	 * @param x509TrustManager
+	 *            {@link X509TrustManager} for server certificates, or
+	 *            {@code null} for the default
+	 * @return {@link SSLContext}
 	 * @throws AssertionError
 	 */
-	SSLSocket createSslSocketForProtocol(final IRODSAccount irodsAccount,
-			final AbstractIRODSMidLevelProtocol irodsCommands,
-			final boolean doSslStartupSequence) throws JargonException,
-			AssertionError {
-
-		if (doSslStartupSequence) {
-			// start ssl
-			log.info("startSSL for PAM auth");
-			SSLStartInp sslStartInp = SSLStartInp.instance();
-			irodsCommands.irodsFunction(sslStartInp);
-		}
-
+	static SSLContext createSslContext(final X509TrustManager x509TrustManager)
+			throws AssertionError {
 		SSLContext ctx;
 		try {
 			ctx = SSLContext.getInstance("TLSv1.2", "SunJSSE");
@@ -87,9 +76,8 @@ class SslConnectionUtilities {
 		}
 		TrustManager[] trustManagers = null;
 
-		if (irodsCommands.getIrodsSession().getX509TrustManager() != null) {
-			trustManagers = new TrustManager[] { irodsCommands
-					.getIrodsSession().getX509TrustManager() };
+		if (x509TrustManager != null) {
+			trustManagers = new TrustManager[] { x509TrustManager };
 		}
 		try {
 			ctx.init(null, trustManagers, null);
@@ -97,6 +85,43 @@ class SslConnectionUtilities {
 			log.error("error initializing ssl context:{}", e1);
 			throw new JargonRuntimeException("ssl context init exception", e1);
 		}
+		return ctx;
+	}
+
+	/**
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} for connection
+	 * @param irodsCommands
+	 *            {@link AbstractIRODSMidLevelProtocol} that represents the
+	 *            current connection
+	 * @param doSslStartupSequence
+	 *            {@code boolean} that indicates that
+	 * @return {@link SSLSocket} that can be inserted into the existing
+	 *         connection. Note that this method will not manipulate the mid
+	 *         level protocol object, it is up to the caller to handle the
+	 *         disposition of that socket object.
+	 * @throws JargonException
+	 * @throws AssertionError
+	 */
+	SSLSocket createSslSocketForProtocol(final IRODSAccount irodsAccount,
+			final AbstractIRODSMidLevelProtocol irodsCommands,
+			final boolean doSslStartupSequence) throws JargonException,
+			AssertionError {
+
+		if (doSslStartupSequence) {
+			// start ssl
+			log.info("startSSL for PAM auth");
+			SSLStartInp sslStartInp = SSLStartInp.instance();
+			irodsCommands.irodsFunction(sslStartInp);
+		}
+
+		/*
+		 * the context is shared by the connections of the session, and its
+		 * sockets are made for the host and port, so a later connection to the
+		 * same host and port can resume the TLS session of an earlier one
+		 * rather than do a full handshake
+		 */
+		SSLContext ctx = irodsCommands.getIrodsSession().getSslContext();
 
 		// if all went well (no exceptions) then the server is ready for the
 		// credential exchange, first grab an SSL enabled connection
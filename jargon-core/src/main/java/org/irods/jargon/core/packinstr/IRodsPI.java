@@ -16,4 +16,15 @@ public interface IRodsPI {
 
 	String getParsedTags() throws JargonException;
 
+	/**
+	 * Get the packing instruction as a {@link Tag} tree, so that it can be
+	 * written to the connection without first being rendered as a
+	 * {@code String}
+	 *
+	 * @return {@link Tag} with the packing instruction, or {@code null} if
+	 *         there is no message body
+	 * @throws JargonException
+	 */
+	Tag getTagValue() throws JargonException;
+
 }
@@ -0,0 +1,324 @@
+package org.irods.jargon.core.packinstr;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single pass parser that turns the XML protocol bytes returned by iRODS into
+ * a {@link Tag} tree. The parser works directly over the {@code byte[]} read
+ * from the socket, so no intermediate {@code String} of the whole message is
+ * built, and entities are decoded while the leaf value is copied out.
+ * <p>
+ * The markup characters of the packing instructions ({@code < > / & ;}) are
+ * single byte in any ASCII compatible encoding, and never appear inside a
+ * multi-byte UTF-8 sequence, so values are only turned into characters once
+ * their boundaries are known. Encodings that are not ASCII compatible are
+ * transcoded to UTF-8 first.
+ * <p>
+ * The parser is lenient in the same way the original
+ * {@code String}-based implementation was: text between structured sub tags
+ * is ignored, a single newline after an open tag is dropped, and a truncated
+ * message yields whatever tree was built so far.
+ * <p>
+ * Instances hold per-message state and are created by
+ * {@link #parse(byte[], boolean, String)}
+ */
+final class TagParser {
+
+	private static final byte OPEN = '<';
+	private static final byte CLOSE = '>';
+	private static final byte SLASH = '/';
+	private static final byte AMPERSAND = '&';
+	private static final byte NEWLINE = '\n';
+
+	private static final byte[] AMP = bytes(Tag.AMP);
+	private static final byte[] LT = bytes(Tag.LT);
+	private static final byte[] GT = bytes(Tag.GT);
+	private static final byte[] QUOTE = bytes(Tag.QUOTE);
+	private static final byte[] APOS = bytes(Tag.APOS);
+
+	private static final int NAME_CACHE_SIZE = 512;
+
+	/**
+	 * Tag names repeat heavily (e.g. every {@code value} in a
+	 * {@code SqlResult_PI}), so names are shared through a small hashed cache.
+	 * Racing writes to a slot are benign, as {@code String} is immutable and a
+	 * miss only costs a new {@code String}
+	 */
+	private static final String[] nameCache = new String[NAME_CACHE_SIZE];
+
+	private static final ConcurrentHashMap<String, Boolean> asciiCompatibleEncodings = new ConcurrentHashMap<String, Boolean>();
+
+	private final byte[] data;
+	private final int limit;
+	private final boolean decode;
+	private final Charset charset;
+
+	/**
+	 * scratch area for decoded leaf values, grown on demand
+	 */
+	private byte[] scratch;
+
+	/**
+	 * Parse the first tag found in the given data
+	 *
+	 * @param data
+	 *            {@code byte[]} with the message as read from iRODS
+	 * @param decode
+	 *            {@code boolean} that indicates whether xml entities in values
+	 *            should be decoded
+	 * @param encoding
+	 *            {@code String} with the encoding of the message
+	 * @return {@link Tag} that is the root of the message, or {@code null} if
+	 *         no tag is found
+	 * @throws UnsupportedEncodingException
+	 *             if the encoding is not supported
+	 */
+	static Tag parse(final byte[] data, final boolean decode,
+			final String encoding) throws UnsupportedEncodingException {
+		if (data == null) {
+			return null;
+		}
+
+		Charset charset = charsetFor(encoding);
+		if (isAsciiCompatible(encoding, charset)) {
+			return new TagParser(data, decode, charset).parseRoot();
+		}
+
+		byte[] transcoded = new String(data, charset)
+				.getBytes(StandardCharsets.UTF_8);
+		return new TagParser(transcoded, decode, StandardCharsets.UTF_8)
+				.parseRoot();
+	}
+
+	private TagParser(final byte[] data, final boolean decode,
+			final Charset charset) {
+		this.data = data;
+		limit = data.length;
+		this.decode = decode;
+		this.charset = charset;
+	}
+
+	private Tag parseRoot() {
+		int pos = indexOf(OPEN, 0);
+		if (pos < 0) {
+			return null;
+		}
+
+		Tag root = null;
+		Tag[] stack = new Tag[16];
+		int depth = 0;
+
+		while (pos >= 0 && pos + 1 < limit) {
+			if (data[pos + 1] == SLASH) {
+				// closing tag for the structure on top of the stack
+				int gt = indexOf(CLOSE, pos + 2);
+				if (gt < 0 || depth == 0) {
+					break;
+				}
+				stack[--depth] = null;
+				if (depth == 0) {
+					break;
+				}
+				pos = indexOf(OPEN, gt + 1);
+				continue;
+			}
+
+			int gt = indexOf(CLOSE, pos + 1);
+			if (gt < 0) {
+				break;
+			}
+
+			Tag tag = new Tag(tagName(pos + 1, gt));
+			if (depth == 0) {
+				if (root != null) {
+					break;
+				}
+				root = tag;
+			} else {
+				stack[depth - 1].addTag(tag);
+			}
+
+			int contentStart = gt + 1;
+			int next = indexOf(OPEN, contentStart);
+			if (next < 0) {
+				break;
+			}
+
+			if (next + 1 < limit && data[next + 1] == SLASH) {
+				// leaf, the next tag closes this one
+				tag.value = leafValue(contentStart, next);
+				int closeGt = indexOf(CLOSE, next + 2);
+				if (closeGt < 0 || depth == 0) {
+					break;
+				}
+				pos = indexOf(OPEN, closeGt + 1);
+			} else {
+				if (depth == stack.length) {
+					stack = Arrays.copyOf(stack, depth * 2);
+				}
+				stack[depth++] = tag;
+				pos = next;
+			}
+		}
+
+		return root;
+	}
+
+	private String leafValue(int start, final int end) {
+		if (start < end && data[start] == NEWLINE) {
+			start++;
+		}
+
+		if (decode) {
+			for (int i = start; i < end; i++) {
+				if (data[i] == AMPERSAND) {
+					return decodeValue(start, end, i);
+				}
+			}
+		}
+
+		return new String(data, start, end - start, charset);
+	}
+
+	/**
+	 * Decode the entities written by {@link Tag#escapeChars(String)}, anything
+	 * else that looks like an entity is left as is
+	 */
+	private String decodeValue(final int start, final int end,
+			final int firstAmpersand) {
+		int len = end - start;
+		if (scratch == null || scratch.length < len) {
+			scratch = new byte[Math.max(len, 256)];
+		}
+
+		int out = firstAmpersand - start;
+		System.arraycopy(data, start, scratch, 0, out);
+
+		int i = firstAmpersand;
+		while (i < end) {
+			byte b = data[i];
+			if (b == AMPERSAND) {
+				byte replacement = 0;
+				int entityLength = 0;
+				if (matches(AMP, i, end)) {
+					replacement = '&';
+					entityLength = AMP.length;
+				} else if (matches(LT, i, end)) {
+					replacement = '<';
+					entityLength = LT.length;
+				} else if (matches(GT, i, end)) {
+					replacement = '>';
+					entityLength = GT.length;
+				} else if (matches(QUOTE, i, end)) {
+					replacement = '"';
+					entityLength = QUOTE.length;
+				} else if (matches(APOS, i, end)) {
+					replacement = '`';
+					entityLength = APOS.length;
+				}
+
+				if (entityLength > 0) {
+					scratch[out++] = replacement;
+					i += entityLength;
+					continue;
+				}
+			}
+			scratch[out++] = b;
+			i++;
+		}
+
+		return new String(scratch, 0, out, charset);
+	}
+
+	private boolean matches(final byte[] entity, final int offset,
+			final int end) {
+		if (offset + entity.length > end) {
+			return false;
+		}
+		for (int i = 1; i < entity.length; i++) {
+			if (data[offset + i] != entity[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String tagName(final int start, final int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			byte b = data[i];
+			if (b < 0) {
+				// not plain ascii, don't bother caching
+				return new String(data, start, end - start, charset);
+			}
+			hash = 31 * hash + b;
+		}
+
+		int slot = hash & (NAME_CACHE_SIZE - 1);
+		String cached = nameCache[slot];
+		if (cached != null && sameName(cached, start, end)) {
+			return cached;
+		}
+
+		String name = new String(data, start, end - start,
+				StandardCharsets.US_ASCII);
+		nameCache[slot] = name;
+		return name;
+	}
+
+	private boolean sameName(final String cached, final int start,
+			final int end) {
+		if (cached.length() != end - start) {
+			return false;
+		}
+		for (int i = start; i < end; i++) {
+			if (cached.charAt(i - start) != data[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int indexOf(final byte b, final int from) {
+		for (int i = from; i < limit; i++) {
+			if (data[i] == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static Charset charsetFor(final String encoding)
+			throws UnsupportedEncodingException {
+		try {
+			return Charset.forName(encoding);
+		} catch (IllegalCharsetNameException e) {
+			throw new UnsupportedEncodingException(encoding);
+		} catch (UnsupportedCharsetException e) {
+			throw new UnsupportedEncodingException(encoding);
+		}
+	}
+
+	private static boolean isAsciiCompatible(final String encoding,
+			final Charset charset) {
+		Boolean compatible = asciiCompatibleEncodings.get(encoding);
+		if (compatible == null) {
+			String markup = "<>/&;\n";
+			compatible = Arrays.equals(markup.getBytes(charset),
+					markup.getBytes(StandardCharsets.US_ASCII));
+			asciiCompatibleEncodings.put(encoding, compatible);
+		}
+		return compatible;
+	}
+
+	private static byte[] bytes(final String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+
+}
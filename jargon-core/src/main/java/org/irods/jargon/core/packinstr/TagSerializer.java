@@ -0,0 +1,330 @@
+package org.irods.jargon.core.packinstr;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+
+/**
+ * Writes a {@link Tag} tree as the XML protocol bytes sent to iRODS, without
+ * building the intermediate {@code String} that {@link Tag#parseTag()}
+ * produces. The output is byte for byte what {@code parseTag()} followed by
+ * {@code getBytes(encoding)} would give.
+ * <p>
+ * Serialization is done in two passes over the tree. The first computes the
+ * exact encoded length, which is needed for the message header anyway, and
+ * the second escapes and encodes values directly into a caller supplied
+ * buffer. UTF-8 is encoded by hand; other encodings fall back to encoding
+ * each escaped value separately.
+ */
+public final class TagSerializer {
+
+	private static final byte[] AMP = ascii(Tag.AMP);
+	private static final byte[] LT = ascii(Tag.LT);
+	private static final byte[] GT = ascii(Tag.GT);
+	private static final byte[] QUOTE = ascii(Tag.QUOTE);
+	private static final byte[] APOS = ascii(Tag.APOS);
+
+	/**
+	 * {@code parseTag()} appends a {@code null} value as the literal text
+	 * 'null', this is preserved so the wire format does not change
+	 */
+	private static final String NULL_VALUE = "null";
+
+	private final Charset charset;
+	private final boolean utf8;
+
+	/**
+	 * Get a serializer for the given encoding
+	 *
+	 * @param encoding
+	 *            {@code String} with the encoding used on the connection
+	 * @return {@link TagSerializer}
+	 * @throws UnsupportedEncodingException
+	 *             if the encoding is not supported
+	 */
+	public static TagSerializer instance(final String encoding)
+			throws UnsupportedEncodingException {
+		if (encoding == null || encoding.isEmpty()) {
+			throw new IllegalArgumentException("null or empty encoding");
+		}
+
+		try {
+			return new TagSerializer(Charset.forName(encoding));
+		} catch (IllegalCharsetNameException e) {
+			throw new UnsupportedEncodingException(encoding);
+		} catch (UnsupportedCharsetException e) {
+			throw new UnsupportedEncodingException(encoding);
+		}
+	}
+
+	private TagSerializer(final Charset charset) {
+		this.charset = charset;
+		utf8 = StandardCharsets.UTF_8.equals(charset);
+	}
+
+	/**
+	 * Compute the number of bytes the given tag will occupy when serialized
+	 *
+	 * @param tag
+	 *            {@link Tag} to measure
+	 * @return {@code int} with the encoded length
+	 */
+	public int byteLength(final Tag tag) {
+		if (tag == null) {
+			throw new IllegalArgumentException("null tag");
+		}
+
+		// <name> + </name> + \n
+		int nameLength = encodedLength(tag.tagName);
+		int length = (2 * nameLength) + 6;
+
+		if (tag.tags != null) {
+			for (Tag child : tag.tags) {
+				length += byteLength(child);
+			}
+		} else {
+			length += escapedLength(tag.value);
+		}
+
+		return length;
+	}
+
+	/**
+	 * Serialize the tag into a new array of exactly the required size
+	 *
+	 * @param tag
+	 *            {@link Tag} to serialize
+	 * @return {@code byte[]} with the encoded message
+	 */
+	public byte[] toBytes(final Tag tag) {
+		byte[] target = new byte[byteLength(tag)];
+		write(tag, target, 0);
+		return target;
+	}
+
+	/**
+	 * Serialize the tag into the given buffer. The caller is responsible for
+	 * making sure there are at least {@link #byteLength(Tag)} bytes available
+	 * at {@code offset}
+	 *
+	 * @param tag
+	 *            {@link Tag} to serialize
+	 * @param target
+	 *            {@code byte[]} that will receive the encoded message
+	 * @param offset
+	 *            {@code int} with the position in {@code target} to start
+	 *            writing
+	 * @return {@code int} with the position just after the last byte written
+	 */
+	public int write(final Tag tag, final byte[] target, int offset) {
+		if (tag == null) {
+			throw new IllegalArgumentException("null tag");
+		}
+
+		target[offset++] = Tag.OPEN_START_TAG;
+		offset = writeName(tag.tagName, target, offset);
+		target[offset++] = Tag.CLOSE_START_TAG;
+
+		if (tag.tags != null) {
+			for (Tag child : tag.tags) {
+				offset = write(child, target, offset);
+			}
+		} else {
+			offset = writeEscaped(tag.value, target, offset);
+		}
+
+		target[offset++] = Tag.OPEN_START_TAG;
+		target[offset++] = '/';
+		offset = writeName(tag.tagName, target, offset);
+		target[offset++] = Tag.CLOSE_END_TAG;
+		target[offset++] = '\n';
+		return offset;
+	}
+
+	private int encodedLength(final String value) {
+		if (!utf8) {
+			return value.getBytes(charset).length;
+		}
+
+		int length = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (Character.isHighSurrogate(c) && i + 1 < value.length()
+					&& Character.isLowSurrogate(value.charAt(i + 1))) {
+				length += 4;
+				i++;
+			} else {
+				length += utf8Length(c);
+			}
+		}
+		return length;
+	}
+
+	private int escapedLength(final String value) {
+		if (value == null) {
+			return NULL_VALUE.length();
+		}
+
+		if (!utf8) {
+			return escape(value).getBytes(charset).length;
+		}
+
+		int length = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '&':
+				length += AMP.length;
+				break;
+			case '<':
+				length += LT.length;
+				break;
+			case '>':
+				length += GT.length;
+				break;
+			case '"':
+				length += QUOTE.length;
+				break;
+			case '`':
+				length += APOS.length;
+				break;
+			default:
+				if (Character.isHighSurrogate(c) && i + 1 < value.length()
+						&& Character.isLowSurrogate(value.charAt(i + 1))) {
+					length += 4;
+					i++;
+				} else {
+					length += utf8Length(c);
+				}
+			}
+		}
+		return length;
+	}
+
+	private int writeName(final String name, final byte[] target,
+			final int offset) {
+		if (!utf8) {
+			return copy(name.getBytes(charset), target, offset);
+		}
+
+		int pos = offset;
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (c < 0x80) {
+				target[pos++] = (byte) c;
+			} else {
+				pos = writeUtf8(name, i, target, pos);
+				if (Character.isHighSurrogate(c) && i + 1 < name.length()
+						&& Character.isLowSurrogate(name.charAt(i + 1))) {
+					i++;
+				}
+			}
+		}
+		return pos;
+	}
+
+	private int writeEscaped(final String value, final byte[] target,
+			final int offset) {
+		if (value == null) {
+			return copy(ascii(NULL_VALUE), target, offset);
+		}
+
+		if (!utf8) {
+			return copy(escape(value).getBytes(charset), target, offset);
+		}
+
+		int pos = offset;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '&':
+				pos = copy(AMP, target, pos);
+				break;
+			case '<':
+				pos = copy(LT, target, pos);
+				break;
+			case '>':
+				pos = copy(GT, target, pos);
+				break;
+			case '"':
+				pos = copy(QUOTE, target, pos);
+				break;
+			case '`':
+				pos = copy(APOS, target, pos);
+				break;
+			default:
+				if (c < 0x80) {
+					target[pos++] = (byte) c;
+				} else {
+					pos = writeUtf8(value, i, target, pos);
+					if (Character.isHighSurrogate(c) && i + 1 < value.length()
+							&& Character.isLowSurrogate(value.charAt(i + 1))) {
+						i++;
+					}
+				}
+			}
+		}
+		return pos;
+	}
+
+	/**
+	 * Encode the non-ascii char at {@code index}, consuming a following low
+	 * surrogate if present. Unpaired surrogates are written as '?', as
+	 * {@code String.getBytes()} does.
+	 */
+	private static int writeUtf8(final String value, final int index,
+			final byte[] target, int pos) {
+		char c = value.charAt(index);
+		if (c < 0x800) {
+			target[pos++] = (byte) (0xc0 | (c >> 6));
+			target[pos++] = (byte) (0x80 | (c & 0x3f));
+		} else if (Character.isSurrogate(c)) {
+			if (Character.isHighSurrogate(c) && index + 1 < value.length()
+					&& Character.isLowSurrogate(value.charAt(index + 1))) {
+				int codePoint = Character.toCodePoint(c,
+						value.charAt(index + 1));
+				target[pos++] = (byte) (0xf0 | (codePoint >> 18));
+				target[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+				target[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+				target[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+			} else {
+				target[pos++] = '?';
+			}
+		} else {
+			target[pos++] = (byte) (0xe0 | (c >> 12));
+			target[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+			target[pos++] = (byte) (0x80 | (c & 0x3f));
+		}
+		return pos;
+	}
+
+	private static int utf8Length(final char c) {
+		if (c < 0x80) {
+			return 1;
+		} else if (c < 0x800) {
+			return 2;
+		} else if (Character.isSurrogate(c)) {
+			// unpaired surrogate, encoded as '?'
+			return 1;
+		} else {
+			return 3;
+		}
+	}
+
+	private static String escape(final String value) {
+		return new Tag(null).escapeChars(value);
+	}
+
+	private static int copy(final byte[] source, final byte[] target,
+			final int offset) {
+		System.arraycopy(source, 0, target, offset, source.length);
+		return offset + source.length;
+	}
+
+	private static byte[] ascii(final String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+
+}
@@ -40,6 +40,7 @@ public class TransferOptions {
 	private boolean intraFileStatusCallbacks = false;
 	private ForceOption forceOption = ForceOption.ASK_CALLBACK_LISTENER;
 	private boolean useParallelTransfer = true;
+	private int concurrentFileTransferThreads = 0;
 	private ChecksumEncodingEnum checksumEncoding = ChecksumEncodingEnum.DEFAULT;
 	/**
 	 * Number of callbacks before an intra file callback listener will be
@@ -97,6 +98,8 @@ public class TransferOptions {
 		}
 		builder.append("useParallelTransfer=");
 		builder.append(useParallelTransfer);
+		builder.append(", concurrentFileTransferThreads=");
+		builder.append(concurrentFileTransferThreads);
 		builder.append(", ");
 		if (checksumEncoding != null) {
 			builder.append("checksumEncoding=");
@@ -146,6 +149,8 @@ public class TransferOptions {
 				setIntraFileStatusCallbacks(transferOptions.intraFileStatusCallbacks);
 				setForceOption(transferOptions.getForceOption());
 				setUseParallelTransfer(transferOptions.isUseParallelTransfer());
+				setConcurrentFileTransferThreads(transferOptions
+						.getConcurrentFileTransferThreads());
 				setPutOption(transferOptions.getPutOption());
 				setChecksumEncoding(transferOptions.getChecksumEncoding());
 				setIntraFileStatusCallbacksNumberCallsInterval(transferOptions
@@ -339,6 +344,35 @@ public class TransferOptions {
 		this.useParallelTransfer = useParallelTransfer;
 	}
 
+	/**
+	 * Get the number of files of a recursive put or get that are transferred
+	 * at once.
+	 *
+	 * @return {@code int} with the number of files transferred at once, each
+	 *         on its own connection. 0 or 1 transfers one file at a time on
+	 *         the calling thread.
+	 */
+	public synchronized int getConcurrentFileTransferThreads() {
+		return concurrentFileTransferThreads;
+	}
+
+	/**
+	 * Set the number of files of a recursive put or get that are transferred
+	 * at once. Each worker holds its own iRODS connection for the length of
+	 * the transfer, and a large file may still use parallel transfer threads
+	 * of its own. Files are handed to the workers in the same order as a one
+	 * at a time transfer, but can finish out of order, so a restart from the
+	 * last completed file may skip files that were still in progress.
+	 *
+	 * @param concurrentFileTransferThreads
+	 *            {@code int} with the number of files to transfer at once, 0
+	 *            or 1 transfers one file at a time.
+	 */
+	public synchronized void setConcurrentFileTransferThreads(
+			final int concurrentFileTransferThreads) {
+		this.concurrentFileTransferThreads = concurrentFileTransferThreads;
+	}
+
 	/**
 	 * @return the putOption
 	 */
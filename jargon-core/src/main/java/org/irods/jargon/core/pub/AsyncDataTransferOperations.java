@@ -0,0 +1,136 @@
+package org.irods.jargon.core.pub;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.transfer.TransferControlBlock;
+import org.irods.jargon.core.transfer.TransferFuture;
+import org.irods.jargon.core.transfer.TransferStatus;
+import org.irods.jargon.core.transfer.TransferStatusCallbackListener;
+
+/**
+ * Asynchronous form of the main {@link DataTransferOperations} methods. Each
+ * method returns at once with a {@link TransferFuture}, and the transfer runs
+ * on a thread from the {@code IRODSSession} async transfer executor, with its
+ * own connection to iRODS. Many transfers may be started this way and composed
+ * with the usual {@code CompletableFuture} methods, without a caller thread
+ * for each.
+ * <p>
+ * The number of transfers running at once against one iRODS host is limited
+ * by the {@code transfer.async.max.per.host} jargon property. Transfers over
+ * that limit wait their turn without holding a thread.
+ * <p>
+ * The future completes with the final overall {@link TransferStatus} of the
+ * transfer. A transfer that fails completes the future exceptionally with the
+ * cause, whether or not a {@link TransferStatusCallbackListener} is given. The
+ * listener, if given, still receives all of the call-backs it would in the
+ * synchronous form, on the transfer thread.
+ * <p>
+ * Cancelling the future cancels the transfer through its
+ * {@link TransferControlBlock}. If no control block is given, a default one
+ * is built from the jargon properties, and is available from the future.
+ */
+public interface AsyncDataTransferOperations {
+
+	/**
+	 * Put a file or a collection (recursively) to iRODS. See
+	 * {@link DataTransferOperations#putOperation(File, IRODSFile, TransferStatusCallbackListener, TransferControlBlock)}
+	 *
+	 * @param sourceFile
+	 *            {@code File} with the source directory or file.
+	 * @param targetIrodsFile
+	 *            {@link IRODSFile} with the target iRODS file or collection.
+	 * @param transferStatusCallbackListener
+	 *            optional {@link TransferStatusCallbackListener}, may be
+	 *            {@code null}
+	 * @param transferControlBlock
+	 *            optional {@link TransferControlBlock}, may be {@code null}
+	 * @return {@link TransferFuture} for the transfer
+	 * @throws JargonException
+	 */
+	TransferFuture putOperation(File sourceFile, IRODSFile targetIrodsFile,
+			TransferStatusCallbackListener transferStatusCallbackListener,
+			TransferControlBlock transferControlBlock) throws JargonException;
+
+	/**
+	 * Get a file or collection (recursively) from iRODS. See
+	 * {@link DataTransferOperations#getOperation(IRODSFile, File, TransferStatusCallbackListener, TransferControlBlock)}
+	 *
+	 * @param irodsSourceFile
+	 *            {@link IRODSFile} with the file or collection to retrieve.
+	 * @param targetLocalFile
+	 *            {@code File} that will hold the retrieved data.
+	 * @param transferStatusCallbackListener
+	 *            optional {@link TransferStatusCallbackListener}, may be
+	 *            {@code null}
+	 * @param transferControlBlock
+	 *            optional {@link TransferControlBlock}, may be {@code null}
+	 * @return {@link TransferFuture} for the transfer
+	 * @throws JargonException
+	 */
+	TransferFuture getOperation(IRODSFile irodsSourceFile,
+			File targetLocalFile,
+			TransferStatusCallbackListener transferStatusCallbackListener,
+			TransferControlBlock transferControlBlock) throws JargonException;
+
+	/**
+	 * Copy a file or collection from iRODS to iRODS. See
+	 * {@link DataTransferOperations#copy(IRODSFile, IRODSFile, TransferStatusCallbackListener, TransferControlBlock)}
+	 *
+	 * @param irodsSourceFile
+	 *            {@link IRODSFile} with the source file or collection.
+	 * @param irodsTargetFile
+	 *            {@link IRODSFile} with the target file or collection.
+	 * @param transferStatusCallbackListener
+	 *            optional {@link TransferStatusCallbackListener}, may be
+	 *            {@code null}
+	 * @param transferControlBlock
+	 *            optional {@link TransferControlBlock}, may be {@code null}
+	 * @return {@link TransferFuture} for the transfer
+	 * @throws JargonException
+	 */
+	TransferFuture copy(IRODSFile irodsSourceFile, IRODSFile irodsTargetFile,
+			TransferStatusCallbackListener transferStatusCallbackListener,
+			TransferControlBlock transferControlBlock) throws JargonException;
+
+	/**
+	 * Replicate a file or collection to a resource. See
+	 * {@link DataTransferOperations#replicate(String, String, TransferStatusCallbackListener, TransferControlBlock)}
+	 *
+	 * @param irodsFileAbsolutePath
+	 *            {@code String} with the absolute path to the file or
+	 *            collection to replicate.
+	 * @param targetResource
+	 *            {@code String} with the resource to replicate to.
+	 * @param transferStatusCallbackListener
+	 *            optional {@link TransferStatusCallbackListener}, may be
+	 *            {@code null}
+	 * @param transferControlBlock
+	 *            optional {@link TransferControlBlock}, may be {@code null}
+	 * @return {@link TransferFuture} for the transfer
+	 * @throws JargonException
+	 */
+	TransferFuture replicate(String irodsFileAbsolutePath,
+			String targetResource,
+			TransferStatusCallbackListener transferStatusCallbackListener,
+			TransferControlBlock transferControlBlock) throws JargonException;
+
+	/**
+	 * Move a file or collection within iRODS. See
+	 * {@link DataTransferOperations#move(String, String)}. A move has no
+	 * transfer status or control block, so it completes with no value, and
+	 * cancelling it only stops a move that has not started.
+	 *
+	 * @param absolutePathToSourceFile
+	 *            {@code String} with the absolute path to the source file.
+	 * @param absolutePathToTargetFile
+	 *            {@code String} with the absolute path to the target.
+	 * @return {@code CompletableFuture} for the move
+	 * @throws JargonException
+	 */
+	CompletableFuture<Void> move(String absolutePathToSourceFile,
+			String absolutePathToTargetFile) throws JargonException;
+
+}
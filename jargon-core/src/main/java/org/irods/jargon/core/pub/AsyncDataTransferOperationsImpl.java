@@ -0,0 +1,413 @@
+package org.irods.jargon.core.pub;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.transfer.TransferControlBlock;
+import org.irods.jargon.core.transfer.TransferFuture;
+import org.irods.jargon.core.transfer.TransferStatus;
+import org.irods.jargon.core.transfer.TransferStatus.TransferState;
+import org.irods.jargon.core.transfer.TransferStatus.TransferType;
+import org.irods.jargon.core.transfer.TransferStatusCallbackListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Default implementation of {@link AsyncDataTransferOperations}. Each
+ * transfer is handed to the {@link DataTransferOperations} of the thread it
+ * runs on, and a connection that thread opened is closed when the transfer
+ * is done, so no connections are left behind on pooled threads.
+ * <p>
+ * Unlike the other access objects, no connection is made on the calling
+ * thread.
+ */
+public final class AsyncDataTransferOperationsImpl implements
+		AsyncDataTransferOperations {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(AsyncDataTransferOperationsImpl.class);
+
+	private final IRODSSession irodsSession;
+	private final IRODSAccount irodsAccount;
+
+	/**
+	 * A synchronous transfer to run on the transfer thread
+	 */
+	private interface Transfer {
+		void transfer(DataTransferOperations dataTransferOperations,
+				TransferStatusCallbackListener transferStatusCallbackListener,
+				TransferControlBlock transferControlBlock)
+				throws JargonException;
+	}
+
+	/**
+	 * Passes call-backs on to the caller's listener, keeping the last overall
+	 * status so the future can be completed with it
+	 */
+	private static final class OverallStatusListener implements
+			TransferStatusCallbackListener {
+
+		private final TransferStatusCallbackListener listener;
+		private volatile TransferStatus lastOverallStatus = null;
+
+		OverallStatusListener(final TransferStatusCallbackListener listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		public FileStatusCallbackResponse statusCallback(
+				final TransferStatus transferStatus) throws JargonException {
+			return listener.statusCallback(transferStatus);
+		}
+
+		@Override
+		public void overallStatusCallback(final TransferStatus transferStatus)
+				throws JargonException {
+			if (transferStatus.getTransferState() != TransferState.OVERALL_INITIATION) {
+				lastOverallStatus = transferStatus;
+			}
+			listener.overallStatusCallback(transferStatus);
+		}
+
+		@Override
+		public CallbackResponse transferAsksWhetherToForceOperation(
+				final String irodsAbsolutePath, final boolean isCollection) {
+			return listener.transferAsksWhetherToForceOperation(
+					irodsAbsolutePath, isCollection);
+		}
+	}
+
+	/**
+	 * @param irodsSession
+	 *            {@link IRODSSession} that supplies the transfer threads,
+	 *            the per host limit and the connections
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} the transfers are done as
+	 * @throws JargonException
+	 */
+	public AsyncDataTransferOperationsImpl(final IRODSSession irodsSession,
+			final IRODSAccount irodsAccount) throws JargonException {
+		if (irodsSession == null) {
+			throw new JargonException("IRODSSession is null");
+		}
+
+		if (irodsAccount == null) {
+			throw new JargonException("IRODSAccount is null");
+		}
+
+		this.irodsSession = irodsSession;
+		this.irodsAccount = irodsAccount;
+	}
+
+	@Override
+	public TransferFuture putOperation(final File sourceFile,
+			final IRODSFile targetIrodsFile,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock)
+			throws JargonException {
+
+		if (sourceFile == null) {
+			throw new IllegalArgumentException("null sourceFile");
+		}
+
+		if (targetIrodsFile == null) {
+			throw new IllegalArgumentException("null targetIrodsFile");
+		}
+
+		log.info("async put of:{} to:{}", sourceFile.getAbsolutePath(),
+				targetIrodsFile.getAbsolutePath());
+
+		return submitTransfer(TransferType.PUT, sourceFile.getAbsolutePath(),
+				targetIrodsFile.getAbsolutePath(), "",
+				transferStatusCallbackListener, transferControlBlock,
+				new Transfer() {
+					@Override
+					public void transfer(
+							final DataTransferOperations dataTransferOperations,
+							final TransferStatusCallbackListener listener,
+							final TransferControlBlock tcb)
+							throws JargonException {
+						dataTransferOperations.putOperation(sourceFile,
+								targetIrodsFile, listener, tcb);
+					}
+				});
+	}
+
+	@Override
+	public TransferFuture getOperation(final IRODSFile irodsSourceFile,
+			final File targetLocalFile,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock)
+			throws JargonException {
+
+		if (irodsSourceFile == null) {
+			throw new IllegalArgumentException("null irodsSourceFile");
+		}
+
+		if (targetLocalFile == null) {
+			throw new IllegalArgumentException("null targetLocalFile");
+		}
+
+		log.info("async get of:{} to:{}", irodsSourceFile.getAbsolutePath(),
+				targetLocalFile.getAbsolutePath());
+
+		return submitTransfer(TransferType.GET,
+				irodsSourceFile.getAbsolutePath(),
+				targetLocalFile.getAbsolutePath(), "",
+				transferStatusCallbackListener, transferControlBlock,
+				new Transfer() {
+					@Override
+					public void transfer(
+							final DataTransferOperations dataTransferOperations,
+							final TransferStatusCallbackListener listener,
+							final TransferControlBlock tcb)
+							throws JargonException {
+						dataTransferOperations.getOperation(irodsSourceFile,
+								targetLocalFile, listener, tcb);
+					}
+				});
+	}
+
+	@Override
+	public TransferFuture copy(final IRODSFile irodsSourceFile,
+			final IRODSFile irodsTargetFile,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock)
+			throws JargonException {
+
+		if (irodsSourceFile == null) {
+			throw new IllegalArgumentException("null irodsSourceFile");
+		}
+
+		if (irodsTargetFile == null) {
+			throw new IllegalArgumentException("null irodsTargetFile");
+		}
+
+		log.info("async copy of:{} to:{}", irodsSourceFile.getAbsolutePath(),
+				irodsTargetFile.getAbsolutePath());
+
+		return submitTransfer(TransferType.COPY,
+				irodsSourceFile.getAbsolutePath(),
+				irodsTargetFile.getAbsolutePath(), "",
+				transferStatusCallbackListener, transferControlBlock,
+				new Transfer() {
+					@Override
+					public void transfer(
+							final DataTransferOperations dataTransferOperations,
+							final TransferStatusCallbackListener listener,
+							final TransferControlBlock tcb)
+							throws JargonException {
+						dataTransferOperations.copy(irodsSourceFile,
+								irodsTargetFile, listener, tcb);
+					}
+				});
+	}
+
+	@Override
+	public TransferFuture replicate(final String irodsFileAbsolutePath,
+			final String targetResource,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock)
+			throws JargonException {
+
+		if (irodsFileAbsolutePath == null || irodsFileAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsFileAbsolutePath");
+		}
+
+		if (targetResource == null || targetResource.isEmpty()) {
+			throw new IllegalArgumentException("null or empty targetResource");
+		}
+
+		log.info("async replicate of:{} to resource:{}",
+				irodsFileAbsolutePath, targetResource);
+
+		return submitTransfer(TransferType.REPLICATE, irodsFileAbsolutePath,
+				"", targetResource, transferStatusCallbackListener,
+				transferControlBlock, new Transfer() {
+					@Override
+					public void transfer(
+							final DataTransferOperations dataTransferOperations,
+							final TransferStatusCallbackListener listener,
+							final TransferControlBlock tcb)
+							throws JargonException {
+						dataTransferOperations.replicate(irodsFileAbsolutePath,
+								targetResource, listener, tcb);
+					}
+				});
+	}
+
+	@Override
+	public CompletableFuture<Void> move(final String absolutePathToSourceFile,
+			final String absolutePathToTargetFile) throws JargonException {
+
+		if (absolutePathToSourceFile == null
+				|| absolutePathToSourceFile.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty absolutePathToSourceFile");
+		}
+
+		if (absolutePathToTargetFile == null
+				|| absolutePathToTargetFile.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty absolutePathToTargetFile");
+		}
+
+		log.info("async move of:{} to:{}", absolutePathToSourceFile,
+				absolutePathToTargetFile);
+
+		final CompletableFuture<Void> future = new CompletableFuture<Void>();
+
+		submit(future, new Runnable() {
+			@Override
+			public void run() {
+				try {
+					getDataTransferOperations().move(absolutePathToSourceFile,
+							absolutePathToTargetFile);
+					future.complete(null);
+				} catch (Throwable e) {
+					log.error("async move failed", e);
+					future.completeExceptionally(e);
+				}
+			}
+		});
+
+		return future;
+	}
+
+	/**
+	 * Set up the future and listener for a transfer and submit it
+	 */
+	private TransferFuture submitTransfer(final TransferType transferType,
+			final String sourcePath, final String targetPath,
+			final String targetResource,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock,
+			final Transfer transfer) throws JargonException {
+
+		final TransferControlBlock tcb;
+		if (transferControlBlock == null) {
+			tcb = irodsSession
+					.buildDefaultTransferControlBlockBasedOnJargonProperties();
+		} else {
+			tcb = transferControlBlock;
+		}
+
+		/*
+		 * With no listener of the caller's the synchronous operations throw
+		 * their errors, which fail the future directly, so only wrap a
+		 * listener that was given
+		 */
+		final OverallStatusListener listener;
+		if (transferStatusCallbackListener == null) {
+			listener = null;
+		} else {
+			listener = new OverallStatusListener(transferStatusCallbackListener);
+		}
+
+		final TransferFuture future = new TransferFuture(tcb);
+
+		submit(future, new Runnable() {
+			@Override
+			public void run() {
+				try {
+					transfer.transfer(getDataTransferOperations(), listener,
+							tcb);
+					TransferStatus overallStatus = listener == null ? null
+							: listener.lastOverallStatus;
+					if (overallStatus == null) {
+						overallStatus = TransferStatus.instance(transferType,
+								sourcePath, targetPath, targetResource,
+								tcb.getTotalBytesToTransfer(),
+								tcb.getTotalBytesTransferredSoFar(),
+								tcb.getTotalFilesTransferredSoFar(),
+								tcb.getTotalFilesSkippedSoFar(),
+								tcb.getTotalFilesToTransfer(),
+								TransferState.OVERALL_COMPLETION,
+								irodsAccount.getHost(), irodsAccount.getZone());
+					}
+
+					if (overallStatus.getTransferException() != null) {
+						future.completeExceptionally(overallStatus
+								.getTransferException());
+					} else {
+						future.complete(overallStatus);
+					}
+				} catch (Throwable e) {
+					log.error("async transfer failed", e);
+					future.completeExceptionally(e);
+				}
+			}
+		});
+
+		return future;
+	}
+
+	/**
+	 * Hand the work to the session executor, through the per host limit. The
+	 * connection the work opens is closed on the same thread when it is done,
+	 * a connection the thread already held is left open for its owner.
+	 */
+	private void submit(final CompletableFuture<?> future, final Runnable work) {
+		Runnable task = new Runnable() {
+			@Override
+			public void run() {
+				if (future.isDone()) {
+					log.info("transfer cancelled before it started");
+					return;
+				}
+
+				boolean connectionWasHeld = isConnectionHeld();
+				try {
+					work.run();
+				} finally {
+					if (!connectionWasHeld) {
+						try {
+							irodsSession.closeSession(irodsAccount);
+						} catch (JargonException e) {
+							log.warn(
+									"error closing connection after async transfer",
+									e);
+						}
+					}
+				}
+			}
+		};
+
+		try {
+			irodsSession.getTransferAdmissionControl().submit(
+					irodsAccount.getHost(),
+					irodsSession.getAsyncTransferExecutor(), task);
+		} catch (RejectedExecutionException e) {
+			log.error("async transfer executor rejected the transfer", e);
+			future.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * See if the current thread already has a connection for the account
+	 */
+	private boolean isConnectionHeld() {
+		Map<String, AbstractIRODSMidLevelProtocol> irodsProtocols = irodsSession
+				.getIRODSCommandsMap();
+		return irodsProtocols != null
+				&& irodsProtocols.containsKey(irodsAccount.toString());
+	}
+
+	/**
+	 * Get the synchronous operations for the current (transfer) thread
+	 */
+	private DataTransferOperations getDataTransferOperations()
+			throws JargonException {
+		return IRODSAccessObjectFactoryImpl.instance(irodsSession)
+				.getDataTransferOperations(irodsAccount);
+	}
+
+}
@@ -0,0 +1,156 @@
+/**
+ *
+ */
+package org.irods.jargon.core.pub;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
+import org.irods.jargon.core.connection.PipelinedReplyHandler;
+import org.irods.jargon.core.exception.DataNotFoundException;
+import org.irods.jargon.core.exception.DuplicateDataException;
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.ModAvuMetadataInp;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.pub.BulkAVUOperationResponse.ResultStatus;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends the AVU requests of a bulk metadata operation on one connection,
+ * pipelined so that the agent is kept busy rather than waiting a round trip for
+ * each AVU, and turns each reply into a {@link BulkAVUOperationResponse}.
+ * <p>
+ * An error iRODS returns for one AVU is reported in its response and the rest
+ * of the AVUs are still sent.
+ */
+class BulkAVUPipeline {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(BulkAVUPipeline.class);
+
+	/**
+	 * Requests written ahead of their replies, a ModAvuMetadataInp is well
+	 * under 1k so this stays inside the socket buffers
+	 */
+	static final int MAX_REQUESTS_IN_FLIGHT = 32;
+
+	private final AbstractIRODSMidLevelProtocol irodsProtocol;
+	private final String missingTargetMessage;
+
+	/**
+	 * @param irodsProtocol
+	 *            {@link AbstractIRODSMidLevelProtocol} to send on
+	 * @param missingTargetMessage
+	 *            {@code String} reported for AVUs whose target was not found
+	 */
+	BulkAVUPipeline(final AbstractIRODSMidLevelProtocol irodsProtocol,
+			final String missingTargetMessage) {
+
+		if (irodsProtocol == null) {
+			throw new IllegalArgumentException("null irodsProtocol");
+		}
+
+		if (missingTargetMessage == null) {
+			throw new IllegalArgumentException("null missingTargetMessage");
+		}
+
+		this.irodsProtocol = irodsProtocol;
+		this.missingTargetMessage = missingTargetMessage;
+	}
+
+	/**
+	 * Send the requests and report on each AVU
+	 *
+	 * @param avuData
+	 *            {@code List} of {@link AvuData}
+	 * @param requests
+	 *            {@code List} of {@link ModAvuMetadataInp}, one for each AVU
+	 *            in the same order
+	 * @return {@code List} of {@link BulkAVUOperationResponse} in the order of
+	 *         the AVUs
+	 * @throws JargonException
+	 *             if the connection fails
+	 */
+	List<BulkAVUOperationResponse> send(final List<AvuData> avuData,
+			final List<ModAvuMetadataInp> requests) throws JargonException {
+
+		if (avuData == null || requests == null
+				|| avuData.size() != requests.size()) {
+			throw new IllegalArgumentException(
+					"avuData and requests must be given and of the same size");
+		}
+
+		final List<BulkAVUOperationResponse> responses = new ArrayList<BulkAVUOperationResponse>(
+				avuData.size());
+
+		long start = System.currentTimeMillis();
+
+		irodsProtocol.irodsFunctionPipelined(requests,
+				MAX_REQUESTS_IN_FLIGHT, new PipelinedReplyHandler() {
+
+					@Override
+					public void replyReceived(final int index, final Tag reply,
+							final JargonException error) {
+						responses.add(responseFor(avuData.get(index), error));
+					}
+				});
+
+		log.info("sent {} AVU requests in {} ms", requests.size(),
+				System.currentTimeMillis() - start);
+		return responses;
+	}
+
+	BulkAVUOperationResponse responseFor(final AvuData avuData,
+			final JargonException error) {
+
+		if (error == null) {
+			return BulkAVUOperationResponse.instance(ResultStatus.OK, avuData,
+					"");
+		} else if (error instanceof DuplicateDataException) {
+			log.error(
+					"DuplicateDataException when adding an AVU, catch and add to response data",
+					error);
+			return BulkAVUOperationResponse.instance(
+					ResultStatus.DUPLICATE_AVU, avuData, error.getMessage());
+		} else if (error instanceof FileNotFoundException
+				|| error instanceof DataNotFoundException) {
+			log.error(
+					"target not found for an AVU, catch and add to response data",
+					error);
+			return BulkAVUOperationResponse.instance(
+					ResultStatus.MISSING_METADATA_TARGET, avuData,
+					missingTargetMessage);
+		} else {
+			log.error("error for an AVU, catch and add to response data",
+					error);
+			return BulkAVUOperationResponse.instance(ResultStatus.OTHER_ERROR,
+					avuData, error.getMessage());
+		}
+	}
+
+	/**
+	 * Report every AVU as missing its target, used when the target could not
+	 * be found before sending
+	 *
+	 * @param avuData
+	 *            {@code List} of {@link AvuData}
+	 * @param message
+	 *            {@code String} for the responses
+	 * @return {@code List} of {@link BulkAVUOperationResponse}
+	 */
+	static List<BulkAVUOperationResponse> allMissingTarget(
+			final List<AvuData> avuData, final String message) {
+		List<BulkAVUOperationResponse> responses = new ArrayList<BulkAVUOperationResponse>(
+				avuData.size());
+		for (AvuData value : avuData) {
+			responses.add(BulkAVUOperationResponse.instance(
+					ResultStatus.MISSING_METADATA_TARGET, value, message));
+		}
+		return responses;
+	}
+
+}
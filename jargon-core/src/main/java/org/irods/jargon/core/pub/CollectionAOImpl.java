@@ -13,7 +13,6 @@ import org.irods.jargon.core.packinstr.ModAccessControlInp;
 import org.irods.jargon.core.packinstr.ModAvuMetadataInp;
 import org.irods.jargon.core.protovalues.FilePermissionEnum;
 import org.irods.jargon.core.protovalues.UserTypeEnum;
-import org.irods.jargon.core.pub.BulkAVUOperationResponse.ResultStatus;
 import org.irods.jargon.core.pub.RuleProcessingAO.RuleProcessingType;
 import org.irods.jargon.core.pub.aohelper.CollectionAOHelper;
 import org.irods.jargon.core.pub.domain.AvuData;
@@ -409,34 +408,23 @@ public final class CollectionAOImpl extends FileCatalogObjectAOImpl implements
 			throw new IllegalArgumentException("null or empty avuData");
 		}
 
-		List<BulkAVUOperationResponse> responses = new ArrayList<BulkAVUOperationResponse>();
+		String myPath = MiscIRODSUtils.checkPathSizeForMax(absolutePath);
 
+		List<ModAvuMetadataInp> requests = new ArrayList<ModAvuMetadataInp>(
+				avuData.size());
 		for (AvuData value : avuData) {
-			try {
-				addAVUMetadata(absolutePath, value);
-			} catch (FileNotFoundException dnf) {
-				log.error(
-						"FileNotFoundException when adding an AVU, catch and add to response data",
-						dnf);
-				responses.add(BulkAVUOperationResponse.instance(
-						ResultStatus.MISSING_METADATA_TARGET, value,
-						dnf.getMessage()));
-				continue;
-			} catch (DuplicateDataException dde) {
-				log.error(
-						"DuplicateDataException when adding an AVU, catch and add to response data",
-						dde);
-				responses.add(BulkAVUOperationResponse.instance(
-						ResultStatus.DUPLICATE_AVU, value, dde.getMessage()));
-				continue;
-
+			if (value == null) {
+				throw new IllegalArgumentException("null AVU data");
 			}
-
-			log.info("treat as success...", value);
-			responses.add(BulkAVUOperationResponse.instance(ResultStatus.OK,
-					value, ""));
+			requests.add(ModAvuMetadataInp.instanceForAddCollectionMetadata(
+					myPath, value));
 		}
 
+		List<BulkAVUOperationResponse> responses = new BulkAVUPipeline(
+				getIRODSProtocol(),
+				"Target collection was not found, could not add AVU").send(
+				avuData, requests);
+
 		log.info("...complete");
 		return responses;
 	}
@@ -459,27 +447,27 @@ public final class CollectionAOImpl extends FileCatalogObjectAOImpl implements
 			throw new IllegalArgumentException("null or empty avuData");
 		}
 
-		List<BulkAVUOperationResponse> responses = new ArrayList<BulkAVUOperationResponse>();
+		if (absolutePath == null || absolutePath.isEmpty()) {
+			throw new IllegalArgumentException("null or empty absolutePath");
+		}
+
+		String myPath = MiscIRODSUtils.checkPathSizeForMax(absolutePath);
 
+		List<ModAvuMetadataInp> requests = new ArrayList<ModAvuMetadataInp>(
+				avuData.size());
 		for (AvuData value : avuData) {
-			try {
-				deleteAVUMetadata(absolutePath, value);
-			} catch (FileNotFoundException dnf) {
-				log.error(
-						"FileNotFoundException when deleti an AVU, catch and add to response data",
-						dnf);
-				responses.add(BulkAVUOperationResponse.instance(
-						ResultStatus.MISSING_METADATA_TARGET, value,
-						dnf.getMessage()));
-				continue;
-
+			if (value == null) {
+				throw new IllegalArgumentException("null AVU data");
 			}
-
-			log.info("treat as success...", value);
-			responses.add(BulkAVUOperationResponse.instance(ResultStatus.OK,
-					value, ""));
+			requests.add(ModAvuMetadataInp
+					.instanceForDeleteCollectionMetadata(myPath, value));
 		}
 
+		List<BulkAVUOperationResponse> responses = new BulkAVUPipeline(
+				getIRODSProtocol(),
+				"Target collection was not found, could not remove AVU").send(
+				avuData, requests);
+
 		log.info("...complete");
 		return responses;
 	}
@@ -1,6 +1,8 @@
 package org.irods.jargon.core.pub;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.irods.jargon.core.exception.FileNotFoundException;
 import org.irods.jargon.core.exception.JargonException;
@@ -513,6 +515,86 @@ public interface CollectionAndDataObjectListAndSearchAO extends
 	ObjStat retrieveObjectStatForPath(String irodsAbsolutePath)
 			throws FileNotFoundException, JargonException;
 
+	/**
+	 * Retrieve the {@code ObjStat} for many collections or data objects at
+	 * once. The paths are grouped by parent collection, and each group is
+	 * looked up with one query to the catalog rather than one objStat per
+	 * path, which is much quicker when checking a large set of candidate
+	 * paths, for example before a synch.
+	 * <p>
+	 * Paths that do not exist, or that cannot be seen by the user, are left
+	 * out of the returned map. Paths in special collections such as soft
+	 * links and mounted collections, as well as paths a query cannot match,
+	 * are each looked up with a plain objStat. A path given more than once, or
+	 * both with and without a trailing '/', is looked up once and appears in
+	 * the map under each form given.
+	 *
+	 * @param irodsAbsolutePaths
+	 *            {@code Collection<String>} with absolute paths to iRODS
+	 *            collections or data objects
+	 * @return {@code Map<String, ObjStat>} keyed by the path as given, holding
+	 *         the {@link ObjStat} of each path that was found
+	 * @throws JargonException
+	 */
+	Map<String, ObjStat> retrieveObjectStatsForPaths(
+			Collection<String> irodsAbsolutePaths) throws JargonException;
+
+	/**
+	 * Walk every collection and data object under the given collection,
+	 * reading each collection's contents a page at a time as the walk goes,
+	 * rather than building the listing in memory. This suits very large trees,
+	 * for example to summarize or synch them.
+	 * <p>
+	 * The returned {@link CollectionTreeWalker} holds a query open on this
+	 * connection and must be closed when done. Special collections are handed
+	 * out but not descended into.
+	 * <p>
+	 * {@code SUBTREE_QUERY} order reads the whole tree with a few paged queries
+	 * on the collection name rather than two queries for each collection, which
+	 * is much quicker for deep trees or trees of many small collections.
+	 * Collections come first, each before anything under it, followed by the
+	 * data objects.
+	 *
+	 * @param absolutePathToParent
+	 *            {@code String} with the absolute path to the collection to
+	 *            walk, which is not itself handed out
+	 * @param walkOrder
+	 *            {@link CollectionTreeWalker.WalkOrder} with the order in which
+	 *            to visit collections
+	 * @return {@link CollectionTreeWalker} over the entries in the tree
+	 * @throws FileNotFoundException
+	 *             if the collection does not exist
+	 * @throws JargonException
+	 */
+	CollectionTreeWalker walkCollectionTree(String absolutePathToParent,
+			CollectionTreeWalker.WalkOrder walkOrder)
+			throws FileNotFoundException, JargonException;
+
+	/**
+	 * Walk every collection and data object under the given collection, as
+	 * {@link #walkCollectionTree(String, CollectionTreeWalker.WalkOrder)}
+	 * does, with each subcollection of the given collection walked on one of
+	 * a number of threads, each with its own connection. The entries are handed
+	 * to the handler as they are read, from several threads at once, and in no
+	 * set order.
+	 *
+	 * @param absolutePathToParent
+	 *            {@code String} with the absolute path to the collection to
+	 *            walk, which is not itself handed out
+	 * @param numberOfThreads
+	 *            {@code int} with the number of subtrees to walk at once
+	 * @param entryHandler
+	 *            {@link CollectionTreeWalker.EntryHandler} that is given each
+	 *            entry, and must be thread safe
+	 * @return {@code long} with the number of entries handled
+	 * @throws FileNotFoundException
+	 *             if the collection does not exist
+	 * @throws JargonException
+	 */
+	long walkCollectionTreeInParallel(String absolutePathToParent,
+			int numberOfThreads, CollectionTreeWalker.EntryHandler entryHandler)
+			throws FileNotFoundException, JargonException;
+
 	/**
 	 * Return the {@code CollectionAndDataObjectListingEntry} that is
 	 * associated with the given iRODS absolute path. This is equivalent to
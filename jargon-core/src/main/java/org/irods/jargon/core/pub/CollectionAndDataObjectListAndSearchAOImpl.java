@@ -1,10 +1,14 @@
 package org.irods.jargon.core.pub;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.connection.ObjStatCache;
 import org.irods.jargon.core.exception.DataNotFoundException;
 import org.irods.jargon.core.exception.FileNotFoundException;
 import org.irods.jargon.core.exception.JargonException;
@@ -12,6 +16,8 @@ import org.irods.jargon.core.exception.JargonRuntimeException;
 import org.irods.jargon.core.exception.SpecificQueryException;
 import org.irods.jargon.core.packinstr.DataObjInpForObjStat;
 import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.pub.CollectionTreeWalker.EntryHandler;
+import org.irods.jargon.core.pub.CollectionTreeWalker.WalkOrder;
 import org.irods.jargon.core.pub.aohelper.CollectionAOHelper;
 import org.irods.jargon.core.pub.domain.DataObject;
 import org.irods.jargon.core.pub.domain.ObjStat;
@@ -107,6 +113,16 @@ public class CollectionAndDataObjectListAndSearchAOImpl extends IRODSGenericAO
 			throw new IllegalArgumentException("absolutePath is null or empty");
 		}
 
+		ObjStatCache objStatCache = getObjStatCache();
+		if (objStatCache != null) {
+			CollectionAndDataObjectListingEntry cachedEntry = objStatCache
+					.getListingEntry(getIRODSAccount(), absolutePath.trim());
+			if (cachedEntry != null) {
+				log.info("listing entry from cache: {}", cachedEntry);
+				return cachedEntry;
+			}
+		}
+
 		ObjStat objStat = retrieveObjectStatForPath(absolutePath.trim());
 
 		/*
@@ -137,6 +153,10 @@ public class CollectionAndDataObjectListAndSearchAOImpl extends IRODSGenericAO
 		entry.setSpecColType(objStat.getSpecColType());
 		entry.setSpecialObjectPath(objStat.getObjectPath());
 		log.info("created entry for path as: {}", entry);
+		if (objStatCache != null) {
+			objStatCache.putListingEntry(getIRODSAccount(), absolutePath.trim(),
+					entry);
+		}
 		return entry;
 
 	}
@@ -1613,6 +1633,17 @@ public class CollectionAndDataObjectListAndSearchAOImpl extends IRODSGenericAO
 		}
 
 		String myPath = MiscIRODSUtils.checkPathSizeForMax(irodsAbsolutePath);
+
+		ObjStatCache objStatCache = getObjStatCache();
+		if (objStatCache != null) {
+			ObjStat cachedObjStat = objStatCache.getObjStat(getIRODSAccount(),
+					myPath);
+			if (cachedObjStat != null) {
+				log.debug("objStat from cache: {}", cachedObjStat);
+				return cachedObjStat;
+			}
+		}
+
 		DataObjInpForObjStat dataObjInp = DataObjInpForObjStat.instance(myPath);
 		Tag response;
 		try {
@@ -1732,7 +1763,437 @@ public class CollectionAndDataObjectListAndSearchAOImpl extends IRODSGenericAO
 		 */
 
 		log.info(objStat.toString());
+		if (objStatCache != null) {
+			objStatCache.putObjStat(getIRODSAccount(), myPath, objStat);
+		}
 		return objStat;
 
 	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAO#
+	 * retrieveObjectStatsForPaths(java.util.Collection)
+	 */
+	@Override
+	public Map<String, ObjStat> retrieveObjectStatsForPaths(
+			final Collection<String> irodsAbsolutePaths) throws JargonException {
+
+		if (irodsAbsolutePaths == null) {
+			throw new IllegalArgumentException("null irodsAbsolutePaths");
+		}
+
+		log.info("retrieveObjectStatsForPaths for {} paths",
+				irodsAbsolutePaths.size());
+
+		Map<String, ObjStat> objStats = new HashMap<String, ObjStat>();
+		ObjStatCache objStatCache = getObjStatCache();
+		List<String> pathsToQuery = new ArrayList<String>();
+
+		for (String path : irodsAbsolutePaths) {
+			if (path == null || path.isEmpty()) {
+				throw new IllegalArgumentException(
+						"null or empty path in irodsAbsolutePaths");
+			}
+
+			MiscIRODSUtils.checkPathSizeForMax(path);
+
+			if (objStatCache != null) {
+				ObjStat cachedObjStat = objStatCache.getObjStat(
+						getIRODSAccount(), path);
+				if (cachedObjStat != null) {
+					objStats.put(path, cachedObjStat);
+					continue;
+				}
+			}
+			pathsToQuery.add(path);
+		}
+
+		List<String> pathsToStatSingly = new ArrayList<String>();
+		List<ObjStatBatch> batches = ObjStatBatch.batchByParent(pathsToQuery,
+				pathsToStatSingly);
+
+		for (ObjStatBatch batch : batches) {
+			long startTime = System.currentTimeMillis();
+			int found = queryDataObjectStatsInBatch(batch, objStats);
+			if (found < batch.size()) {
+				found += queryCollectionStatsInBatch(batch, objStats,
+						pathsToStatSingly);
+			}
+			log.info("stat batch of {} paths under {} found {} in {} ms",
+					new Object[] { batch.size(), batch.getParentPath(), found,
+							System.currentTimeMillis() - startTime });
+
+			if (found < batch.size()
+					&& !isCatalogHoldingChildrenOf(batch.getParentPath())) {
+				for (String path : batch.getGivenPaths()) {
+					if (!objStats.containsKey(path)
+							&& !pathsToStatSingly.contains(path)) {
+						pathsToStatSingly.add(path);
+					}
+				}
+			}
+		}
+
+		for (String path : pathsToStatSingly) {
+			try {
+				objStats.put(path, retrieveObjectStatForPath(path));
+			} catch (FileNotFoundException fnf) {
+				log.debug("no objStat for path:{}", path);
+			}
+		}
+
+		if (objStatCache != null) {
+			for (String path : pathsToQuery) {
+				ObjStat objStat = objStats.get(path);
+				if (objStat != null) {
+					objStatCache.putObjStat(getIRODSAccount(), path, objStat);
+				}
+			}
+		}
+
+		log.info("found {} of {} paths", objStats.size(),
+				irodsAbsolutePaths.size());
+		return objStats;
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAO#
+	 * walkCollectionTree(java.lang.String,
+	 * org.irods.jargon.core.pub.CollectionTreeWalker.WalkOrder)
+	 */
+	@Override
+	public CollectionTreeWalker walkCollectionTree(
+			final String absolutePathToParent, final WalkOrder walkOrder)
+			throws FileNotFoundException, JargonException {
+
+		if (walkOrder == null) {
+			throw new IllegalArgumentException("null walkOrder");
+		}
+
+		return buildCollectionTreeWalker(absolutePathToParent, walkOrder, true);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAO#
+	 * walkCollectionTreeInParallel(java.lang.String, int,
+	 * org.irods.jargon.core.pub.CollectionTreeWalker.EntryHandler)
+	 */
+	@Override
+	public long walkCollectionTreeInParallel(
+			final String absolutePathToParent, final int numberOfThreads,
+			final EntryHandler entryHandler) throws FileNotFoundException,
+			JargonException {
+
+		if (numberOfThreads < 1) {
+			throw new IllegalArgumentException("numberOfThreads < 1");
+		}
+
+		if (entryHandler == null) {
+			throw new IllegalArgumentException("null entryHandler");
+		}
+
+		CollectionTreeWalker topWalker = buildCollectionTreeWalker(
+				absolutePathToParent, WalkOrder.DEPTH_FIRST, false);
+		ParallelCollectionTreeWalk parallelCollectionTreeWalk = new ParallelCollectionTreeWalk(
+				new ParallelCollectionTreeWalk.AccessObjectSubtreeWalkerSource(
+						getIRODSAccessObjectFactory(), getIRODSAccount()),
+				numberOfThreads);
+		return parallelCollectionTreeWalk.walk(topWalker, entryHandler);
+	}
+
+	private CollectionTreeWalker buildCollectionTreeWalker(
+			final String absolutePathToParent, final WalkOrder walkOrder,
+			final boolean descend) throws FileNotFoundException,
+			JargonException {
+
+		if (absolutePathToParent == null || absolutePathToParent.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty absolutePathToParent");
+		}
+
+		log.info("walking collection tree under:{}", absolutePathToParent);
+
+		String myPath = MiscIRODSUtils
+				.checkPathSizeForMax(absolutePathToParent);
+		ObjStat objStat = retrieveObjectStatForPath(myPath);
+
+		if (!objStat.isSomeTypeOfCollection()) {
+			log.error("cannot walk the tree under a file: {}",
+					absolutePathToParent);
+			throw new JargonException(
+					"attempting to walk the tree under a file at path:"
+							+ absolutePathToParent);
+		}
+
+		if (objStat.getSpecColType() != SpecColType.NORMAL) {
+			log.error("cannot walk the tree under a special collection: {}",
+					objStat);
+			throw new JargonException(
+					"walking the tree under a special collection is not supported:"
+							+ absolutePathToParent);
+		}
+
+		CollectionTreeWalker.GenQueryChildLister childLister = new CollectionTreeWalker.GenQueryChildLister(
+				new IRODSGenQueryExecutorImpl(getIRODSSession(),
+						getIRODSAccount()), getJargonProperties()
+						.getMaxFilesAndDirsQueryMax(), 1);
+		String walkPath = objStat.getAbsolutePath();
+		if (walkPath.length() > 1 && walkPath.endsWith("/")) {
+			walkPath = walkPath.substring(0, walkPath.length() - 1);
+		}
+		return new CollectionTreeWalker(childLister, walkPath, walkOrder,
+				descend);
+	}
+
+	/**
+	 * Query the data objects named in the batch in the batch's parent
+	 * collection, adding an {@code ObjStat} for each found. Where there is
+	 * more than one replica the first returned is used.
+	 *
+	 * @return {@code int} with the number of paths found
+	 */
+	private int queryDataObjectStatsInBatch(final ObjStatBatch batch,
+			final Map<String, ObjStat> objStats) throws JargonException {
+
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_NAME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_D_DATA_ID)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_SIZE)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_D_OWNER_NAME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_D_OWNER_ZONE)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_D_DATA_CHECKSUM)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_D_CREATE_TIME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_D_MODIFY_TIME)
+					.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_COLL_NAME,
+							QueryConditionOperators.EQUAL,
+							batch.getParentPath())
+					.addConditionAsMultiValueCondition(
+							RodsGenQueryEnum.COL_DATA_NAME,
+							QueryConditionOperators.IN, batch.getChildNames());
+		} catch (GenQueryBuilderException e) {
+			log.error(CollectionListingUtils.QUERY_EXCEPTION_FOR_QUERY, e);
+			throw new JargonException("error in objStat batch query", e);
+		}
+
+		List<IRODSQueryResultRow> rows = queryAllRowsInBatch(builder, batch);
+		List<String> childNames = batch.getChildNames();
+		int found = 0;
+
+		for (IRODSQueryResultRow row : rows) {
+			int index = childNames.indexOf(row.getColumn(0));
+			if (index < 0) {
+				continue;
+			}
+
+			List<String> paths = batch.getGivenPathsForChild(index);
+			if (objStats.containsKey(paths.get(0))) {
+				continue;
+			}
+
+			ObjStat objStat = new ObjStat();
+			objStat.setAbsolutePath(batch.getChildPaths().get(index));
+			objStat.setObjectType(ObjectType.DATA_OBJECT);
+			objStat.setDataId(IRODSDataConversionUtil
+					.getIntOrZeroFromIRODSValue(row.getColumn(1)));
+			objStat.setObjSize(IRODSDataConversionUtil
+					.getLongOrZeroFromIRODSValue(row.getColumn(2)));
+			objStat.setOwnerName(row.getColumn(3));
+			objStat.setOwnerZone(row.getColumn(4));
+			objStat.setChecksum(row.getColumn(5));
+			objStat.setCreatedAt(IRODSDataConversionUtil
+					.getDateFromIRODSValue(row.getColumn(6)));
+			objStat.setModifiedAt(IRODSDataConversionUtil
+					.getDateFromIRODSValue(row.getColumn(7)));
+			objStat.setSpecColType(SpecColType.NORMAL);
+			for (String path : paths) {
+				objStats.put(path, objStat);
+			}
+			found++;
+		}
+
+		return found;
+	}
+
+	/**
+	 * Query the collections named in the batch that were not found as data
+	 * objects, adding an {@code ObjStat} for each found. Special collections
+	 * are added to {@code pathsToStatSingly}, as their objStat carries more
+	 * than the catalog holds.
+	 *
+	 * @return {@code int} with the number of paths found
+	 */
+	private int queryCollectionStatsInBatch(final ObjStatBatch batch,
+			final Map<String, ObjStat> objStats,
+			final List<String> pathsToStatSingly) throws JargonException {
+
+		List<String> childPaths = new ArrayList<String>();
+		for (int i = 0; i < batch.size(); i++) {
+			if (!objStats.containsKey(batch.getGivenPathsForChild(i).get(0))) {
+				childPaths.add(batch.getChildPaths().get(i));
+			}
+		}
+
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_ID)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_OWNER_NAME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_OWNER_ZONE)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_CREATE_TIME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_MODIFY_TIME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_TYPE)
+					.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_COLL_PARENT_NAME,
+							QueryConditionOperators.EQUAL,
+							batch.getParentPath())
+					.addConditionAsMultiValueCondition(
+							RodsGenQueryEnum.COL_COLL_NAME,
+							QueryConditionOperators.IN, childPaths);
+		} catch (GenQueryBuilderException e) {
+			log.error(CollectionListingUtils.QUERY_EXCEPTION_FOR_QUERY, e);
+			throw new JargonException("error in objStat batch query", e);
+		}
+
+		List<IRODSQueryResultRow> rows = queryAllRowsInBatch(builder, batch);
+		List<String> allChildPaths = batch.getChildPaths();
+		int found = 0;
+
+		for (IRODSQueryResultRow row : rows) {
+			int index = allChildPaths.indexOf(row.getColumn(0));
+			if (index < 0) {
+				continue;
+			}
+
+			List<String> paths = batch.getGivenPathsForChild(index);
+			if (objStats.containsKey(paths.get(0))) {
+				continue;
+			}
+
+			String collType = row.getColumn(6);
+			if (collType != null && !collType.isEmpty()) {
+				log.debug("special collection stat'ed singly:{}", paths);
+				pathsToStatSingly.addAll(paths);
+				continue;
+			}
+
+			ObjStat objStat = new ObjStat();
+			objStat.setAbsolutePath(allChildPaths.get(index));
+			objStat.setObjectType(ObjectType.COLLECTION);
+			objStat.setDataId(IRODSDataConversionUtil
+					.getIntOrZeroFromIRODSValue(row.getColumn(1)));
+			objStat.setOwnerName(row.getColumn(2));
+			objStat.setOwnerZone(row.getColumn(3));
+			objStat.setCreatedAt(IRODSDataConversionUtil
+					.getDateFromIRODSValue(row.getColumn(4)));
+			objStat.setModifiedAt(IRODSDataConversionUtil
+					.getDateFromIRODSValue(row.getColumn(5)));
+			objStat.setSpecColType(SpecColType.NORMAL);
+			for (String path : paths) {
+				objStats.put(path, objStat);
+			}
+			found++;
+		}
+
+		return found;
+	}
+
+	/**
+	 * See if a path missing from the batch queries under the parent is really
+	 * absent. Paths under a mounted or soft linked collection are not in the
+	 * catalog, so the queries do not find them and they must be stat'ed singly.
+	 *
+	 * @return {@code boolean} of {@code true} if the parent is a normal
+	 *         collection, or does not exist
+	 */
+	private boolean isCatalogHoldingChildrenOf(final String parentPath)
+			throws JargonException {
+		ObjStat parentObjStat;
+		try {
+			parentObjStat = retrieveObjectStatForPath(parentPath);
+		} catch (FileNotFoundException fnf) {
+			log.debug("parent of batch not found, children are absent:{}",
+					parentPath);
+			return true;
+		}
+
+		if (parentObjStat.getSpecColType() == SpecColType.NORMAL) {
+			return true;
+		}
+
+		log.debug("parent of batch is a special collection, stat children singly:{}",
+				parentPath);
+		return false;
+	}
+
+	/**
+	 * Run a batch query in the zone of the batch's parent, reading every page
+	 * of results
+	 */
+	private List<IRODSQueryResultRow> queryAllRowsInBatch(
+			final IRODSGenQueryBuilder builder, final ObjStatBatch batch)
+			throws JargonException {
+
+		IRODSGenQueryExecutor irodsGenQueryExecutor = new IRODSGenQueryExecutorImpl(
+				getIRODSSession(), getIRODSAccount());
+		String zone = MiscIRODSUtils.getZoneInPath(batch.getParentPath());
+		List<IRODSQueryResultRow> rows = new ArrayList<IRODSQueryResultRow>();
+
+		try {
+			IRODSGenQueryFromBuilder irodsQuery = builder
+					.exportIRODSQueryFromBuilder(getJargonProperties()
+							.getMaxFilesAndDirsQueryMax());
+			IRODSQueryResultSet resultSet = irodsGenQueryExecutor
+					.executeIRODSQueryWithPagingInZone(irodsQuery, 0, zone);
+			rows.addAll(resultSet.getResults());
+
+			while (resultSet.isHasMoreRecords()) {
+				resultSet = irodsGenQueryExecutor.getMoreResultsInZone(
+						resultSet, zone);
+				rows.addAll(resultSet.getResults());
+			}
+		} catch (JargonQueryException e) {
+			log.error(CollectionListingUtils.QUERY_EXCEPTION_FOR_QUERY, e);
+			throw new JargonException("error in objStat batch query", e);
+		} catch (GenQueryBuilderException e) {
+			log.error(CollectionListingUtils.QUERY_EXCEPTION_FOR_QUERY, e);
+			throw new JargonException("error in objStat batch query", e);
+		}
+
+		return rows;
+	}
+
+	/**
+	 * Get the session's cache of object stats, if it is turned on
+	 *
+	 * @return {@link ObjStatCache} or {@code null} if nothing is cached
+	 */
+	private ObjStatCache getObjStatCache() {
+		if (getIRODSSession() == null) {
+			return null;
+		}
+
+		ObjStatCache objStatCache = getIRODSSession().getObjStatCache();
+		if (objStatCache == null || !objStatCache.isEnabled()) {
+			return null;
+		}
+		return objStatCache;
+	}
 }
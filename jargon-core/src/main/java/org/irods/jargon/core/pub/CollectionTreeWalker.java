@@ -0,0 +1,629 @@
+/**
+ *
+ */
+package org.irods.jargon.core.pub;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.exception.JargonRuntimeException;
+import org.irods.jargon.core.pub.aohelper.CollectionAOHelper;
+import org.irods.jargon.core.pub.domain.ObjStat.SpecColType;
+import org.irods.jargon.core.pub.io.IRODSFileSystemAOHelper;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry.ObjectType;
+import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.GenQueryResultIterator;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
+import org.irods.jargon.core.query.IRODSGenQueryFromBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.JargonQueryException;
+import org.irods.jargon.core.query.QueryConditionOperators;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.irods.jargon.core.utils.MiscIRODSUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Walks every collection and data object under a collection, handing out one
+ * {@link CollectionAndDataObjectListingEntry} at a time.
+ * <p>
+ * The walker is lazy. The data objects of a collection are streamed from a
+ * paged GenQuery as they are read, so only a page of them is held at a time,
+ * however many there are. What is kept across the walk is the subcollections
+ * still to be visited. One query is open at a time.
+ * <p>
+ * Each collection is handed out when it is visited, followed by its data
+ * objects. Depth first order visits a subcollection's whole tree before its
+ * next sibling, breadth first visits a level at a time. Special collections
+ * such as mounted collections, soft links and structured files are handed out
+ * but not descended into, as GenQuery does not see their contents and soft
+ * links can loop.
+ * <p>
+ * The subtree query order reads the whole tree with three paged queries
+ * rather than two per collection: the collections whose name starts with the
+ * parent's path, the data objects in the parent, then the data objects in
+ * those collections. For a tree of many small collections this is a few round
+ * trips per page of results rather than per collection. Collections are handed
+ * out first, each before anything under it, so the tree can be put back
+ * together as it is read.
+ * <p>
+ * The walker must be closed, typically with try-with-resources, and must be
+ * closed before the connection is returned. Errors from iRODS while walking
+ * are thrown from {@link #hasNext()} and {@link #next()} as a
+ * {@link JargonRuntimeException}.
+ */
+public class CollectionTreeWalker implements
+		Iterator<CollectionAndDataObjectListingEntry>, AutoCloseable {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(CollectionTreeWalker.class);
+
+	/**
+	 * Order in which collections are visited
+	 */
+	public enum WalkOrder {
+		DEPTH_FIRST, BREADTH_FIRST, SUBTREE_QUERY
+	}
+
+	/**
+	 * Receives the entries of a walk run on more than one thread, and so must
+	 * be thread safe
+	 */
+	public interface EntryHandler {
+
+		/**
+		 * Handle one collection or data object
+		 *
+		 * @param entry
+		 *            {@link CollectionAndDataObjectListingEntry}
+		 * @throws JargonException
+		 *             to stop the walk
+		 */
+		void handleEntry(CollectionAndDataObjectListingEntry entry)
+				throws JargonException;
+	}
+
+	/**
+	 * A listing of the children of one collection, read as it goes
+	 */
+	interface ListingCursor extends
+			Iterator<CollectionAndDataObjectListingEntry> {
+
+		/**
+		 * Release the listing, which may not have been read to the end
+		 *
+		 * @throws JargonException
+		 */
+		void close() throws JargonException;
+	}
+
+	/**
+	 * Source of the listings the walker reads
+	 */
+	interface ChildLister {
+
+		/**
+		 * List the data objects in a collection
+		 *
+		 * @param collectionPath
+		 *            {@code String} with the absolute path of the collection
+		 * @return {@link ListingCursor}
+		 * @throws JargonException
+		 */
+		ListingCursor listDataObjects(String collectionPath)
+				throws JargonException;
+
+		/**
+		 * List the collections directly under a collection
+		 *
+		 * @param collectionPath
+		 *            {@code String} with the absolute path of the collection
+		 * @return {@link ListingCursor}
+		 * @throws JargonException
+		 */
+		ListingCursor listCollections(String collectionPath)
+				throws JargonException;
+
+		/**
+		 * List every collection under a collection, at any depth, ordered so
+		 * that each comes before the collections under it. Collections that
+		 * are not under the collection may be included, and are skipped.
+		 *
+		 * @param collectionPath
+		 *            {@code String} with the absolute path of the collection
+		 * @return {@link ListingCursor}
+		 * @throws JargonException
+		 */
+		ListingCursor listCollectionsInSubtree(String collectionPath)
+				throws JargonException;
+
+		/**
+		 * List the data objects in every collection under a collection, at
+		 * any depth, but not those in the collection itself. Data objects
+		 * that are not under the collection may be included, and are skipped.
+		 *
+		 * @param collectionPath
+		 *            {@code String} with the absolute path of the collection
+		 * @return {@link ListingCursor}
+		 * @throws JargonException
+		 */
+		ListingCursor listDataObjectsInSubtree(String collectionPath)
+				throws JargonException;
+	}
+
+	private final ChildLister childLister;
+	private final WalkOrder walkOrder;
+	private final boolean descend;
+	private final Deque<CollectionAndDataObjectListingEntry> pendingCollections = new ArrayDeque<CollectionAndDataObjectListingEntry>();
+
+	private final String subtreePrefix;
+	private final String rootPath;
+	private int subtreePhase = 0;
+	private String currentCollectionPath;
+	private ListingCursor openCursor;
+	private CollectionAndDataObjectListingEntry nextEntry;
+	private boolean closed = false;
+
+	private long collectionCount = 0L;
+	private long dataObjectCount = 0L;
+
+	/**
+	 * Create a walker over the tree under a collection
+	 *
+	 * @param childLister
+	 *            {@link ChildLister} for listing each collection
+	 * @param absolutePathToParent
+	 *            {@code String} with the collection to walk, which is not
+	 *            itself handed out
+	 * @param walkOrder
+	 *            {@link WalkOrder}
+	 */
+	CollectionTreeWalker(final ChildLister childLister,
+			final String absolutePathToParent, final WalkOrder walkOrder) {
+		this(childLister, absolutePathToParent, walkOrder, true);
+	}
+
+	/**
+	 * Create a walker over the tree under a collection, or over just the
+	 * collection's own children
+	 *
+	 * @param childLister
+	 *            {@link ChildLister} for listing each collection
+	 * @param absolutePathToParent
+	 *            {@code String} with the collection to walk, which is not
+	 *            itself handed out
+	 * @param walkOrder
+	 *            {@link WalkOrder}
+	 * @param descend
+	 *            {@code boolean} that is {@code false} to hand out the
+	 *            subcollections of the parent without visiting them
+	 */
+	CollectionTreeWalker(final ChildLister childLister,
+			final String absolutePathToParent, final WalkOrder walkOrder,
+			final boolean descend) {
+
+		if (childLister == null) {
+			throw new IllegalArgumentException("null childLister");
+		}
+
+		if (absolutePathToParent == null || absolutePathToParent.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty absolutePathToParent");
+		}
+
+		if (walkOrder == null) {
+			throw new IllegalArgumentException("null walkOrder");
+		}
+
+		this.childLister = childLister;
+		this.walkOrder = walkOrder;
+		this.descend = descend;
+		rootPath = absolutePathToParent;
+		subtreePrefix = absolutePathToParent.endsWith("/") ? absolutePathToParent
+				: absolutePathToParent + "/";
+		currentCollectionPath = absolutePathToParent;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.Iterator#hasNext()
+	 */
+	@Override
+	public boolean hasNext() {
+		if (nextEntry == null && !closed) {
+			try {
+				nextEntry = advance();
+			} catch (JargonException e) {
+				log.error("error walking collection tree", e);
+				throw new JargonRuntimeException(
+						"error walking collection tree", e);
+			}
+		}
+		return nextEntry != null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.Iterator#next()
+	 */
+	@Override
+	public CollectionAndDataObjectListingEntry next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException("no more entries in tree");
+		}
+		CollectionAndDataObjectListingEntry entry = nextEntry;
+		nextEntry = null;
+		return entry;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.Iterator#remove()
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("remove not supported");
+	}
+
+	/**
+	 * Stop the walk, closing any open listing
+	 *
+	 * @throws JargonException
+	 */
+	@Override
+	public void close() throws JargonException {
+		if (closed) {
+			return;
+		}
+
+		closed = true;
+		nextEntry = null;
+		pendingCollections.clear();
+		log.info("walk closed after {} collections and {} data objects",
+				collectionCount, dataObjectCount);
+		if (openCursor != null) {
+			ListingCursor cursor = openCursor;
+			openCursor = null;
+			cursor.close();
+		}
+	}
+
+	/**
+	 * @return {@code long} with the collections handed out so far
+	 */
+	public long getCollectionCount() {
+		return collectionCount;
+	}
+
+	/**
+	 * @return {@code long} with the data objects handed out so far
+	 */
+	public long getDataObjectCount() {
+		return dataObjectCount;
+	}
+
+	/**
+	 * @return {@code int} with the collections found but not yet visited
+	 */
+	public int getPendingCollectionCount() {
+		return pendingCollections.size();
+	}
+
+	private CollectionAndDataObjectListingEntry advance()
+			throws JargonException {
+
+		if (walkOrder == WalkOrder.SUBTREE_QUERY && descend) {
+			return advanceThroughSubtreeQueries();
+		}
+
+		while (true) {
+			if (currentCollectionPath != null) {
+				if (openCursor == null) {
+					openCursor = childLister
+							.listDataObjects(currentCollectionPath);
+				}
+
+				if (openCursor.hasNext()) {
+					dataObjectCount++;
+					return openCursor.next();
+				}
+
+				ListingCursor cursor = openCursor;
+				openCursor = null;
+				cursor.close();
+				queueSubcollections(currentCollectionPath);
+				currentCollectionPath = null;
+			}
+
+			CollectionAndDataObjectListingEntry collection = pendingCollections
+					.pollFirst();
+			if (collection == null) {
+				return null;
+			}
+
+			if (!descend) {
+				log.debug("not descending into:{}", collection.getPathOrName());
+			} else if (collection.getSpecColType() == null
+					|| collection.getSpecColType() == SpecColType.NORMAL) {
+				currentCollectionPath = collection.getPathOrName();
+			} else {
+				log.debug("not descending into special collection:{}",
+						collection.getPathOrName());
+			}
+
+			collectionCount++;
+			return collection;
+		}
+	}
+
+	/**
+	 * Read the collections in the subtree, then the data objects in the parent,
+	 * then the data objects in the subtree, each from one paged query
+	 */
+	private CollectionAndDataObjectListingEntry advanceThroughSubtreeQueries()
+			throws JargonException {
+
+		while (true) {
+			if (openCursor == null) {
+				switch (subtreePhase) {
+				case 0:
+					openCursor = childLister.listCollectionsInSubtree(rootPath);
+					break;
+				case 1:
+					openCursor = childLister.listDataObjects(rootPath);
+					break;
+				case 2:
+					openCursor = childLister.listDataObjectsInSubtree(rootPath);
+					break;
+				default:
+					return null;
+				}
+			}
+
+			if (openCursor.hasNext()) {
+				CollectionAndDataObjectListingEntry entry = openCursor.next();
+				if (entry.getObjectType() == ObjectType.COLLECTION) {
+					if (!entry.getPathOrName().startsWith(subtreePrefix)) {
+						continue;
+					}
+					collectionCount++;
+				} else {
+					if (subtreePhase == 2
+							&& !(entry.getParentPath() + "/")
+									.startsWith(subtreePrefix)) {
+						continue;
+					}
+					dataObjectCount++;
+				}
+				return entry;
+			}
+
+			ListingCursor cursor = openCursor;
+			openCursor = null;
+			cursor.close();
+			subtreePhase++;
+		}
+	}
+
+	private void queueSubcollections(final String collectionPath)
+			throws JargonException {
+
+		ListingCursor cursor = childLister.listCollections(collectionPath);
+		try {
+			if (walkOrder == WalkOrder.BREADTH_FIRST) {
+				while (cursor.hasNext()) {
+					pendingCollections.addLast(cursor.next());
+				}
+			} else {
+				/*
+				 * pushed in reverse so that siblings are visited in the order
+				 * listed
+				 */
+				List<CollectionAndDataObjectListingEntry> children = new ArrayList<CollectionAndDataObjectListingEntry>();
+				while (cursor.hasNext()) {
+					children.add(cursor.next());
+				}
+				for (int i = children.size() - 1; i >= 0; i--) {
+					pendingCollections.addFirst(children.get(i));
+				}
+			}
+		} finally {
+			cursor.close();
+		}
+	}
+
+	/**
+	 * Lists collections and data objects with paged GenQuery
+	 */
+	static class GenQueryChildLister implements ChildLister {
+
+		private final IRODSGenQueryExecutor irodsGenQueryExecutor;
+		private final int pageSize;
+		private final int prefetchDepth;
+
+		/**
+		 * @param irodsGenQueryExecutor
+		 *            {@link IRODSGenQueryExecutor} for the connection to query
+		 * @param pageSize
+		 *            {@code int} with the rows in each page
+		 * @param prefetchDepth
+		 *            {@code int} with the pages to fetch ahead of the one
+		 *            being read
+		 */
+		GenQueryChildLister(final IRODSGenQueryExecutor irodsGenQueryExecutor,
+				final int pageSize, final int prefetchDepth) {
+			this.irodsGenQueryExecutor = irodsGenQueryExecutor;
+			this.pageSize = pageSize;
+			this.prefetchDepth = prefetchDepth;
+		}
+
+		@Override
+		public ListingCursor listDataObjects(final String collectionPath)
+				throws JargonException {
+			IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+			IRODSFileSystemAOHelper
+					.buildQueryListAllDataObjectsWithSizeAndDateInfo(
+							collectionPath, builder);
+			return new RowCursor(query(builder, collectionPath),
+					ObjectType.DATA_OBJECT);
+		}
+
+		@Override
+		public ListingCursor listCollections(final String collectionPath)
+				throws JargonException {
+			IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+			try {
+				IRODSFileSystemAOHelper.buildQueryListAllCollections(
+						collectionPath, builder);
+			} catch (GenQueryBuilderException e) {
+				log.error("query builder exception", e);
+				throw new JargonException("error building query", e);
+			}
+			return new RowCursor(query(builder, collectionPath),
+					ObjectType.COLLECTION);
+		}
+
+		@Override
+		public ListingCursor listCollectionsInSubtree(
+				final String collectionPath) throws JargonException {
+			IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+			try {
+				CollectionAOHelper
+						.buildSelectsNeededForCollectionsInCollectionsAndDataObjectsListingEntry(builder);
+				builder.addConditionAsGenQueryField(
+						RodsGenQueryEnum.COL_COLL_NAME,
+						QueryConditionOperators.LIKE,
+						likeUnder(collectionPath));
+			} catch (GenQueryBuilderException e) {
+				log.error("query builder exception", e);
+				throw new JargonException("error building query", e);
+			}
+			return new RowCursor(query(builder, collectionPath),
+					ObjectType.COLLECTION);
+		}
+
+		@Override
+		public ListingCursor listDataObjectsInSubtree(
+				final String collectionPath) throws JargonException {
+			IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+			try {
+				IRODSFileSystemAOHelper.buildDataObjectQuerySelects(builder);
+				builder.addConditionAsGenQueryField(
+						RodsGenQueryEnum.COL_COLL_NAME,
+						QueryConditionOperators.LIKE,
+						likeUnder(collectionPath));
+			} catch (GenQueryBuilderException e) {
+				log.error("query builder exception", e);
+				throw new JargonException("error building query", e);
+			}
+			return new RowCursor(query(builder, collectionPath),
+					ObjectType.DATA_OBJECT);
+		}
+
+		/**
+		 * Pattern for the names under a collection. A '_' or '%' in the path
+		 * also matches other names, which the walker skips.
+		 */
+		private static String likeUnder(final String collectionPath) {
+			if (collectionPath.endsWith("/")) {
+				return collectionPath + "%";
+			}
+			return collectionPath + "/%";
+		}
+
+		private GenQueryResultIterator query(
+				final IRODSGenQueryBuilder builder, final String collectionPath)
+				throws JargonException {
+			try {
+				IRODSGenQueryFromBuilder irodsQuery = builder
+						.exportIRODSQueryFromBuilder(pageSize);
+				return irodsGenQueryExecutor.executeIRODSQueryAsIteratorInZone(
+						irodsQuery, prefetchDepth,
+						MiscIRODSUtils.getZoneInPath(collectionPath));
+			} catch (GenQueryBuilderException e) {
+				log.error(CollectionListingUtils.QUERY_EXCEPTION_FOR_QUERY, e);
+				throw new JargonException("error in tree walk query", e);
+			} catch (JargonQueryException e) {
+				log.error(CollectionListingUtils.QUERY_EXCEPTION_FOR_QUERY, e);
+				throw new JargonException("error in tree walk query", e);
+			}
+		}
+	}
+
+	/**
+	 * Turns query rows into listing entries, dropping the duplicate rows
+	 * returned for replicas and the root that a listing of '/' returns
+	 */
+	static class RowCursor implements ListingCursor {
+
+		private final GenQueryResultIterator rows;
+		private final ObjectType objectType;
+		private CollectionAndDataObjectListingEntry nextEntry;
+		private String lastPath = "";
+
+		RowCursor(final GenQueryResultIterator rows, final ObjectType objectType) {
+			this.rows = rows;
+			this.objectType = objectType;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (nextEntry == null && rows.hasNext()) {
+				IRODSQueryResultRow row = rows.next();
+				CollectionAndDataObjectListingEntry entry;
+				try {
+					if (objectType == ObjectType.DATA_OBJECT) {
+						entry = CollectionAOHelper
+								.buildCollectionListEntryFromResultSetRowForDataObjectQuery(
+										row, 0);
+					} else {
+						entry = CollectionAOHelper
+								.buildCollectionListEntryFromResultSetRowForCollectionQuery(
+										row, 0);
+					}
+				} catch (JargonException e) {
+					throw new JargonRuntimeException(
+							"error building listing entry", e);
+				}
+
+				String path = entry.getFormattedAbsolutePath();
+				if (path.equals(lastPath) || entry.getPathOrName().equals("/")) {
+					continue;
+				}
+				lastPath = path;
+				nextEntry = entry;
+			}
+			return nextEntry != null;
+		}
+
+		@Override
+		public CollectionAndDataObjectListingEntry next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException("no more rows");
+			}
+			CollectionAndDataObjectListingEntry entry = nextEntry;
+			nextEntry = null;
+			return entry;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("remove not supported");
+		}
+
+		@Override
+		public void close() throws JargonException {
+			rows.close();
+		}
+	}
+
+}
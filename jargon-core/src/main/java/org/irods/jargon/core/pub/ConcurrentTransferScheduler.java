@@ -0,0 +1,252 @@
+package org.irods.jargon.core.pub;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.transfer.TransferStatus;
+import org.irods.jargon.core.transfer.TransferStatusCallbackListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the single file transfers of a recursive put or get on a bounded set of
+ * worker threads. This is used internally by {@link TransferOperationsHelper},
+ * which walks the tree on the calling thread and hands each file to this
+ * scheduler in the same order a one at a time transfer would use.
+ * <p>
+ * Workers are the threads of a work-stealing {@code ForkJoinPool}. Connections
+ * in an {@link IRODSSession} are kept per thread, so each worker opens its own
+ * connection on its first transfer, and closes it when the worker ends. No more
+ * than two transfers per worker are handed out at a time, so a large tree is
+ * not queued up in memory ahead of the workers.
+ */
+final class ConcurrentTransferScheduler {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(ConcurrentTransferScheduler.class);
+
+	/**
+	 * A single file transfer run by a worker
+	 */
+	interface TransferTask {
+		void run() throws JargonException;
+	}
+
+	private final IRODSSession irodsSession;
+	private final IRODSAccount irodsAccount;
+	private final ForkJoinPool pool;
+	private final int maxInFlight;
+	private final Semaphore inFlight;
+	private final ParallelWorkers parallelWorkers = new ParallelWorkers(
+			"jargon-transfer-worker-");
+	private volatile boolean aborted = false;
+
+	/**
+	 * @param irodsSession
+	 *            {@link IRODSSession} the workers get their connections from
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} the workers connect as
+	 * @param numberOfWorkers
+	 *            {@code int} with the number of files to transfer at once,
+	 *            at least 2
+	 */
+	ConcurrentTransferScheduler(final IRODSSession irodsSession,
+			final IRODSAccount irodsAccount, final int numberOfWorkers) {
+		if (irodsSession == null) {
+			throw new IllegalArgumentException("null irodsSession");
+		}
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		if (numberOfWorkers < 2) {
+			throw new IllegalArgumentException("numberOfWorkers must be >= 2");
+		}
+
+		this.irodsSession = irodsSession;
+		this.irodsAccount = irodsAccount;
+		maxInFlight = numberOfWorkers * 2;
+		inFlight = new Semaphore(maxInFlight);
+		// async mode runs queued transfers in the order they were handed out
+		pool = new ForkJoinPool(numberOfWorkers, new WorkerThreadFactory(),
+				null, true);
+		log.info("concurrent transfer with {} workers", numberOfWorkers);
+	}
+
+	/**
+	 * Hand a transfer to the workers, waiting while they are full. Once a
+	 * transfer has failed or {@link #abort()} has been called, transfers still
+	 * waiting to run are dropped.
+	 *
+	 * @param task
+	 *            {@link TransferTask} to run
+	 * @return {@code boolean} of {@code false} if the calling thread was
+	 *         interrupted while waiting, in which case the task was not run
+	 */
+	boolean submit(final TransferTask task) {
+		try {
+			inFlight.acquire();
+		} catch (InterruptedException e) {
+			log.info("interrupted waiting for a transfer worker");
+			Thread.currentThread().interrupt();
+			return false;
+		}
+
+		pool.execute(new ParallelWorkers.Worker(parallelWorkers) {
+			@Override
+			void work() throws JargonException {
+				if (isStopped()) {
+					return;
+				}
+
+				try {
+					task.run();
+				} catch (RuntimeException e) {
+					// recorded failures are always a JargonException
+					throw new JargonException(e);
+				}
+			}
+
+			@Override
+			void release() {
+				inFlight.release();
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * Drop the transfers that have not started yet, those in progress will
+	 * finish
+	 */
+	void abort() {
+		aborted = true;
+	}
+
+	/**
+	 * @return {@code boolean} of {@code true} if a transfer failed or the
+	 *         scheduler was aborted, so no more work should be handed out
+	 */
+	boolean isStopped() {
+		return aborted || parallelWorkers.hasFailed();
+	}
+
+	/**
+	 * @return {@link JargonException} thrown by the first transfer that
+	 *         failed, or {@code null}
+	 */
+	JargonException getFailure() {
+		return (JargonException) parallelWorkers.getFailure();
+	}
+
+	/**
+	 * Wait for all transfers handed out to finish, then stop the workers,
+	 * which closes their connections
+	 */
+	void close() {
+		inFlight.acquireUninterruptibly(maxInFlight);
+		inFlight.release(maxInFlight);
+		pool.shutdown();
+
+		boolean interrupted = false;
+		while (!pool.isTerminated()) {
+			try {
+				pool.awaitTermination(1, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		log.info("concurrent transfer workers closed");
+	}
+
+	/**
+	 * Wrap a listener so that callbacks from the workers reach it one at a
+	 * time, as they would from a transfer on a single thread
+	 *
+	 * @param transferStatusCallbackListener
+	 *            {@link TransferStatusCallbackListener}, may be {@code null}
+	 * @return {@link TransferStatusCallbackListener} or {@code null} if no
+	 *         listener was given
+	 */
+	static TransferStatusCallbackListener synchronizedListener(
+			final TransferStatusCallbackListener transferStatusCallbackListener) {
+		if (transferStatusCallbackListener == null) {
+			return null;
+		}
+		return new SynchronizedTransferStatusCallbackListener(
+				transferStatusCallbackListener);
+	}
+
+	private static final class SynchronizedTransferStatusCallbackListener
+			implements TransferStatusCallbackListener {
+
+		private final TransferStatusCallbackListener delegate;
+
+		SynchronizedTransferStatusCallbackListener(
+				final TransferStatusCallbackListener delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public synchronized FileStatusCallbackResponse statusCallback(
+				final TransferStatus transferStatus) throws JargonException {
+			return delegate.statusCallback(transferStatus);
+		}
+
+		@Override
+		public synchronized void overallStatusCallback(
+				final TransferStatus transferStatus) throws JargonException {
+			delegate.overallStatusCallback(transferStatus);
+		}
+
+		@Override
+		public synchronized CallbackResponse transferAsksWhetherToForceOperation(
+				final String irodsAbsolutePath, final boolean isCollection) {
+			return delegate.transferAsksWhetherToForceOperation(
+					irodsAbsolutePath, isCollection);
+		}
+	}
+
+	private final class WorkerThreadFactory implements
+			ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+		@Override
+		public ForkJoinWorkerThread newThread(final ForkJoinPool forkJoinPool) {
+			return new TransferWorkerThread(forkJoinPool);
+		}
+	}
+
+	/**
+	 * Worker that closes the connections it opened when it ends
+	 */
+	private final class TransferWorkerThread extends ForkJoinWorkerThread {
+
+		TransferWorkerThread(final ForkJoinPool forkJoinPool) {
+			super(forkJoinPool);
+			setName(parallelWorkers.nextThreadName());
+		}
+
+		@Override
+		protected void onTermination(final Throwable exception) {
+			try {
+				irodsSession.closeSession(irodsAccount);
+			} catch (Exception e) {
+				log.warn("error closing transfer worker connection, ignored",
+						e);
+			} finally {
+				super.onTermination(exception);
+			}
+		}
+	}
+
+}
@@ -8,6 +8,10 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -252,12 +256,20 @@ public final class DataAOHelper extends AOHelper {
 	 * @param transferOptions
 	 * @param transferStatusCallbackListener
 	 * @param transferControlBlock
+	 * @param checksumStrategy
+	 *            {@link AbstractChecksumComputeStrategy} to hash the data with as
+	 *            it is written, so the local file need not be read again to
+	 *            verify it, or {@code null} to skip
+	 * @return {@link ChecksumValue} of the data written, or {@code null} if no
+	 *         checksumStrategy was given or it cannot build a value from a
+	 *         digest, in which case the local file is read again to verify it
 	 * @throws JargonException
 	 */
-	void processNormalGetTransfer(final File localFileToHoldData, final long length,
+	ChecksumValue processNormalGetTransfer(final File localFileToHoldData, final long length,
 			final AbstractIRODSMidLevelProtocol irodsProtocol, final TransferOptions transferOptions,
 			final TransferControlBlock transferControlBlock,
-			final TransferStatusCallbackListener transferStatusCallbackListener) throws JargonException {
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final AbstractChecksumComputeStrategy checksumStrategy) throws JargonException {
 
 		log.info("normal file transfer started, get output stream for local destination file");
 
@@ -275,14 +287,24 @@ public final class DataAOHelper extends AOHelper {
 
 		// get an input stream from the irodsFile
 		BufferedOutputStream localFileOutputStream;
+		MessageDigest messageDigest = null;
+		if (checksumStrategy != null && checksumStrategy.getDigestAlgorithm() != null) {
+			log.info("computing {} checksum as the data is written", checksumStrategy.getDigestAlgorithm());
+			messageDigest = checksumStrategy.instanceMessageDigest();
+		}
 
 		try {
 
+			OutputStream fileOutputStream = new FileOutputStream(localFileToHoldData);
+			if (messageDigest != null) {
+				fileOutputStream = new DigestOutputStream(fileOutputStream, messageDigest);
+			}
+
 			if (irodsProtocol.getPipelineConfiguration().getLocalFileOutputStreamBufferSize() <= 0) {
 
-				localFileOutputStream = new BufferedOutputStream(new FileOutputStream(localFileToHoldData));
+				localFileOutputStream = new BufferedOutputStream(fileOutputStream);
 			} else {
-				localFileOutputStream = new BufferedOutputStream(new FileOutputStream(localFileToHoldData),
+				localFileOutputStream = new BufferedOutputStream(fileOutputStream,
 						irodsProtocol.getPipelineConfiguration().getLocalFileOutputStreamBufferSize());
 			}
 		} catch (FileNotFoundException e) {
@@ -316,6 +338,11 @@ public final class DataAOHelper extends AOHelper {
 			throw new JargonException(
 					"IOException for local file when trying to get to: " + localFileToHoldData.getAbsolutePath(), e);
 		}
+
+		if (messageDigest == null) {
+			return null;
+		}
+		return checksumStrategy.checksumValueFromDigest(messageDigest.digest());
 	}
 
 	/**
@@ -467,6 +494,30 @@ public final class DataAOHelper extends AOHelper {
 
 	}
 
+	/**
+	 * Get the strategy for the checksum the target server is expected to use, to
+	 * hash a get as the data is written
+	 *
+	 * @return {@link AbstractChecksumComputeStrategy}, or {@code null} if no local
+	 *         strategy matches or it has no digest algorithm, in which case the
+	 *         checksum is computed after the transfer
+	 */
+	AbstractChecksumComputeStrategy checksumStrategyForTargetServer() {
+		try {
+			AbstractChecksumComputeStrategy checksumStrategy = irodsAccessObjectFactory.getIrodsSession()
+					.getLocalChecksumComputerFactory()
+					.instance(checksumManager.determineChecksumEncodingForTargetServer());
+			if (checksumStrategy.getDigestAlgorithm() == null) {
+				log.info("checksum strategy has no digest algorithm, checksum will be computed after the transfer");
+				return null;
+			}
+			return checksumStrategy;
+		} catch (JargonException e) {
+			log.warn("no local checksum strategy for the server, checksum will be computed after the transfer", e);
+			return null;
+		}
+	}
+
 	/**
 	 * Given a checksum value coming back from iRODS, compute the checksum value
 	 *
@@ -510,15 +561,7 @@ public final class DataAOHelper extends AOHelper {
 		 */
 
 		long lengthLeftToSend = localFile.length();
-		InputStream fileInputStream = new FileInputStream(localFile);
-		int inputStreamBuffSize = irodsAccessObjectFactory.getJargonProperties().getLocalFileInputStreamBufferSize();
-		if (inputStreamBuffSize == 0) {
-			log.debug("local file input stream will use default buffering");
-			fileInputStream = new BufferedInputStream(fileInputStream);
-		} else if (inputStreamBuffSize > 0) {
-			log.debug("local file input stream will use specified buffering:{}", inputStreamBuffSize);
-			fileInputStream = new BufferedInputStream(fileInputStream, inputStreamBuffSize);
-		}
+		InputStream fileInputStream = openLocalFileForPut(localFile);
 
 		try {
 
@@ -571,6 +614,46 @@ public final class DataAOHelper extends AOHelper {
 
 	}
 
+	/**
+	 * Open the local file for a put. If read ahead buffers are configured and the
+	 * file takes more than one buffer, the file is read on its own thread while
+	 * earlier data is being sent, otherwise it is read as it is sent.
+	 *
+	 * @param localFile
+	 *            {@code File} to be put
+	 * @return {@code InputStream} for the file
+	 * @throws FileNotFoundException
+	 * @throws JargonException
+	 */
+	private InputStream openLocalFileForPut(final File localFile) throws FileNotFoundException, JargonException {
+
+		int readAheadBuffers = irodsAccessObjectFactory.getJargonProperties().getPutReadAheadBuffers();
+		int copyBufferSize = irodsAccessObjectFactory.getJargonProperties().getInputToOutputCopyBufferByteSize();
+
+		if (readAheadBuffers > 0 && copyBufferSize > 0 && localFile.length() > copyBufferSize) {
+			log.debug("local file will be read ahead into {} buffers", readAheadBuffers);
+			try {
+				return new ReadAheadFileInputStream(localFile, copyBufferSize, Math.max(2, readAheadBuffers));
+			} catch (NoSuchFileException e) {
+				throw new FileNotFoundException(localFile.getAbsolutePath());
+			} catch (IOException e) {
+				log.error("unable to open local file for put", e);
+				throw new JargonException("unable to open local file for put", e);
+			}
+		}
+
+		InputStream fileInputStream = new FileInputStream(localFile);
+		int inputStreamBuffSize = irodsAccessObjectFactory.getJargonProperties().getLocalFileInputStreamBufferSize();
+		if (inputStreamBuffSize == 0) {
+			log.debug("local file input stream will use default buffering");
+			fileInputStream = new BufferedInputStream(fileInputStream);
+		} else if (inputStreamBuffSize > 0) {
+			log.debug("local file input stream will use specified buffering:{}", inputStreamBuffSize);
+			fileInputStream = new BufferedInputStream(fileInputStream, inputStreamBuffSize);
+		}
+		return fileInputStream;
+	}
+
 	/**
 	 * Check if the target of a put is an iRODS collection or data object name. This
 	 * method is smart enough to know that if you put a data object to an iRODS
@@ -2,6 +2,7 @@ package org.irods.jargon.core.pub;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 
 import org.irods.jargon.core.checksum.ChecksumValue;
 import org.irods.jargon.core.exception.DataNotFoundException;
@@ -1084,6 +1085,9 @@ public interface DataObjectAO extends FileCatalogObjectAO {
 	 * be returned giving individual success/failure information. For example,
 	 * an attempt to add a duplicate AVU will result in an error entry in the
 	 * response versus a thrown exception.
+	 * <p>
+	 * The data object is looked up once, and the AVU requests are pipelined on
+	 * the connection rather than each waiting for the reply to the last.
 	 *
 	 * @param absolutePath
 	 *            {@code String} with the absolute path to the data object
@@ -1103,6 +1107,9 @@ public interface DataObjectAO extends FileCatalogObjectAO {
 	 * Given a list of avu metadata, delete all from the data object. A response
 	 * will be returned giving individual success/failure information. Note that
 	 * a delete of a non-existent AVU will be silently ignored
+	 * <p>
+	 * The data object is looked up once, and the AVU requests are pipelined on
+	 * the connection rather than each waiting for the reply to the last.
 	 *
 	 * @param absolutePath
 	 *            {@code String} with the absolute path to the data object
@@ -1118,6 +1125,55 @@ public interface DataObjectAO extends FileCatalogObjectAO {
 	List<BulkAVUOperationResponse> deleteBulkAVUMetadataFromDataObject(
 			String absolutePath, List<AvuData> avuData) throws JargonException;
 
+	/**
+	 * Add AVUs to many data objects, spreading the data objects over several
+	 * threads, each with its own connection. The AVUs for each data object are
+	 * added as in {@link #addBulkAVUMetadataToDataObject(String, List)}.
+	 * <p>
+	 * Connections used by the worker threads are closed when they finish. An
+	 * error other than one reported for an AVU stops the operation and is
+	 * thrown once the workers have finished.
+	 *
+	 * @param avuDataByPath
+	 *            {@code Map} of the absolute path of each data object to the
+	 *            {@code List} of {@link AvuData} to add to it
+	 * @param numberOfThreads
+	 *            {@code int} with the number of threads, and connections, to
+	 *            use
+	 * @return {@code Map} of each absolute path to the
+	 *         {@link BulkAVUOperationResponse} for its AVUs, in the order of
+	 *         the given map
+	 * @throws JargonException
+	 */
+	Map<String, List<BulkAVUOperationResponse>> addBulkAVUMetadataToDataObjects(
+			Map<String, List<AvuData>> avuDataByPath, int numberOfThreads)
+			throws JargonException;
+
+	/**
+	 * Delete AVUs from many data objects, spreading the data objects over
+	 * several threads, each with its own connection. The AVUs for each data
+	 * object are deleted as in
+	 * {@link #deleteBulkAVUMetadataFromDataObject(String, List)}.
+	 * <p>
+	 * Connections used by the worker threads are closed when they finish. An
+	 * error other than one reported for an AVU stops the operation and is
+	 * thrown once the workers have finished.
+	 *
+	 * @param avuDataByPath
+	 *            {@code Map} of the absolute path of each data object to the
+	 *            {@code List} of {@link AvuData} to delete from it
+	 * @param numberOfThreads
+	 *            {@code int} with the number of threads, and connections, to
+	 *            use
+	 * @return {@code Map} of each absolute path to the
+	 *         {@link BulkAVUOperationResponse} for its AVUs, in the order of
+	 *         the given map
+	 * @throws JargonException
+	 */
+	Map<String, List<BulkAVUOperationResponse>> deleteBulkAVUMetadataFromDataObjects(
+			Map<String, List<AvuData>> avuDataByPath, int numberOfThreads)
+			throws JargonException;
+
 	/**
 	 * Clear all AVUs from the given data object by doing a bulk delete
 	 * operation
@@ -8,7 +8,9 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
+import org.irods.jargon.core.checksum.AbstractChecksumComputeStrategy;
 import org.irods.jargon.core.checksum.ChecksumValue;
 import org.irods.jargon.core.connection.ConnectionConstants;
 import org.irods.jargon.core.connection.ConnectionProgressStatus;
@@ -35,7 +37,6 @@ import org.irods.jargon.core.packinstr.TransferOptions;
 import org.irods.jargon.core.packinstr.TransferOptions.ForceOption;
 import org.irods.jargon.core.protovalues.FilePermissionEnum;
 import org.irods.jargon.core.protovalues.UserTypeEnum;
-import org.irods.jargon.core.pub.BulkAVUOperationResponse.ResultStatus;
 import org.irods.jargon.core.pub.RuleProcessingAO.RuleProcessingType;
 import org.irods.jargon.core.pub.domain.AvuData;
 import org.irods.jargon.core.pub.domain.DataObject;
@@ -516,8 +517,12 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements D
 
 		if (fileRestartInfo != null) {
 			log.info("doing a restart of this transfer..");
-			putRestartRetryTillMaxLoop(transferControlBlock, targetFile, fileRestartInfo,
-					transferStatusCallbackListener);
+			try {
+				putRestartRetryTillMaxLoop(transferControlBlock, targetFile, fileRestartInfo,
+						transferStatusCallbackListener);
+			} finally {
+				invalidateCachedObjStat(targetFile.getAbsolutePath());
+			}
 			return;
 		}
 
@@ -565,41 +570,46 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements D
 			}
 		}
 
-		if (localFileLength < ConnectionConstants.MAX_SZ_FOR_SINGLE_BUF) {
+		// a transfer that fails part way may still have created or changed the data object
+		try {
+			if (localFileLength < ConnectionConstants.MAX_SZ_FOR_SINGLE_BUF) {
 
-			log.info("processing transfer as normal, length below max");
-			try {
-				dataAOHelper.processNormalPutTransfer(localFile, force, targetFile, getIRODSProtocol(),
-						transferControlBlock, transferStatusCallbackListener);
-			} catch (FileNotFoundException e) {
-				log.error("iRODS file missing in put operation:{}", targetFile.getAbsolutePath());
-				throw new DataNotFoundException("irodsFile not found", e);
-			} catch (java.io.FileNotFoundException e) {
-				throw new DataNotFoundException("local file not found in put to irods", e);
-			}
-		} else {
+				log.info("processing transfer as normal, length below max");
+				try {
+					dataAOHelper.processNormalPutTransfer(localFile, force, targetFile, getIRODSProtocol(),
+							transferControlBlock, transferStatusCallbackListener);
+				} catch (FileNotFoundException e) {
+					log.error("iRODS file missing in put operation:{}", targetFile.getAbsolutePath());
+					throw new DataNotFoundException("irodsFile not found", e);
+				} catch (java.io.FileNotFoundException e) {
+					throw new DataNotFoundException("local file not found in put to irods", e);
+				}
+			} else {
 
-			log.info("processing as a parallel transfer, length above max");
-			try {
-				processAsAParallelPutOperationIfMoreThanZeroThreads(localFile, targetFile, force, transferControlBlock,
-						transferStatusCallbackListener);
-			} catch (FileRestartManagementException e) {
-				log.error("transfer and restart failed", e);
-				throw e;
-			} catch (JargonException je) {
-				log.info("attempting a restart after exception", je);
-				fileRestartInfo = retrieveRestartInfoIfAvailable(RestartType.PUT,
-						irodsFileDestination.getAbsolutePath());
-				if (fileRestartInfo == null) {
-					log.info("no restart info, rethrow exception", je);
-					throw je;
-				} else {
-					log.info("carrying out restart process..");
-					putRestartRetryTillMaxLoop(transferControlBlock, targetFile, fileRestartInfo,
-							transferStatusCallbackListener);
+				log.info("processing as a parallel transfer, length above max");
+				try {
+					processAsAParallelPutOperationIfMoreThanZeroThreads(localFile, targetFile, force,
+							transferControlBlock, transferStatusCallbackListener);
+				} catch (FileRestartManagementException e) {
+					log.error("transfer and restart failed", e);
+					throw e;
+				} catch (JargonException je) {
+					log.info("attempting a restart after exception", je);
+					fileRestartInfo = retrieveRestartInfoIfAvailable(RestartType.PUT,
+							irodsFileDestination.getAbsolutePath());
+					if (fileRestartInfo == null) {
+						log.info("no restart info, rethrow exception", je);
+						throw je;
+					} else {
+						log.info("carrying out restart process..");
+						putRestartRetryTillMaxLoop(transferControlBlock, targetFile, fileRestartInfo,
+								transferStatusCallbackListener);
+					}
 				}
-			}
 
+			}
+		} finally {
+			invalidateCachedObjStat(targetFile.getAbsolutePath());
 		}
 
 		long endTime = System.currentTimeMillis();
@@ -755,6 +765,8 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements D
 		if (!myTransferOptions.isUseParallelTransfer()) {
 			log.info("no parallel transfer set in transferOptions");
 			myTransferOptions.setMaxThreads(-1);
+		} else {
+			adjustParallelThreadsForHost(myTransferOptions);
 		}
 
 		ConnectionProgressStatusListener intraFileStatusListener = null;
@@ -876,6 +888,7 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements D
 		try {
 			parallelPutFileStrategy.transfer();
 			log.info("transfer process is complete");
+			parallelPutFileStrategy.recordTransferPerformance(getIRODSAccount().getHost());
 			int statusForComplete = responseToInitialCallForPut.getTag(IRODSConstants.L1_DESC_INX).getIntValue();
 			log.debug("status for complete:{}", statusForComplete);
 
@@ -1018,6 +1031,8 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements D
 				if (!thisFileTransferOptions.isUseParallelTransfer()) {
 					log.info("no parallel transfer set in transferOptions");
 					thisFileTransferOptions.setMaxThreads(-1);
+				} else {
+					adjustParallelThreadsForHost(thisFileTransferOptions);
 				}
 			} else {
 				thisFileTransferOptions.setMaxThreads(0);
@@ -1352,6 +1367,7 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements D
 
 		// if length == zero, check for multiple thread copy, may still process
 		// as a standard txfr if 0 threads specified
+		ChecksumValue checksumOfDataWritten = null;
 		try {
 			if (lengthFromIrodsResponse == 0) {
 				try {
@@ -1390,8 +1406,14 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements D
 
 				}
 			} else {
-				dataAOHelper.processNormalGetTransfer(localFileToHoldData, lengthFromIrodsResponse, getIRODSProtocol(),
-						thisFileTransferOptions, transferControlBlock, transferStatusCallbackListener);
+				// a single stream arrives in order, so it can be hashed as it is written
+				AbstractChecksumComputeStrategy checksumStrategy = null;
+				if (thisFileTransferOptions.isComputeAndVerifyChecksumAfterTransfer()) {
+					checksumStrategy = dataAOHelper.checksumStrategyForTargetServer();
+				}
+				checksumOfDataWritten = dataAOHelper.processNormalGetTransfer(localFileToHoldData,
+						lengthFromIrodsResponse, getIRODSProtocol(), thisFileTransferOptions, transferControlBlock,
+						transferStatusCallbackListener, checksumStrategy);
 			}
 
 			/*
@@ -1415,10 +1437,16 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements D
 
 				ChecksumValue irodsChecksum = computeChecksumOnDataObject(irodsFileToGet);
 
-				log.info("computing a checksum on the file at:{}", localFileToHoldData.getAbsolutePath());
-
-				ChecksumValue localFileChecksum = dataAOHelper.computeLocalFileChecksum(localFileToHoldData,
-						irodsChecksum.getChecksumEncoding());
+				ChecksumValue localFileChecksum;
+				if (checksumOfDataWritten != null
+						&& checksumOfDataWritten.getChecksumEncoding() == irodsChecksum.getChecksumEncoding()) {
+					log.info("using the checksum computed as the data was written");
+					localFileChecksum = checksumOfDataWritten;
+				} else {
+					log.info("computing a checksum on the file at:{}", localFileToHoldData.getAbsolutePath());
+					localFileChecksum = dataAOHelper.computeLocalFileChecksum(localFileToHoldData,
+							irodsChecksum.getChecksumEncoding());
+				}
 
 				log.info("local file checksum is:{}", localFileChecksum);
 				log.info("irods checksum:{}", irodsChecksum);
@@ -1506,6 +1534,7 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements D
 
 			try {
 				parallelGetTransferStrategy.transfer();
+				parallelGetTransferStrategy.recordTransferPerformance(getIRODSAccount().getHost());
 
 			} catch (Throwable e) {
 
@@ -1516,6 +1545,26 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements D
 		}
 	}
 
+	/**
+	 * If adaptive parallel threads are turned on, ask for the number of threads
+	 * that earlier transfers to this host suggest, up to the number in the
+	 * transfer options
+	 *
+	 * @param transferOptions
+	 *            {@link TransferOptions} for this file, which may be changed
+	 * @throws JargonException
+	 */
+	private void adjustParallelThreadsForHost(final TransferOptions transferOptions) throws JargonException {
+		if (!getJargonProperties().isAdaptiveParallelThreads() || transferOptions.getMaxThreads() <= 1) {
+			return;
+		}
+
+		int threads = getIRODSSession().getParallelTransferTuner().recommendThreads(getIRODSAccount().getHost(),
+				transferOptions.getMaxThreads());
+		log.info("adaptive parallel threads, asking for {} threads", threads);
+		transferOptions.setMaxThreads(threads);
+	}
+
 	/**
 	 * See if jargon props say to do long file restarts, and a restart manager is
 	 * configured
@@ -1745,27 +1794,39 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements D
 			throw new IllegalArgumentException("null or empty avuData");
 		}
 
-		List<BulkAVUOperationResponse> responses = new ArrayList<BulkAVUOperationResponse>();
+		MiscIRODSUtils.checkPathSizeForMax(absolutePath);
 
-		for (AvuData value : avuData) {
-			try {
-				addAVUMetadata(absolutePath, value);
-			} catch (DataNotFoundException dnf) {
-				log.error("dataNotFoundException when adding an AVU, catch and add to response data", dnf);
-				responses.add(BulkAVUOperationResponse.instance(ResultStatus.MISSING_METADATA_TARGET, value,
-						dnf.getMessage()));
-				continue;
-			} catch (DuplicateDataException dde) {
-				log.error("DuplicateDataException when adding an AVU, catch and add to response data", dde);
-				responses.add(BulkAVUOperationResponse.instance(ResultStatus.DUPLICATE_AVU, value, dde.getMessage()));
-				continue;
+		/*
+		 * Stat once for all of the AVUs, then pipeline the requests
+		 */
 
-			}
+		ObjStat objStat;
+		try {
+			objStat = this.retrieveObjStat(absolutePath);
+		} catch (FileNotFoundException e) {
+			log.error("dataNotFoundException when adding AVUs, catch and add to response data", e);
+			return BulkAVUPipeline.allMissingTarget(avuData, "Target dataObject was not found, could not add AVU");
+		}
 
-			log.info("treat as success...", value);
-			responses.add(BulkAVUOperationResponse.instance(ResultStatus.OK, value, ""));
+		if (objStat.getSpecColType() == SpecColType.MOUNTED_COLL) {
+			log.info("objStat indicates collection type that does not support this operation:{}", objStat);
+			throw new OperationNotSupportedForCollectionTypeException(
+					"The special collection type does not support this operation");
 		}
 
+		String absPath = resolveAbsolutePathGivenObjStat(objStat);
+
+		List<ModAvuMetadataInp> requests = new ArrayList<ModAvuMetadataInp>(avuData.size());
+		for (AvuData value : avuData) {
+			if (value == null) {
+				throw new IllegalArgumentException("null AVU data");
+			}
+			requests.add(ModAvuMetadataInp.instanceForAddDataObjectMetadata(absPath, value));
+		}
+
+		List<BulkAVUOperationResponse> responses = new BulkAVUPipeline(getIRODSProtocol(),
+				"Target dataObject was not found, could not add AVU").send(avuData, requests);
+
 		log.info("...complete");
 		return responses;
 	}
@@ -1787,27 +1848,86 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements D
 			throw new IllegalArgumentException("null or empty avuData");
 		}
 
-		List<BulkAVUOperationResponse> responses = new ArrayList<BulkAVUOperationResponse>();
+		if (absolutePath == null || absolutePath.isEmpty()) {
+			throw new IllegalArgumentException(NULL_OR_EMPTY_ABSOLUTE_PATH);
+		}
 
-		for (AvuData value : avuData) {
-			try {
-				deleteAVUMetadata(absolutePath, value);
-			} catch (DataNotFoundException dnf) {
-				log.error("dataNotFoundException when deleti an AVU, catch and add to response data", dnf);
-				responses.add(BulkAVUOperationResponse.instance(ResultStatus.MISSING_METADATA_TARGET, value,
-						dnf.getMessage()));
-				continue;
+		MiscIRODSUtils.checkPathSizeForMax(absolutePath);
 
-			}
+		ObjStat objStat;
+		try {
+			objStat = this.retrieveObjStat(absolutePath);
+		} catch (FileNotFoundException e) {
+			log.error("dataNotFoundException when deleting AVUs, catch and add to response data", e);
+			return BulkAVUPipeline.allMissingTarget(avuData,
+					"Target data object was not found, could not remove AVU");
+		}
 
-			log.info("treat as success...", value);
-			responses.add(BulkAVUOperationResponse.instance(ResultStatus.OK, value, ""));
+		if (objStat.getSpecColType() == SpecColType.MOUNTED_COLL) {
+			log.info("objStat indicates collection type that does not support this operation:{}", objStat);
+			throw new OperationNotSupportedForCollectionTypeException(
+					"The special collection type does not support this operation");
 		}
 
+		String absPath = resolveAbsolutePathGivenObjStat(objStat);
+
+		List<ModAvuMetadataInp> requests = new ArrayList<ModAvuMetadataInp>(avuData.size());
+		for (AvuData value : avuData) {
+			if (value == null) {
+				throw new IllegalArgumentException("null AVU data");
+			}
+			requests.add(ModAvuMetadataInp.instanceForDeleteDataObjectMetadata(absPath, value));
+		}
+
+		List<BulkAVUOperationResponse> responses = new BulkAVUPipeline(getIRODSProtocol(),
+				"Target data object was not found, could not remove AVU").send(avuData, requests);
+
 		log.info("...complete");
 		return responses;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.pub.DataObjectAO#addBulkAVUMetadataToDataObjects(
+	 * java.util.Map, int)
+	 */
+	@Override
+	public Map<String, List<BulkAVUOperationResponse>> addBulkAVUMetadataToDataObjects(
+			final Map<String, List<AvuData>> avuDataByPath, final int numberOfThreads) throws JargonException {
+
+		log.info("addBulkAVUMetadataToDataObjects()");
+
+		if (avuDataByPath == null) {
+			throw new IllegalArgumentException("null avuDataByPath");
+		}
+
+		return new ParallelBulkAVUOperation(new ParallelBulkAVUOperation.DataObjectAVUOperation(
+				getIRODSAccessObjectFactory(), getIRODSAccount(), true), numberOfThreads).run(avuDataByPath);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.pub.DataObjectAO#deleteBulkAVUMetadataFromDataObjects
+	 * (java.util.Map, int)
+	 */
+	@Override
+	public Map<String, List<BulkAVUOperationResponse>> deleteBulkAVUMetadataFromDataObjects(
+			final Map<String, List<AvuData>> avuDataByPath, final int numberOfThreads) throws JargonException {
+
+		log.info("deleteBulkAVUMetadataFromDataObjects()");
+
+		if (avuDataByPath == null) {
+			throw new IllegalArgumentException("null avuDataByPath");
+		}
+
+		return new ParallelBulkAVUOperation(new ParallelBulkAVUOperation.DataObjectAVUOperation(
+				getIRODSAccessObjectFactory(), getIRODSAccount(), false), numberOfThreads).run(avuDataByPath);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -2236,6 +2356,8 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements D
 		} catch (JargonException je) {
 			log.error("error replicating irods file", je);
 			throw je;
+		} finally {
+			invalidateCachedObjStat(irodsFileAbsolutePath);
 		}
 		log.info("replication complete");
 	}
@@ -2389,6 +2511,8 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements D
 		} catch (JargonException je) {
 			log.error("error copying irods file", je);
 			throw je;
+		} finally {
+			invalidateCachedObjStat(myTargetFile.getAbsolutePath());
 		}
 		log.info("copy complete");
 
@@ -2670,7 +2794,13 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements D
 		log.info("computing checksum on irodsFile: {}", irodsFile.getAbsolutePath());
 
 		DataObjInp dataObjInp = DataObjInp.instanceForDataObjectChecksum(irodsFile.getAbsolutePath());
-		Tag response = getIRODSProtocol().irodsFunction(dataObjInp);
+		Tag response;
+		try {
+			response = getIRODSProtocol().irodsFunction(dataObjInp);
+		} finally {
+			// the checksum is registered, and is part of the cached objStat
+			invalidateCachedObjStat(irodsFile.getAbsolutePath());
+		}
 
 		if (response == null) {
 			log.error("invalid response to checksum call, response was null, expected checksum value");
@@ -2744,7 +2874,13 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements D
 		log.info("computing checksum on irodsFile: {}", irodsFile.getAbsolutePath());
 
 		DataObjInp dataObjInp = DataObjInp.instanceForDataObjectChecksum(irodsFile.getAbsolutePath());
-		Tag response = getIRODSProtocol().irodsFunction(dataObjInp);
+		Tag response;
+		try {
+			response = getIRODSProtocol().irodsFunction(dataObjInp);
+		} finally {
+			// the checksum is registered, and is part of the cached objStat
+			invalidateCachedObjStat(irodsFile.getAbsolutePath());
+		}
 
 		if (response == null) {
 			log.error("invalid response to checksum call, response was null, expected checksum value");
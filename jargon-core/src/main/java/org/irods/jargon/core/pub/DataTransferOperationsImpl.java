@@ -597,8 +597,13 @@ public final class DataTransferOperationsImpl extends IRODSGenericAO implements
 
 		log.debug("new parent directory created locally:{}", newParentDirectory.getAbsolutePath());
 
-		transferOperationsHelper.recursivelyGet(irodsSourceFile, newParentDirectory, transferStatusCallbackListener,
-				transferControlBlock);
+		if (transferControlBlock.getTransferOptions().getConcurrentFileTransferThreads() > 1) {
+			transferOperationsHelper.concurrentlyGet(irodsSourceFile, newParentDirectory,
+					transferStatusCallbackListener, transferControlBlock);
+		} else {
+			transferOperationsHelper.recursivelyGet(irodsSourceFile, newParentDirectory,
+					transferStatusCallbackListener, transferControlBlock);
+		}
 	}
 
 	/*
@@ -1033,8 +1038,13 @@ public final class DataTransferOperationsImpl extends IRODSGenericAO implements
 			throw new JargonException(e);
 		}
 
-		transferOperationsHelper.recursivelyPut(sourceFile, newIrodsParentDirectory, transferStatusCallbackListener,
-				transferControlBlock);
+		if (transferControlBlock.getTransferOptions().getConcurrentFileTransferThreads() > 1) {
+			transferOperationsHelper.concurrentlyPut(sourceFile, newIrodsParentDirectory,
+					transferStatusCallbackListener, transferControlBlock);
+		} else {
+			transferOperationsHelper.recursivelyPut(sourceFile, newIrodsParentDirectory,
+					transferStatusCallbackListener, transferControlBlock);
+		}
 
 		/**
 		 * Send an overall status callback. If the state is cancelled, see if it was
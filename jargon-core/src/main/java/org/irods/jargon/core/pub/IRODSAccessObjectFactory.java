@@ -230,6 +230,19 @@ public interface IRODSAccessObjectFactory {
 	DataTransferOperations getDataTransferOperations(
 			final IRODSAccount irodsAccount) throws JargonException;
 
+	/**
+	 * Returns an {@code AsyncDataTransferOperations} object that starts
+	 * transfers on threads of the {@code IRODSSession} and returns futures for
+	 * them.
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} that describes the connection to iRODS.
+	 * @return {@link org.irods.jargon.core.pub.AsyncDataTransferOperations}
+	 * @throws JargonException
+	 */
+	AsyncDataTransferOperations getAsyncDataTransferOperations(
+			final IRODSAccount irodsAccount) throws JargonException;
+
 	/**
 	 * Returns a {@code RemoteExecutionOfCommandsAO} that can execute
 	 * commands (scripts) remotely on an iRODS server.
@@ -433,6 +433,20 @@ public final class IRODSAccessObjectFactoryImpl implements IRODSAccessObjectFact
 		return new DataTransferOperationsImpl(irodsSession, irodsAccount);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.pub.IRODSAccessObjectFactory#
+	 * getAsyncDataTransferOperations
+	 * (org.irods.jargon.core.connection.IRODSAccount)
+	 */
+	@Override
+	public AsyncDataTransferOperations getAsyncDataTransferOperations(final IRODSAccount irodsAccount)
+			throws JargonException {
+		checkIrodsSessionSet();
+		return new AsyncDataTransferOperationsImpl(irodsSession, irodsAccount);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
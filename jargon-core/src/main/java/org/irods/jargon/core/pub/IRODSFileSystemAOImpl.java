@@ -897,13 +897,20 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements IRODS
 			dataObjInp.setOperationType(DataObjInp.PUT_OPERATION_TYPE);
 		}
 
-		Tag response = getIRODSProtocol().irodsFunction(IRODSConstants.RODS_API_REQ, dataObjInp.getParsedTags(),
-				DataObjInp.CREATE_FILE_API_NBR);
+		Tag response;
+		try {
+			response = getIRODSProtocol().irodsFunction(IRODSConstants.RODS_API_REQ, dataObjInp.getParsedTags(),
+					DataObjInp.CREATE_FILE_API_NBR);
+		} finally {
+			invalidateCachedObjStat(absolutePath);
+		}
+
 		if (response == null) {
 			String msg = "null response from IRODS call";
 			log.error(msg);
 			throw new JargonException(msg);
 		}
+
 		// parse out the response
 		responseFileNbr = response.getTag(MsgHeader.PI_NAME).getTag(MsgHeader.INT_INFO).getIntValue();
 
@@ -940,6 +947,8 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements IRODS
 			}
 		} catch (CatalogAlreadyHasItemByThatNameException e) {
 			log.info("directory already exists in mkdir, log and ignore");
+		} finally {
+			invalidateCachedObjStat(irodsFile.getAbsolutePath());
 		}
 
 		log.debug("mkdir succesful");
@@ -1000,8 +1009,13 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements IRODS
 		}
 
 		DataObjInp dataObjInp = DataObjInp.instanceForDeleteWithForce(irodsFile.getAbsolutePath());
-		Tag response = getIRODSProtocol().irodsFunction(IRODSConstants.RODS_API_REQ, dataObjInp.getParsedTags(),
-				DataObjInp.DELETE_FILE_API_NBR);
+		Tag response;
+		try {
+			response = getIRODSProtocol().irodsFunction(IRODSConstants.RODS_API_REQ, dataObjInp.getParsedTags(),
+					DataObjInp.DELETE_FILE_API_NBR);
+		} finally {
+			invalidateCachedObjStat(irodsFile.getAbsolutePath());
+		}
 
 		if (response != null) {
 			String msg = "unexpected response from irods, expected null message - logged and ignored ";
@@ -1042,6 +1056,8 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements IRODS
 		} catch (DuplicateDataException dde) {
 			log.warn(
 					"duplicate data exception logged and ignored, see GForge: [#639] 809000 errors on delete operations when trash file already exists");
+		} finally {
+			invalidateCachedObjStat(irodsFile.getAbsolutePath());
 		}
 
 	}
@@ -1072,8 +1088,13 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements IRODS
 		CollInp collInp = CollInp.instance(irodsFile.getAbsolutePath(), CollInp.RECURSIVE_OPERATION,
 				CollInp.FORCE_OPERATION);
 
-		Tag response = getIRODSProtocol().irodsFunction(IRODSConstants.RODS_API_REQ, collInp.getParsedTags(),
-				CollInp.RMDIR_API_NBR);
+		Tag response;
+		try {
+			response = getIRODSProtocol().irodsFunction(IRODSConstants.RODS_API_REQ, collInp.getParsedTags(),
+					CollInp.RMDIR_API_NBR);
+		} finally {
+			invalidateCachedObjStat(irodsFile.getAbsolutePath());
+		}
 
 		processClientStatusMessages(response);
 
@@ -1105,8 +1126,13 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements IRODS
 
 		CollInp collInp = CollInp.instance(irodsFile.getAbsolutePath(), CollInp.RECURSIVE_OPERATION);
 
-		Tag response = getIRODSProtocol().irodsFunction(IRODSConstants.RODS_API_REQ, collInp.getParsedTags(),
-				CollInp.RMDIR_API_NBR);
+		Tag response;
+		try {
+			response = getIRODSProtocol().irodsFunction(IRODSConstants.RODS_API_REQ, collInp.getParsedTags(),
+					CollInp.RMDIR_API_NBR);
+		} finally {
+			invalidateCachedObjStat(irodsFile.getAbsolutePath());
+		}
 
 		processClientStatusMessages(response);
 
@@ -1158,8 +1184,14 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements IRODS
 
 		DataObjCopyInp dataObjCopyInp = DataObjCopyInp.instanceForRenameCollection(fromFile.getAbsolutePath(),
 				toFile.getAbsolutePath());
-		Tag response = getIRODSProtocol().irodsFunction(IRODSConstants.RODS_API_REQ, dataObjCopyInp.getParsedTags(),
-				DataObjCopyInp.RENAME_FILE_API_NBR);
+		Tag response;
+		try {
+			response = getIRODSProtocol().irodsFunction(IRODSConstants.RODS_API_REQ, dataObjCopyInp.getParsedTags(),
+					DataObjCopyInp.RENAME_FILE_API_NBR);
+		} finally {
+			invalidateCachedObjStat(fromFile.getAbsolutePath());
+			invalidateCachedObjStat(toFile.getAbsolutePath());
+		}
 
 		if (response != null) {
 			log.warn("unexpected response from irods, expected null message - logged and ignored ");
@@ -1188,8 +1220,14 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements IRODS
 
 		DataObjCopyInp dataObjCopyInp = DataObjCopyInp.instanceForRenameFile(fromFile.getAbsolutePath(),
 				toFile.getAbsolutePath());
-		Tag response = getIRODSProtocol().irodsFunction(IRODSConstants.RODS_API_REQ, dataObjCopyInp.getParsedTags(),
-				DataObjCopyInp.RENAME_FILE_API_NBR);
+		Tag response;
+		try {
+			response = getIRODSProtocol().irodsFunction(IRODSConstants.RODS_API_REQ, dataObjCopyInp.getParsedTags(),
+					DataObjCopyInp.RENAME_FILE_API_NBR);
+		} finally {
+			invalidateCachedObjStat(fromFile.getAbsolutePath());
+			invalidateCachedObjStat(toFile.getAbsolutePath());
+		}
 
 		if (response != null) {
 			log.warn("unexpected response from irods, expected null message - logged and ignored ");
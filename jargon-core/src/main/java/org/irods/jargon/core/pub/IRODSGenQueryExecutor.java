@@ -5,6 +5,7 @@ package org.irods.jargon.core.pub;
 
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.query.AbstractIRODSGenQuery;
+import org.irods.jargon.core.query.GenQueryResultIterator;
 import org.irods.jargon.core.query.IRODSQueryResultSet;
 import org.irods.jargon.core.query.JargonQueryException;
 
@@ -212,4 +213,53 @@ public interface IRODSGenQueryExecutor extends IRODSAccessObject {
 	IRODSQueryResultSet getMoreResults(IRODSQueryResultSet irodsQueryResultSet)
 			throws JargonException, JargonQueryException;
 
+	/**
+	 * Execute an iquest-like query and return an iterator over all of its rows,
+	 * paging through the results as needed. Following pages are fetched in the
+	 * background while the current page is being read, up to
+	 * {@code prefetchDepth} pages ahead, which hides the round trip for each
+	 * continuation on high latency connections.
+	 * <p>
+	 * The returned iterator must be closed when done, which will close the
+	 * query in iRODS if not all rows were read. It should be closed before the
+	 * connection is closed. With a {@code prefetchDepth} above zero the
+	 * connection is reserved for the prefetch until then, and other operations
+	 * on it fail.
+	 *
+	 * @param irodsQuery
+	 *            {@link org.irods.jargon.core.query.AbstractIRODSGenQuery} that
+	 *            will wrap the given query
+	 * @param prefetchDepth
+	 *            {@code int} with the number of pages to fetch ahead of the
+	 *            page being read, 0 will fetch each page when it is needed
+	 * @return {@link GenQueryResultIterator} over the rows of the query
+	 * @throws JargonException
+	 * @throws JargonQueryException
+	 */
+	GenQueryResultIterator executeIRODSQueryAsIterator(
+			AbstractIRODSGenQuery irodsQuery, int prefetchDepth)
+			throws JargonException, JargonQueryException;
+
+	/**
+	 * Execute an iquest-like query and return an iterator over all of its rows,
+	 * as in {@link #executeIRODSQueryAsIterator(AbstractIRODSGenQuery, int)},
+	 * optionally targeted at a zone
+	 *
+	 * @param irodsQuery
+	 *            {@link org.irods.jargon.core.query.AbstractIRODSGenQuery} that
+	 *            will wrap the given query
+	 * @param prefetchDepth
+	 *            {@code int} with the number of pages to fetch ahead of the
+	 *            page being read, 0 will fetch each page when it is needed
+	 * @param zoneName
+	 *            {@code String} ({@code null} or blank if not used)
+	 *            that indicates an optional zone for the query
+	 * @return {@link GenQueryResultIterator} over the rows of the query
+	 * @throws JargonException
+	 * @throws JargonQueryException
+	 */
+	GenQueryResultIterator executeIRODSQueryAsIteratorInZone(
+			AbstractIRODSGenQuery irodsQuery, int prefetchDepth,
+			String zoneName) throws JargonException, JargonQueryException;
+
 }
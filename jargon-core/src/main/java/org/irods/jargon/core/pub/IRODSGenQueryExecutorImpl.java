@@ -5,6 +5,7 @@ import org.irods.jargon.core.connection.IRODSSession;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.query.AbstractIRODSGenQuery;
 import org.irods.jargon.core.query.GenQueryProcessor;
+import org.irods.jargon.core.query.GenQueryResultIterator;
 import org.irods.jargon.core.query.IRODSQueryResultSet;
 import org.irods.jargon.core.query.JargonQueryException;
 import org.irods.jargon.core.query.TranslatedIRODSGenQuery;
@@ -269,6 +270,57 @@ IRODSGenQueryExecutor {
 				QueryCloseBehavior.MANUAL_CLOSE, zoneName);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.pub.IRODSGenQueryExecutor#
+	 * executeIRODSQueryAsIterator
+	 * (org.irods.jargon.core.query.AbstractIRODSGenQuery, int)
+	 */
+	@Override
+	public GenQueryResultIterator executeIRODSQueryAsIterator(
+			final AbstractIRODSGenQuery irodsQuery, final int prefetchDepth)
+					throws JargonException, JargonQueryException {
+		log.info("executeIRODSQueryAsIterator()");
+		return executeIRODSQueryAsIteratorInZone(irodsQuery, prefetchDepth,
+				null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.pub.IRODSGenQueryExecutor#
+	 * executeIRODSQueryAsIteratorInZone
+	 * (org.irods.jargon.core.query.AbstractIRODSGenQuery, int,
+	 * java.lang.String)
+	 */
+	@Override
+	public GenQueryResultIterator executeIRODSQueryAsIteratorInZone(
+			final AbstractIRODSGenQuery irodsQuery, final int prefetchDepth,
+			final String zoneName) throws JargonException, JargonQueryException {
+
+		log.info("executeIRODSQueryAsIteratorInZone()");
+
+		if (irodsQuery == null) {
+			throw new IllegalArgumentException("null irodsQuery");
+		}
+
+		if (prefetchDepth < 0) {
+			throw new IllegalArgumentException("prefetchDepth is < 0");
+		}
+
+		log.info("query: {}", irodsQuery);
+		log.info("prefetchDepth: {}", prefetchDepth);
+
+		GenQueryProcessor genQueryProcessor = new GenQueryProcessor(
+				getIRODSProtocol());
+		TranslatedIRODSGenQuery translatedIRODSQuery = genQueryProcessor
+				.translateProvidedQuery(irodsQuery);
+
+		return GenQueryResultIterator.instance(genQueryProcessor,
+				translatedIRODSQuery, prefetchDepth, zoneName);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
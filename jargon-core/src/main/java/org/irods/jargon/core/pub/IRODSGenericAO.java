@@ -8,6 +8,7 @@ import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSServerProperties;
 import org.irods.jargon.core.connection.IRODSSession;
 import org.irods.jargon.core.connection.JargonProperties;
+import org.irods.jargon.core.connection.ObjStatCache;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.packinstr.OperationComplete;
 import org.irods.jargon.core.packinstr.Tag;
@@ -198,6 +199,25 @@ public abstract class IRODSGenericAO implements IRODSAccessObject {
 		return getIRODSProtocol().irodsFunction(operationComplete);
 	}
 
+	/**
+	 * Drop what the session has cached about a path this access object has
+	 * written, deleted or renamed, see {@link ObjStatCache}
+	 *
+	 * @param irodsAbsolutePath
+	 *            {@code String} with the absolute path that changed
+	 */
+	protected void invalidateCachedObjStat(final String irodsAbsolutePath) {
+		if (irodsSession == null || irodsAbsolutePath == null
+				|| irodsAbsolutePath.isEmpty()) {
+			return;
+		}
+
+		ObjStatCache objStatCache = irodsSession.getObjStatCache();
+		if (objStatCache != null) {
+			objStatCache.invalidate(irodsAbsolutePath);
+		}
+	}
+
 	@Override
 	public void closeSession() throws JargonException {
 
@@ -0,0 +1,229 @@
+/**
+ *
+ */
+package org.irods.jargon.core.pub;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.irods.jargon.core.utils.CollectionAndPath;
+import org.irods.jargon.core.utils.MiscIRODSUtils;
+
+/**
+ * A group of paths under one parent collection that are looked up together by
+ * a bulk object stat, as one GenQuery with an {@code IN} condition on the child
+ * names.
+ * <p>
+ * The length of an {@code IN} condition is bounded by the catalog, so a parent
+ * with many children is split over more than one batch. Paths a GenQuery
+ * cannot match, such as the root or names with quotes, are left to be stat'ed
+ * one at a time. A path given more than once, or given both with and without a
+ * trailing '/', is looked up once.
+ */
+class ObjStatBatch {
+
+	/**
+	 * Most paths in one batch
+	 */
+	static final int MAX_PATHS_PER_BATCH = 100;
+
+	/**
+	 * Most characters of absolute path in one batch, keeping the condition
+	 * well under the catalog's limit on query length
+	 */
+	static final int MAX_PATH_CHARS_PER_BATCH = 2000;
+
+	private final String parentPath;
+	private final List<String> childNames = new ArrayList<String>();
+	private final List<String> childPaths = new ArrayList<String>();
+	private final List<List<String>> givenPaths = new ArrayList<List<String>>();
+	private final Map<String, Integer> indexByChildPath = new HashMap<String, Integer>();
+	private int pathChars = 0;
+
+	ObjStatBatch(final String parentPath) {
+		this.parentPath = parentPath;
+	}
+
+	/**
+	 * Group the given paths by parent collection
+	 *
+	 * @param irodsAbsolutePaths
+	 *            {@code Collection<String>} of absolute paths
+	 * @param pathsToStatSingly
+	 *            {@code List<String>} that is added to with the paths that
+	 *            cannot be batched, each once
+	 * @return {@code List} of {@link ObjStatBatch}, in the order the parents
+	 *         were first seen
+	 */
+	static List<ObjStatBatch> batchByParent(
+			final Collection<String> irodsAbsolutePaths,
+			final List<String> pathsToStatSingly) {
+
+		if (irodsAbsolutePaths == null) {
+			throw new IllegalArgumentException("null irodsAbsolutePaths");
+		}
+
+		if (pathsToStatSingly == null) {
+			throw new IllegalArgumentException("null pathsToStatSingly");
+		}
+
+		Map<String, List<ObjStatBatch>> batchesByParent = new LinkedHashMap<String, List<ObjStatBatch>>();
+		Set<String> seenPaths = new LinkedHashSet<String>();
+
+		for (String path : irodsAbsolutePaths) {
+			if (path == null || path.isEmpty()) {
+				throw new IllegalArgumentException(
+						"null or empty path in irodsAbsolutePaths");
+			}
+
+			if (!seenPaths.add(path)) {
+				continue;
+			}
+
+			CollectionAndPath collectionAndPath = MiscIRODSUtils
+					.separateCollectionAndPathFromGivenAbsolutePath(path);
+			String parent = collectionAndPath.getCollectionParent();
+			String childName = collectionAndPath.getChildName();
+
+			if (!path.startsWith("/") || childName.isEmpty()
+					|| childName.equals("/") || path.indexOf('\'') >= 0) {
+				pathsToStatSingly.add(path);
+				continue;
+			}
+
+			if (parent.isEmpty()) {
+				parent = "/";
+			}
+
+			List<ObjStatBatch> batches = batchesByParent.get(parent);
+			if (batches == null) {
+				batches = new ArrayList<ObjStatBatch>();
+				batchesByParent.put(parent, batches);
+			}
+
+			if (addToBatchHoldingChild(batches, path, parent, childName)) {
+				continue;
+			}
+
+			ObjStatBatch batch = batches.isEmpty() ? null : batches
+					.get(batches.size() - 1);
+			if (batch == null || !batch.hasRoomFor(parent, childName)) {
+				batch = new ObjStatBatch(parent);
+				batches.add(batch);
+			}
+
+			batch.add(path, childName);
+		}
+
+		List<ObjStatBatch> allBatches = new ArrayList<ObjStatBatch>();
+		for (List<ObjStatBatch> batches : batchesByParent.values()) {
+			allBatches.addAll(batches);
+		}
+		return allBatches;
+	}
+
+	/**
+	 * Add the given path to the batch that already looks up the same child,
+	 * such as when the path was also given with a trailing '/'
+	 */
+	private static boolean addToBatchHoldingChild(
+			final List<ObjStatBatch> batches, final String givenPath,
+			final String parent, final String childName) {
+		String childPath = childPathFor(parent, childName);
+		for (ObjStatBatch batch : batches) {
+			Integer index = batch.indexByChildPath.get(childPath);
+			if (index != null) {
+				batch.givenPaths.get(index).add(givenPath);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean hasRoomFor(final String parent, final String childName) {
+		if (childPaths.isEmpty()) {
+			return true;
+		}
+		return childPaths.size() < MAX_PATHS_PER_BATCH
+				&& pathChars + childPathFor(parent, childName).length() <= MAX_PATH_CHARS_PER_BATCH;
+	}
+
+	private void add(final String givenPath, final String childName) {
+		String childPath = childPathFor(parentPath, childName);
+		List<String> pathsForChild = new ArrayList<String>();
+		pathsForChild.add(givenPath);
+		indexByChildPath.put(childPath, childPaths.size());
+		givenPaths.add(pathsForChild);
+		childNames.add(childName);
+		childPaths.add(childPath);
+		pathChars += childPath.length();
+	}
+
+	private static String childPathFor(final String parent,
+			final String childName) {
+		if (parent.equals("/")) {
+			return "/" + childName;
+		}
+		return parent + "/" + childName;
+	}
+
+	/**
+	 * @return {@code String} with the parent collection of the paths
+	 */
+	String getParentPath() {
+		return parentPath;
+	}
+
+	/**
+	 * @return {@code List<String>} with the last component of each path
+	 */
+	List<String> getChildNames() {
+		return Collections.unmodifiableList(childNames);
+	}
+
+	/**
+	 * @return {@code List<String>} with the absolute path of each child, less
+	 *         any trailing '/'
+	 */
+	List<String> getChildPaths() {
+		return Collections.unmodifiableList(childPaths);
+	}
+
+	/**
+	 * @return {@code List<String>} with all the paths as given by the caller,
+	 *         in the order of the child each names
+	 */
+	List<String> getGivenPaths() {
+		List<String> allGivenPaths = new ArrayList<String>();
+		for (List<String> pathsForChild : givenPaths) {
+			allGivenPaths.addAll(pathsForChild);
+		}
+		return allGivenPaths;
+	}
+
+	/**
+	 * @param index
+	 *            {@code int} with the index of a child
+	 * @return {@code List<String>} with the paths as given by the caller that
+	 *         name the child, more than one if it was given both with and
+	 *         without a trailing '/'
+	 */
+	List<String> getGivenPathsForChild(final int index) {
+		return Collections.unmodifiableList(givenPaths.get(index));
+	}
+
+	/**
+	 * @return {@code int} with the number of children in the batch
+	 */
+	int size() {
+		return childNames.size();
+	}
+
+}
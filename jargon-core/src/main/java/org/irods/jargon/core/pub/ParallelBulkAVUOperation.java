@@ -0,0 +1,198 @@
+/**
+ *
+ */
+package org.irods.jargon.core.pub;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a bulk AVU operation over many objects on more than one thread. Each
+ * worker takes the next object from the list and sends all of its AVUs,
+ * pipelined, on its own connection, which it closes when the list is done.
+ * <p>
+ * Errors iRODS returns for single AVUs are reported in the responses. Any
+ * other error stops the operation and the first one is thrown once the
+ * workers have finished.
+ */
+class ParallelBulkAVUOperation {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(ParallelBulkAVUOperation.class);
+
+	/**
+	 * Applies the AVUs to one object on the calling thread
+	 */
+	interface ObjectAVUOperation {
+
+		/**
+		 * @param absolutePath
+		 *            {@code String} with the object
+		 * @param avuData
+		 *            {@code List} of {@link AvuData}
+		 * @return {@code List} of {@link BulkAVUOperationResponse}
+		 * @throws JargonException
+		 */
+		List<BulkAVUOperationResponse> apply(String absolutePath,
+				List<AvuData> avuData) throws JargonException;
+
+		/**
+		 * Release what the calling thread used, called as each worker ends
+		 */
+		void release();
+	}
+
+	/**
+	 * Adds or deletes data object AVUs through the access object factory, on a
+	 * connection per thread
+	 */
+	static class DataObjectAVUOperation implements ObjectAVUOperation {
+
+		private final IRODSAccessObjectFactory irodsAccessObjectFactory;
+		private final IRODSAccount irodsAccount;
+		private final boolean add;
+
+		DataObjectAVUOperation(
+				final IRODSAccessObjectFactory irodsAccessObjectFactory,
+				final IRODSAccount irodsAccount, final boolean add) {
+			this.irodsAccessObjectFactory = irodsAccessObjectFactory;
+			this.irodsAccount = irodsAccount;
+			this.add = add;
+		}
+
+		@Override
+		public List<BulkAVUOperationResponse> apply(final String absolutePath,
+				final List<AvuData> avuData) throws JargonException {
+			DataObjectAO dataObjectAO = irodsAccessObjectFactory
+					.getDataObjectAO(irodsAccount);
+			if (add) {
+				return dataObjectAO.addBulkAVUMetadataToDataObject(
+						absolutePath, avuData);
+			} else {
+				return dataObjectAO.deleteBulkAVUMetadataFromDataObject(
+						absolutePath, avuData);
+			}
+		}
+
+		@Override
+		public void release() {
+			irodsAccessObjectFactory.closeSessionAndEatExceptions(irodsAccount);
+		}
+	}
+
+	private final ObjectAVUOperation objectAVUOperation;
+	private final int numberOfThreads;
+
+	private final ParallelWorkers parallelWorkers = new ParallelWorkers(
+			"jargon-bulk-avu-");
+
+	/**
+	 * @param objectAVUOperation
+	 *            {@link ObjectAVUOperation} used by the workers
+	 * @param numberOfThreads
+	 *            {@code int} with the number of workers
+	 */
+	ParallelBulkAVUOperation(final ObjectAVUOperation objectAVUOperation,
+			final int numberOfThreads) {
+
+		if (objectAVUOperation == null) {
+			throw new IllegalArgumentException("null objectAVUOperation");
+		}
+
+		if (numberOfThreads < 1) {
+			throw new IllegalArgumentException("numberOfThreads < 1");
+		}
+
+		this.objectAVUOperation = objectAVUOperation;
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	/**
+	 * Run the operation
+	 *
+	 * @param avuDataByPath
+	 *            {@code Map} of each object path to its AVUs
+	 * @return {@code Map} of each object path to its responses, in the order
+	 *         of {@code avuDataByPath}
+	 * @throws JargonException
+	 */
+	Map<String, List<BulkAVUOperationResponse>> run(
+			final Map<String, List<AvuData>> avuDataByPath)
+			throws JargonException {
+
+		if (avuDataByPath == null) {
+			throw new IllegalArgumentException("null avuDataByPath");
+		}
+
+		final List<Map.Entry<String, List<AvuData>>> objects = new ArrayList<Map.Entry<String, List<AvuData>>>(
+				avuDataByPath.entrySet());
+		final AtomicInteger nextObject = new AtomicInteger();
+		final Map<String, List<BulkAVUOperationResponse>> responsesByPath = new ConcurrentHashMap<String, List<BulkAVUOperationResponse>>();
+
+		int workerCount = Math.min(numberOfThreads, objects.size());
+		log.info("applying AVUs to {} objects with {} threads",
+				objects.size(), workerCount);
+		long start = System.currentTimeMillis();
+
+		ExecutorService executor = parallelWorkers.newFixedThreadPool(Math
+				.max(workerCount, 1));
+
+		List<Future<?>> workers = new ArrayList<Future<?>>();
+		try {
+			for (int i = 0; i < workerCount; i++) {
+				workers.add(executor.submit(new ParallelWorkers.Worker(
+						parallelWorkers) {
+
+					@Override
+					void work() throws JargonException {
+						while (!parallelWorkers.hasFailed()) {
+							int index = nextObject.getAndIncrement();
+							if (index >= objects.size()) {
+								break;
+							}
+							Map.Entry<String, List<AvuData>> object = objects
+									.get(index);
+							responsesByPath.put(object.getKey(),
+									objectAVUOperation.apply(object.getKey(),
+											object.getValue()));
+						}
+					}
+
+					@Override
+					void release() {
+						objectAVUOperation.release();
+					}
+				}));
+			}
+
+			parallelWorkers.awaitAll(workers);
+		} finally {
+			executor.shutdown();
+		}
+
+		parallelWorkers.throwFailure("error in parallel bulk AVU operation");
+
+		log.info("applied AVUs to {} objects in {} ms", objects.size(),
+				System.currentTimeMillis() - start);
+
+		Map<String, List<BulkAVUOperationResponse>> orderedResponses = new LinkedHashMap<String, List<BulkAVUOperationResponse>>();
+		for (Map.Entry<String, List<AvuData>> object : objects) {
+			orderedResponses.put(object.getKey(),
+					responsesByPath.get(object.getKey()));
+		}
+		return orderedResponses;
+	}
+
+}
@@ -0,0 +1,250 @@
+/**
+ *
+ */
+package org.irods.jargon.core.pub;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.CollectionTreeWalker.EntryHandler;
+import org.irods.jargon.core.pub.CollectionTreeWalker.WalkOrder;
+import org.irods.jargon.core.pub.domain.ObjStat.SpecColType;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry.ObjectType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Walks the subtrees under a collection on more than one thread. The calling
+ * thread lists the collection's own children, and each subcollection found is
+ * queued to be walked, depth first, by the next free worker. Each worker uses
+ * its own connection, which it closes when the walk is done.
+ * <p>
+ * Entries from different subtrees are handed to the {@link EntryHandler} at
+ * the same time and in no set order. The first error stops the walk and is
+ * thrown once the workers have finished.
+ */
+class ParallelCollectionTreeWalk {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(ParallelCollectionTreeWalk.class);
+
+	/**
+	 * Queued after the last subtree, once for each worker, and never a valid
+	 * collection path
+	 */
+	private static final String END_OF_SUBTREES = "";
+
+	/**
+	 * Gives each worker thread its walkers
+	 */
+	interface SubtreeWalkerSource {
+
+		/**
+		 * Walk the tree under a collection on the calling thread
+		 *
+		 * @param absolutePath
+		 *            {@code String} with the collection
+		 * @return {@link CollectionTreeWalker}
+		 * @throws JargonException
+		 */
+		CollectionTreeWalker walkSubtree(String absolutePath)
+				throws JargonException;
+
+		/**
+		 * Release what the calling thread used, called as each worker ends
+		 */
+		void release();
+	}
+
+	/**
+	 * Walkers from the access object factory, on a connection per thread
+	 */
+	static class AccessObjectSubtreeWalkerSource implements
+			SubtreeWalkerSource {
+
+		private final IRODSAccessObjectFactory irodsAccessObjectFactory;
+		private final IRODSAccount irodsAccount;
+
+		AccessObjectSubtreeWalkerSource(
+				final IRODSAccessObjectFactory irodsAccessObjectFactory,
+				final IRODSAccount irodsAccount) {
+			this.irodsAccessObjectFactory = irodsAccessObjectFactory;
+			this.irodsAccount = irodsAccount;
+		}
+
+		@Override
+		public CollectionTreeWalker walkSubtree(final String absolutePath)
+				throws JargonException {
+			return irodsAccessObjectFactory
+					.getCollectionAndDataObjectListAndSearchAO(irodsAccount)
+					.walkCollectionTree(absolutePath, WalkOrder.DEPTH_FIRST);
+		}
+
+		@Override
+		public void release() {
+			irodsAccessObjectFactory.closeSessionAndEatExceptions(irodsAccount);
+		}
+	}
+
+	private final SubtreeWalkerSource subtreeWalkerSource;
+	private final int numberOfThreads;
+
+	private final BlockingQueue<String> subtrees = new LinkedBlockingQueue<String>();
+	private final AtomicLong entryCount = new AtomicLong();
+	private final ParallelWorkers parallelWorkers = new ParallelWorkers(
+			"jargon-tree-walk-");
+
+	/**
+	 * @param subtreeWalkerSource
+	 *            {@link SubtreeWalkerSource} used by the workers
+	 * @param numberOfThreads
+	 *            {@code int} with the number of workers
+	 */
+	ParallelCollectionTreeWalk(final SubtreeWalkerSource subtreeWalkerSource,
+			final int numberOfThreads) {
+
+		if (subtreeWalkerSource == null) {
+			throw new IllegalArgumentException("null subtreeWalkerSource");
+		}
+
+		if (numberOfThreads < 1) {
+			throw new IllegalArgumentException("numberOfThreads < 1");
+		}
+
+		this.subtreeWalkerSource = subtreeWalkerSource;
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	/**
+	 * Run the walk
+	 *
+	 * @param topWalker
+	 *            {@link CollectionTreeWalker} over the children of the
+	 *            collection, not descending, which is closed here
+	 * @param entryHandler
+	 *            {@link EntryHandler} that is given every entry
+	 * @return {@code long} with the number of entries handled
+	 * @throws JargonException
+	 */
+	long walk(final CollectionTreeWalker topWalker,
+			final EntryHandler entryHandler) throws JargonException {
+
+		if (topWalker == null) {
+			throw new IllegalArgumentException("null topWalker");
+		}
+
+		if (entryHandler == null) {
+			throw new IllegalArgumentException("null entryHandler");
+		}
+
+		log.info("walking subtrees with {} threads", numberOfThreads);
+
+		ExecutorService executor = parallelWorkers
+				.newFixedThreadPool(numberOfThreads);
+
+		List<Future<?>> workers = new ArrayList<Future<?>>();
+		for (int i = 0; i < numberOfThreads; i++) {
+			workers.add(executor.submit(new Worker(entryHandler)));
+		}
+
+		try {
+			while (!parallelWorkers.hasFailed() && topWalker.hasNext()) {
+				CollectionAndDataObjectListingEntry entry = topWalker.next();
+				entryHandler.handleEntry(entry);
+				entryCount.incrementAndGet();
+				if (entry.getObjectType() == ObjectType.COLLECTION
+						&& (entry.getSpecColType() == null || entry
+								.getSpecColType() == SpecColType.NORMAL)) {
+					subtrees.add(entry.getPathOrName());
+				}
+			}
+		} catch (Exception e) {
+			log.error("error walking top of tree", e);
+			parallelWorkers.recordFailure(e);
+		} finally {
+			try {
+				topWalker.close();
+			} catch (JargonException e) {
+				log.warn("error closing top walker", e);
+			}
+
+			for (int i = 0; i < numberOfThreads; i++) {
+				subtrees.add(END_OF_SUBTREES);
+			}
+
+			parallelWorkers.awaitAll(workers);
+			executor.shutdown();
+		}
+
+		parallelWorkers.throwFailure("error in parallel tree walk");
+
+		log.info("parallel walk handled {} entries", entryCount.get());
+		return entryCount.get();
+	}
+
+	/**
+	 * Takes subtrees off the queue and walks them until the end marker
+	 */
+	private class Worker extends ParallelWorkers.Worker {
+
+		private final EntryHandler entryHandler;
+
+		Worker(final EntryHandler entryHandler) {
+			super(parallelWorkers);
+			this.entryHandler = entryHandler;
+		}
+
+		@Override
+		void work() throws InterruptedException {
+			while (true) {
+				String path = subtrees.take();
+				if (path.equals(END_OF_SUBTREES)) {
+					break;
+				}
+
+				if (parallelWorkers.hasFailed()) {
+					continue;
+				}
+
+				walkSubtree(path);
+			}
+		}
+
+		@Override
+		void release() {
+			subtreeWalkerSource.release();
+		}
+
+		private void walkSubtree(final String path) {
+			log.debug("walking subtree:{}", path);
+			CollectionTreeWalker walker = null;
+			try {
+				walker = subtreeWalkerSource.walkSubtree(path);
+				while (!parallelWorkers.hasFailed() && walker.hasNext()) {
+					entryHandler.handleEntry(walker.next());
+					entryCount.incrementAndGet();
+				}
+			} catch (Exception e) {
+				log.error("error walking subtree:{}", path, e);
+				parallelWorkers.recordFailure(e);
+			} finally {
+				if (walker != null) {
+					try {
+						walker.close();
+					} catch (JargonException e) {
+						log.warn("error closing subtree walker", e);
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,173 @@
+package org.irods.jargon.core.pub;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * What the operations in this package that run on more than one thread have
+ * in common: named worker threads, the first failure from any of them, and
+ * workers that always release what they hold, such as a permit or a
+ * connection, when they end.
+ */
+final class ParallelWorkers {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(ParallelWorkers.class);
+
+	private final String threadNamePrefix;
+	private final AtomicInteger threadCount = new AtomicInteger();
+	private final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+
+	/**
+	 * @param threadNamePrefix
+	 *            {@code String} each worker thread name starts with
+	 */
+	ParallelWorkers(final String threadNamePrefix) {
+		if (threadNamePrefix == null || threadNamePrefix.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty threadNamePrefix");
+		}
+		this.threadNamePrefix = threadNamePrefix;
+	}
+
+	/**
+	 * Start a pool of daemon threads, so an operation that is never finished
+	 * does not keep the JVM running
+	 *
+	 * @param numberOfThreads
+	 *            {@code int} with the number of threads
+	 * @return {@link ExecutorService} which the caller shuts down
+	 */
+	ExecutorService newFixedThreadPool(final int numberOfThreads) {
+		return Executors.newFixedThreadPool(numberOfThreads,
+				new ThreadFactory() {
+
+					@Override
+					public Thread newThread(final Runnable runnable) {
+						Thread thread = new Thread(runnable, nextThreadName());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+	}
+
+	/**
+	 * @return {@code String} with the name for the next worker thread
+	 */
+	String nextThreadName() {
+		return threadNamePrefix + threadCount.incrementAndGet();
+	}
+
+	/**
+	 * Keep the exception if it is the first
+	 *
+	 * @param e
+	 *            {@link Exception} from a worker or the calling thread
+	 */
+	void recordFailure(final Exception e) {
+		failure.compareAndSet(null, e);
+	}
+
+	/**
+	 * @return {@code boolean} of {@code true} if a failure has been recorded,
+	 *         so no more work should be started
+	 */
+	boolean hasFailed() {
+		return failure.get() != null;
+	}
+
+	/**
+	 * @return {@link Exception} recorded first, or {@code null}
+	 */
+	Exception getFailure() {
+		return failure.get();
+	}
+
+	/**
+	 * Wait for each worker to end, recording how any of them failed
+	 *
+	 * @param workers
+	 *            {@code List} of {@code Future} for the submitted workers
+	 */
+	void awaitAll(final List<Future<?>> workers) {
+		for (Future<?> worker : workers) {
+			try {
+				worker.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				recordFailure(e);
+			} catch (ExecutionException e) {
+				recordFailure(e);
+			}
+		}
+	}
+
+	/**
+	 * Throw the first failure, if there was one
+	 *
+	 * @param message
+	 *            {@code String} used to wrap a failure that is not a
+	 *            {@link JargonException}
+	 * @throws JargonException
+	 */
+	void throwFailure(final String message) throws JargonException {
+		Exception e = failure.get();
+		if (e instanceof JargonException) {
+			throw (JargonException) e;
+		} else if (e != null) {
+			throw new JargonException(message, e);
+		}
+	}
+
+	/**
+	 * Runs its work, records the failure if it throws, and then always
+	 * releases
+	 */
+	abstract static class Worker implements Runnable {
+
+		private final ParallelWorkers parallelWorkers;
+
+		Worker(final ParallelWorkers parallelWorkers) {
+			this.parallelWorkers = parallelWorkers;
+		}
+
+		/**
+		 * Do the work on the worker thread
+		 *
+		 * @throws Exception
+		 */
+		abstract void work() throws Exception;
+
+		/**
+		 * Release what the work used, called whether or not it failed
+		 */
+		abstract void release();
+
+		@Override
+		public final void run() {
+			try {
+				work();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				parallelWorkers.recordFailure(e);
+			} catch (Exception e) {
+				log.error("error in worker:{}", Thread.currentThread()
+						.getName(), e);
+				parallelWorkers.recordFailure(e);
+			} finally {
+				release();
+			}
+		}
+	}
+
+}
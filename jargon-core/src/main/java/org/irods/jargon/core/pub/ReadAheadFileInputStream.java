@@ -0,0 +1,239 @@
+package org.irods.jargon.core.pub;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Input stream for a local file that is read on its own thread ahead of the
+ * caller. This lets a put read the next part of the file from disk while the
+ * part already read is sent to iRODS and the reply awaited, instead of doing
+ * one and then the other.
+ * <p>
+ * The reader thread fills a fixed ring of direct buffers, which are handed
+ * back for reuse as the caller drains them, so the file is never read more
+ * than the ring ahead of what has been sent. Closing the stream stops the
+ * reader, so a put that is cancelled or paused leaves no thread behind.
+ * <p>
+ * The stream is read by one thread at a time, as the streams it replaces are.
+ */
+final class ReadAheadFileInputStream extends InputStream {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(ReadAheadFileInputStream.class);
+
+	/**
+	 * Put in place of a buffer at end of file or on error
+	 */
+	private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+	private final FileChannel fileChannel;
+	private final BlockingQueue<ByteBuffer> free;
+	private final BlockingQueue<ByteBuffer> filled;
+	private final Thread reader;
+	private volatile IOException readError = null;
+	private ByteBuffer current = null;
+	private boolean atEnd = false;
+	private boolean closed = false;
+
+	/**
+	 * Open the file and start reading it
+	 *
+	 * @param localFile
+	 *            {@code File} to read
+	 * @param bufferSize
+	 *            {@code int} with the size of each buffer
+	 * @param bufferCount
+	 *            {@code int} with the number of buffers to read ahead into, at
+	 *            least 2
+	 * @throws IOException
+	 */
+	ReadAheadFileInputStream(final File localFile, final int bufferSize,
+			final int bufferCount) throws IOException {
+
+		if (localFile == null) {
+			throw new IllegalArgumentException("null localFile");
+		}
+
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("bufferSize must be > 0");
+		}
+
+		if (bufferCount < 2) {
+			throw new IllegalArgumentException("bufferCount must be >= 2");
+		}
+
+		fileChannel = FileChannel.open(localFile.toPath(),
+				StandardOpenOption.READ);
+
+		// no point holding more than the file in buffers
+		long length = localFile.length();
+		int size = (int) Math.max(1, Math.min(bufferSize, length));
+		int count = (int) Math.max(2,
+				Math.min(bufferCount, (length + size - 1) / size));
+
+		free = new ArrayBlockingQueue<ByteBuffer>(count);
+		filled = new ArrayBlockingQueue<ByteBuffer>(count + 1);
+		for (int i = 0; i < count; i++) {
+			free.add(ByteBuffer.allocateDirect(size));
+		}
+
+		reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				readFile();
+			}
+		}, "jargon-put-read-ahead");
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * Loop of the reader thread, filling free buffers until the end of the file
+	 */
+	private void readFile() {
+		try {
+			while (true) {
+				ByteBuffer buffer = free.take();
+				buffer.clear();
+				int read = 0;
+				while (buffer.hasRemaining()
+						&& (read = fileChannel.read(buffer)) >= 0) {
+					// keep filling
+				}
+				buffer.flip();
+				if (buffer.hasRemaining()) {
+					filled.put(buffer);
+				}
+				if (read < 0) {
+					break;
+				}
+			}
+		} catch (InterruptedException e) {
+			log.debug("read ahead interrupted by close");
+			return;
+		} catch (IOException e) {
+			if (Thread.currentThread().isInterrupted()) {
+				log.debug("read ahead interrupted by close");
+				return;
+			}
+			log.error("error reading ahead in local file", e);
+			readError = e;
+		}
+
+		try {
+			filled.put(END);
+		} catch (InterruptedException e) {
+			log.debug("read ahead interrupted by close");
+		}
+	}
+
+	/**
+	 * Get the buffer to read from next, waiting for the reader if needed
+	 *
+	 * @return {@code ByteBuffer} with bytes remaining, or {@code null} at the
+	 *         end of the file
+	 */
+	private ByteBuffer nextBuffer() throws IOException {
+		if (closed) {
+			throw new IOException("stream is closed");
+		}
+
+		if (current != null && current.hasRemaining()) {
+			return current;
+		}
+
+		if (atEnd) {
+			return null;
+		}
+
+		if (current != null) {
+			free.add(current);
+			current = null;
+		}
+
+		ByteBuffer buffer;
+		try {
+			buffer = filled.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(
+					"interrupted waiting for the local file to be read");
+		}
+
+		if (buffer == END) {
+			atEnd = true;
+			if (readError != null) {
+				throw readError;
+			}
+			return null;
+		}
+
+		current = buffer;
+		return current;
+	}
+
+	@Override
+	public int read() throws IOException {
+		ByteBuffer buffer = nextBuffer();
+		if (buffer == null) {
+			return -1;
+		}
+		return buffer.get() & 0xff;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len)
+			throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+
+		ByteBuffer buffer = nextBuffer();
+		if (buffer == null) {
+			return -1;
+		}
+
+		int count = Math.min(len, buffer.remaining());
+		buffer.get(b, off, count);
+		return count;
+	}
+
+	@Override
+	public int available() throws IOException {
+		if (closed || current == null) {
+			return 0;
+		}
+		return current.remaining();
+	}
+
+	/**
+	 * Stop the reader thread and close the file
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		reader.interrupt();
+		try {
+			reader.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		fileChannel.close();
+	}
+
+}
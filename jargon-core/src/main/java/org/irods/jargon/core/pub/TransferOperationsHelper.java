@@ -1,14 +1,21 @@
 package org.irods.jargon.core.pub;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSSession;
 import org.irods.jargon.core.exception.DataNotFoundException;
 import org.irods.jargon.core.exception.FileNotFoundException;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.exception.JargonRuntimeException;
 import org.irods.jargon.core.exception.OverwriteException;
+import org.irods.jargon.core.pub.CollectionTreeWalker.WalkOrder;
+import org.irods.jargon.core.pub.domain.ObjStat.SpecColType;
 import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
 import org.irods.jargon.core.transfer.TransferControlBlock;
 import org.irods.jargon.core.transfer.TransferStatus;
 import org.irods.jargon.core.transfer.TransferStatus.TransferState;
@@ -26,7 +33,7 @@ import org.slf4j.LoggerFactory;
  *         public methods.
  *
  */
-final class TransferOperationsHelper {
+class TransferOperationsHelper {
 
 	static Logger log = LoggerFactory.getLogger(TransferOperationsHelper.class);
 	private final DataObjectAOImpl dataObjectAO;
@@ -48,7 +55,7 @@ final class TransferOperationsHelper {
 		return new TransferOperationsHelper(irodsSession, irodsAccount);
 	}
 
-	private TransferOperationsHelper(final IRODSSession irodsSession,
+	TransferOperationsHelper(final IRODSSession irodsSession,
 			final IRODSAccount irodsAccount) throws JargonException {
 		if (irodsSession == null || irodsAccount == null) {
 			throw new JargonException("null irodsSession or irodsAccount");
@@ -63,6 +70,11 @@ final class TransferOperationsHelper {
 	 * Recursively get a file from iRODS. This utility method is used
 	 * internally, and can process call-backs as well as filtering and
 	 * cancellation.
+	 * <p>
+	 * The tree is read with the subtree queries of {@link CollectionTreeWalker}
+	 * , a few round trips per page of results rather than a listing of each
+	 * collection, and each local directory is made before any file under it is
+	 * retrieved.
 	 *
 	 * @param irodsSourceFile
 	 *            {@link org.irods.jargon.core.pub.io.IRODSFile} that points to
@@ -95,6 +107,119 @@ final class TransferOperationsHelper {
 				irodsSourceFile.getAbsolutePath());
 		log.info("    into iRODS file: {}", targetLocalFile.getAbsolutePath());
 
+		/*
+		 * The tree is read with the subtree queries, with no pages fetched
+		 * ahead, so that the connection is free for the gets between pages.
+		 * Special collections are not descended by the walk, and are retrieved
+		 * by listing them once it is closed.
+		 */
+		List<IRODSFile> specialCollections = new ArrayList<IRODSFile>();
+		List<File> specialCollectionTargets = new ArrayList<File>();
+		String rootPath = walkRootPath(irodsSourceFile);
+		long entriesHandledSoFar = 0;
+		CollectionTreeWalker walker = openTreeWalk(irodsSourceFile, 0);
+
+		try {
+			while (walker.hasNext()) {
+				CollectionAndDataObjectListingEntry entry = walker.next();
+				entriesHandledSoFar++;
+
+				if (Thread.interrupted()) {
+					log.info("cancellation detected, set cancelled in tcb");
+					transferControlBlock.setCancelled(true);
+				}
+
+				IRODSFile irodsFile = irodsFileForEntry(entry);
+				irodsFile.setResource(irodsSourceFile.getResource());
+
+				// check for a cancel or pause at the top of the loop
+				if (transferControlBlock.isCancelled()
+						|| transferControlBlock.isPaused()) {
+					log.info("transfer cancelled or paused");
+					walker.close();
+					notifyPauseOrCancelCallbackForGet(targetLocalFile,
+							transferStatusCallbackListener,
+							transferControlBlock, (File) irodsFile);
+					return;
+				}
+
+				if (entry.isCollection()) {
+					File newSubCollection = localFileForPath(targetLocalFile,
+							rootPath, entry.getPathOrName());
+					log.info(
+							"recursively creating parent directory in local file system at: {}",
+							newSubCollection.getAbsolutePath());
+
+					if (!newSubCollection.mkdirs()) {
+						log.warn("unable to make directories in local file system, log and proceed");
+					}
+
+					if (isSpecialCollection(entry)) {
+						specialCollections.add(irodsFile);
+						specialCollectionTargets.add(newSubCollection);
+					}
+
+				} else {
+					/*
+					 * Renewing the socket loses the open query, so the walk is
+					 * closed first and picked up again where it left off
+					 */
+					if (isSocketRenewalDue()) {
+						walker.close();
+						checkSocketRenewal();
+						walker = reopenTreeWalk(irodsSourceFile,
+								entriesHandledSoFar);
+					}
+
+					processGetOfSingleFile(irodsFile,
+							localFileForPath(targetLocalFile, rootPath,
+									entry.getParentPath()),
+							transferStatusCallbackListener,
+							transferControlBlock);
+				}
+			}
+		} catch (JargonException e) {
+			if (!transferControlBlock.isCancelled()) {
+				throw e;
+			}
+			return;
+		} catch (Exception e) {
+			if (!transferControlBlock.isCancelled()) {
+				log.info(
+						"unanticipated exception will be transformed into a Jargon exception",
+						e);
+				throw jargonExceptionFromWalk(e);
+			}
+			return;
+		} finally {
+			walker.close();
+		}
+
+		for (int i = 0; i < specialCollections.size(); i++) {
+			log.info("getting special collection by listing:{}",
+					specialCollections.get(i).getAbsolutePath());
+			recursivelyGetByListing(specialCollections.get(i),
+					specialCollectionTargets.get(i),
+					transferStatusCallbackListener, transferControlBlock);
+			if (transferControlBlock.isCancelled()
+					|| transferControlBlock.isPaused()) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Recursively get a collection by listing each collection in turn, as
+	 * did before the tree was read with the subtree queries. This is used for
+	 * the contents of special collections, which the queries do not see.
+	 */
+	private void recursivelyGetByListing(
+			final IRODSFile irodsSourceFile,
+			final File targetLocalFile,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock)
+					throws OverwriteException, FileNotFoundException, JargonException {
+
 		for (File fileInSourceCollection : irodsSourceFile.listFiles()) {
 
 			if (Thread.interrupted()) {
@@ -123,30 +248,9 @@ final class TransferOperationsHelper {
 					|| transferControlBlock.isPaused()) {
 				log.info("transfer cancelled or paused");
 				if (transferStatusCallbackListener != null) {
-					TransferState interruptStatus;
-					if (transferControlBlock
-							.shouldTransferBeAbandonedDueToNumberOfErrors()) {
-						interruptStatus = TransferState.FAILURE;
-					} else if (transferControlBlock.isCancelled()) {
-						interruptStatus = TransferState.CANCELLED;
-					} else {
-						interruptStatus = TransferState.PAUSED;
-					}
-
-					TransferStatus status = TransferStatus.instance(
-							TransferType.GET, fileInSourceCollection
-							.getAbsolutePath(), targetLocalFile
-							.getAbsolutePath(), "",
-							fileInSourceCollection.length(),
-							fileInSourceCollection.length(),
-							transferControlBlock
-							.getTotalFilesTransferredSoFar(),
-							transferControlBlock.getTotalFilesSkippedSoFar(),
-							transferControlBlock.getTotalFilesToTransfer(),
-							interruptStatus, dataObjectAO.getIRODSAccount()
-							.getHost(), dataObjectAO.getIRODSAccount()
-							.getZone());
-					transferStatusCallbackListener.statusCallback(status);
+					notifyPauseOrCancelCallbackForGet(targetLocalFile,
+							transferStatusCallbackListener,
+							transferControlBlock, fileInSourceCollection);
 					return;
 				}
 			}
@@ -172,7 +276,8 @@ final class TransferOperationsHelper {
 						log.warn("unable to make directories in local file system, log and proceed");
 					}
 
-					recursivelyGet((IRODSFile) fileInSourceCollection,
+					recursivelyGetByListing(
+							(IRODSFile) fileInSourceCollection,
 							newSubCollection, transferStatusCallbackListener,
 							transferControlBlock);
 
@@ -197,6 +302,438 @@ final class TransferOperationsHelper {
 		}
 	}
 
+	/**
+	 * Recursively get a collection from iRODS, transferring several files at
+	 * once. The collection is walked on the calling thread in the same order as
+	 * {@link #recursivelyGet(IRODSFile, File, TransferStatusCallbackListener, TransferControlBlock)}
+	 * , making each local directory before any file under it is handed out, and
+	 * consulting the restart filter in that order. The files are then retrieved
+	 * by the number of workers set in the {@code TransferOptions}, each on its
+	 * own connection. Call-backs from the workers are delivered to the listener
+	 * one at a time, and the counts in the transfer control block cover all of
+	 * the workers.
+	 *
+	 * @param irodsSourceFile
+	 *            {@link org.irods.jargon.core.pub.io.IRODSFile} that points to
+	 *            the collection to retrieve.
+	 * @param targetLocalFile
+	 *            {@code File} that will hold the retrieved data.
+	 * @param transferStatusCallbackListener
+	 *            {@link org.irods.jargon.core.transfer.TransferStatusCallbackListener}
+	 *            that will receive callbacks, may be {@code null}
+	 * @param transferControlBlock
+	 *            {@link org.irods.jargon.core.transfer.TransferControlBlock}
+	 *            with the transfer options, restart filter and cancellation.
+	 *            This is required.
+	 * @throws JargonException
+	 */
+	void concurrentlyGet(
+			final IRODSFile irodsSourceFile,
+			final File targetLocalFile,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock)
+					throws JargonException {
+
+		log.info("concurrently getting source file: {}",
+				irodsSourceFile.getAbsolutePath());
+		log.info("    into local file: {}", targetLocalFile.getAbsolutePath());
+
+		ConcurrentTransferScheduler scheduler = new ConcurrentTransferScheduler(
+				collectionAO.getIRODSSession(), collectionAO.getIRODSAccount(),
+				transferControlBlock.getTransferOptions()
+				.getConcurrentFileTransferThreads());
+		TransferStatusCallbackListener listener = ConcurrentTransferScheduler
+				.synchronizedListener(transferStatusCallbackListener);
+
+		try {
+			walkForConcurrentGet(irodsSourceFile, targetLocalFile, listener,
+					transferControlBlock, scheduler);
+		} catch (Exception e) {
+			scheduler.abort();
+			if (!transferControlBlock.isCancelled()) {
+				log.info(
+						"unanticipated exception will be transformed into a Jargon exception",
+						e);
+				throw jargonExceptionFromWalk(e);
+			}
+		} finally {
+			scheduler.close();
+		}
+
+		if (scheduler.getFailure() != null
+				&& !transferControlBlock.isCancelled()) {
+			throw new JargonException(scheduler.getFailure());
+		}
+	}
+
+	/**
+	 * Walk the tree of a concurrent get with the subtree queries, handing out
+	 * each file that passes the restart filter. Special collections are not
+	 * descended by the walk, and are walked by listing them once it is closed.
+	 * The calling thread's connection only runs the walk, so it is not renewed
+	 * until the walk is closed, the workers renew their own.
+	 */
+	private void walkForConcurrentGet(
+			final IRODSFile irodsSourceFile,
+			final File targetLocalFile,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock,
+			final ConcurrentTransferScheduler scheduler)
+					throws JargonException {
+
+		List<IRODSFile> specialCollections = new ArrayList<IRODSFile>();
+		List<File> specialCollectionTargets = new ArrayList<File>();
+		String rootPath = walkRootPath(irodsSourceFile);
+
+		// the workers have their own connections, so pages may be read ahead
+		CollectionTreeWalker walker = openTreeWalk(irodsSourceFile, 1);
+		try {
+			while (walker.hasNext()) {
+				CollectionAndDataObjectListingEntry entry = walker.next();
+
+				if (Thread.interrupted()) {
+					log.info("cancellation detected, set cancelled in tcb");
+					transferControlBlock.setCancelled(true);
+				}
+
+				IRODSFile irodsFile = irodsFileForEntry(entry);
+				irodsFile.setResource(irodsSourceFile.getResource());
+
+				if (transferControlBlock.isCancelled()
+						|| transferControlBlock.isPaused()) {
+					log.info("transfer cancelled or paused");
+					scheduler.abort();
+					// the walk holds the connection until it is closed
+					walker.close();
+					notifyPauseOrCancelCallbackForGet(targetLocalFile,
+							transferStatusCallbackListener,
+							transferControlBlock, (File) irodsFile);
+					return;
+				}
+
+				if (scheduler.isStopped()) {
+					log.info("a transfer failed, stop handing out files");
+					return;
+				}
+
+				if (entry.isCollection()) {
+					File newSubCollection = localFileForPath(targetLocalFile,
+							rootPath, entry.getPathOrName());
+					log.info(
+							"recursively creating parent directory in local file system at: {}",
+							newSubCollection.getAbsolutePath());
+
+					if (!newSubCollection.mkdirs()) {
+						log.warn("unable to make directories in local file system, log and proceed");
+					}
+
+					if (isSpecialCollection(entry)) {
+						specialCollections.add(irodsFile);
+						specialCollectionTargets.add(newSubCollection);
+					}
+
+				} else {
+					submitConcurrentGet(
+							irodsFile,
+							localFileForPath(targetLocalFile, rootPath,
+									entry.getParentPath()),
+							transferStatusCallbackListener,
+							transferControlBlock, scheduler);
+				}
+			}
+		} finally {
+			walker.close();
+		}
+
+		for (int i = 0; i < specialCollections.size(); i++) {
+			log.info("walking special collection by listing:{}",
+					specialCollections.get(i).getAbsolutePath());
+			if (!walkForConcurrentGetByListing(specialCollections.get(i),
+					specialCollectionTargets.get(i),
+					transferStatusCallbackListener, transferControlBlock,
+					scheduler)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Walk one collection of a concurrent get by listing it, used for the
+	 * contents of special collections, which the subtree queries do not see
+	 *
+	 * @return {@code boolean} of {@code false} if the walk should stop
+	 */
+	private boolean walkForConcurrentGetByListing(
+			final IRODSFile irodsSourceFile,
+			final File targetLocalFile,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock,
+			final ConcurrentTransferScheduler scheduler)
+					throws JargonException {
+
+		for (File fileInSourceCollection : irodsSourceFile.listFiles()) {
+
+			if (Thread.interrupted()) {
+				log.info("cancellation detected, set cancelled in tcb");
+				transferControlBlock.setCancelled(true);
+			}
+
+			if (transferControlBlock.isCancelled()
+					|| transferControlBlock.isPaused()) {
+				log.info("transfer cancelled or paused");
+				scheduler.abort();
+				notifyPauseOrCancelCallbackForGet(targetLocalFile,
+						transferStatusCallbackListener, transferControlBlock,
+						fileInSourceCollection);
+				return false;
+			}
+
+			if (scheduler.isStopped()) {
+				log.info("a transfer failed, stop handing out files");
+				return false;
+			}
+
+			checkSocketRenewal();
+
+			final IRODSFile irodsFile = (IRODSFile) fileInSourceCollection;
+			irodsFile.setResource(irodsSourceFile.getResource());
+
+			if (irodsFile.isDirectory()) {
+				File newSubCollection = new File(targetLocalFile,
+						irodsFile.getName());
+				log.info(
+						"recursively creating parent directory in local file system at: {}",
+						newSubCollection.getAbsolutePath());
+
+				if (!newSubCollection.mkdirs()) {
+					log.warn("unable to make directories in local file system, log and proceed");
+				}
+
+				if (!walkForConcurrentGetByListing(irodsFile,
+						newSubCollection, transferStatusCallbackListener,
+						transferControlBlock, scheduler)) {
+					return false;
+				}
+
+			} else {
+				submitConcurrentGet(irodsFile, targetLocalFile,
+						transferStatusCallbackListener, transferControlBlock,
+						scheduler);
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Consult the restart filter for a file of a concurrent get, in walk
+	 * order, and hand it to the workers if it passes
+	 */
+	private void submitConcurrentGet(
+			final IRODSFile irodsFile,
+			final File targetLocalFile,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock,
+			final ConcurrentTransferScheduler scheduler)
+					throws JargonException {
+
+		if (!transferControlBlock.filter(irodsFile.getAbsolutePath())) {
+			notifyFilteredGet(irodsFile,
+					new File(targetLocalFile, irodsFile.getName())
+					.getAbsolutePath(), transferStatusCallbackListener,
+					transferControlBlock);
+			return;
+		}
+
+		scheduler.submit(new ConcurrentTransferScheduler.TransferTask() {
+			@Override
+			public void run() throws JargonException {
+				if (transferControlBlock.isCancelled()
+						|| transferControlBlock.isPaused()) {
+					return;
+				}
+				checkSocketRenewal();
+				processGetOfSingleFile(irodsFile, targetLocalFile,
+						transferStatusCallbackListener, transferControlBlock,
+						true);
+			}
+		});
+	}
+
+	/**
+	 * Open a walk of the tree under a collection being retrieved, with the
+	 * subtree queries
+	 *
+	 * @param irodsSourceFile
+	 *            {@link IRODSFile} for the collection
+	 * @param prefetchDepth
+	 *            {@code int} with the pages to read ahead, which keeps the
+	 *            connection for the walk until it is closed, or 0 to leave it
+	 *            free between pages
+	 * @return {@link CollectionTreeWalker}
+	 * @throws JargonException
+	 */
+	CollectionTreeWalker openTreeWalk(final IRODSFile irodsSourceFile,
+			final int prefetchDepth) throws JargonException {
+		return new CollectionTreeWalker(
+				new CollectionTreeWalker.GenQueryChildLister(
+						new IRODSGenQueryExecutorImpl(
+								collectionAO.getIRODSSession(),
+								collectionAO.getIRODSAccount()), collectionAO
+								.getJargonProperties()
+								.getMaxFilesAndDirsQueryMax(), prefetchDepth),
+				walkRootPath(irodsSourceFile), WalkOrder.SUBTREE_QUERY);
+	}
+
+	/**
+	 * Open the walk of a get again after the socket was renewed, skipping the
+	 * entries already handled. The queries return their rows in order, so this
+	 * carries on where the walk left off, unless the tree was changed in the
+	 * meantime.
+	 */
+	private CollectionTreeWalker reopenTreeWalk(
+			final IRODSFile irodsSourceFile, final long entriesToSkip)
+					throws JargonException {
+		log.info("reopening walk after socket renewal, skipping {} entries",
+				entriesToSkip);
+		CollectionTreeWalker walker = openTreeWalk(irodsSourceFile, 0);
+		for (long i = 0; i < entriesToSkip && walker.hasNext(); i++) {
+			walker.next();
+		}
+		return walker;
+	}
+
+	/**
+	 * Make the {@code IRODSFile} for a collection or data object handed out
+	 * by a walk
+	 *
+	 * @param entry
+	 *            {@link CollectionAndDataObjectListingEntry} from the walk
+	 * @return {@link IRODSFile}
+	 * @throws JargonException
+	 */
+	IRODSFile irodsFileForEntry(final CollectionAndDataObjectListingEntry entry)
+			throws JargonException {
+		return dataObjectAO.getIRODSFileFactory().instanceIRODSFile(
+				entry.getFormattedAbsolutePath());
+	}
+
+	private static String walkRootPath(final IRODSFile irodsSourceFile) {
+		String rootPath = irodsSourceFile.getAbsolutePath();
+		if (rootPath.length() > 1 && rootPath.endsWith("/")) {
+			rootPath = rootPath.substring(0, rootPath.length() - 1);
+		}
+		return rootPath;
+	}
+
+	/**
+	 * The local file for an iRODS path under the collection being retrieved
+	 */
+	private static File localFileForPath(final File targetLocalFile,
+			final String rootPath, final String absolutePath) {
+		if (absolutePath.length() <= rootPath.length()) {
+			return targetLocalFile;
+		}
+		return new File(targetLocalFile, absolutePath.substring(rootPath
+				.length()));
+	}
+
+	private static boolean isSpecialCollection(
+			final CollectionAndDataObjectListingEntry entry) {
+		return entry.getSpecColType() != null
+				&& entry.getSpecColType() != SpecColType.NORMAL;
+	}
+
+	/**
+	 * Errors from iRODS during a walk come out of the walker unchecked, give
+	 * back the {@code JargonException} they wrap
+	 */
+	private static JargonException jargonExceptionFromWalk(final Exception e) {
+		if (e instanceof JargonRuntimeException
+				&& e.getCause() instanceof JargonException) {
+			return (JargonException) e.getCause();
+		}
+		return new JargonException(e);
+	}
+
+	/**
+	 * A get operation has been cancelled or paused, give the appropriate
+	 * callback
+	 *
+	 * @param targetLocalFile
+	 *            {@code File} that is the target of the get
+	 * @param transferStatusCallbackListener
+	 *            {@link TransferStatusCallbackListener} that receives the
+	 *            call-back, may be {@code null}
+	 * @param transferControlBlock
+	 *            {@link TransferControlBlock} that contains information about
+	 *            the transfer
+	 * @param fileInSourceCollection
+	 *            {@link File} that was the current source of the get
+	 * @throws JargonException
+	 */
+	private void notifyPauseOrCancelCallbackForGet(
+			final File targetLocalFile,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock,
+			final File fileInSourceCollection) throws JargonException {
+
+		if (transferStatusCallbackListener == null) {
+			return;
+		}
+
+		TransferState interruptStatus;
+		if (transferControlBlock.shouldTransferBeAbandonedDueToNumberOfErrors()) {
+			interruptStatus = TransferState.FAILURE;
+		} else if (transferControlBlock.isCancelled()) {
+			interruptStatus = TransferState.CANCELLED;
+		} else {
+			interruptStatus = TransferState.PAUSED;
+		}
+
+		TransferStatus status = TransferStatus.instance(TransferType.GET,
+				fileInSourceCollection.getAbsolutePath(),
+				targetLocalFile.getAbsolutePath(), "",
+				fileInSourceCollection.length(),
+				fileInSourceCollection.length(),
+				transferControlBlock.getTotalFilesTransferredSoFar(),
+				transferControlBlock.getTotalFilesSkippedSoFar(),
+				transferControlBlock.getTotalFilesToTransfer(),
+				interruptStatus, dataObjectAO.getIRODSAccount().getHost(),
+				dataObjectAO.getIRODSAccount().getZone());
+		transferStatusCallbackListener.statusCallback(status);
+	}
+
+	/**
+	 * A file in a get was discarded by the restart filter, count it as skipped
+	 * and give the callback
+	 */
+	private void notifyFilteredGet(
+			final IRODSFile irodsSourceFile,
+			final String targetLocalAbsolutePath,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock)
+					throws JargonException {
+
+		log.info("file is filtered and discarded: {}",
+				irodsSourceFile.getAbsolutePath());
+
+		transferControlBlock.incrementFilesSkippedSoFar();
+
+		if (transferStatusCallbackListener != null) {
+			TransferStatus status = TransferStatus.instance(TransferType.GET,
+					irodsSourceFile.getAbsolutePath(), targetLocalAbsolutePath,
+					"", 0, 0,
+					transferControlBlock.getTotalFilesTransferredSoFar(),
+					transferControlBlock.getTotalFilesSkippedSoFar(),
+					transferControlBlock.getTotalFilesToTransfer(),
+					TransferState.RESTARTING, dataObjectAO.getIRODSAccount()
+					.getHost(), dataObjectAO.getIRODSAccount().getZone());
+
+			transferStatusCallbackListener.statusCallback(status);
+		}
+	}
+
 	/**
 	 * In a transfer operation, process the given iRODS file as a data object to
 	 * be retrieved.
@@ -227,6 +764,27 @@ final class TransferOperationsHelper {
 			final TransferStatusCallbackListener transferStatusCallbackListener,
 			final TransferControlBlock transferControlBlock)
 					throws OverwriteException, FileNotFoundException, JargonException {
+		processGetOfSingleFile(irodsSourceFile, targetLocalFile,
+				transferStatusCallbackListener, transferControlBlock, false);
+	}
+
+	/**
+	 * Get a single file, as
+	 * {@link #processGetOfSingleFile(IRODSFile, File, TransferStatusCallbackListener, TransferControlBlock)}
+	 * , optionally skipping the restart filter when the caller has already
+	 * consulted it in walk order.
+	 *
+	 * @param filterApplied
+	 *            {@code boolean} of {@code true} if the file already passed
+	 *            the transfer control block filter
+	 */
+	private void processGetOfSingleFile(
+			final IRODSFile irodsSourceFile,
+			final File targetLocalFile,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock,
+			final boolean filterApplied) throws OverwriteException,
+			FileNotFoundException, JargonException {
 
 		log.info("processGetOfSingleFile()");
 
@@ -261,24 +819,12 @@ final class TransferOperationsHelper {
 
 		totalFiles = transferControlBlock.getTotalFilesToTransfer();
 
-		if (!transferControlBlock.filter(irodsSourceFile.getAbsolutePath())) {
-			log.info("file is filtered and discarded: {}",
-					irodsSourceFile.getAbsolutePath());
-
-			transferControlBlock.incrementFilesSkippedSoFar();
-
-			if (transferStatusCallbackListener != null) {
-				TransferStatus status = TransferStatus.instance(
-						TransferType.GET, irodsSourceFile.getAbsolutePath(),
-						targetLocalFileAsFile.getAbsolutePath(), "", 0, 0,
-						transferControlBlock.getTotalFilesTransferredSoFar(),
-						transferControlBlock.getTotalFilesSkippedSoFar(),
-						totalFiles, TransferState.RESTARTING, dataObjectAO
-						.getIRODSAccount().getHost(), dataObjectAO
-						.getIRODSAccount().getZone());
-
-				transferStatusCallbackListener.statusCallback(status);
-			}
+		if (!filterApplied
+				&& !transferControlBlock.filter(irodsSourceFile
+						.getAbsolutePath())) {
+			notifyFilteredGet(irodsSourceFile,
+					targetLocalFileAsFile.getAbsolutePath(),
+					transferStatusCallbackListener, transferControlBlock);
 			return;
 		}
 
@@ -330,9 +876,8 @@ final class TransferOperationsHelper {
 			}
 
 			try {
-				dataObjectAO.getDataObjectFromIrods(irodsSourceFile,
-						targetLocalFileAsFile, transferControlBlock,
-						transferStatusCallbackListener);
+				getSingleDataObject(irodsSourceFile, targetLocalFileAsFile,
+						transferControlBlock, transferStatusCallbackListener);
 			} catch (JargonException e) {
 				log.error(
 						"exception in transfer, will abandon the connection and rethrow",
@@ -670,6 +1215,265 @@ final class TransferOperationsHelper {
 		}
 	}
 
+	/**
+	 * Recursively put a local directory to iRODS, transferring several files at
+	 * once. The directory is walked on the calling thread in the same order as
+	 * {@link #recursivelyPut(File, IRODSFile, TransferStatusCallbackListener, TransferControlBlock)}
+	 * , making each collection before any file under it is handed out, and
+	 * consulting the restart filter in that order. The files are then put by
+	 * the number of workers set in the {@code TransferOptions}, each on its own
+	 * connection. Call-backs from the workers are delivered to the listener one
+	 * at a time, and the counts in the transfer control block cover all of the
+	 * workers.
+	 *
+	 * @param sourceFile
+	 *            {@code File} with the local directory to put
+	 * @param targetIrodsCollection
+	 *            {@link IRODSFile} with the collection that will hold the files
+	 * @param transferStatusCallbackListener
+	 *            {@link org.irods.jargon.core.transfer.TransferStatusCallbackListener}
+	 *            that will receive callbacks, may be {@code null}
+	 * @param transferControlBlock
+	 *            {@link org.irods.jargon.core.transfer.TransferControlBlock}
+	 *            with the transfer options, restart filter and cancellation.
+	 *            This is required.
+	 * @throws JargonException
+	 */
+	void concurrentlyPut(
+			final File sourceFile,
+			final IRODSFile targetIrodsCollection,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock)
+					throws JargonException {
+
+		if (sourceFile == null) {
+			throw new IllegalArgumentException("null source file");
+		}
+
+		if (targetIrodsCollection == null) {
+			throw new IllegalArgumentException("null targetIrodsCollection");
+		}
+
+		if (!sourceFile.isDirectory()) {
+			throw new JargonException(
+					"source file is not a directory, cannot recursively put");
+		}
+
+		log.info("concurrently putting source file: {}",
+				sourceFile.getAbsolutePath());
+		log.info("    into iRODS file: {}",
+				targetIrodsCollection.getAbsolutePath());
+		log.info("     to resource:{}", targetIrodsCollection.getResource());
+
+		ConcurrentTransferScheduler scheduler = new ConcurrentTransferScheduler(
+				collectionAO.getIRODSSession(), collectionAO.getIRODSAccount(),
+				transferControlBlock.getTransferOptions()
+				.getConcurrentFileTransferThreads());
+		TransferStatusCallbackListener listener = ConcurrentTransferScheduler
+				.synchronizedListener(transferStatusCallbackListener);
+
+		try {
+			walkForConcurrentPut(sourceFile, targetIrodsCollection, listener,
+					transferControlBlock, scheduler);
+		} catch (Exception e) {
+			scheduler.abort();
+			if (!transferControlBlock.isCancelled()) {
+				log.info(
+						"unanticipated exception will be transformed into a Jargon exception",
+						e);
+				throw new JargonException(e);
+			}
+		} finally {
+			scheduler.close();
+		}
+
+		if (scheduler.getFailure() != null
+				&& !transferControlBlock.isCancelled()) {
+			throw new JargonException(scheduler.getFailure());
+		}
+	}
+
+	/**
+	 * Walk one directory of a concurrent put
+	 *
+	 * @return {@code boolean} of {@code false} if the walk should stop
+	 */
+	private boolean walkForConcurrentPut(
+			final File sourceFile,
+			final IRODSFile targetIrodsCollection,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock,
+			final ConcurrentTransferScheduler scheduler)
+					throws JargonException {
+
+		File[] files = sourceFile.listFiles();
+		if (files == null) {
+			return true;
+		}
+
+		for (final File fileInSourceCollection : files) {
+
+			if (Thread.interrupted()) {
+				log.info("cancellation detected, set cancelled in tcb");
+				transferControlBlock.setCancelled(true);
+			}
+
+			if (transferControlBlock.isCancelled()
+					|| transferControlBlock.isPaused()) {
+				log.info("will notify pause or cancel for this put");
+				scheduler.abort();
+				notifyPauseOrCancelCallbackForPut(targetIrodsCollection,
+						transferStatusCallbackListener, transferControlBlock,
+						fileInSourceCollection);
+				return false;
+			}
+
+			if (scheduler.isStopped()) {
+				log.info("a transfer failed, stop handing out files");
+				return false;
+			}
+
+			checkSocketRenewal();
+
+			if (fileInSourceCollection.isDirectory()) {
+				IRODSFile newSubCollection = collectionAO
+						.instanceIRODSFileForCollectionPath(targetIrodsCollection
+								.getAbsolutePath()
+								+ '/'
+								+ fileInSourceCollection.getName());
+				newSubCollection.setResource(targetIrodsCollection
+						.getResource());
+				log.info(
+						"recursively creating parent directory in irods at: {}",
+						newSubCollection.getAbsolutePath());
+
+				try {
+					newSubCollection.mkdirs();
+				} catch (Exception e) {
+					if (!transferControlBlock.isCancelled()) {
+						JargonException je = e instanceof JargonException ? (JargonException) e
+								: new JargonException(e);
+						processRecursivePutException(fileInSourceCollection,
+								transferStatusCallbackListener,
+								newSubCollection, transferControlBlock, je);
+					}
+					continue;
+				}
+
+				if (!walkForConcurrentPut(fileInSourceCollection,
+						newSubCollection, transferStatusCallbackListener,
+						transferControlBlock, scheduler)) {
+					return false;
+				}
+
+			} else if (!transferControlBlock.filter(fileInSourceCollection
+					.getAbsolutePath())) {
+				notifyFilteredPut(fileInSourceCollection,
+						targetIrodsCollection.getAbsolutePath() + '/'
+								+ fileInSourceCollection.getName(),
+						transferStatusCallbackListener, transferControlBlock);
+
+			} else {
+				scheduler.submit(new ConcurrentTransferScheduler.TransferTask() {
+					@Override
+					public void run() throws JargonException {
+						if (transferControlBlock.isCancelled()
+								|| transferControlBlock.isPaused()) {
+							return;
+						}
+						checkSocketRenewal();
+						processPutOfSingleFile(fileInSourceCollection,
+								targetIrodsCollection,
+								transferStatusCallbackListener,
+								transferControlBlock, true);
+					}
+				});
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * A file in a put was discarded by the restart filter, count it as skipped
+	 * and give the callback
+	 */
+	private void notifyFilteredPut(
+			final File sourceFile,
+			final String targetIrodsAbsolutePath,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock)
+					throws JargonException {
+
+		log.debug("file filtered and not transferred");
+		transferControlBlock.incrementFilesSkippedSoFar();
+
+		if (transferStatusCallbackListener != null) {
+			TransferStatus status = TransferStatus.instance(TransferType.PUT,
+					sourceFile.getAbsolutePath(), targetIrodsAbsolutePath, "",
+					0, 0, transferControlBlock.getTotalFilesTransferredSoFar(),
+					transferControlBlock.getTotalFilesSkippedSoFar(),
+					transferControlBlock.getTotalFilesToTransfer(),
+					TransferState.RESTARTING, dataObjectAO.getIRODSAccount()
+					.getHost(), dataObjectAO.getIRODSAccount().getZone());
+
+			transferStatusCallbackListener.statusCallback(status);
+		}
+	}
+
+	/**
+	 * See if I want to close and renew the socket for the connection of the
+	 * current thread
+	 */
+	/**
+	 * Retrieve the data of one data object, this is where both the recursive
+	 * and the concurrent get end up for each file
+	 */
+	void getSingleDataObject(final IRODSFile irodsSourceFile,
+			final File targetLocalFile,
+			final TransferControlBlock transferControlBlock,
+			final TransferStatusCallbackListener transferStatusCallbackListener)
+					throws JargonException {
+		dataObjectAO.getDataObjectFromIrods(irodsSourceFile, targetLocalFile,
+				transferControlBlock, transferStatusCallbackListener);
+	}
+
+	/**
+	 * Store the data of one local file, this is where both the recursive and
+	 * the concurrent put end up for each file
+	 */
+	void putSingleDataObject(final File sourceFile,
+			final IRODSFile targetIrodsFile,
+			final TransferControlBlock transferControlBlock,
+			final TransferStatusCallbackListener transferStatusCallbackListener)
+					throws JargonException {
+		dataObjectAO.putLocalDataObjectToIRODS(sourceFile, targetIrodsFile,
+				transferControlBlock, transferStatusCallbackListener, false);
+	}
+
+	private void checkSocketRenewal() throws JargonException {
+		if (collectionAO.getIRODSProtocol().getPipelineConfiguration()
+				.getSocketRenewalIntervalInSeconds() > 0) {
+			collectionAO.getIRODSSession()
+			.currentConnectionCheckRenewalOfSocket(
+					collectionAO.getIRODSAccount());
+		}
+	}
+
+	/**
+	 * @return {@code boolean} of {@code true} if
+	 *         {@link #checkSocketRenewal()} would renew the socket now
+	 */
+	private boolean isSocketRenewalDue() throws JargonException {
+		AbstractIRODSMidLevelProtocol irodsProtocol = collectionAO
+				.getIRODSProtocol();
+		int renewalInterval = irodsProtocol.getPipelineConfiguration()
+				.getSocketRenewalIntervalInSeconds();
+		return renewalInterval > 0
+				&& System.currentTimeMillis() > irodsProtocol
+				.getConnectTimeInMillis() + renewalInterval * 1000L;
+	}
+
 	/**
 	 * Method to recursively replicate a collection. This method can monitor for
 	 * a cancellation, and can also provide callbacks to a process.
@@ -861,6 +1665,27 @@ final class TransferOperationsHelper {
 			final TransferStatusCallbackListener transferStatusCallbackListener,
 			final TransferControlBlock transferControlBlock)
 					throws OverwriteException, DataNotFoundException, JargonException {
+		processPutOfSingleFile(sourceFile, targetIrodsFile,
+				transferStatusCallbackListener, transferControlBlock, false);
+	}
+
+	/**
+	 * Put a single file, as
+	 * {@link #processPutOfSingleFile(File, IRODSFile, TransferStatusCallbackListener, TransferControlBlock)}
+	 * , optionally skipping the restart filter when the caller has already
+	 * consulted it in walk order.
+	 *
+	 * @param filterApplied
+	 *            {@code boolean} of {@code true} if the file already passed
+	 *            the transfer control block filter
+	 */
+	private void processPutOfSingleFile(
+			final File sourceFile,
+			final IRODSFile targetIrodsFile,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock,
+			final boolean filterApplied) throws OverwriteException,
+			DataNotFoundException, JargonException {
 
 		log.info("put of single file");
 
@@ -900,20 +1725,12 @@ final class TransferOperationsHelper {
 			// if I am restarting a recursive transfer. Consult the last good
 			// path to see if I need to transfer this file
 
-			if (!transferControlBlock.filter(sourceFile.getAbsolutePath())) {
-				log.debug("file filtered and not transferred");
-				transferControlBlock.incrementFilesSkippedSoFar();
-				TransferStatus status = TransferStatus.instance(
-						TransferType.PUT, sourceFile.getAbsolutePath(),
-						targetFileAsFile.getAbsolutePath(), "", 0, 0,
-						transferControlBlock.getTotalFilesTransferredSoFar(),
-						transferControlBlock.getTotalFilesSkippedSoFar(),
-						transferControlBlock.getTotalFilesToTransfer(),
-						TransferState.RESTARTING, dataObjectAO
-						.getIRODSAccount().getHost(), dataObjectAO
-						.getIRODSAccount().getZone());
-
-				transferStatusCallbackListener.statusCallback(status);
+			if (!filterApplied
+					&& !transferControlBlock.filter(sourceFile
+							.getAbsolutePath())) {
+				notifyFilteredPut(sourceFile,
+						targetFileAsFile.getAbsolutePath(),
+						transferStatusCallbackListener, transferControlBlock);
 				return;
 			}
 
@@ -963,9 +1780,8 @@ final class TransferOperationsHelper {
 			/*
 			 * The put operation handles any restart processing
 			 */
-			dataObjectAO.putLocalDataObjectToIRODS(sourceFile,
-					targetFileAsFile, transferControlBlock,
-					transferStatusCallbackListener, false);
+			putSingleDataObject(sourceFile, targetFileAsFile,
+					transferControlBlock, transferStatusCallbackListener);
 
 			transferControlBlock.incrementFilesTransferredSoFar();
 
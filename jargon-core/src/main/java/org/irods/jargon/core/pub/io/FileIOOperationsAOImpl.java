@@ -7,6 +7,7 @@ import java.io.OutputStream;
 
 import org.irods.jargon.core.checksum.ChecksumValue;
 import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol.SocketLease;
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSSession;
 import org.irods.jargon.core.exception.JargonException;
@@ -70,14 +71,11 @@ final class FileIOOperationsAOImpl extends IRODSGenericAO implements
 			throw new IllegalArgumentException("zero or negative length");
 		}
 
-		if (offset > length) {
+		if (offset + length > buffer.length) {
 			throw new IllegalArgumentException("offset of:" + offset
-					+ " is > length:" + length);
-		}
-
-		if (offset > buffer.length) {
-			throw new IllegalArgumentException("offset of:" + offset
-					+ " is greater than the buffer length of:" + buffer.length);
+					+ " and length of:" + length
+					+ " are past the end of the buffer length of:"
+					+ buffer.length);
 		}
 
 		if (log.isDebugEnabled()) {
@@ -122,6 +120,19 @@ final class FileIOOperationsAOImpl extends IRODSGenericAO implements
 				length);
 		AbstractIRODSMidLevelProtocol irodsProtocol = getIRODSProtocol();
 
+		// the request and the bytes that follow it are one exchange
+		SocketLease lease = irodsProtocol.leaseSocket();
+		try {
+			return fileReadLeased(irodsProtocol, fileReadInp, destination);
+		} finally {
+			lease.close();
+		}
+	}
+
+	private int fileReadLeased(
+			final AbstractIRODSMidLevelProtocol irodsProtocol,
+			final OpenedDataObjInp fileReadInp, final OutputStream destination)
+			throws JargonException {
 		Tag message = irodsProtocol.irodsFunction(fileReadInp);
 
 		// Need the total dataSize
@@ -129,7 +140,7 @@ final class FileIOOperationsAOImpl extends IRODSGenericAO implements
 			return -1;
 		}
 
-		length = message.getTag(IRODSConstants.MsgHeader_PI)
+		long length = message.getTag(IRODSConstants.MsgHeader_PI)
 				.getTag(IRODSConstants.bsLen).getIntValue();
 
 		// read the message byte stream into the local file
@@ -157,6 +168,20 @@ final class FileIOOperationsAOImpl extends IRODSGenericAO implements
 		OpenedDataObjInp fileReadInp = OpenedDataObjInp.instanceForFileRead(fd,
 				length);
 		AbstractIRODSMidLevelProtocol irodsProtocol = getIRODSProtocol();
+
+		// the request and the bytes that follow it are one exchange
+		SocketLease lease = irodsProtocol.leaseSocket();
+		try {
+			return fileReadLeased(irodsProtocol, fileReadInp, buffer, offset);
+		} finally {
+			lease.close();
+		}
+	}
+
+	private int fileReadLeased(
+			final AbstractIRODSMidLevelProtocol irodsProtocol,
+			final OpenedDataObjInp fileReadInp, final byte buffer[],
+			final int offset) throws JargonException {
 		Tag message = irodsProtocol.irodsFunction(fileReadInp);
 
 		// Need the total dataSize
@@ -164,7 +189,7 @@ final class FileIOOperationsAOImpl extends IRODSGenericAO implements
 			return -1;
 		}
 
-		length = message.getTag(IRODSConstants.MsgHeader_PI)
+		int length = message.getTag(IRODSConstants.MsgHeader_PI)
 				.getTag(IRODSConstants.bsLen).getIntValue();
 
 		// read the message byte stream into the local file
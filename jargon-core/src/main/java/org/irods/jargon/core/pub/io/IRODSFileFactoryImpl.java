@@ -668,7 +668,8 @@ IRODSFileFactory {
 
 		// open the file if it is not opened
 		irodsFile.open();
-		return new IRODSRandomAccessFile(irodsFile, fileIOOperations);
+		return new IRODSRandomAccessFile(irodsFile, fileIOOperations,
+				getIRODSSession().getJargonProperties());
 
 	}
 
@@ -699,7 +700,8 @@ IRODSFileFactory {
 
 		// open the file if it is not opened
 		irodsFile.open(openFlags);
-		return new IRODSRandomAccessFile(irodsFile, fileIOOperations);
+		return new IRODSRandomAccessFile(irodsFile, fileIOOperations,
+				getIRODSSession().getJargonProperties());
 
 	}
 
@@ -726,7 +728,8 @@ IRODSFileFactory {
 
 		// open the file if it is not opened
 		irodsFile.open();
-		return new IRODSRandomAccessFile(irodsFile, fileIOOperations);
+		return new IRODSRandomAccessFile(irodsFile, fileIOOperations,
+				getIRODSSession().getJargonProperties());
 	}
 
 }
@@ -9,6 +9,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.UTFDataFormatException;
 
+import org.irods.jargon.core.connection.JargonProperties;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.pub.io.FileIOOperations.SeekWhenceType;
 import org.irods.jargon.core.utils.BinaryDataFormat;
@@ -51,6 +52,12 @@ import org.slf4j.LoggerFactory;
  * java.io.RandomAccessFile. However, it <I>is not</I> a subclass, due to the
  * unfortunate use of final methods in java.io.RandomAccessFile.
  * <P>
+ * When created by the {@link IRODSFileFactory}, reads and writes go through a
+ * block cache of fixed size pages configured in the {@code JargonProperties},
+ * so parsing a binary header does not cost a round trip to iRODS per value.
+ * Writes are held in the cache until {@link #flush()} or {@link #close()} is
+ * called, or the cache needs the room.
+ * <P>
  *
  * @author Mike Conway - DICE (www.irods.org) adopted from original Jargon
  *         implementation by Lucas Gilbert
@@ -63,6 +70,14 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	private final IRODSFile irodsFile;
 	private long filePointer = 0;
 	private BinaryDataFormat fileFormat = new BinaryDataFormat();
+	/**
+	 * Cache of pages of the file, or {@code null} to read and write directly
+	 */
+	private final RandomAccessBlockCache blockCache;
+	/**
+	 * Buffer for single values, which are read and written one at a time
+	 */
+	private final byte[] valueBytes = new byte[Host.MAX_TYPE_SIZE];
 
 	/**
 	 * Create an instance of the IRODS implementation of a random access file
@@ -77,6 +92,26 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 */
 	protected IRODSRandomAccessFile(final IRODSFile irodsFile, final FileIOOperations fileIOOperations)
 			throws JargonException {
+		this(irodsFile, fileIOOperations, null);
+	}
+
+	/**
+	 * Create an instance of the IRODS implementation of a random access file,
+	 * with the block cache described by the given properties
+	 *
+	 * @param irodsFile
+	 *            {@link org.irods.jargon.core.pub.io.IRODSFileImpl} that describes
+	 *            the file, which must be open.
+	 * @param fileIOOperations
+	 *            {@code FileIOOperations} that will encapsulate the actual methods
+	 *            in IRODS
+	 * @param jargonProperties
+	 *            {@link JargonProperties} with the block cache settings, or
+	 *            {@code null} to read and write directly to iRODS
+	 * @throws JargonException
+	 */
+	protected IRODSRandomAccessFile(final IRODSFile irodsFile, final FileIOOperations fileIOOperations,
+			final JargonProperties jargonProperties) throws JargonException {
 
 		log.info("constructor IRODSRandomAccessFile");
 
@@ -99,6 +134,14 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 		this.irodsFile = irodsFile;
 		this.fileIOOperations = fileIOOperations;
 
+		if (jargonProperties != null && jargonProperties.getRandomAccessCachePageSize() > 0) {
+			log.info("using block cache with page size:{}", jargonProperties.getRandomAccessCachePageSize());
+			blockCache = new RandomAccessBlockCache(fileIOOperations, irodsFile.getFileDescriptor(),
+					irodsFile.length(), jargonProperties.getRandomAccessCachePageSize(),
+					jargonProperties.getRandomAccessCachePages(), jargonProperties.getRandomAccessReadAheadPages());
+		} else {
+			blockCache = null;
+		}
 	}
 
 	/**
@@ -197,7 +240,7 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 */
 	@Override
 	public double readDouble() throws EOFException, IOException {
-		byte bytes[] = new byte[Host.MAX_TYPE_SIZE];
+		byte bytes[] = valueBytes;
 		readFully(bytes, 0, fileFormat.getDoubleSize());
 		return fileFormat.doubleValue(bytes);
 	}
@@ -222,7 +265,7 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 */
 	@Override
 	public float readFloat() throws EOFException, IOException {
-		byte bytes[] = new byte[Host.MAX_TYPE_SIZE];
+		byte bytes[] = valueBytes;
 		readFully(bytes, 0, fileFormat.getFloatSize());
 		return fileFormat.floatValue(bytes);
 	}
@@ -298,7 +341,7 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 */
 	@Override
 	public int readInt() throws EOFException, IOException {
-		byte bytes[] = new byte[Host.MAX_TYPE_SIZE];
+		byte bytes[] = valueBytes;
 		readFully(bytes, 0, fileFormat.getIntSize());
 		return fileFormat.intValue(bytes);
 	}
@@ -338,9 +381,15 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 			ch = (char) read();
 		}
 
-		if ((ch == '\r') && ((read()) != '\n')) {
-			seek(getFilePointer(), null);
-		} else if ((line.length() == 0)) {
+		if (ch == '\r') {
+			int next = read();
+			if (next != '\n' && next != -1) {
+				// not part of the line terminator, leave it for the next read
+				seek(getFilePointer() - 1, SeekWhenceType.SEEK_START);
+			}
+		}
+
+		if ((ch == (char) -1) && (line.length() == 0)) {
 			return null;
 		}
 
@@ -367,7 +416,7 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 */
 	@Override
 	public long readLong() throws EOFException, IOException {
-		byte bytes[] = new byte[Host.MAX_TYPE_SIZE];
+		byte bytes[] = valueBytes;
 		readFully(bytes, 0, fileFormat.getLongSize());
 		return fileFormat.longValue(bytes);
 	}
@@ -392,7 +441,7 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 */
 	@Override
 	public short readShort() throws EOFException, IOException {
-		byte bytes[] = new byte[Host.MAX_TYPE_SIZE];
+		byte bytes[] = valueBytes;
 		readFully(bytes, 0, fileFormat.getShortSize());
 		return fileFormat.shortValue(bytes);
 	}
@@ -472,7 +521,7 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 */
 	@Override
 	public int readUnsignedShort() throws IOException, EOFException {
-		byte bytes[] = new byte[Host.MAX_TYPE_SIZE];
+		byte bytes[] = valueBytes;
 		readFully(bytes, 0, fileFormat.getShortSize());
 		return fileFormat.unsignedShortValue(bytes);
 	}
@@ -505,7 +554,7 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 			newPosition = length;
 		}
 
-		seek(newPosition, SeekWhenceType.SEEK_CURRENT);
+		seek(newPosition, SeekWhenceType.SEEK_START);
 
 		return (int) (newPosition - position);
 	}
@@ -623,7 +672,7 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 */
 	@Override
 	public void writeChar(final int v) throws IOException {
-		byte bytes[] = new byte[Host.MAX_TYPE_SIZE];
+		byte bytes[] = valueBytes;
 		int nBytes = fileFormat.encodeShort(v, bytes);
 		write(bytes, 0, nBytes);
 	}
@@ -667,7 +716,7 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 */
 	@Override
 	public void writeDouble(final double v) throws IOException {
-		byte bytes[] = new byte[Host.MAX_TYPE_SIZE];
+		byte bytes[] = valueBytes;
 		int nBytes = fileFormat.encodeDouble(v, bytes);
 		write(bytes, 0, nBytes);
 	}
@@ -692,7 +741,7 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 */
 	@Override
 	public void writeFloat(final float v) throws IOException {
-		byte bytes[] = new byte[Host.MAX_TYPE_SIZE];
+		byte bytes[] = valueBytes;
 		int nBytes = fileFormat.encodeFloat(v, bytes);
 		write(bytes, 0, nBytes);
 	}
@@ -717,7 +766,7 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 */
 	@Override
 	public void writeInt(final int v) throws IOException {
-		byte bytes[] = new byte[Host.MAX_TYPE_SIZE];
+		byte bytes[] = valueBytes;
 		int nBytes = fileFormat.encodeInt(v, bytes);
 		write(bytes, 0, nBytes);
 	}
@@ -742,7 +791,7 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 */
 	@Override
 	public void writeLong(final long v) throws IOException {
-		byte bytes[] = new byte[Host.MAX_TYPE_SIZE];
+		byte bytes[] = valueBytes;
 		int nBytes = fileFormat.encodeLong(v, bytes);
 		write(bytes, 0, nBytes);
 	}
@@ -767,7 +816,7 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 */
 	@Override
 	public void writeShort(final int v) throws IOException {
-		byte bytes[] = new byte[Host.MAX_TYPE_SIZE];
+		byte bytes[] = valueBytes;
 		int nBytes = fileFormat.encodeShort(v, bytes);
 		write(bytes, 0, nBytes);
 	}
@@ -849,19 +898,9 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 *             reached.
 	 */
 	public int read() throws IOException {
-		byte buffer[] = new byte[1];
-		int offset = 0;
-		int read;
-		try {
-			read = fileIOOperations.fileRead(irodsFile.getFileDescriptor(), buffer, offset, 1);
-		} catch (JargonException e) {
-			log.error("JargonException reading file", e);
-			throw new IOException(e);
-		}
-		if (read == 1) {
-			filePointer += 1;
-
-			return buffer[0];
+		byte buffer[] = valueBytes;
+		if (readBytes(buffer, 0, 1) == 1) {
+			return buffer[0] & 0xff;
 		}
 		return -1;
 
@@ -880,15 +919,27 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 *             If an I/O error has occurred.
 	 */
 	protected int readBytes(final byte buffer[], final int offset, final int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+
 		int read;
 		try {
-			read = fileIOOperations.fileRead(irodsFile.getFileDescriptor(), buffer, offset, len);
+			if (blockCache != null) {
+				read = blockCache.read(filePointer, buffer, offset, len);
+			} else {
+				read = fileIOOperations.fileRead(irodsFile.getFileDescriptor(), buffer, offset, len);
+			}
 		} catch (JargonException e) {
 			log.error("JargonException reading file", e);
 			throw new IOException(e);
 		}
-		filePointer += read;
 
+		if (read <= 0) {
+			return -1;
+		}
+
+		filePointer += read;
 		return read;
 	}
 
@@ -906,7 +957,12 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 */
 	protected void writeBytes(final byte buffer[], final int offset, final int len) throws IOException {
 		try {
-			filePointer += fileIOOperations.write(irodsFile.getFileDescriptor(), buffer, offset, len);
+			if (blockCache != null) {
+				blockCache.write(filePointer, buffer, offset, len);
+				filePointer += len;
+			} else {
+				filePointer += fileIOOperations.write(irodsFile.getFileDescriptor(), buffer, offset, len);
+			}
 		} catch (JargonException e) {
 			log.error("JargonException reading file", e);
 			throw new IOException(e);
@@ -949,6 +1005,18 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 			throw new IllegalArgumentException();
 		}
 
+		if (blockCache != null) {
+			// the cache positions iRODS itself when it next reads or writes
+			if (origin == SeekWhenceType.SEEK_CURRENT) {
+				filePointer += position;
+			} else if (origin == SeekWhenceType.SEEK_END) {
+				filePointer = blockCache.length() + position;
+			} else {
+				filePointer = position;
+			}
+			return;
+		}
+
 		try {
 			fileIOOperations.seek(irodsFile.getFileDescriptor(), position, origin);
 		} catch (JargonException e) {
@@ -989,9 +1057,32 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 *             if an I/O error occurs.
 	 */
 	public long length() throws IOException {
+		if (blockCache != null) {
+			return blockCache.length();
+		}
 		return irodsFile.length();
 	}
 
+	/**
+	 * Write any data held in the block cache to iRODS. This is done on
+	 * {@link #close()}, and does nothing if the file is not using a cache.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public void flush() throws IOException {
+		if (blockCache == null) {
+			return;
+		}
+
+		try {
+			blockCache.flush();
+		} catch (JargonException e) {
+			log.error("JargonException writing file", e);
+			throw new IOException(e);
+		}
+	}
+
 	/**
 	 * Reads a {@code boolean} from this file. This method reads a single byte from
 	 * the file, starting at the current file pointer. A value of {@code 0}
@@ -1051,11 +1142,15 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 */
 	public void close() throws IOException {
 		try {
-			log.debug("closing: {}", irodsFile.getAbsolutePath());
-			irodsFile.close();
-		} catch (JargonException e) {
-			log.error("JargonException reading file", e);
-			throw new IOException(e);
+			flush();
+		} finally {
+			try {
+				log.debug("closing: {}", irodsFile.getAbsolutePath());
+				irodsFile.close();
+			} catch (JargonException e) {
+				log.error("JargonException reading file", e);
+				throw new IOException(e);
+			}
 		}
 
 	}
@@ -0,0 +1,419 @@
+package org.irods.jargon.core.pub.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.io.FileIOOperations.SeekWhenceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Block cache behind an {@link IRODSRandomAccessFile}, holding fixed size pages
+ * of the data object keyed by their offset. Small reads and writes, such as
+ * those of {@code readInt()} or {@code writeLong()}, are served from the pages,
+ * so that only whole pages travel to and from iRODS.
+ * <p>
+ * The least recently used page is dropped once the cache is full. When pages
+ * are missed in order, each miss reads more pages in the same call, doubling up
+ * to the read ahead limit. The read ahead is done on the calling thread, as the
+ * file descriptor belongs to the connection of that thread. Changed pages are
+ * held until {@link #flush()}, or until a changed page would be dropped, and are
+ * then written with adjacent changed pages joined into a single write.
+ * <p>
+ * The server side file position is tracked, so a seek is only sent when a read
+ * or write does not start where the last one ended.
+ * <p>
+ * This class is not thread safe, as the random access file it serves is not.
+ */
+final class RandomAccessBlockCache {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(RandomAccessBlockCache.class);
+
+	private final FileIOOperations fileIOOperations;
+	private final int fd;
+	private final int pageSize;
+	private final int maxPages;
+	private final int maxReadAheadPages;
+	private final LinkedHashMap<Long, Page> pages;
+
+	private long length;
+	private long serverPosition = 0;
+	private long nextSequentialPage = -1;
+	private int readAheadPages = 1;
+	private int serverReadCount = 0;
+	private int serverWriteCount = 0;
+
+	/**
+	 * One page of the data object
+	 */
+	private static final class Page {
+		private final long index;
+		private final byte[] data;
+		/**
+		 * bytes of the page that hold data from the file
+		 */
+		private int valid = 0;
+		private int dirtyFrom = -1;
+		private int dirtyTo = -1;
+
+		Page(final long index, final byte[] data) {
+			this.index = index;
+			this.data = data;
+		}
+
+		boolean isDirty() {
+			return dirtyFrom >= 0;
+		}
+	}
+
+	/**
+	 * @param fileIOOperations
+	 *            {@link FileIOOperations} used to read and write the file
+	 * @param fd
+	 *            {@code int} with the descriptor of the open file, positioned
+	 *            at the start of the file
+	 * @param length
+	 *            {@code long} with the length of the file when opened
+	 * @param pageSize
+	 *            {@code int} with the size of a page in bytes
+	 * @param maxPages
+	 *            {@code int} with the most pages to hold
+	 * @param maxReadAheadPages
+	 *            {@code int} with the most pages to read in one call
+	 */
+	RandomAccessBlockCache(final FileIOOperations fileIOOperations,
+			final int fd, final long length, final int pageSize,
+			final int maxPages, final int maxReadAheadPages) {
+
+		if (fileIOOperations == null) {
+			throw new IllegalArgumentException("null fileIOOperations");
+		}
+
+		if (pageSize <= 0) {
+			throw new IllegalArgumentException("pageSize must be > 0");
+		}
+
+		if (length < 0) {
+			throw new IllegalArgumentException("negative length");
+		}
+
+		this.fileIOOperations = fileIOOperations;
+		this.fd = fd;
+		this.length = length;
+		this.pageSize = pageSize;
+		this.maxPages = Math.max(1, maxPages);
+		this.maxReadAheadPages = Math.max(1,
+				Math.min(maxReadAheadPages, this.maxPages));
+		pages = new LinkedHashMap<Long, Page>(this.maxPages * 2, 0.75f, true);
+	}
+
+	/**
+	 * Read from the file at the given position
+	 *
+	 * @param position
+	 *            {@code long} with the offset in the file
+	 * @param buffer
+	 *            {@code byte[]} to read into
+	 * @param offset
+	 *            {@code int} with the start in the buffer
+	 * @param len
+	 *            {@code int} with the most bytes to read
+	 * @return {@code int} with the number of bytes read, or {@code -1} at the
+	 *         end of the file
+	 * @throws JargonException
+	 */
+	int read(final long position, final byte[] buffer, final int offset,
+			final int len) throws JargonException {
+
+		if (len == 0) {
+			return 0;
+		}
+
+		int done = 0;
+		while (done < len) {
+			long current = position + done;
+			if (current >= length) {
+				break;
+			}
+
+			Page page = getPage(current / pageSize, true);
+			int inPage = (int) (current % pageSize);
+			int available = page.valid - inPage;
+			if (available <= 0) {
+				break;
+			}
+
+			int count = Math.min(available, len - done);
+			System.arraycopy(page.data, inPage, buffer, offset + done, count);
+			done += count;
+		}
+
+		return done == 0 ? -1 : done;
+	}
+
+	/**
+	 * Write to the file at the given position. The data is held in the cache
+	 * until flushed.
+	 *
+	 * @param position
+	 *            {@code long} with the offset in the file
+	 * @param buffer
+	 *            {@code byte[]} with the data
+	 * @param offset
+	 *            {@code int} with the start in the buffer
+	 * @param len
+	 *            {@code int} with the number of bytes to write
+	 * @throws JargonException
+	 */
+	void write(final long position, final byte[] buffer, final int offset,
+			final int len) throws JargonException {
+
+		int done = 0;
+		while (done < len) {
+			long current = position + done;
+			long index = current / pageSize;
+			int inPage = (int) (current % pageSize);
+			int count = Math.min(pageSize - inPage, len - done);
+
+			/*
+			 * only read the page in if the write leaves some of it as it is in
+			 * the file
+			 */
+			boolean needsFileData = count < pageSize
+					&& index * pageSize < length;
+			Page page = getPage(index, needsFileData);
+
+			System.arraycopy(buffer, offset + done, page.data, inPage, count);
+			page.valid = Math.max(page.valid, inPage + count);
+			if (page.isDirty()) {
+				page.dirtyFrom = Math.min(page.dirtyFrom, inPage);
+				page.dirtyTo = Math.max(page.dirtyTo, inPage + count);
+			} else {
+				page.dirtyFrom = inPage;
+				page.dirtyTo = inPage + count;
+			}
+			done += count;
+		}
+
+		length = Math.max(length, position + len);
+	}
+
+	/**
+	 * @return {@code long} with the length of the file, including data not
+	 *         yet written to iRODS
+	 */
+	long length() {
+		return length;
+	}
+
+	/**
+	 * Write all changed pages to iRODS, joining adjacent changes into one write
+	 *
+	 * @throws JargonException
+	 */
+	void flush() throws JargonException {
+
+		List<Page> dirty = new ArrayList<Page>();
+		for (Page page : pages.values()) {
+			if (page.isDirty()) {
+				dirty.add(page);
+			}
+		}
+
+		if (dirty.isEmpty()) {
+			return;
+		}
+
+		Collections.sort(dirty, new Comparator<Page>() {
+			@Override
+			public int compare(final Page o1, final Page o2) {
+				return Long.compare(o1.index, o2.index);
+			}
+		});
+
+		log.debug("flushing {} changed pages", dirty.size());
+
+		int runStart = 0;
+		for (int i = 1; i <= dirty.size(); i++) {
+			if (i < dirty.size() && joinsPrevious(dirty.get(i - 1), dirty.get(i))) {
+				continue;
+			}
+			writeRun(dirty.subList(runStart, i));
+			runStart = i;
+		}
+	}
+
+	private boolean joinsPrevious(final Page previous, final Page page) {
+		return page.index == previous.index + 1 && previous.dirtyTo == pageSize
+				&& page.dirtyFrom == 0;
+	}
+
+	private void writeRun(final List<Page> run) throws JargonException {
+		Page first = run.get(0);
+		long position = first.index * pageSize + first.dirtyFrom;
+
+		byte[] data;
+		int offset;
+		int len;
+		if (run.size() == 1) {
+			data = first.data;
+			offset = first.dirtyFrom;
+			len = first.dirtyTo - first.dirtyFrom;
+		} else {
+			len = 0;
+			for (Page page : run) {
+				len += page.dirtyTo - page.dirtyFrom;
+			}
+			data = new byte[len];
+			offset = 0;
+			int at = 0;
+			for (Page page : run) {
+				int count = page.dirtyTo - page.dirtyFrom;
+				System.arraycopy(page.data, page.dirtyFrom, data, at, count);
+				at += count;
+			}
+		}
+
+		positionServer(position);
+		int written = 0;
+		while (written < len) {
+			int count = fileIOOperations.write(fd, data, offset + written, len
+					- written);
+			serverWriteCount++;
+			if (count <= 0) {
+				throw new JargonException("no bytes written to iRODS at offset:"
+						+ (position + written));
+			}
+			written += count;
+		}
+		serverPosition = position + len;
+
+		for (Page page : run) {
+			page.dirtyFrom = -1;
+			page.dirtyTo = -1;
+		}
+	}
+
+	/**
+	 * Get the page with the given index, reading it and, if the file is being
+	 * read in order, the pages after it, if it is not cached
+	 */
+	private Page getPage(final long index, final boolean needsFileData)
+			throws JargonException {
+
+		Page page = pages.get(index);
+		if (page != null) {
+			return page;
+		}
+
+		if (!needsFileData || index * pageSize >= length) {
+			page = new Page(index, new byte[pageSize]);
+			putPage(page);
+			return page;
+		}
+
+		if (index == nextSequentialPage) {
+			readAheadPages = Math.min(readAheadPages * 2, maxReadAheadPages);
+		} else {
+			readAheadPages = 1;
+		}
+
+		long lastPageInFile = (length - 1) / pageSize;
+		int count = 1;
+		while (count < readAheadPages && index + count <= lastPageInFile
+				&& !pages.containsKey(index + count)) {
+			count++;
+		}
+
+		long position = index * pageSize;
+		byte[] data = new byte[count * pageSize];
+		int read = readFromServer(position, data, data.length);
+
+		Page requested = null;
+		for (int i = 0; i < count; i++) {
+			int start = i * pageSize;
+			int valid = Math.max(0, Math.min(pageSize, read - start));
+			if (i > 0 && valid == 0) {
+				break;
+			}
+
+			Page loaded;
+			if (count == 1) {
+				loaded = new Page(index, data);
+			} else {
+				loaded = new Page(index + i, new byte[pageSize]);
+				System.arraycopy(data, start, loaded.data, 0, valid);
+			}
+			loaded.valid = valid;
+			putPage(loaded);
+
+			if (i == 0) {
+				requested = loaded;
+			}
+		}
+
+		nextSequentialPage = index + count;
+		return requested;
+	}
+
+	/**
+	 * Add a page, making room first. If a changed page would be dropped all
+	 * changes are written so that they stay in order.
+	 */
+	private void putPage(final Page page) throws JargonException {
+		while (pages.size() >= maxPages) {
+			Iterator<Page> eldest = pages.values().iterator();
+			Page evicted = eldest.next();
+			if (evicted.isDirty()) {
+				flush();
+			}
+			eldest.remove();
+		}
+		pages.put(page.index, page);
+	}
+
+	/**
+	 * Read from iRODS until the buffer is full or the end of the file is
+	 * reached
+	 */
+	private int readFromServer(final long position, final byte[] data,
+			final int len) throws JargonException {
+		positionServer(position);
+		int total = 0;
+		while (total < len) {
+			int read = fileIOOperations.fileRead(fd, data, total, len - total);
+			serverReadCount++;
+			if (read <= 0) {
+				break;
+			}
+			total += read;
+			if (position + total >= length) {
+				break;
+			}
+		}
+		serverPosition = position + total;
+		return total;
+	}
+
+	private void positionServer(final long position) throws JargonException {
+		if (serverPosition != position) {
+			fileIOOperations.seek(fd, position, SeekWhenceType.SEEK_START);
+			serverPosition = position;
+		}
+	}
+
+	int getServerReadCount() {
+		return serverReadCount;
+	}
+
+	int getServerWriteCount() {
+		return serverWriteCount;
+	}
+
+}
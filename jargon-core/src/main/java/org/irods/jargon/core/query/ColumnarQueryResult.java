@@ -0,0 +1,133 @@
+package org.irods.jargon.core.query;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.irods.jargon.core.packinstr.GenQueryOut;
+import org.irods.jargon.core.packinstr.Tag;
+
+/**
+ * One page of GenQuery results held column by column, as iRODS sends them in
+ * the {@code SqlResult_PI} tags of a {@code GenQueryOut_PI}. Each attribute
+ * gets one contiguous value array, and the column name to position mapping is
+ * computed once for the page rather than once per lookup.
+ * <p>
+ * Rows of the page are exposed as lightweight {@link IRODSQueryResultRow}
+ * views that only hold a row index.
+ */
+final class ColumnarQueryResult {
+
+	/**
+	 * position of the first {@code SqlResult_PI} in the
+	 * {@code GenQueryOut_PI}, after rowCnt, attriCnt, continueInx and
+	 * totalRowCount
+	 */
+	static final int FIRST_SQL_RESULT_INDEX = 4;
+
+	/**
+	 * position of the first value in a {@code SqlResult_PI}, after attriInx
+	 * and reslen
+	 */
+	static final int FIRST_VALUE_INDEX = 2;
+
+	private final String[][] values;
+	private final int rowCount;
+	private final List<String> columnNames;
+	private final Map<String, Integer> columnPositions;
+
+	/**
+	 * Decode the values of a GenQuery response
+	 *
+	 * @param queryResponse
+	 *            {@link Tag} with the {@code GenQueryOut_PI}
+	 * @param columnNames
+	 *            {@code List<String>} with the column names, in select order
+	 * @return {@link ColumnarQueryResult}
+	 */
+	static ColumnarQueryResult instance(final Tag queryResponse,
+			final List<String> columnNames) {
+		int rows = queryResponse.getTag(GenQueryOut.ROW_CNT).getIntValue();
+		int attributes = queryResponse.getTag(GenQueryOut.ATTRIB_CNT)
+				.getIntValue();
+
+		String[][] values = new String[attributes][];
+		Tag[] sqlResults = queryResponse.getTags();
+		for (int j = 0; j < attributes; j++) {
+			Tag[] valueTags = sqlResults[FIRST_SQL_RESULT_INDEX + j].getTags();
+			String[] column = new String[rows];
+			for (int i = 0; i < rows; i++) {
+				column[i] = valueTags[FIRST_VALUE_INDEX + i].getStringValue();
+			}
+			values[j] = column;
+		}
+
+		return new ColumnarQueryResult(values, rows, columnNames);
+	}
+
+	private ColumnarQueryResult(final String[][] values, final int rowCount,
+			final List<String> columnNames) {
+		this.values = values;
+		this.rowCount = rowCount;
+		this.columnNames = columnNames;
+
+		Map<String, Integer> positions = new HashMap<String, Integer>(
+				columnNames.size() * 2);
+		int i = 0;
+		for (String columnName : columnNames) {
+			// first occurrence wins, as with a linear search of the names
+			if (!positions.containsKey(columnName)) {
+				positions.put(columnName, i);
+			}
+			i++;
+		}
+		columnPositions = Collections.unmodifiableMap(positions);
+	}
+
+	int getRowCount() {
+		return rowCount;
+	}
+
+	List<String> getColumnNames() {
+		return columnNames;
+	}
+
+	Map<String, Integer> getColumnPositions() {
+		return columnPositions;
+	}
+
+	/**
+	 * Get a read only view of one row of the page as a list of column values
+	 *
+	 * @param row
+	 *            {@code int} with the row in this page
+	 * @return {@code List<String>} backed by the column arrays
+	 */
+	List<String> rowView(final int row) {
+		return new RowView(row);
+	}
+
+	private final class RowView extends AbstractList<String> implements
+			RandomAccess {
+
+		private final int row;
+
+		RowView(final int row) {
+			this.row = row;
+		}
+
+		@Override
+		public String get(final int index) {
+			return values[index][row];
+		}
+
+		@Override
+		public int size() {
+			return values.length;
+		}
+	}
+
+}
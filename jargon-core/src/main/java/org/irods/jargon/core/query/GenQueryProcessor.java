@@ -140,7 +140,7 @@ public class GenQueryProcessor {
 			throws JargonException, DataNotFoundException {
 
 		Tag response = irodsCommands.irodsFunction(IRODSConstants.RODS_API_REQ,
-				genQueryInp.getParsedTags(), GenQueryInp.API_NBR);
+				genQueryInp.getTagValue(), GenQueryInp.API_NBR);
 
 		return response;
 	}
@@ -171,6 +171,28 @@ public class GenQueryProcessor {
 
 	}
 
+	/**
+	 * Reserve the connection of this processor for a thread that makes the
+	 * requests on behalf of the caller, see
+	 * {@link AbstractIRODSMidLevelProtocol#reserveSocket(Thread)}
+	 *
+	 * @param owner
+	 *            {@link Thread} that may use the connection
+	 */
+	public void reserveConnection(final Thread owner) {
+		irodsCommands.reserveSocket(owner);
+	}
+
+	/**
+	 * Release a reservation made by {@link #reserveConnection(Thread)}
+	 *
+	 * @param owner
+	 *            {@link Thread} the connection was reserved for
+	 */
+	public void releaseConnection(final Thread owner) {
+		irodsCommands.releaseSocketReservation(owner);
+	}
+
 	/**
 	 * translate the given query
 	 * 
@@ -190,6 +212,9 @@ public class GenQueryProcessor {
 			translatedIRODSQuery = irodsQueryTranslator
 					.getTranslatedQuery((IRODSGenQuery) irodsQuery);
 
+		} else if (irodsQuery instanceof IRODSGenQueryFromPrepared) {
+			translatedIRODSQuery = ((IRODSGenQueryFromPrepared) irodsQuery)
+					.convertToTranslatedIRODSGenQuery();
 		} else if (irodsQuery instanceof IRODSGenQueryFromBuilder) {
 			try {
 				translatedIRODSQuery = ((IRODSGenQueryFromBuilder) irodsQuery)
@@ -0,0 +1,397 @@
+package org.irods.jargon.core.query;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.exception.JargonRuntimeException;
+import org.irods.jargon.core.pub.IRODSGenQueryExecutorImpl.QueryCloseBehavior;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams the rows of a GenQuery across all of its result pages. With a
+ * prefetch depth greater than zero, a background thread fetches the following
+ * pages using the continuation index while the caller is still working through
+ * the current one, so the round trip for page N+1 overlaps the processing of
+ * page N.
+ * <p>
+ * Pages are requested one after the other, as each request needs the
+ * continuation from the previous response, and are held in a queue of at most
+ * {@code prefetchDepth} pages. The prefetch thread uses the same connection as
+ * the caller, which is reserved for it until the iterator is closed or the
+ * last page has been fetched: other operations on that connection in the
+ * meantime fail with a {@link JargonRuntimeException} rather than interleave
+ * with the page requests. Use another connection to do other work while
+ * iterating.
+ * <p>
+ * The iterator must be closed, typically with try-with-resources, and must be
+ * closed before the connection is returned. Closing before the last row has
+ * been read stops the prefetch and closes the query in iRODS. An iterator that
+ * is left unread with its queue full for {@link #ABANDON_AFTER_MILLIS} is
+ * taken as abandoned: the prefetch closes the query, releases the connection
+ * and stops, and reading on past the pages already fetched then fails. Errors
+ * from iRODS while paging are thrown from {@link #hasNext()} and
+ * {@link #next()} as a {@link JargonRuntimeException}.
+ */
+public class GenQueryResultIterator implements Iterator<IRODSQueryResultRow>,
+		AutoCloseable {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(GenQueryResultIterator.class);
+
+	/**
+	 * how long the prefetch thread waits on a full queue before checking
+	 * whether the iterator has been closed
+	 */
+	private static final long OFFER_WAIT_MILLIS = 100;
+
+	/**
+	 * how long the prefetch thread waits on a full queue before giving up on
+	 * an iterator that is no longer being read
+	 */
+	public static final long ABANDON_AFTER_MILLIS = 10 * 60 * 1000L;
+
+	private final GenQueryProcessor genQueryProcessor;
+	private final TranslatedIRODSGenQuery translatedIRODSQuery;
+	private final String zoneName;
+	private final int prefetchDepth;
+	private final BlockingQueue<PageEntry> prefetchedPages;
+	private final Thread prefetchThread;
+	private final long abandonAfterMillis;
+
+	private volatile boolean closed = false;
+
+	/**
+	 * last page fetched from iRODS, used to close the query if iteration stops
+	 * early
+	 */
+	private volatile IRODSQueryResultSet lastFetchedPage;
+
+	private IRODSQueryResultSet currentPage;
+	private List<IRODSQueryResultRow> currentRows;
+	private int currentRowIndex = 0;
+	private boolean exhausted = false;
+
+	/**
+	 * Execute the query and return an iterator over all of its rows. The first
+	 * page is fetched before this method returns, so problems with the query
+	 * itself are reported here.
+	 *
+	 * @param genQueryProcessor
+	 *            {@link GenQueryProcessor} bound to the connection to query
+	 * @param translatedIRODSQuery
+	 *            {@link TranslatedIRODSGenQuery} to run
+	 * @param prefetchDepth
+	 *            {@code int} with the number of pages to fetch ahead of the
+	 *            page being read. Zero fetches each page on demand on the
+	 *            calling thread.
+	 * @param zoneName
+	 *            {@code String} ({@code null} or blank if not used) that
+	 *            indicates an optional zone for the query
+	 * @return {@link GenQueryResultIterator}
+	 * @throws JargonException
+	 */
+	public static GenQueryResultIterator instance(
+			final GenQueryProcessor genQueryProcessor,
+			final TranslatedIRODSGenQuery translatedIRODSQuery,
+			final int prefetchDepth, final String zoneName)
+			throws JargonException {
+		return instance(genQueryProcessor, translatedIRODSQuery,
+				prefetchDepth, zoneName, ABANDON_AFTER_MILLIS);
+	}
+
+	/**
+	 * Execute the query and return an iterator over all of its rows, giving up
+	 * on prefetching after the given time without a page being taken
+	 */
+	static GenQueryResultIterator instance(
+			final GenQueryProcessor genQueryProcessor,
+			final TranslatedIRODSGenQuery translatedIRODSQuery,
+			final int prefetchDepth, final String zoneName,
+			final long abandonAfterMillis) throws JargonException {
+
+		if (genQueryProcessor == null) {
+			throw new IllegalArgumentException("null genQueryProcessor");
+		}
+
+		if (translatedIRODSQuery == null) {
+			throw new IllegalArgumentException("null translatedIRODSQuery");
+		}
+
+		if (prefetchDepth < 0) {
+			throw new IllegalArgumentException("prefetchDepth must be >= 0");
+		}
+
+		if (abandonAfterMillis <= 0) {
+			throw new IllegalArgumentException("abandonAfterMillis must be > 0");
+		}
+
+		IRODSQueryResultSet firstPage = genQueryProcessor
+				.executeTranslatedIRODSQuery(translatedIRODSQuery, 0, 0,
+						QueryCloseBehavior.MANUAL_CLOSE, zoneName);
+
+		return new GenQueryResultIterator(genQueryProcessor,
+				translatedIRODSQuery, prefetchDepth, zoneName,
+				abandonAfterMillis, firstPage);
+	}
+
+	private GenQueryResultIterator(final GenQueryProcessor genQueryProcessor,
+			final TranslatedIRODSGenQuery translatedIRODSQuery,
+			final int prefetchDepth, final String zoneName,
+			final long abandonAfterMillis, final IRODSQueryResultSet firstPage) {
+		this.genQueryProcessor = genQueryProcessor;
+		this.translatedIRODSQuery = translatedIRODSQuery;
+		this.prefetchDepth = prefetchDepth;
+		this.zoneName = zoneName;
+		this.abandonAfterMillis = abandonAfterMillis;
+		lastFetchedPage = firstPage;
+		setCurrentPage(firstPage);
+
+		if (prefetchDepth > 0 && firstPage.isHasMoreRecords()) {
+			prefetchedPages = new ArrayBlockingQueue<PageEntry>(prefetchDepth);
+			prefetchThread = new Thread(new Prefetcher(firstPage),
+					"jargon-genquery-prefetch");
+			prefetchThread.setDaemon(true);
+			genQueryProcessor.reserveConnection(prefetchThread);
+			prefetchThread.start();
+		} else {
+			prefetchedPages = null;
+			prefetchThread = null;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.Iterator#hasNext()
+	 */
+	@Override
+	public boolean hasNext() {
+		if (closed) {
+			return false;
+		}
+
+		while (currentRowIndex >= currentRows.size()) {
+			if (exhausted || !currentPage.isHasMoreRecords()) {
+				exhausted = true;
+				return false;
+			}
+			setCurrentPage(nextPage());
+		}
+
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.Iterator#next()
+	 */
+	@Override
+	public IRODSQueryResultRow next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return currentRows.get(currentRowIndex++);
+	}
+
+	/**
+	 * Not supported
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("remove not supported");
+	}
+
+	/**
+	 * Stop any prefetching and, if the results were not read to the end, close
+	 * the query in iRODS. Calling close more than once has no effect.
+	 *
+	 * @throws JargonException
+	 */
+	@Override
+	public void close() throws JargonException {
+		if (closed) {
+			return;
+		}
+
+		log.info("closing genquery iterator");
+		closed = true;
+
+		if (prefetchThread != null) {
+			try {
+				prefetchThread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new JargonException(
+						"interrupted waiting for genquery prefetch to stop", e);
+			}
+			genQueryProcessor.releaseConnection(prefetchThread);
+		}
+
+		IRODSQueryResultSet lastPage = lastFetchedPage;
+		if (lastPage != null && lastPage.isHasMoreRecords()) {
+			log.info("closing partially read query in iRODS");
+			genQueryProcessor.closeResults(lastPage);
+		}
+	}
+
+	/**
+	 * @return {@code int} with the number of pages fetched ahead of the page
+	 *         being read
+	 */
+	public int getPrefetchDepth() {
+		return prefetchDepth;
+	}
+
+	private IRODSQueryResultSet nextPage() {
+		if (prefetchedPages == null) {
+			try {
+				IRODSQueryResultSet page = fetchPageAfter(currentPage);
+				lastFetchedPage = page;
+				return page;
+			} catch (JargonException e) {
+				throw new JargonRuntimeException(e);
+			}
+		}
+
+		PageEntry entry;
+		try {
+			entry = prefetchedPages.poll(OFFER_WAIT_MILLIS,
+					TimeUnit.MILLISECONDS);
+			while (entry == null) {
+				if (!prefetchThread.isAlive()) {
+					entry = prefetchedPages.poll();
+					if (entry == null) {
+						exhausted = true;
+						throw new JargonRuntimeException(
+								"genquery prefetch stopped, the iterator was left unread too long");
+					}
+				} else {
+					entry = prefetchedPages.poll(OFFER_WAIT_MILLIS,
+							TimeUnit.MILLISECONDS);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JargonRuntimeException(
+					"interrupted waiting for next genquery page");
+		}
+
+		if (entry.failure != null) {
+			exhausted = true;
+			throw new JargonRuntimeException(entry.failure);
+		}
+
+		return entry.page;
+	}
+
+	private IRODSQueryResultSet fetchPageAfter(final IRODSQueryResultSet page)
+			throws JargonException {
+		log.debug("fetching page at continuation:{}",
+				page.getContinuationIndex());
+		return genQueryProcessor.executeTranslatedIRODSQuery(
+				translatedIRODSQuery, page.getContinuationIndex(), 0,
+				QueryCloseBehavior.MANUAL_CLOSE, zoneName);
+	}
+
+	private void setCurrentPage(final IRODSQueryResultSet page) {
+		currentPage = page;
+		currentRows = page.getResults();
+		currentRowIndex = 0;
+	}
+
+	/**
+	 * Fetches pages in order until the results are exhausted, the iterator is
+	 * closed or abandoned, or an error occurs, which is passed on to the
+	 * reader. The connection is released when it stops.
+	 */
+	private class Prefetcher implements Runnable {
+
+		private IRODSQueryResultSet page;
+
+		Prefetcher(final IRODSQueryResultSet firstPage) {
+			page = firstPage;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!closed && page.isHasMoreRecords()) {
+					page = fetchPageAfter(page);
+					lastFetchedPage = page;
+					if (!enqueue(new PageEntry(page, null))) {
+						return;
+					}
+				}
+			} catch (JargonException e) {
+				log.error("error prefetching genquery page", e);
+				lastFetchedPage = null;
+				enqueue(new PageEntry(null, e));
+			} catch (RuntimeException e) {
+				log.error("error prefetching genquery page", e);
+				lastFetchedPage = null;
+				enqueue(new PageEntry(null, new JargonException(e)));
+			} finally {
+				genQueryProcessor.releaseConnection(Thread.currentThread());
+			}
+		}
+
+		private boolean enqueue(final PageEntry entry) {
+			long waited = 0;
+			try {
+				while (!prefetchedPages.offer(entry, OFFER_WAIT_MILLIS,
+						TimeUnit.MILLISECONDS)) {
+					if (closed) {
+						return false;
+					}
+					waited += OFFER_WAIT_MILLIS;
+					if (waited >= abandonAfterMillis) {
+						abandon();
+						return false;
+					}
+				}
+				return true;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+
+		/**
+		 * Close the query in iRODS on giving up, as the reader may never call
+		 * close
+		 */
+		private void abandon() {
+			log.warn("genquery iterator not read for {} ms, closing its query",
+					abandonAfterMillis);
+			IRODSQueryResultSet lastPage = lastFetchedPage;
+			lastFetchedPage = null;
+			if (lastPage == null || !lastPage.isHasMoreRecords()) {
+				return;
+			}
+
+			try {
+				genQueryProcessor.closeResults(lastPage);
+			} catch (JargonException e) {
+				log.warn("error closing abandoned genquery", e);
+			}
+		}
+	}
+
+	private static final class PageEntry {
+		private final IRODSQueryResultSet page;
+		private final JargonException failure;
+
+		PageEntry(final IRODSQueryResultSet page, final JargonException failure) {
+			this.page = page;
+			this.failure = failure;
+		}
+	}
+
+}
@@ -51,6 +51,14 @@ public class IRODSGenQueryTranslator {
 		this.irodsServerProperties = irodsServerProperties;
 	}
 
+	/**
+	 * Constructor for parsing that does not depend on the server, used to
+	 * prepare queries with {@link PreparedIRODSGenQuery#prepare(String)}
+	 */
+	IRODSGenQueryTranslator() {
+		irodsServerProperties = null;
+	}
+
 	/**
 	 * Public constructor allows specification of a mapping of extensible
 	 * meta-data values.
@@ -111,6 +119,26 @@ public class IRODSGenQueryTranslator {
 				translatedConditions, irodsQuery, isDistinct);
 	}
 
+	/**
+	 * Parse and translate a query in which condition values may be given as
+	 * {@code ?}, so that it can be run many times with other values without
+	 * parsing it again. See {@link PreparedIRODSGenQuery}.
+	 *
+	 * @param queryTemplate
+	 *            {@code String} with the query, using {@code ?} for values to
+	 *            be bound
+	 * @return {@link PreparedIRODSGenQuery}
+	 * @throws JargonQueryException
+	 * @throws JargonException
+	 */
+	public PreparedIRODSGenQuery getPreparedQuery(final String queryTemplate)
+			throws JargonQueryException, JargonException {
+		log.debug("preparing query:{}", queryTemplate);
+		TranslatedIRODSGenQuery translatedQuery = getTranslatedQuery(IRODSGenQuery
+				.instance(queryTemplate, 1));
+		return PreparedIRODSGenQuery.instance(queryTemplate, translatedQuery);
+	}
+
 	/**
 	 * Sanity check to make sure everything was translated properly
 	 *
@@ -5,6 +5,7 @@ package org.irods.jargon.core.query;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.utils.IRODSDataConversionUtil;
@@ -25,6 +26,11 @@ public class IRODSQueryResultRow {
 	private final int recordCount;
 	private final boolean lastResult;
 	private final List<String> columnNames;
+	/**
+	 * precomputed column name positions, shared by all rows of a page, or
+	 * {@code null} when rows are built one at a time from lists
+	 */
+	private final Map<String, Integer> columnPositions;
 
 	/**
 	 * Build a result row from a column of results produced by an IRODS GenQuery
@@ -98,6 +104,28 @@ public class IRODSQueryResultRow {
 				recordCount, lastResult);
 	}
 
+	/**
+	 * Build a result row as a view over one row of a page of columnar GenQuery
+	 * results
+	 *
+	 * @param page
+	 *            {@link ColumnarQueryResult} with the decoded page
+	 * @param row
+	 *            {@code int} with the row within the page
+	 * @param recordCount
+	 *            {@code int} with the index of the current record
+	 * @param lastResult
+	 *            {@code boolean} of {@code true} if there are more
+	 *            records to page
+	 * @return {@link IRODSQueryResultRow}
+	 */
+	static IRODSQueryResultRow instance(final ColumnarQueryResult page,
+			final int row, final int recordCount, final boolean lastResult) {
+		return new IRODSQueryResultRow(page.rowView(row),
+				page.getColumnNames(), page.getColumnPositions(), recordCount,
+				lastResult);
+	}
+
 	/**
 	 * Private constructor
 	 *
@@ -129,9 +157,21 @@ public class IRODSQueryResultRow {
 		this.lastResult = lastResult;
 		this.recordCount = recordCount;
 		this.columnNames = columnNames;
+		columnPositions = null;
 
 	}
 
+	private IRODSQueryResultRow(final List<String> queryResultColumns,
+			final List<String> columnNames,
+			final Map<String, Integer> columnPositions, final int recordCount,
+			final boolean lastResult) {
+		this.queryResultColumns = queryResultColumns;
+		this.lastResult = lastResult;
+		this.recordCount = recordCount;
+		this.columnNames = columnNames;
+		this.columnPositions = columnPositions;
+	}
+
 	/**
 	 * Given a columnNumber, return the value of the column in the result set.
 	 *
@@ -266,6 +306,11 @@ public class IRODSQueryResultRow {
 	 * @return {@code int}
 	 */
 	protected int getColumnNamePosition(final String columnName) {
+		if (columnPositions != null) {
+			Integer position = columnPositions.get(columnName);
+			return position == null ? -1 : position;
+		}
+
 		int colPos = -1;
 		int i = 0;
 		for (String colNameInList : columnNames) {
@@ -0,0 +1,83 @@
+/**
+ *
+ */
+package org.irods.jargon.core.query;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds a bounded number of {@link PreparedIRODSGenQuery} by query text,
+ * dropping the least recently used.
+ */
+class PreparedGenQueryCache {
+
+	private final int maxEntries;
+	private final LinkedHashMap<String, PreparedIRODSGenQuery> entries;
+
+	private long hitCount = 0L;
+	private long missCount = 0L;
+
+	/**
+	 * @param maxEntries
+	 *            {@code int} with the most queries to hold
+	 */
+	PreparedGenQueryCache(final int maxEntries) {
+
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("maxEntries < 1");
+		}
+
+		this.maxEntries = maxEntries;
+		entries = new LinkedHashMap<String, PreparedIRODSGenQuery>(16, 0.75f,
+				true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<String, PreparedIRODSGenQuery> eldest) {
+				return size() > PreparedGenQueryCache.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * @param queryTemplate
+	 *            {@code String} with the query text
+	 * @return {@link PreparedIRODSGenQuery} or {@code null} if not cached
+	 */
+	synchronized PreparedIRODSGenQuery get(final String queryTemplate) {
+		PreparedIRODSGenQuery prepared = entries.get(queryTemplate);
+		if (prepared == null) {
+			missCount++;
+		} else {
+			hitCount++;
+		}
+		return prepared;
+	}
+
+	/**
+	 * @param queryTemplate
+	 *            {@code String} with the query text
+	 * @param prepared
+	 *            {@link PreparedIRODSGenQuery} for the text
+	 */
+	synchronized void put(final String queryTemplate,
+			final PreparedIRODSGenQuery prepared) {
+		entries.put(queryTemplate, prepared);
+	}
+
+	synchronized int size() {
+		return entries.size();
+	}
+
+	synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	synchronized long getMissCount() {
+		return missCount;
+	}
+
+}
@@ -0,0 +1,224 @@
+/**
+ *
+ */
+package org.irods.jargon.core.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.irods.jargon.core.exception.JargonException;
+
+/**
+ * A query posed as an iquest style {@code String}, parsed and translated once,
+ * in which condition values given as {@code ?} are filled in for each
+ * execution by {@link #bind(int, String...)}. This saves tokenizing and
+ * translating the same query shape each time it is run with other values.
+ *
+ * <pre>
+ * PreparedIRODSGenQuery prepared = PreparedIRODSGenQuery
+ * 		.prepare(&quot;select COLL_NAME where META_COLL_ATTR_NAME = ? and META_COLL_ATTR_VALUE like ?&quot;);
+ * executor.executeIRODSQuery(prepared.bind(500, &quot;tag&quot;, &quot;%value%&quot;), 0);
+ * </pre>
+ *
+ * Each {@code ?} stands for one literal, which is quoted when bound. Values
+ * may not contain a single quote, as GenQuery has no way to escape one, and
+ * parameters may not be used with {@code in} or {@code between}, which take
+ * more than one literal. A quoted {@code '?'} is a literal question mark.
+ * <p>
+ * Prepared queries are cached by their text, keeping the most recently used,
+ * so that calling {@link #prepare(String)} with a constant is cheap. This
+ * object is immutable, and is safe to share between threads.
+ */
+public final class PreparedIRODSGenQuery {
+
+	/**
+	 * Stands for a value in the query text
+	 */
+	public static final String BIND_PARAMETER = "?";
+
+	/**
+	 * Most query shapes kept by {@link #prepare(String)}
+	 */
+	public static final int CACHED_QUERY_LIMIT = 256;
+
+	private static final PreparedGenQueryCache cache = new PreparedGenQueryCache(
+			CACHED_QUERY_LIMIT);
+
+	private final String queryTemplate;
+	private final List<GenQuerySelectField> selectFields;
+	private final List<TranslatedGenQueryCondition> conditions;
+	private final int[] parameterConditions;
+	private final boolean distinct;
+
+	/**
+	 * Get the prepared form of a query, parsing it if it is not already cached
+	 *
+	 * @param queryTemplate
+	 *            {@code String} with the query, using {@code ?} for values to
+	 *            be bound
+	 * @return {@link PreparedIRODSGenQuery}
+	 * @throws JargonQueryException
+	 *             if the query cannot be parsed
+	 * @throws JargonException
+	 */
+	public static PreparedIRODSGenQuery prepare(final String queryTemplate)
+			throws JargonQueryException, JargonException {
+
+		if (queryTemplate == null || queryTemplate.isEmpty()) {
+			throw new IllegalArgumentException("null or empty queryTemplate");
+		}
+
+		PreparedIRODSGenQuery prepared = cache.get(queryTemplate);
+		if (prepared == null) {
+			prepared = new IRODSGenQueryTranslator()
+					.getPreparedQuery(queryTemplate);
+			cache.put(queryTemplate, prepared);
+		}
+		return prepared;
+	}
+
+	/**
+	 * Create from the translation of the query text, used by the
+	 * {@link IRODSGenQueryTranslator}
+	 *
+	 * @param queryTemplate
+	 *            {@code String} with the query text
+	 * @param translatedQuery
+	 *            {@link TranslatedIRODSGenQuery} of the query text
+	 * @return {@link PreparedIRODSGenQuery}
+	 * @throws JargonQueryException
+	 *             if a parameter is used where it is not supported
+	 */
+	static PreparedIRODSGenQuery instance(final String queryTemplate,
+			final TranslatedIRODSGenQuery translatedQuery)
+			throws JargonQueryException {
+		return new PreparedIRODSGenQuery(queryTemplate, translatedQuery);
+	}
+
+	private PreparedIRODSGenQuery(final String queryTemplate,
+			final TranslatedIRODSGenQuery translatedQuery)
+			throws JargonQueryException {
+
+		if (queryTemplate == null || queryTemplate.isEmpty()) {
+			throw new IllegalArgumentException("null or empty queryTemplate");
+		}
+
+		if (translatedQuery == null) {
+			throw new IllegalArgumentException("null translatedQuery");
+		}
+
+		List<TranslatedGenQueryCondition> translatedConditions = translatedQuery
+				.getTranslatedQueryConditions();
+		List<Integer> parameters = new ArrayList<Integer>();
+		for (int i = 0; i < translatedConditions.size(); i++) {
+			TranslatedGenQueryCondition condition = translatedConditions.get(i);
+			if (!condition.getValue().equals(BIND_PARAMETER)) {
+				continue;
+			}
+
+			String operator = condition.getOperator().trim().toLowerCase();
+			if (operator.endsWith("in") || operator.endsWith("between")) {
+				throw new JargonQueryException(
+						"bind parameters cannot be used with the operator:"
+								+ condition.getOperator());
+			}
+			parameters.add(i);
+		}
+
+		this.queryTemplate = queryTemplate;
+		selectFields = Collections.unmodifiableList(translatedQuery
+				.getSelectFields());
+		conditions = Collections.unmodifiableList(translatedConditions);
+		parameterConditions = new int[parameters.size()];
+		for (int i = 0; i < parameterConditions.length; i++) {
+			parameterConditions[i] = parameters.get(i);
+		}
+		distinct = translatedQuery.isDistinct();
+	}
+
+	/**
+	 * Fill in the values of the query, without parsing it again
+	 *
+	 * @param numberOfResultsDesired
+	 *            {@code int} with the number of desired results
+	 * @param values
+	 *            {@code String} values for each {@code ?}, in order, not
+	 *            quoted
+	 * @return {@link IRODSGenQueryFromPrepared} that can be run with the
+	 *         {@code IRODSGenQueryExecutor}
+	 * @throws JargonQueryException
+	 * @throws JargonException
+	 */
+	public IRODSGenQueryFromPrepared bind(final int numberOfResultsDesired,
+			final String... values) throws JargonQueryException,
+			JargonException {
+
+		if (values == null || values.length != parameterConditions.length) {
+			throw new IllegalArgumentException("query takes "
+					+ parameterConditions.length + " values");
+		}
+
+		List<TranslatedGenQueryCondition> boundConditions = new ArrayList<TranslatedGenQueryCondition>(
+				conditions);
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == null) {
+				throw new IllegalArgumentException("null value for parameter:"
+						+ i);
+			}
+
+			if (values[i].indexOf('\'') != -1) {
+				throw new IllegalArgumentException(
+						"value cannot contain a single quote:" + values[i]);
+			}
+
+			int condition = parameterConditions[i];
+			boundConditions.set(condition, conditions.get(condition)
+					.withValue("'" + values[i] + "'"));
+		}
+
+		return IRODSGenQueryFromPrepared.instance(this, boundConditions,
+				numberOfResultsDesired);
+	}
+
+	/**
+	 * @return {@code String} with the query text this was prepared from
+	 */
+	public String getQueryTemplate() {
+		return queryTemplate;
+	}
+
+	/**
+	 * @return {@code int} with the number of values to bind
+	 */
+	public int getParameterCount() {
+		return parameterConditions.length;
+	}
+
+	List<GenQuerySelectField> getSelectFields() {
+		return selectFields;
+	}
+
+	boolean isDistinct() {
+		return distinct;
+	}
+
+	/**
+	 * @return {@link PreparedGenQueryCache} used by {@link #prepare(String)}
+	 */
+	static PreparedGenQueryCache getCache() {
+		return cache;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("PreparedIRODSGenQuery:");
+		sb.append("\n   queryTemplate:");
+		sb.append(queryTemplate);
+		sb.append("\n   parameterCount:");
+		sb.append(parameterConditions.length);
+		return sb.toString();
+	}
+
+}
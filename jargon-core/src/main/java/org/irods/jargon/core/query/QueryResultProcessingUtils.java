@@ -56,12 +56,17 @@ public class QueryResultProcessingUtils {
 			return new ArrayList<IRODSQueryResultRow>();
 		}
 
-		int rows = queryResponse.getTag(GenQueryOut.ROW_CNT).getIntValue();
+		if (columnNames == null) {
+			throw new JargonException("columnNames is null");
+		}
+
+		ColumnarQueryResult page = ColumnarQueryResult.instance(queryResponse,
+				columnNames);
+		int rows = page.getRowCount();
 		log.info("rows returned from iRODS query: {}", rows);
 
 		List<IRODSQueryResultRow> resultSet = new ArrayList<IRODSQueryResultRow>(
 				rows);
-		List<String> row;
 
 		int recordCount;
 		if (partialStartIndex == 0) {
@@ -73,20 +78,9 @@ public class QueryResultProcessingUtils {
 		boolean lastRecord = (continuation == 0);
 		log.debug("is this the last record? {}", lastRecord);
 
-		int attributes = queryResponse.getTag(GenQueryOut.ATTRIB_CNT)
-				.getIntValue();
-
 		for (int i = 0; i < rows; i++) {
-			// new row
-			row = new ArrayList<String>();
-			for (int j = 0; j < attributes; j++) {
-
-				row.add(queryResponse.getTags()[4 + j].getTags()[2 + i]
-						.getStringValue());
-			}
-
-			resultSet.add(IRODSQueryResultRow.instance(row, columnNames,
-					recordCount++, lastRecord));
+			resultSet.add(IRODSQueryResultRow.instance(page, i, recordCount++,
+					lastRecord));
 		}
 
 		return resultSet;
@@ -174,6 +174,25 @@ public class TranslatedGenQueryCondition {
 
 	}
 
+	/**
+	 * Copy of this condition with another value, used to bind the parameters
+	 * of a {@link PreparedIRODSGenQuery}
+	 *
+	 * @param value
+	 *            {@code String} with the value component of the condition.
+	 * @return {@code TranslatedGenQueryCondition}
+	 * @throws JargonQueryException
+	 */
+	TranslatedGenQueryCondition withValue(final String value)
+			throws JargonQueryException {
+		if (fieldSource == SelectFieldSource.EXTENSIBLE_METADATA) {
+			return new TranslatedGenQueryCondition(columnName, operator, value,
+					columnNumericTranslation);
+		}
+		return new TranslatedGenQueryCondition(columnName, fieldSource,
+				columnNumericTranslation, operator, value);
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder b = new StringBuilder();
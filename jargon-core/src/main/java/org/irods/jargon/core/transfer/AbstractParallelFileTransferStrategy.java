@@ -1,6 +1,9 @@
 package org.irods.jargon.core.transfer;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.irods.jargon.core.connection.ConnectionProgressStatusListener;
 import org.irods.jargon.core.connection.JargonProperties;
@@ -55,6 +58,8 @@ public abstract class AbstractParallelFileTransferStrategy {
 	private ConnectionProgressStatusListener connectionProgressStatusListener = null;
 	private final int parallelSocketTimeoutInSecs;
 	private final JargonProperties jargonProperties;
+	private final List<ParallelTransferResult> transferResults = Collections
+			.synchronizedList(new ArrayList<ParallelTransferResult>());
 
 	/**
 	 * Constructor for a parallel file transfer runner. This runner will create
@@ -322,6 +327,47 @@ public abstract class AbstractParallelFileTransferStrategy {
 		return jargonProperties;
 	}
 
+	/**
+	 * Keep the result of a finished transfer thread
+	 *
+	 * @param parallelTransferResult
+	 *            {@link ParallelTransferResult} of the thread
+	 */
+	protected void addTransferResult(
+			final ParallelTransferResult parallelTransferResult) {
+		transferResults.add(parallelTransferResult);
+	}
+
+	/**
+	 * Get the results of the transfer threads, with their measurements, once
+	 * the transfer is done
+	 *
+	 * @return {@code List} of {@link ParallelTransferResult}
+	 */
+	public List<ParallelTransferResult> getTransferResults() {
+		synchronized (transferResults) {
+			return new ArrayList<ParallelTransferResult>(transferResults);
+		}
+	}
+
+	/**
+	 * Record the measurements of this transfer with the session tuner, so
+	 * later parallel transfers to the host can ask for a better number of
+	 * threads. This does nothing unless adaptive parallel threads are turned
+	 * on in the jargon properties.
+	 *
+	 * @param irodsHost
+	 *            {@code String} with the iRODS host the transfer was asked of
+	 */
+	public void recordTransferPerformance(final String irodsHost) {
+		if (!jargonProperties.isAdaptiveParallelThreads()) {
+			return;
+		}
+
+		irodsAccessObjectFactory.getIrodsSession().getParallelTransferTuner()
+				.record(irodsHost, numberOfThreads, getTransferResults());
+	}
+
 	public FileRestartInfo getFileRestartInfo() {
 		return fileRestartInfo;
 	}
@@ -347,6 +393,30 @@ public abstract class AbstractParallelFileTransferStrategy {
 		return negotiatedClientServerConfiguration.isSslConnection();
 	}
 
+	/**
+	 * Handy method for threads to determine whether file data can be handed
+	 * between the file and the socket without a copy buffer. This is opt in by
+	 * jargon properties, and falls back to the buffered path when encrypting.
+	 *
+	 * @return
+	 */
+	boolean doZeroCopy() {
+		return getJargonProperties().isParallelZeroCopyTransfer()
+				&& !doEncryption();
+	}
+
+	/**
+	 * Handy method for threads to determine whether encryption is done on the
+	 * shared crypto threads while the stream carries on with its socket. This
+	 * is opt in by jargon properties, and only applies when encrypting.
+	 *
+	 * @return
+	 */
+	boolean doStagedEncryption() {
+		return getJargonProperties().isParallelStagedEncryption()
+				&& doEncryption();
+	}
+
 	public PipelineConfiguration getPipelineConfiguration() {
 		return pipelineConfiguration;
 	}
@@ -11,7 +11,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Abstract superclasss for a parallel file transfer operation
+ * Abstract superclasss for a parallel file transfer operation. Each thread
+ * talks to iRODS over its own {@link ParallelTransferChannel}, so that file
+ * data can be moved with {@code FileChannel} and {@code ByteBuffer} I/O.
  *
  * @author Mike Conway - DICE (www.irods.org)
  *
@@ -20,6 +22,11 @@ public class AbstractParallelTransferThread {
 
 	protected static final String IO_EXCEPTION_OCCURRED_DURING_PARALLEL_FILE_TRANSFER = "IOException occurred during parallel file transfer";
 	protected static final String IO_EXEPTION_IN_PARALLEL_TRANSFER = "IOExeption in parallel transfer";
+	private ParallelTransferChannel channel;
+	/*
+	 * Set only by subclasses still using the deprecated socket and stream
+	 * setters, which are read from and closed as before
+	 */
 	private Socket s;
 	private InputStream in;
 	private OutputStream out;
@@ -31,6 +38,8 @@ public class AbstractParallelTransferThread {
 	 * Index of the given thread. 0 based index
 	 */
 	private final int threadNumber;
+	private long connectNanos = 0L;
+	private long bytesTransferred = 0L;
 
 	public static final Logger log = LoggerFactory
 			.getLogger(AbstractParallelTransferThread.class);
@@ -41,49 +50,61 @@ public class AbstractParallelTransferThread {
 	}
 
 	protected int readInt() throws JargonException {
-		final byte[] b = new byte[4];
-		int read;
+		if (channel == null && in != null) {
+			return Host.castToInt(readFromStream(4));
+		}
+
 		try {
-			read = in.read(b);
+			return channel.readInt();
 		} catch (Exception e) {
 			log.error(IO_EXEPTION_IN_PARALLEL_TRANSFER, e);
 			throw new JargonException(
 					IO_EXCEPTION_OCCURRED_DURING_PARALLEL_FILE_TRANSFER, e);
 		}
-		if (read != 4) {
-			log.error("unexpected length read when reading int");
-			throw new JargonException("unexpected length read when reading int");
-		}
-		return Host.castToInt(b);
 	}
 
 	protected long readLong() throws JargonException {
 		// length comes down the wire as an signed long long in network
 		// order
-		final byte[] b = new byte[8];
+		if (channel == null && in != null) {
+			return Host.castToLong(readFromStream(8));
+		}
 
+		try {
+			return channel.readLong();
+		} catch (Exception e) {
+			log.error(IO_EXEPTION_IN_PARALLEL_TRANSFER);
+			throw new JargonException(
+					IO_EXCEPTION_OCCURRED_DURING_PARALLEL_FILE_TRANSFER, e);
+		}
+	}
+
+	private byte[] readFromStream(final int length) throws JargonException {
+		final byte[] b = new byte[length];
 		int read;
 		try {
 			read = in.read(b);
 		} catch (Exception e) {
-			log.error(IO_EXEPTION_IN_PARALLEL_TRANSFER);
+			log.error(IO_EXEPTION_IN_PARALLEL_TRANSFER, e);
 			throw new JargonException(
 					IO_EXCEPTION_OCCURRED_DURING_PARALLEL_FILE_TRANSFER, e);
 		}
-		if (read != 8) {
-			log.error("did not read 8 bytes for long");
+		if (read != length) {
+			log.error("unexpected length read, expected:{}", length);
 			throw new JargonException(
-					"unable to read all the bytes for an expected long value");
+					"unable to read all the bytes for an expected value");
 		}
-
-		return Host.castToLong(b);
+		return b;
 	}
 
 	public void close() throws JargonException {
 		// garbage collector can be too slow
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
 		if (out != null) {
 			try {
-
 				out.close();
 			} catch (IOException e) {
 				log.warn("IOException on close - log and ignore");
@@ -108,30 +129,132 @@ public class AbstractParallelTransferThread {
 		}
 	}
 
+	protected final ParallelTransferChannel getChannel() {
+		return channel;
+	}
+
+	protected final void setChannel(final ParallelTransferChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * @return {@code Socket} under the channel, or the one set with
+	 *         {@link #setS(Socket)}
+	 * @deprecated the thread now talks to iRODS through a channel, this is
+	 *             kept for subclasses written against the socket streams
+	 */
+	@Deprecated
 	protected final Socket getS() {
+		if (channel != null) {
+			return channel.getSocketChannel().socket();
+		}
 		return s;
 	}
 
+	/**
+	 * @param s
+	 *            {@code Socket} closed with this thread
+	 * @deprecated the thread now talks to iRODS through a channel, this is
+	 *             kept for subclasses written against the socket streams
+	 */
+	@Deprecated
 	protected final void setS(final Socket s) {
 		this.s = s;
 	}
 
+	/**
+	 * @return {@code InputStream} reading from the channel, or the one set with
+	 *         {@link #setIn(InputStream)}
+	 * @deprecated the thread now talks to iRODS through a channel, this is
+	 *             kept for subclasses written against the socket streams
+	 */
+	@Deprecated
 	protected final InputStream getIn() {
+		if (channel != null) {
+			return channel.asInputStream();
+		}
 		return in;
 	}
 
+	/**
+	 * @param in
+	 *            {@code InputStream} read from when no channel is set
+	 * @deprecated the thread now talks to iRODS through a channel, this is
+	 *             kept for subclasses written against the socket streams
+	 */
+	@Deprecated
 	protected final void setIn(final InputStream in) {
 		this.in = in;
 	}
 
+	/**
+	 * @return {@code OutputStream} writing to the channel, or the one set with
+	 *         {@link #setOut(OutputStream)}
+	 * @deprecated the thread now talks to iRODS through a channel, this is
+	 *             kept for subclasses written against the socket streams
+	 */
+	@Deprecated
 	protected final OutputStream getOut() {
+		if (channel != null) {
+			return channel.asOutputStream();
+		}
 		return out;
 	}
 
+	/**
+	 * @param out
+	 *            {@code OutputStream} closed with this thread
+	 * @deprecated the thread now talks to iRODS through a channel, this is
+	 *             kept for subclasses written against the socket streams
+	 */
+	@Deprecated
 	protected final void setOut(final OutputStream out) {
 		this.out = out;
 	}
 
+	/**
+	 * Open the channel to the server for this thread, timing the connect as an
+	 * estimate of the round trip to the server
+	 *
+	 * @param parallelFileTransferStrategy
+	 *            {@link AbstractParallelFileTransferStrategy} for the transfer
+	 * @throws IOException
+	 */
+	protected final void openChannel(
+			final AbstractParallelFileTransferStrategy parallelFileTransferStrategy)
+			throws IOException {
+		long start = System.nanoTime();
+		channel = ParallelTransferChannel.open(parallelFileTransferStrategy);
+		connectNanos = System.nanoTime() - start;
+	}
+
+	/**
+	 * Count file bytes moved by this thread
+	 *
+	 * @param count
+	 *            {@code long} with the bytes moved
+	 */
+	protected final void addBytesTransferred(final long count) {
+		bytesTransferred += count;
+	}
+
+	/**
+	 * Build the result of this thread with its measurements
+	 *
+	 * @param startNanos
+	 *            {@code long} with the {@code System.nanoTime()} when the
+	 *            thread started moving data
+	 * @return {@link ParallelTransferResult}
+	 */
+	protected ParallelTransferResult buildResult(final long startNanos) {
+		ParallelTransferResult result = new ParallelTransferResult();
+		result.transferException = getExceptionInTransfer();
+		result.bytesTransferred = bytesTransferred;
+		result.transferNanos = System.nanoTime() - startNanos;
+		result.connectNanos = connectNanos;
+		return result;
+	}
+
 	/**
 	 * Any exception that occurs in this transfer thread is saved so that the
 	 * parallel transfer process can access it and handle any errors.
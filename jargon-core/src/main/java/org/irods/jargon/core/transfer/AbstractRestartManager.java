@@ -13,6 +13,10 @@ import org.slf4j.LoggerFactory;
  * This manager serves as a repository of file restart info and a place to
  * update that information, maintaining a representation of
  * {@link FileRestartInfo} for a given path
+ * <p>
+ * Updates to the restart info of one transfer are serialized on a lock chosen
+ * by its {@link FileRestartInfoIdentifier}, so the threads of one parallel
+ * transfer take turns, but different transfers rarely wait on each other.
  *
  * @author Mike Conway - DICE
  *
@@ -22,6 +26,34 @@ public abstract class AbstractRestartManager {
 	private static final Logger log = LoggerFactory
 			.getLogger(AbstractRestartManager.class);
 
+	/**
+	 * Number of locks that restart infos are spread over
+	 */
+	private static final int LOCK_STRIPES = 32;
+
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	protected AbstractRestartManager() {
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			locks[i] = new Object();
+		}
+	}
+
+	/**
+	 * Get the lock that guards updates to the restart info with the given
+	 * identifier
+	 *
+	 * @param fileRestartInfoIdentifier
+	 *            {@link FileRestartInfoIdentifier}
+	 * @return {@code Object} to synchronize on
+	 */
+	protected final Object lockFor(
+			final FileRestartInfoIdentifier fileRestartInfoIdentifier) {
+		int hash = fileRestartInfoIdentifier.hashCode();
+		hash ^= (hash >>> 16);
+		return locks[(hash & 0x7fffffff) % LOCK_STRIPES];
+	}
+
 	/**
 	 * Either return existing, or create a new restart identifier
 	 *
@@ -31,7 +63,7 @@ public abstract class AbstractRestartManager {
 	 * @return {@link FileRestartInfo}
 	 * @throws FileRestartManagementException
 	 */
-	public synchronized FileRestartInfo retrieveRestartAndBuildIfNotStored(
+	public FileRestartInfo retrieveRestartAndBuildIfNotStored(
 			final FileRestartInfoIdentifier fileRestartInfoIdentifier,
 			final String localFilePath, final int numberOfThreads)
 			throws FileRestartManagementException {
@@ -46,27 +78,29 @@ public abstract class AbstractRestartManager {
 			throw new IllegalArgumentException("null or empty localFilePath");
 		}
 
-		FileRestartInfo info = retrieveRestart(fileRestartInfoIdentifier);
-
-		if (info == null) {
-			log.info("no restart saved, create and store a new one");
-			info = new FileRestartInfo();
-			info.setIrodsAbsolutePath(fileRestartInfoIdentifier
-					.getAbsolutePath());
-			info.setIrodsAccountIdentifier(fileRestartInfoIdentifier
-					.getIrodsAccountIdentifier());
-			info.setRestartType(fileRestartInfoIdentifier.getRestartType());
-			info.setLocalAbsolutePath(localFilePath);
-			/*
-			 * Add a segment for each row
-			 */
-			for (int i = 0; i < numberOfThreads; i++) {
-				info.getFileRestartDataSegments().add(
-						new FileRestartDataSegment(i));
+		synchronized (lockFor(fileRestartInfoIdentifier)) {
+			FileRestartInfo info = retrieveRestart(fileRestartInfoIdentifier);
+
+			if (info == null) {
+				log.info("no restart saved, create and store a new one");
+				info = new FileRestartInfo();
+				info.setIrodsAbsolutePath(fileRestartInfoIdentifier
+						.getAbsolutePath());
+				info.setIrodsAccountIdentifier(fileRestartInfoIdentifier
+						.getIrodsAccountIdentifier());
+				info.setRestartType(fileRestartInfoIdentifier.getRestartType());
+				info.setLocalAbsolutePath(localFilePath);
+				/*
+				 * Add a segment for each row
+				 */
+				for (int i = 0; i < numberOfThreads; i++) {
+					info.getFileRestartDataSegments().add(
+							new FileRestartDataSegment(i));
+				}
+				storeRestart(info);
 			}
-			storeRestart(info);
+			return info;
 		}
-		return info;
 	}
 
 	/**
@@ -120,7 +154,7 @@ public abstract class AbstractRestartManager {
 			throw new IllegalArgumentException("null identifier");
 		}
 
-		synchronized (this) {
+		synchronized (lockFor(fileRestartInfoIdentifier)) {
 			FileRestartInfo info = retrieveRestart(fileRestartInfoIdentifier);
 			if (info == null) {
 				throw new FileRestartManagementException(
@@ -145,7 +179,7 @@ public abstract class AbstractRestartManager {
 			}
 
 			dataSegment.setLength(dataSegment.getLength() + length);
-			storeRestart(info);
+			storeSegment(info, dataSegment);
 		}
 
 	}
@@ -171,7 +205,7 @@ public abstract class AbstractRestartManager {
 			throw new IllegalArgumentException("null identifier");
 		}
 
-		synchronized (this) {
+		synchronized (lockFor(fileRestartInfoIdentifier)) {
 			FileRestartInfo info = retrieveRestart(fileRestartInfoIdentifier);
 			if (info == null) {
 				throw new FileRestartManagementException(
@@ -187,11 +221,30 @@ public abstract class AbstractRestartManager {
 					.getFileRestartDataSegments().get(threadNumber);
 			dataSegment.setOffset(offset);
 			dataSegment.setLength(0);
-			storeRestart(info);
+			storeSegment(info, dataSegment);
 		}
 
 	}
 
+	/**
+	 * Store a change to one segment of a restart info that is already stored.
+	 * This is called with the lock for the restart info held. By default the
+	 * whole restart info is stored again, implementations that can record the
+	 * segment alone may override this.
+	 *
+	 * @param fileRestartInfo
+	 *            {@link FileRestartInfo} that holds the segment, already
+	 *            changed
+	 * @param fileRestartDataSegment
+	 *            {@link FileRestartDataSegment} that changed
+	 * @throws FileRestartManagementException
+	 */
+	protected void storeSegment(final FileRestartInfo fileRestartInfo,
+			final FileRestartDataSegment fileRestartDataSegment)
+			throws FileRestartManagementException {
+		storeRestart(fileRestartInfo);
+	}
+
 	/**
 	 * Store the restart information
 	 *
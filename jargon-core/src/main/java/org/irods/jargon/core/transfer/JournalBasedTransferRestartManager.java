@@ -0,0 +1,677 @@
+package org.irods.jargon.core.transfer;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.irods.jargon.core.connection.ConnectionConstants;
+import org.irods.jargon.core.transfer.FileRestartInfo.RestartStatus;
+import org.irods.jargon.core.transfer.FileRestartInfo.RestartType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Restart manager that keeps restart info in memory and records every change
+ * in an append-only journal file, so restarts survive the JVM. On creation
+ * the journal is read back to rebuild the restart info, so a transfer cut off
+ * by a crash or a redeploy resumes from its last recorded segments instead of
+ * starting over.
+ * <p>
+ * Each change is one record of a length, the change, and a CRC32 of the
+ * change, written in a single write. A record cut short by a crash, or one
+ * that fails its check, ends the journal when it is read back, and is cut off
+ * the file. Changes to a segment are recorded alone rather than as the whole
+ * restart info. Once enough records have been written, the journal is
+ * compacted by writing the live restart info to a new file and moving it over
+ * the old one.
+ * <p>
+ * By default each record is forced to the disk before the update returns.
+ * Updates happen once per segment handed out by iRODS, not per buffer, so this
+ * is not a large cost.
+ * <p>
+ * Only one manager may use a journal directory at a time. A lock is taken on a
+ * lock file next to the journal, which is never moved by compaction, and held
+ * until the manager is closed. A second manager on the same directory, in this
+ * JVM or another, fails with a {@link RestartJournalInUseException}.
+ */
+public class JournalBasedTransferRestartManager extends AbstractRestartManager {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(JournalBasedTransferRestartManager.class);
+
+	/**
+	 * Name of the journal in the journal directory
+	 */
+	public static final String JOURNAL_FILE_NAME = "jargon-restart.journal";
+
+	/**
+	 * Name of the file locked in the journal directory while a manager uses
+	 * the journal
+	 */
+	public static final String LOCK_FILE_NAME = JOURNAL_FILE_NAME + ".lock";
+
+	/**
+	 * Records written before the journal is compacted, unless most of them
+	 * are still live
+	 */
+	public static final int DEFAULT_COMPACTION_THRESHOLD = 10000;
+
+	private static final byte STORE_RECORD = 1;
+	private static final byte SEGMENT_RECORD = 2;
+	private static final byte DELETE_RECORD = 3;
+
+	/**
+	 * A record longer than this can only be a damaged length
+	 */
+	private static final int MAX_RECORD_LENGTH = 16 * 1024 * 1024;
+
+	private final ConcurrentHashMap<FileRestartInfoIdentifier, FileRestartInfo> restartInfos = new ConcurrentHashMap<FileRestartInfoIdentifier, FileRestartInfo>();
+	private final File journalFile;
+	private final boolean forceWrites;
+	private final int compactionThreshold;
+
+	/**
+	 * Guards the journal channel, taken after the lock for a restart info,
+	 * never before
+	 */
+	private final Object journalLock = new Object();
+	private FileChannel journal;
+	private FileChannel lockChannel;
+	private int recordsSinceCompaction = 0;
+
+	/**
+	 * Create a manager with its journal in the given directory, forcing each
+	 * record to the disk, and recover any restart info in the journal
+	 *
+	 * @param journalDirectory
+	 *            {@code File} with the directory to keep the journal in,
+	 *            created if needed
+	 * @throws FileRestartManagementException
+	 */
+	public JournalBasedTransferRestartManager(final File journalDirectory)
+			throws FileRestartManagementException {
+		this(journalDirectory, true, DEFAULT_COMPACTION_THRESHOLD);
+	}
+
+	/**
+	 * Create a manager with its journal in the given directory and recover any
+	 * restart info in the journal
+	 *
+	 * @param journalDirectory
+	 *            {@code File} with the directory to keep the journal in,
+	 *            created if needed
+	 * @param forceWrites
+	 *            {@code boolean} that is {@code true} to force each record to
+	 *            the disk before the update returns
+	 * @param compactionThreshold
+	 *            {@code int} with the records written before the journal is
+	 *            compacted
+	 * @throws RestartJournalInUseException
+	 *             if another manager holds the journal in the directory
+	 * @throws FileRestartManagementException
+	 */
+	public JournalBasedTransferRestartManager(final File journalDirectory,
+			final boolean forceWrites, final int compactionThreshold)
+			throws FileRestartManagementException {
+
+		super();
+
+		if (journalDirectory == null) {
+			throw new IllegalArgumentException("null journalDirectory");
+		}
+
+		if (compactionThreshold < 1) {
+			throw new IllegalArgumentException(
+					"compactionThreshold must be >= 1");
+		}
+
+		if (!journalDirectory.isDirectory() && !journalDirectory.mkdirs()) {
+			throw new FileRestartManagementException(
+					"unable to create restart journal directory:"
+							+ journalDirectory.getAbsolutePath());
+		}
+
+		journalFile = new File(journalDirectory, JOURNAL_FILE_NAME);
+		this.forceWrites = forceWrites;
+		this.compactionThreshold = compactionThreshold;
+
+		synchronized (journalLock) {
+			lockJournalDirectory(journalDirectory);
+			try {
+				journal = FileChannel.open(journalFile.toPath(),
+						StandardOpenOption.CREATE, StandardOpenOption.READ,
+						StandardOpenOption.WRITE);
+				recover();
+				compactIfNeeded();
+			} catch (IOException e) {
+				log.error("unable to open restart journal:{}", journalFile, e);
+				close();
+				throw new FileRestartManagementException(
+						"unable to open restart journal", e);
+			}
+		}
+	}
+
+	/**
+	 * Take the lock that keeps other managers off the journal, held until the
+	 * manager is closed
+	 */
+	private void lockJournalDirectory(final File journalDirectory)
+			throws FileRestartManagementException {
+		File lockFile = new File(journalDirectory, LOCK_FILE_NAME);
+		FileLock lock;
+		try {
+			lockChannel = FileChannel.open(lockFile.toPath(),
+					StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			try {
+				lock = lockChannel.tryLock();
+			} catch (OverlappingFileLockException e) {
+				// held by another manager in this JVM
+				lock = null;
+			}
+		} catch (IOException e) {
+			log.error("unable to lock restart journal:{}", lockFile, e);
+			close();
+			throw new FileRestartManagementException(
+					"unable to lock restart journal", e);
+		}
+
+		if (lock == null) {
+			log.warn("restart journal is in use by another manager:{}",
+					journalFile);
+			close();
+			throw new RestartJournalInUseException(
+					"restart journal is in use by another manager:"
+							+ journalFile.getAbsolutePath());
+		}
+	}
+
+	/**
+	 * Read the journal back into memory, cutting off any damaged tail
+	 */
+	private void recover() throws IOException {
+		log.info("recovering restart info from journal:{}", journalFile);
+		long size = journal.size();
+		long validEnd = 0L;
+		int records = 0;
+
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				Channels.newInputStream(journal.position(0L)), 65536));
+		CRC32 crc = new CRC32();
+
+		while (validEnd + 8 <= size) {
+			byte[] payload;
+			try {
+				int length = in.readInt();
+				if (length <= 0 || length > MAX_RECORD_LENGTH
+						|| validEnd + 8 + length > size) {
+					log.warn("damaged record length at:{}", validEnd);
+					break;
+				}
+				payload = new byte[length];
+				in.readFully(payload);
+				crc.reset();
+				crc.update(payload, 0, length);
+				if ((int) crc.getValue() != in.readInt()) {
+					log.warn("record failed its check at:{}", validEnd);
+					break;
+				}
+			} catch (EOFException e) {
+				log.warn("record cut short at:{}", validEnd);
+				break;
+			}
+
+			apply(payload);
+			validEnd += 8 + payload.length;
+			records++;
+		}
+
+		if (validEnd < size) {
+			log.warn(
+					"cutting {} bytes of incomplete records off the end of the restart journal",
+					size - validEnd);
+			journal.truncate(validEnd);
+		}
+
+		journal.position(validEnd);
+		recordsSinceCompaction = records;
+		log.info("recovered {} restarts from {} journal records",
+				restartInfos.size(), records);
+	}
+
+	/**
+	 * Apply one journal record to the restart info in memory
+	 */
+	private void apply(final byte[] payload) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				payload));
+		byte type = in.readByte();
+		FileRestartInfoIdentifier identifier = readIdentifier(in);
+
+		if (type == STORE_RECORD) {
+			FileRestartInfo info = new FileRestartInfo();
+			info.setIrodsAccountIdentifier(identifier
+					.getIrodsAccountIdentifier());
+			info.setIrodsAbsolutePath(identifier.getAbsolutePath());
+			info.setRestartType(identifier.getRestartType());
+			info.setLocalAbsolutePath(in.readUTF());
+			info.setRestartStatus(RestartStatus.valueOf(in.readUTF()));
+			info.setNumberRestarts(in.readInt());
+			int segments = in.readInt();
+			for (int i = 0; i < segments; i++) {
+				FileRestartDataSegment segment = new FileRestartDataSegment(
+						in.readInt());
+				segment.setOffset(in.readLong());
+				segment.setLength(in.readLong());
+				info.getFileRestartDataSegments().add(segment);
+			}
+			restartInfos.put(identifier, info);
+		} else if (type == SEGMENT_RECORD) {
+			FileRestartInfo info = restartInfos.get(identifier);
+			int threadNumber = in.readInt();
+			long offset = in.readLong();
+			long length = in.readLong();
+			if (info != null) {
+				for (FileRestartDataSegment segment : info
+						.getFileRestartDataSegments()) {
+					if (segment.getThreadNumber() == threadNumber) {
+						segment.setOffset(offset);
+						segment.setLength(length);
+						break;
+					}
+				}
+			}
+		} else if (type == DELETE_RECORD) {
+			restartInfos.remove(identifier);
+		} else {
+			throw new IOException("unknown restart journal record type:"
+					+ type);
+		}
+	}
+
+	private FileRestartInfoIdentifier readIdentifier(final DataInputStream in)
+			throws IOException {
+		FileRestartInfoIdentifier identifier = new FileRestartInfoIdentifier();
+		identifier.setIrodsAccountIdentifier(in.readUTF());
+		identifier.setAbsolutePath(in.readUTF());
+		identifier.setRestartType(RestartType.valueOf(in.readUTF()));
+		return identifier;
+	}
+
+	private void writeIdentifier(final DataOutputStream out,
+			final FileRestartInfoIdentifier identifier) throws IOException {
+		out.writeUTF(nullToEmpty(identifier.getIrodsAccountIdentifier()));
+		out.writeUTF(nullToEmpty(identifier.getAbsolutePath()));
+		out.writeUTF(identifier.getRestartType().name());
+	}
+
+	private static String nullToEmpty(final String value) {
+		return value == null ? "" : value;
+	}
+
+	private byte[] storeRecord(final FileRestartInfo fileRestartInfo)
+			throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeByte(STORE_RECORD);
+		writeIdentifier(out, fileRestartInfo.identifierFromThisInfo());
+		out.writeUTF(nullToEmpty(fileRestartInfo.getLocalAbsolutePath()));
+		out.writeUTF(fileRestartInfo.getRestartStatus().name());
+		out.writeInt(fileRestartInfo.getNumberRestarts());
+		out.writeInt(fileRestartInfo.getFileRestartDataSegments().size());
+		for (FileRestartDataSegment segment : fileRestartInfo
+				.getFileRestartDataSegments()) {
+			out.writeInt(segment.getThreadNumber());
+			out.writeLong(segment.getOffset());
+			out.writeLong(segment.getLength());
+		}
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Frame the record with its length and check, ready for one write
+	 */
+	private static ByteBuffer frame(final byte[] payload) {
+		CRC32 crc = new CRC32();
+		crc.update(payload, 0, payload.length);
+		ByteBuffer buffer = ByteBuffer.allocate(payload.length + 8);
+		buffer.putInt(payload.length);
+		buffer.put(payload);
+		buffer.putInt((int) crc.getValue());
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Add a record to the end of the journal
+	 */
+	private void append(final byte[] payload)
+			throws FileRestartManagementException {
+		ByteBuffer buffer = frame(payload);
+		synchronized (journalLock) {
+			if (journal == null) {
+				throw new FileRestartManagementException(
+						"restart journal is closed");
+			}
+			try {
+				while (buffer.hasRemaining()) {
+					journal.write(buffer);
+				}
+				if (forceWrites) {
+					journal.force(false);
+				}
+				recordsSinceCompaction++;
+				compactIfNeeded();
+			} catch (IOException e) {
+				log.error("unable to write restart journal", e);
+				throw new FileRestartManagementException(
+						"unable to write restart journal", e);
+			}
+		}
+	}
+
+	/**
+	 * Rewrite the journal as the live restart info once enough records have
+	 * been written and most of them are no longer needed. Called with the
+	 * journal lock held.
+	 * <p>
+	 * The locks of the restart infos are not taken, as updaters take them
+	 * before the journal lock. An update made while the live info is being
+	 * written waits for the journal lock, so its record follows the compacted
+	 * records in the new journal and is applied after them on recovery.
+	 */
+	private void compactIfNeeded() throws IOException {
+		if (recordsSinceCompaction < compactionThreshold
+				|| recordsSinceCompaction < 2 * restartInfos.size()) {
+			return;
+		}
+
+		log.info("compacting restart journal of {} records",
+				recordsSinceCompaction);
+
+		File compacted = new File(journalFile.getParentFile(),
+				JOURNAL_FILE_NAME + ".compact");
+		int records = 0;
+		FileChannel newJournal = FileChannel.open(compacted.toPath(),
+				StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		try {
+			for (FileRestartInfo info : restartInfos.values()) {
+				ByteBuffer buffer = frame(storeRecord(info));
+				while (buffer.hasRemaining()) {
+					newJournal.write(buffer);
+				}
+				records++;
+			}
+			newJournal.force(true);
+		} finally {
+			newJournal.close();
+		}
+
+		Files.move(compacted.toPath(), journalFile.toPath(),
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+
+		journal.close();
+		journal = FileChannel.open(journalFile.toPath(),
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		journal.position(journal.size());
+		recordsSinceCompaction = records;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.transfer.AbstractRestartManager#storeRestart(org
+	 * .irods.jargon.core.transfer.FileRestartInfo)
+	 */
+	@Override
+	public FileRestartInfoIdentifier storeRestart(
+			final FileRestartInfo fileRestartInfo)
+			throws FileRestartManagementException {
+
+		log.info("storeRestart()");
+		if (fileRestartInfo == null) {
+			throw new IllegalArgumentException("null fileRestartInfo");
+		}
+
+		FileRestartInfoIdentifier identifier = FileRestartInfoIdentifier
+				.instanceFromFileRestartInfo(fileRestartInfo);
+
+		synchronized (lockFor(identifier)) {
+			restartInfos.put(identifier, fileRestartInfo);
+			try {
+				append(storeRecord(fileRestartInfo));
+			} catch (IOException e) {
+				throw new FileRestartManagementException(
+						"unable to record restart", e);
+			}
+		}
+		return identifier;
+	}
+
+	/**
+	 * Record only the changed segment, called with the restart info lock held
+	 */
+	@Override
+	protected void storeSegment(final FileRestartInfo fileRestartInfo,
+			final FileRestartDataSegment fileRestartDataSegment)
+			throws FileRestartManagementException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeByte(SEGMENT_RECORD);
+			writeIdentifier(out, fileRestartInfo.identifierFromThisInfo());
+			out.writeInt(fileRestartDataSegment.getThreadNumber());
+			out.writeLong(fileRestartDataSegment.getOffset());
+			out.writeLong(fileRestartDataSegment.getLength());
+			out.flush();
+		} catch (IOException e) {
+			throw new FileRestartManagementException(
+					"unable to record segment", e);
+		}
+		append(bytes.toByteArray());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.transfer.AbstractRestartManager#deleteRestart(org
+	 * .irods.jargon.core.transfer.FileRestartInfoIdentifier)
+	 */
+	@Override
+	public void deleteRestart(
+			final FileRestartInfoIdentifier fileRestartInfoIdentifier)
+			throws FileRestartManagementException {
+
+		log.info("deleteRestart()");
+		if (fileRestartInfoIdentifier == null) {
+			throw new IllegalArgumentException("null fileRestartInfoIdentifier");
+		}
+
+		synchronized (lockFor(fileRestartInfoIdentifier)) {
+			if (restartInfos.remove(fileRestartInfoIdentifier) == null) {
+				return;
+			}
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+			DataOutputStream out = new DataOutputStream(bytes);
+			try {
+				out.writeByte(DELETE_RECORD);
+				writeIdentifier(out, fileRestartInfoIdentifier);
+				out.flush();
+			} catch (IOException e) {
+				throw new FileRestartManagementException(
+						"unable to record delete", e);
+			}
+			append(bytes.toByteArray());
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.transfer.AbstractRestartManager#retrieveRestart
+	 * (org.irods.jargon.core.transfer.FileRestartInfoIdentifier)
+	 */
+	@Override
+	public FileRestartInfo retrieveRestart(
+			final FileRestartInfoIdentifier fileRestartInfoIdentifier)
+			throws FileRestartManagementException {
+
+		log.info("retrieveRestart()");
+		if (fileRestartInfoIdentifier == null) {
+			throw new IllegalArgumentException("null fileRestartInfoIdentifier");
+		}
+		return restartInfos.get(fileRestartInfoIdentifier);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.transfer.AbstractRestartManager#updateSegment(org
+	 * .irods.jargon.core.transfer.FileRestartInfo,
+	 * org.irods.jargon.core.transfer.FileRestartDataSegment)
+	 */
+	@Override
+	public void updateSegment(final FileRestartInfo fileRestartInfo,
+			final FileRestartDataSegment fileRestartDataSegment)
+			throws FileRestartManagementException {
+
+		log.info("updateSegment()");
+
+		if (fileRestartInfo == null) {
+			throw new IllegalArgumentException("null fileRestartInfo");
+		}
+
+		if (fileRestartDataSegment == null) {
+			throw new IllegalArgumentException("null fileRestartDataSegment");
+		}
+
+		FileRestartInfoIdentifier identifier = fileRestartInfo
+				.identifierFromThisInfo();
+		synchronized (lockFor(identifier)) {
+			FileRestartInfo actualRestartInfo = retrieveRestart(identifier);
+			if (actualRestartInfo == null
+					|| actualRestartInfo.getFileRestartDataSegments().size() <= fileRestartDataSegment
+							.getThreadNumber()) {
+				log.error(
+						"fileRestartInfo does not contain the given segment:{}",
+						fileRestartInfo);
+				throw new FileRestartManagementException(
+						"unable to find segment");
+			}
+
+			FileRestartDataSegment actualSegment = actualRestartInfo
+					.getFileRestartDataSegments().get(
+							fileRestartDataSegment.getThreadNumber());
+			if (actualSegment.getThreadNumber() != fileRestartDataSegment
+					.getThreadNumber()) {
+				log.error(
+						"mismatch in thread number in update request for segment:{}",
+						fileRestartDataSegment);
+				throw new FileRestartManagementException(
+						"file segment does not match thread number");
+			}
+
+			actualRestartInfo.getFileRestartDataSegments().set(
+					actualSegment.getThreadNumber(), fileRestartDataSegment);
+			storeSegment(actualRestartInfo, fileRestartDataSegment);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.transfer.AbstractRestartManager#incrementRestartAttempts
+	 * (org.irods.jargon.core.transfer.FileRestartInfo)
+	 */
+	@Override
+	public FileRestartInfo incrementRestartAttempts(
+			final FileRestartInfo fileRestartInfo)
+			throws RestartFailedException, FileRestartManagementException {
+
+		log.info("incrementRestartAttempts()");
+		if (fileRestartInfo == null) {
+			log.info("no restart to increment, returning null");
+			return null;
+		}
+
+		FileRestartInfoIdentifier identifier = fileRestartInfo
+				.identifierFromThisInfo();
+		synchronized (lockFor(identifier)) {
+			FileRestartInfo actualRestartInfo = retrieveRestart(identifier);
+			if (actualRestartInfo == null) {
+				log.error("nothing to increment!");
+				return null;
+			}
+			int currentRestarts = actualRestartInfo.getNumberRestarts() + 1;
+			if (currentRestarts > ConnectionConstants.MAX_FILE_RESTART_ATTEMPTS) {
+				log.error("violates max restart attempts, go ahead and fail the restart attempt");
+				throw new RestartFailedException(
+						"restart failed with too many attempts");
+			}
+			actualRestartInfo.setNumberRestarts(currentRestarts);
+			storeRestart(actualRestartInfo);
+			return actualRestartInfo;
+		}
+	}
+
+	/**
+	 * Close the journal and give up its lock. Restart info already recorded is
+	 * kept for the next manager opened on the same directory.
+	 */
+	public void close() {
+		synchronized (journalLock) {
+			if (journal != null) {
+				try {
+					journal.close();
+				} catch (IOException e) {
+					log.warn("error closing restart journal, ignored", e);
+				}
+				journal = null;
+			}
+
+			if (lockChannel != null) {
+				try {
+					// releases the lock
+					lockChannel.close();
+				} catch (IOException e) {
+					log.warn("error releasing restart journal lock, ignored",
+							e);
+				}
+				lockChannel = null;
+			}
+		}
+	}
+
+	/**
+	 * @return {@code File} with the journal
+	 */
+	public File getJournalFile() {
+		return journalFile;
+	}
+
+}
@@ -10,8 +10,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Simple restart manager that exists in an in-memory map. This version is
- * fairly naive and doesn't really support concurrent restarts.
+ * Simple restart manager that exists in an in-memory map. Restarts for
+ * different files are updated independently, and are lost when the JVM exits,
+ * see {@link JournalBasedTransferRestartManager} to keep them.
  *
  *
  * @author Mike Conway - DICE
@@ -22,8 +23,7 @@ public class MemoryBasedTransferRestartManager extends AbstractRestartManager {
 	private static final Logger log = LoggerFactory
 			.getLogger(MemoryBasedTransferRestartManager.class);
 
-	private final ConcurrentHashMap<FileRestartInfoIdentifier, FileRestartInfo> cacheOfRestartInfo = new ConcurrentHashMap<FileRestartInfoIdentifier, FileRestartInfo>(
-			8, 0.9f, 1);
+	private final ConcurrentHashMap<FileRestartInfoIdentifier, FileRestartInfo> cacheOfRestartInfo = new ConcurrentHashMap<FileRestartInfoIdentifier, FileRestartInfo>();
 
 	public MemoryBasedTransferRestartManager() {
 	}
@@ -45,13 +45,9 @@ public class MemoryBasedTransferRestartManager extends AbstractRestartManager {
 			throw new IllegalArgumentException("null fileRestartInfo");
 		}
 
-		FileRestartInfoIdentifier identifier;
-
-		synchronized (this) {
-			identifier = FileRestartInfoIdentifier
-					.instanceFromFileRestartInfo(fileRestartInfo);
-			cacheOfRestartInfo.put(identifier, fileRestartInfo);
-		}
+		FileRestartInfoIdentifier identifier = FileRestartInfoIdentifier
+				.instanceFromFileRestartInfo(fileRestartInfo);
+		cacheOfRestartInfo.put(identifier, fileRestartInfo);
 		return identifier;
 
 	}
@@ -73,9 +69,7 @@ public class MemoryBasedTransferRestartManager extends AbstractRestartManager {
 			throw new IllegalArgumentException("null fileRestartInfoIdentifier");
 		}
 
-		synchronized (this) {
-			cacheOfRestartInfo.remove(fileRestartInfoIdentifier);
-		}
+		cacheOfRestartInfo.remove(fileRestartInfoIdentifier);
 
 	}
 
@@ -95,9 +89,7 @@ public class MemoryBasedTransferRestartManager extends AbstractRestartManager {
 		if (fileRestartInfoIdentifier == null) {
 			throw new IllegalArgumentException("null fileRestartInfoIdentifier");
 		}
-		synchronized (this) {
-			return cacheOfRestartInfo.get(fileRestartInfoIdentifier);
-		}
+		return cacheOfRestartInfo.get(fileRestartInfoIdentifier);
 
 	}
 
@@ -127,7 +119,7 @@ public class MemoryBasedTransferRestartManager extends AbstractRestartManager {
 		log.info("updating fileRestartInfo:{}", fileRestartInfo);
 		log.info("updating fileRestartDataSegment:{}", fileRestartDataSegment);
 
-		synchronized (this) {
+		synchronized (lockFor(fileRestartInfo.identifierFromThisInfo())) {
 			FileRestartInfo actualRestartInfo = retrieveRestart(fileRestartInfo
 					.identifierFromThisInfo());
 			if (actualRestartInfo.getFileRestartDataSegments().size() < fileRestartDataSegment
@@ -178,7 +170,7 @@ public class MemoryBasedTransferRestartManager extends AbstractRestartManager {
 		}
 		log.info("fileRestartInfo:{}", fileRestartInfo);
 
-		synchronized (this) {
+		synchronized (lockFor(fileRestartInfo.identifierFromThisInfo())) {
 			FileRestartInfo actualRestartInfo = retrieveRestart(fileRestartInfo
 					.identifierFromThisInfo());
 			if (actualRestartInfo == null) {
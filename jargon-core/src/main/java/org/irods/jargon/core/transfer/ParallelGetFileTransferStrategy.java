@@ -175,7 +175,7 @@ public final class ParallelGetFileTransferStrategy extends
 
 			for (Future<ParallelTransferResult> transferState : transferThreadStates) {
 				try {
-					transferState.get();
+					addTransferResult(transferState.get());
 				} catch (ExecutionException e) {
 					throw new JargonException(e.getCause());
 				}
@@ -3,21 +3,16 @@
  */
 package org.irods.jargon.core.transfer;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.RandomAccessFile;
-import java.net.InetSocketAddress;
-import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.concurrent.Callable;
 
 import org.irods.jargon.core.connection.ConnectionProgressStatus;
 import org.irods.jargon.core.exception.JargonException;
-import org.irods.jargon.core.exception.JargonRuntimeException;
 import org.irods.jargon.core.transfer.encrypt.ParallelDecryptionCipherWrapper;
-import org.irods.jargon.core.utils.Host;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,6 +20,16 @@ import org.slf4j.LoggerFactory;
  * Handle parallel file transfer get operation within Jargon. See
  * {@link org.irods.jargon.core.pub.DataTransferOperations} for the public API
  * to transfer files.
+ * <p>
+ * Data is read from the socket into one direct buffer per thread, reused for
+ * each chunk, and written to the local file with positional
+ * {@code FileChannel} writes, so the bytes are not copied through the heap
+ * when the transfer is not encrypted. Zero copy does not apply to gets, as
+ * {@code transferFrom} from a socket copies through a small buffer inside the
+ * JDK and is slower than this path. With staged encryption configured, encrypted
+ * chunks are decrypted and written on the shared crypto threads of a
+ * {@link StagedEncryptionPipeline} while this thread reads the ones after
+ * them.
  *
  * @author Mike Conway - DICE (www.irods.org)
  *
@@ -87,82 +92,17 @@ public final class ParallelGetTransferThread extends
 	@Override
 	public ParallelTransferResult call() throws JargonException {
 		try {
-			Socket s = new Socket();
-			if (parallelGetFileTransferStrategy.getPipelineConfiguration()
-					.getParallelTcpSendWindowSize() > 0) {
-				s.setSendBufferSize(parallelGetFileTransferStrategy
-						.getPipelineConfiguration()
-						.getParallelTcpSendWindowSize() * 1024);
-			}
-
-			if (parallelGetFileTransferStrategy.getPipelineConfiguration()
-					.getParallelTcpReceiveWindowSize() > 0) {
-				s.setReceiveBufferSize(parallelGetFileTransferStrategy
-						.getPipelineConfiguration()
-						.getParallelTcpReceiveWindowSize() * 1024);
-			}
-
-			s.setPerformancePreferences(parallelGetFileTransferStrategy
-					.getPipelineConfiguration()
-					.getParallelTcpPerformancePrefsConnectionTime(),
-					parallelGetFileTransferStrategy.getPipelineConfiguration()
-							.getParallelTcpPerformancePrefsLatency(),
-					parallelGetFileTransferStrategy.getPipelineConfiguration()
-							.getParallelTcpPerformancePrefsBandwidth());
-
-			InetSocketAddress address = new InetSocketAddress(
-					parallelGetFileTransferStrategy.getHost(),
-					parallelGetFileTransferStrategy.getPort());
-
-			s.setSoTimeout(parallelGetFileTransferStrategy
-					.getParallelSocketTimeoutInSecs() * 1000);
-
-			s.setKeepAlive(parallelGetFileTransferStrategy
-					.getPipelineConfiguration().isParallelTcpKeepAlive());
-
-			// assume reuse, nodelay
-			s.setReuseAddress(true);
-			s.setTcpNoDelay(false);
-			s.connect(address);
-			setS(s);
-			byte[] outputBuffer = new byte[4];
-			Host.copyInt(parallelGetFileTransferStrategy.getPassword(),
-					outputBuffer);
-
-			int inputBuffSize = parallelGetFileTransferStrategy
-					.getJargonProperties().getInternalInputStreamBufferSize();
-			int outputBuffSize = parallelGetFileTransferStrategy
-					.getJargonProperties().getInternalOutputStreamBufferSize();
-
-			if (inputBuffSize < 0) {
-				setIn(getS().getInputStream());
-			} else if (inputBuffSize == 0) {
-				setIn(new BufferedInputStream(getS().getInputStream()));
-			} else {
-				setIn(new BufferedInputStream(getS().getInputStream(),
-						inputBuffSize));
-			}
-
-			if (outputBuffSize < 0) {
-				setOut(getS().getOutputStream());
-			} else if (outputBuffSize == 0) {
-				setOut(new BufferedOutputStream(getS().getOutputStream()));
-			} else {
-				setOut(new BufferedOutputStream(getS().getOutputStream(),
-						outputBuffSize));
-			}
+			openChannel(parallelGetFileTransferStrategy);
 
 			log.debug("socket established, sending cookie to iRODS listener");
-			getOut().write(outputBuffer);
-			getOut().flush();
+			long startNanos = System.nanoTime();
+			getChannel().writeInt(parallelGetFileTransferStrategy.getPassword());
 			log.debug("cookie written");
 			log.info("sockets are open and password sent, now begin the get operation");
 
 			get();
 			log.info("exiting get and returning the finish object");
-			ParallelTransferResult result = new ParallelTransferResult();
-			result.transferException = getExceptionInTransfer();
-			return result;
+			return buildResult(startNanos);
 
 		} catch (UnknownHostException e) {
 			log.error("Unknown host: {}",
@@ -187,13 +127,14 @@ public final class ParallelGetTransferThread extends
 			log.info("connection listener configured, will produce callbacks");
 		}
 
-		RandomAccessFile local = null;
+		FileChannel local = null;
 
 		try {
-			log.info("opening local randomAccessFile");
-			local = new RandomAccessFile(
-					parallelGetFileTransferStrategy.getLocalFile(), "rw");
-			log.info("random access file opened rw mode");
+			log.info("opening local file channel");
+			local = FileChannel.open(parallelGetFileTransferStrategy
+					.getLocalFile().toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE);
+			log.info("file channel opened for write");
 			processingLoopForGetData(local);
 
 		} catch (JargonException je) {
@@ -203,7 +144,7 @@ public final class ParallelGetTransferThread extends
 			log.error("Exception closing local file", e);
 			throw new JargonException("IOException closing local file");
 		} finally {
-			log.info("parallel thread closing out local random access file stream");
+			log.info("parallel thread closing out local file channel");
 			try {
 				log.info("closing sockets, this close eats exceptions");
 				close();
@@ -221,7 +162,7 @@ public final class ParallelGetTransferThread extends
 	 * @param local
 	 * @throws JargonException
 	 */
-	private void processingLoopForGetData(final RandomAccessFile local)
+	private void processingLoopForGetData(final FileChannel local)
 			throws JargonException {
 		// log.info("reading header info...");
 
@@ -240,10 +181,6 @@ public final class ParallelGetTransferThread extends
 		log.info(">>>new offset:{}", offset);
 		log.info(">>>new length:{}", length);
 
-		// Holds all the data for transfer
-		byte[] buffer = null;
-		int read = 0;
-
 		if (operation != GET_OPR) {
 			log.error("Parallel transfer expected GET,  server requested {}",
 					operation);
@@ -252,10 +189,31 @@ public final class ParallelGetTransferThread extends
 							+ operation);
 		}
 
+		if (parallelGetFileTransferStrategy.doStagedEncryption()) {
+			stagedProcessingLoopForGetData(local, offset, length);
+			return;
+		}
+
+		/*
+		 * c code - size_t buf_size = ( 2 * TRANS_BUF_SZ ) * sizeof( unsigned
+		 * char ), allocated once and reused for each chunk
+		 */
+		int chunkSize = parallelGetFileTransferStrategy.getJargonProperties()
+				.getParallelCopyBufferSize();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(chunkSize);
+
+		/*
+		 * when decrypting, each chunk from iRODS is read into this buffer and
+		 * decrypted into the copy buffer, both grown if iRODS sends a larger
+		 * chunk than configured here
+		 */
+		ByteBuffer encryptedBuffer = null;
+		int read = 0;
+
 		log.info("seeking to offset: {}", offset);
 		try {
 
-			seekToOffset(local, offset);
+			long position = seekToOffset(0L, offset);
 
 			long totalWrittenSinceLastRestartUpdate = 0;
 
@@ -282,54 +240,75 @@ public final class ParallelGetTransferThread extends
 					log.debug("new size of encrypted traffic:{}", newSize);
 
 				} else {
-					newSize = Math.min(parallelGetFileTransferStrategy
-							.getJargonProperties().getParallelCopyBufferSize(),
-							(int) length);
+					newSize = (int) Math.min(chunkSize, length);
 					log.debug("newSize of non-encrypted traffic:{}", newSize);
 
 				}
 
 				if (newSize <= 0) {
 					return;
-				} else {
-					// c code - size_t buf_size = ( 2 * TRANS_BUF_SZ ) * sizeof(
-					// unsigned char );
-					buffer = new byte[newSize];
 				}
 
-				read = myRead(getIn(), buffer, newSize);
-
 				/*
-				 * If encrypted, strip off the iv and decrypt before writing
+				 * If encrypted, decrypt the chunk, skipping the iv, into the
+				 * copy buffer before writing
 				 */
 
+				ByteBuffer data = null;
 				if (parallelGetFileTransferStrategy.doEncryption()) {
-					buffer = this.parallelDecryptionCipherWrapper
-							.decrypt(buffer);
-					read = buffer.length;
-
+					if (encryptedBuffer == null
+							|| encryptedBuffer.capacity() < newSize) {
+						encryptedBuffer = ByteBuffer.allocateDirect(newSize);
+					}
+					if (buffer.capacity() < newSize) {
+						buffer = ByteBuffer.allocateDirect(newSize);
+					}
+					encryptedBuffer.clear();
+					encryptedBuffer.limit(newSize);
+					getChannel().readFully(encryptedBuffer);
+					encryptedBuffer.flip();
+					buffer.clear();
+					parallelDecryptionCipherWrapper.decrypt(encryptedBuffer,
+							buffer);
+					buffer.flip();
+					data = buffer;
+					read = data.remaining();
+				} else {
+					buffer.clear();
+					buffer.limit(newSize);
+					getChannel().readFully(buffer);
+					buffer.flip();
+					data = buffer;
+					read = data.remaining();
 				}
 
 				totalWrittenSinceLastRestartUpdate += read;
 
 				if (read > 0) {
 					length -= read;
-					if (length == 0) {
+					addBytesTransferred(read);
+					if (length < 0) {
+						String msg = "length < 0 passed in header from iRODS during parallel get operation";
+						log.error(msg);
+						throw new JargonException(msg);
+					}
 
-						local.write(buffer, 0, read);
+					position = writeAtPosition(local, data, position);
+
+					/*
+					 * Make an intra-file status call-back if a listener is
+					 * configured
+					 */
+					if (parallelGetFileTransferStrategy
+							.getConnectionProgressStatusListener() != null) {
+						parallelGetFileTransferStrategy
+								.getConnectionProgressStatusListener()
+								.connectionProgressStatusCallback(
+										ConnectionProgressStatus
+												.instanceForReceive(read));
+					}
 
-						/*
-						 * Make an intra-file status call-back if a listener is
-						 * configured
-						 */
-						if (parallelGetFileTransferStrategy
-								.getConnectionProgressStatusListener() != null) {
-							parallelGetFileTransferStrategy
-									.getConnectionProgressStatusListener()
-									.connectionProgressStatusCallback(
-											ConnectionProgressStatus
-													.instanceForReceive(read));
-						}
+					if (length == 0) {
 
 						if (parallelGetFileTransferStrategy
 								.getFileRestartInfo() != null) {
@@ -363,27 +342,7 @@ public final class ParallelGetTransferThread extends
 						 * If restarting, maintain a reference to the offset
 						 */
 
-						seekToOffset(local, offset);
-
-					} else if (length < 0) {
-						String msg = "length < 0 passed in header from iRODS during parallel get operation";
-						log.error(msg);
-						throw new JargonException(msg);
-					} else {
-
-						local.write(buffer, 0, read);
-						/*
-						 * Make an intra-file status call-back if a listener is
-						 * configured
-						 */
-						if (parallelGetFileTransferStrategy
-								.getConnectionProgressStatusListener() != null) {
-							parallelGetFileTransferStrategy
-									.getConnectionProgressStatusListener()
-									.connectionProgressStatusCallback(
-											ConnectionProgressStatus
-													.instanceForReceive(read));
-						}
+						position = seekToOffset(position, offset);
 
 					}
 				} else {
@@ -401,6 +360,8 @@ public final class ParallelGetTransferThread extends
 					parallelGetFileTransferStrategy.toString());
 			throw new JargonException(
 					IO_EXCEPTION_OCCURRED_DURING_PARALLEL_FILE_TRANSFER, e);
+		} catch (JargonException je) {
+			throw je;
 		} catch (Throwable e) {
 			log.error("exception in parallel transfer", e);
 			throw new JargonException(
@@ -408,70 +369,179 @@ public final class ParallelGetTransferThread extends
 		}
 	}
 
-	private int myRead(final InputStream in, final byte[] buffer,
-			final int length) throws IOException, JargonException {
-		int myLength = length;
-		int ptr = 0;
-		int read = 0;
-		int totalRead = 0;
+	/**
+	 * Receive encrypted data, handing each chunk to the crypto threads to be
+	 * decrypted and written to the local file while the next one is read. The
+	 * length of each chunk's plaintext is worked out as it is read, as that
+	 * decides whether another chunk or the next header follows.
+	 *
+	 * @param local
+	 *            {@code FileChannel} for the local file
+	 * @param offset
+	 *            {@code long} with the offset from the first header
+	 * @param length
+	 *            {@code long} with the length from the first header
+	 * @throws JargonException
+	 */
+	private void stagedProcessingLoopForGetData(final FileChannel local,
+			long offset, long length) throws JargonException {
+
+		StagedEncryptionPipeline pipeline = new StagedEncryptionPipeline(
+				StagedEncryptionPipeline.DEFAULT_DEPTH);
+		StagedEncryptionPipeline.ChunkWork decryptAndWrite = new StagedEncryptionPipeline.ChunkWork() {
+
+			@Override
+			public void process(final StagedEncryptionPipeline.Chunk chunk)
+					throws IOException, JargonException {
+				chunk.plain.clear();
+				parallelDecryptionCipherWrapper.decrypt(chunk.encrypted,
+						chunk.plain);
+				chunk.plain.flip();
+				writeAtPosition(local, chunk.plain, chunk.position);
+			}
+		};
 
-		if (buffer.length < length) {
-			throw new JargonException("attempting to read more than buffer");
-		}
+		log.info("seeking to offset: {}", offset);
+		try {
 
-		while (myLength > 0) {
-			log.info(">>>>>>>>>>>>> top of while, my length:{} <<<<<<<<<<<",
-					myLength);
-			if (ptr > buffer.length) {
-				log.error("ptr out of synch");
-				log.error("buffer size:{}", buffer.length);
-				log.error("ptr:{}", ptr);
-				log.error("myLength:{}", myLength);
-				log.error("totalRead:{}", totalRead);
-				throw new JargonException(
-						"pointer is pointing out of range of the buffer");
-			}
+			long position = seekToOffset(0L, offset);
+			long totalWrittenSinceLastRestartUpdate = 0;
 
-			log.info("===========================");
-			log.info("ptr:{}", ptr);
-			log.info("myLength:{}", myLength);
+			while (length > 0) {
 
-			read = in.read(buffer, ptr, myLength);
+				if (Thread.interrupted()) {
+					throw new IOException(
+							"interrupted, consider connection corrupted and return IOException to clear");
+				}
 
-			log.info(">>> read:{}", read);
+				// length is littleEndian
+				int newSize = Integer.reverseBytes(readInt());
+				log.debug("new size of encrypted traffic:{}", newSize);
 
-			if (read < 0) {
-				log.error("read < 0");
-				break;
-			}
+				if (newSize <= 0) {
+					break;
+				}
+
+				StagedEncryptionPipeline.Chunk chunk = pipeline.acquire(null);
+				chunk.ensureCapacity(newSize, newSize);
+				chunk.encrypted.clear();
+				chunk.encrypted.limit(newSize);
+				getChannel().readFully(chunk.encrypted);
+				chunk.encrypted.flip();
+
+				int read = parallelDecryptionCipherWrapper
+						.getDecryptedLength(chunk.encrypted);
+				if (read <= 0) {
+					log.warn("intercepted a loop condition on parallel file get, length is > 0 but I just read and got nothing...breaking...");
+					throw new JargonException(
+							"possible loop condition in parallel file get");
+				}
+
+				length -= read;
+				if (length < 0) {
+					String msg = "length < 0 passed in header from iRODS during parallel get operation";
+					log.error(msg);
+					throw new JargonException(msg);
+				}
+
+				chunk.position = position;
+				chunk.plainLength = read;
+				pipeline.submit(chunk, decryptAndWrite);
+				position += read;
+				addBytesTransferred(read);
+				totalWrittenSinceLastRestartUpdate += read;
+
+				if (parallelGetFileTransferStrategy
+						.getConnectionProgressStatusListener() != null) {
+					parallelGetFileTransferStrategy
+							.getConnectionProgressStatusListener()
+							.connectionProgressStatusCallback(
+									ConnectionProgressStatus
+											.instanceForReceive(read));
+				}
+
+				if (length == 0) {
+
+					// the segment is only done once it is in the file
+					pipeline.drain(null);
+
+					if (parallelGetFileTransferStrategy.getFileRestartInfo() != null) {
+
+						parallelGetFileTransferStrategy.getRestartManager()
+								.updateLengthForSegment(
+										parallelGetFileTransferStrategy
+												.getFileRestartInfo()
+												.identifierFromThisInfo(),
+										getThreadNumber(),
+										totalWrittenSinceLastRestartUpdate);
+						totalWrittenSinceLastRestartUpdate = 0;
+						log.debug("signal storage of new info");
+
+					}
+
+					// read the next header
+					int operation = readInt();
+					readInt();
+					offset = readLong();
+					length = readLong();
+
+					log.info(">>>new offset:{}", offset);
+					log.info(">>>new length:{}", length);
 
-			myLength -= read;
-			totalRead += read;
-			ptr += read;
+					if (operation == DONE_OPR) {
+						break;
+					}
+
+					position = seekToOffset(position, offset);
+				}
+			}
 
-			log.info("total read now:{}", totalRead);
-			log.info("out of original length:{}", length);
-			log.info("makes my length:{}", myLength);
+			pipeline.drain(null);
 
+		} catch (IOException e) {
+			log.error(IO_EXEPTION_IN_PARALLEL_TRANSFER,
+					parallelGetFileTransferStrategy.toString());
+			throw new JargonException(
+					IO_EXCEPTION_OCCURRED_DURING_PARALLEL_FILE_TRANSFER, e);
+		} catch (JargonException je) {
+			throw je;
+		} catch (Throwable e) {
+			log.error("exception in parallel transfer", e);
+			throw new JargonException(
+					"unexpected exception in parallel transfer", e);
+		} finally {
+			pipeline.cancel();
 		}
+	}
 
-		if (totalRead != length) {
-			log.error("did not read expected length in myRead()");
-			throw new JargonException("did not read expected length");
+	/**
+	 * Write all of the data to the local file at the given position, other
+	 * threads write to their own segments of the same file at the same time
+	 *
+	 * @return {@code long} with the position after the data
+	 */
+	private long writeAtPosition(final FileChannel local,
+			final ByteBuffer data, final long position) throws IOException {
+		long current = position;
+		while (data.hasRemaining()) {
+			current += local.write(data, current);
 		}
-		return totalRead;
+		return current;
 	}
 
 	/**
-	 * @param local
+	 * @param position
+	 *            {@code long} with the current position in the local file
 	 * @param offset
-	 * @throws JargonRuntimeException
+	 *            {@code long} with the offset sent by iRODS
+	 * @return {@code long} with the position to write the next data
+	 * @throws JargonException
 	 */
-	private void seekToOffset(final RandomAccessFile local, final long offset)
+	private long seekToOffset(final long position, final long offset)
 			throws JargonException {
 		if (offset < 0) {
-			log.error("offset < 0 in transfer get() operation, return from get method");
-			return;
+			log.error("offset < 0 in transfer get() operation, keep current position");
+			return position;
 
 		} else if (offset > 0) {
 
@@ -483,20 +553,7 @@ public final class ParallelGetTransferThread extends
 										.identifierFromThisInfo(),
 								getThreadNumber(), offset);
 			}
-
-			try {
-				if (offset == local.getFilePointer()) {
-					return; // at current location
-				}
-				local.seek(offset);
-
-				// log.debug("seek completed");
-			} catch (Exception e) {
-				log.error(IO_EXEPTION_IN_PARALLEL_TRANSFER,
-						parallelGetFileTransferStrategy.toString());
-				throw new JargonException(
-						IO_EXCEPTION_OCCURRED_DURING_PARALLEL_FILE_TRANSFER, e);
-			}
 		}
+		return offset;
 	}
 }
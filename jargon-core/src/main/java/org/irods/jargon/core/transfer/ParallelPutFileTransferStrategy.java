@@ -183,7 +183,7 @@ public final class ParallelPutFileTransferStrategy extends
 
 			for (Future<ParallelTransferResult> transferState : transferThreadStates) {
 				try {
-					transferState.get();
+					addTransferResult(transferState.get());
 				} catch (ExecutionException e) {
 					throw new JargonException(e.getCause());
 				}
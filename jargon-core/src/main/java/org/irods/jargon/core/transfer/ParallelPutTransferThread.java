@@ -1,21 +1,15 @@
 package org.irods.jargon.core.transfer;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
-import java.net.InetSocketAddress;
-import java.net.Socket;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.concurrent.Callable;
 
 import org.irods.jargon.core.connection.ConnectionConstants;
 import org.irods.jargon.core.connection.ConnectionProgressStatus;
 import org.irods.jargon.core.exception.JargonException;
-import org.irods.jargon.core.transfer.encrypt.EncryptionBuffer;
 import org.irods.jargon.core.transfer.encrypt.ParallelEncryptionCipherWrapper;
-import org.irods.jargon.core.utils.Host;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,6 +18,15 @@ import org.slf4j.LoggerFactory;
  * and is not meant for public API use. See
  * {@link org.irods.jargon.core.pub.DataTransferOperations} for public API used
  * for file transfers.
+ * <p>
+ * Data is read from the local file with positional {@code FileChannel} reads
+ * into one direct buffer per thread, reused for each chunk, and written from
+ * that buffer straight to the socket when the transfer is not encrypted. With
+ * zero copy configured in the jargon properties, unencrypted segments are
+ * instead handed from the file to the socket with {@code transferTo}. With
+ * staged encryption configured, encrypted chunks are read and encrypted on the
+ * shared crypto threads of a {@link StagedEncryptionPipeline} while this thread
+ * sends the ones before them.
  *
  * @author Mike Conway - DICE (www.irods.org)
  *
@@ -33,7 +36,7 @@ AbstractParallelTransferThread implements
 Callable<ParallelTransferResult> {
 
 	private final ParallelPutFileTransferStrategy parallelPutFileTransferStrategy;
-	private RandomAccessFile localRandomAccessFile = null;
+	private FileChannel localFileChannel = null;
 	private ParallelEncryptionCipherWrapper parallelEncryptionCipherWrapper = null;
 
 	public static final Logger log = LoggerFactory
@@ -75,66 +78,7 @@ Callable<ParallelTransferResult> {
 			log.info(
 					"opening socket to parallel transfer (high) port at port:{}",
 					parallelPutFileTransferStrategy.getPort());
-			Socket s = new Socket();
-			if (parallelPutFileTransferStrategy.getPipelineConfiguration()
-					.getParallelTcpSendWindowSize() > 0) {
-				s.setSendBufferSize(parallelPutFileTransferStrategy
-						.getPipelineConfiguration()
-						.getParallelTcpSendWindowSize() * 1024);
-			}
-
-			if (parallelPutFileTransferStrategy.getPipelineConfiguration()
-					.getParallelTcpReceiveWindowSize() > 0) {
-				s.setReceiveBufferSize(parallelPutFileTransferStrategy
-						.getPipelineConfiguration()
-						.getParallelTcpReceiveWindowSize() * 1024);
-			}
-
-			s.setPerformancePreferences(parallelPutFileTransferStrategy
-					.getPipelineConfiguration()
-					.getParallelTcpPerformancePrefsConnectionTime(),
-					parallelPutFileTransferStrategy.getPipelineConfiguration()
-					.getParallelTcpPerformancePrefsLatency(),
-					parallelPutFileTransferStrategy.getPipelineConfiguration()
-					.getParallelTcpPerformancePrefsBandwidth());
-
-			InetSocketAddress address = new InetSocketAddress(
-					parallelPutFileTransferStrategy.getHost(),
-					parallelPutFileTransferStrategy.getPort());
-
-			s.setSoTimeout(parallelPutFileTransferStrategy
-					.getParallelSocketTimeoutInSecs() * 1000);
-
-			s.setKeepAlive(parallelPutFileTransferStrategy
-					.getPipelineConfiguration().isParallelTcpKeepAlive());
-
-			// assume reuse, nodelay
-			s.setReuseAddress(true);
-			s.setTcpNoDelay(false);
-			s.connect(address);
-			setS(s);
-			int inputBuffSize = this.parallelPutFileTransferStrategy
-					.getJargonProperties().getInternalInputStreamBufferSize();
-			int outputBuffSize = this.parallelPutFileTransferStrategy
-					.getJargonProperties().getInternalOutputStreamBufferSize();
-
-			if (inputBuffSize < 0) {
-				setIn(getS().getInputStream());
-			} else if (inputBuffSize == 0) {
-				setIn(new BufferedInputStream(getS().getInputStream()));
-			} else {
-				setIn(new BufferedInputStream(getS().getInputStream(),
-						inputBuffSize));
-			}
-
-			if (outputBuffSize < 0) {
-				setOut(getS().getOutputStream());
-			} else if (outputBuffSize == 0) {
-				setOut(new BufferedOutputStream(getS().getOutputStream()));
-			} else {
-				setOut(new BufferedOutputStream(getS().getOutputStream(),
-						outputBuffSize));
-			}
+			openChannel(parallelPutFileTransferStrategy);
 
 			log.info("setting up the encryption if so negotiated");
 			if (this.parallelPutFileTransferStrategy.doEncryption()) {
@@ -155,7 +99,7 @@ Callable<ParallelTransferResult> {
 
 		try {
 
-			log.info("getting random access file for local file");
+			log.info("getting file channel for local file");
 			/*
 			 * int bufferSize = parallelPutFileTransferStrategy
 			 * .getJargonProperties().getLocalFileInputStreamBufferSize(); if
@@ -168,22 +112,19 @@ Callable<ParallelTransferResult> {
 			 * parallelPutFileTransferStrategy.getLocalFile()), bufferSize); }
 			 */
 
-			localRandomAccessFile = new RandomAccessFile(
-					parallelPutFileTransferStrategy.getLocalFile(), "r");
+			localFileChannel = FileChannel.open(parallelPutFileTransferStrategy
+					.getLocalFile().toPath(), StandardOpenOption.READ);
 
 			log.info("writing the cookie (password) for the output thread");
 
 			// write the cookie
-			byte b[] = new byte[4];
-			Host.copyInt(parallelPutFileTransferStrategy.getPassword(), b);
-			getOut().write(b);
-			getOut().flush();
+			long startNanos = System.nanoTime();
+			getChannel().writeInt(parallelPutFileTransferStrategy.getPassword());
 
 			log.debug("cookie written for output thread...calling put() to start read/write loop");
 			put();
 			log.debug("put operation completed");
-			ParallelTransferResult result = new ParallelTransferResult();
-			return result;
+			return buildResult(startNanos);
 
 		} catch (Throwable e) {
 			log.error(
@@ -196,7 +137,9 @@ Callable<ParallelTransferResult> {
 			log.info("socket conns for parallel transfer closed, now close the file stream");
 			// close file stream
 			try {
-				localRandomAccessFile.close();
+				if (localFileChannel != null) {
+					localFileChannel.close();
+				}
 				log.info("streams and files closed");
 			} catch (IOException e) {
 			}
@@ -204,31 +147,37 @@ Callable<ParallelTransferResult> {
 
 	}
 
-	/**
-	 * @throws IOException
-	 * @throws JargonException
-	 */
-	private void seekToStartingPoint(final long offset) throws JargonException {
-
-		try {
-			localRandomAccessFile.seek(offset);
-		} catch (IOException e) {
-			log.error("IOException in seek", e);
-			throw new JargonException(e);
-		}
-
-	}
-
 	private void put() throws JargonException {
 		log.info("put()..");
 
-		byte[] buffer = null;
 		boolean done = false;
 		// c code - size_t buf_size = 2 * TRANS_BUF_SZ * sizeof( unsigned char
 		// );
-		buffer = new byte[parallelPutFileTransferStrategy.getJargonProperties()
-		                  .getParallelCopyBufferSize()];
-		long currentOffset = 0;
+		ByteBuffer buffer = null;
+		StagedEncryptionPipeline pipeline = null;
+		if (parallelPutFileTransferStrategy.doZeroCopy()) {
+			log.info("zero copy put, file data is sent without a copy buffer");
+		} else if (parallelPutFileTransferStrategy.doStagedEncryption()) {
+			log.info("staged encryption, chunks are read and encrypted on the crypto threads");
+			pipeline = new StagedEncryptionPipeline(
+					StagedEncryptionPipeline.DEFAULT_DEPTH);
+		} else {
+			buffer = ByteBuffer.allocateDirect(parallelPutFileTransferStrategy
+					.getJargonProperties().getParallelCopyBufferSize());
+		}
+
+		/*
+		 * when encrypting, each chunk is encrypted into this buffer, with its
+		 * iv, and sent from it, so it is allocated once for the largest chunk
+		 */
+		ByteBuffer encryptedBuffer = null;
+		if (pipeline == null && parallelPutFileTransferStrategy.doEncryption()) {
+			encryptedBuffer = ByteBuffer
+					.allocateDirect(parallelEncryptionCipherWrapper
+							.getEncryptedLength(parallelPutFileTransferStrategy
+									.getJargonProperties()
+									.getParallelCopyBufferSize()));
+		}
 
 		try {
 			while (!done) {
@@ -287,22 +236,18 @@ Callable<ParallelTransferResult> {
 					log.info("   length:" + length);
 				}
 
-				if (offset != currentOffset) {
-					// seekToStartingPoint(offset - currentOffset); // FIXME:
-					// test!
-					seekToStartingPoint(offset);
-					currentOffset = offset;
-				}
-
-				log.info("buffer length for put is: {}", buffer.length);
-
 				/*
 				 * Read/write loop moves data from file starting at offset down
 				 * the socket until the anticipated transfer length is consumed.
 				 */
 
-				readWriteLoopForCurrentHeaderDirective(buffer, length);
-				currentOffset += length;
+				if (pipeline == null) {
+					readWriteLoopForCurrentHeaderDirective(buffer,
+							encryptedBuffer, offset, length);
+				} else {
+					stagedReadWriteLoopForCurrentHeaderDirective(pipeline,
+							offset, length);
+				}
 
 			}
 
@@ -311,18 +256,162 @@ Callable<ParallelTransferResult> {
 					"An IO exception occurred during a parallel file put operation",
 					e);
 			throw new JargonException("IOException during parallel file put", e);
+		} finally {
+			if (pipeline != null) {
+				pipeline.cancel();
+			}
 		}
 	}
 
 	/**
-	 * @param buffer
+	 * Send the requested part of the file with the chunks read and encrypted
+	 * on the crypto threads, sending each encrypted chunk in order as it is
+	 * ready while later ones are still being encrypted
+	 *
+	 * @param pipeline
+	 *            {@link StagedEncryptionPipeline} of this thread
+	 * @param offset
+	 *            {@code long} with the position in the local file to read from
 	 * @param length
+	 *            {@code long} with the number of bytes to send
 	 * @throws IOException
 	 * @throws JargonException
 	 */
-	private void readWriteLoopForCurrentHeaderDirective(final byte[] buffer,
+	private void stagedReadWriteLoopForCurrentHeaderDirective(
+			final StagedEncryptionPipeline pipeline, final long offset,
 			final long length) throws IOException, JargonException {
+		log.debug("stagedReadWriteLoopForCurrentHeaderDirective()");
+		int chunkSize = parallelPutFileTransferStrategy.getJargonProperties()
+				.getParallelCopyBufferSize();
+		int encryptedSize = parallelEncryptionCipherWrapper
+				.getEncryptedLength(chunkSize);
+		StagedChunkSender sender = new StagedChunkSender();
+		long position = offset;
+		long transferLength = length;
+
+		while (transferLength > 0) {
+			if (Thread.interrupted()) {
+				throw new IOException(
+						"interrupted, consider connection corrupted and return IOException to clear");
+			}
+
+			StagedEncryptionPipeline.Chunk chunk = pipeline.acquire(sender);
+			chunk.ensureCapacity(chunkSize, encryptedSize);
+			chunk.position = position;
+			chunk.plainLength = (int) Math.min(chunkSize, transferLength);
+			pipeline.submit(chunk, readAndEncrypt);
+			position += chunk.plainLength;
+			transferLength -= chunk.plainLength;
+		}
+
+		pipeline.drain(sender);
+		sender.updateRestartInfo();
+	}
+
+	/**
+	 * Reads a chunk of the local file and encrypts it, on a crypto thread
+	 */
+	private final StagedEncryptionPipeline.ChunkWork readAndEncrypt = new StagedEncryptionPipeline.ChunkWork() {
+
+		@Override
+		public void process(final StagedEncryptionPipeline.Chunk chunk)
+				throws IOException, JargonException {
+			ByteBuffer plain = chunk.plain;
+			plain.clear();
+			plain.limit(chunk.plainLength);
+			long position = chunk.position;
+			int read = 0;
+			while (plain.hasRemaining()
+					&& (read = localFileChannel.read(plain, position)) >= 0) {
+				position += read;
+			}
+			plain.flip();
+
+			if (!plain.hasRemaining()) {
+				throw new JargonException(
+						"local file ended before the data requested by iRODS");
+			}
+
+			chunk.plainLength = plain.remaining();
+			chunk.encrypted.clear();
+			parallelEncryptionCipherWrapper.encrypt(plain, chunk.encrypted);
+			chunk.encrypted.flip();
+		}
+	};
+
+	/**
+	 * Sends encrypted chunks in order, on this thread, keeping the progress
+	 * and restart information
+	 */
+	private final class StagedChunkSender implements
+			StagedEncryptionPipeline.ChunkCompletion {
+
+		private long totalWrittenSinceLastRestartUpdate = 0;
+
+		@Override
+		public void complete(final StagedEncryptionPipeline.Chunk chunk)
+				throws IOException, JargonException {
+			sendInLittleEndian(chunk.encrypted.remaining());
+			getChannel().writeFully(chunk.encrypted);
+			addBytesTransferred(chunk.plainLength);
+
+			if (parallelPutFileTransferStrategy
+					.getConnectionProgressStatusListener() != null) {
+				parallelPutFileTransferStrategy
+						.getConnectionProgressStatusListener()
+						.connectionProgressStatusCallback(
+								ConnectionProgressStatus
+										.instanceForSend(chunk.plainLength));
+			}
+
+			totalWrittenSinceLastRestartUpdate += chunk.plainLength;
+			if (totalWrittenSinceLastRestartUpdate >= ConnectionConstants.MIN_FILE_RESTART_SIZE) {
+				updateRestartInfo();
+			}
+		}
+
+		/**
+		 * Save the length sent since the last update, if restart is on
+		 *
+		 * @throws JargonException
+		 */
+		void updateRestartInfo() throws JargonException {
+			if (parallelPutFileTransferStrategy.getFileRestartInfo() != null
+					&& totalWrittenSinceLastRestartUpdate > 0) {
+				parallelPutFileTransferStrategy.getRestartManager()
+						.updateLengthForSegment(
+								parallelPutFileTransferStrategy
+										.getFileRestartInfo()
+										.identifierFromThisInfo(),
+								getThreadNumber(),
+								totalWrittenSinceLastRestartUpdate);
+				log.debug("signal storage of new info");
+			}
+			totalWrittenSinceLastRestartUpdate = 0;
+		}
+	}
+
+	/**
+	 * @param buffer
+	 *            {@code ByteBuffer} to copy through, or {@code null} to send
+	 *            the file data with {@code transferTo}
+	 * @param encryptedBuffer
+	 *            {@code ByteBuffer} to encrypt each chunk into, or
+	 *            {@code null} if not encrypting
+	 * @param offset
+	 *            {@code long} with the position in the local file to read from
+	 * @param length
+	 * @throws IOException
+	 * @throws JargonException
+	 */
+	private void readWriteLoopForCurrentHeaderDirective(
+			final ByteBuffer buffer, final ByteBuffer encryptedBuffer,
+			final long offset, final long length)
+			throws IOException, JargonException {
 		int read = 0;
+		long position = offset;
+		int chunkSize = parallelPutFileTransferStrategy.getJargonProperties()
+				.getParallelCopyBufferSize();
 		long totalRead = 0;
 		long transferLength = length;
 		long totalWritten = 0;
@@ -338,9 +427,16 @@ Callable<ParallelTransferResult> {
 
 				log.debug("read/write loop at top");
 
-				read = localRandomAccessFile.read(buffer, 0, (int) Math.min(
-						parallelPutFileTransferStrategy.getJargonProperties()
-						.getParallelCopyBufferSize(), transferLength));
+				if (buffer == null) {
+					// only send what is in the file, like a short read
+					read = (int) Math.min(Math.min(chunkSize, transferLength),
+							Math.max(0, localFileChannel.size() - position));
+				} else {
+					buffer.clear();
+					buffer.limit((int) Math.min(chunkSize, transferLength));
+					read = localFileChannel.read(buffer, position);
+					buffer.flip();
+				}
 
 				log.debug("bytes read: {}", read);
 
@@ -358,33 +454,22 @@ Callable<ParallelTransferResult> {
 
 					if (parallelPutFileTransferStrategy.doEncryption()) {
 						log.debug("put with encryption, encrypt this buffer");
-						EncryptionBuffer encryptedBuff = parallelEncryptionCipherWrapper
-								.encrypt(Arrays.copyOf(buffer, read));
-						log.debug("iv length:{}",
-								encryptedBuff.getInitializationVector().length);
-						// sendInNetworkOrder(encryptedBuff.getEncryptedData().length
-						// + encryptedBuff.getInitializationVector().length);
-						sendInLittleEndian(encryptedBuff.getEncryptedData().length
-								+ encryptedBuff.getInitializationVector().length);
-						log.debug(
-								"computed length:{}",
-								encryptedBuff.getEncryptedData().length
-								+ encryptedBuff
-								.getInitializationVector().length);
-						// this encryptedBuff has the data and the iv
-						ByteArrayOutputStream buffOut = new ByteArrayOutputStream(
-								encryptedBuff.getEncryptedData().length
-								+ encryptedBuff
-								.getInitializationVector().length);
-						buffOut.write(encryptedBuff.getInitializationVector());
-						buffOut.write(encryptedBuff.getEncryptedData());
-						// getOut().write(buffOut.toByteArray());
-						buffOut.writeTo(getOut());
-						// getOut().write(encryptedBuff.getInitializationVector());
-						// getOut().write(encryptedBuff.getEncryptedData());
+						encryptedBuffer.clear();
+						int encryptedLength = parallelEncryptionCipherWrapper
+								.encrypt(buffer, encryptedBuffer);
+						encryptedBuffer.flip();
+						log.debug("computed length:{}", encryptedLength);
+						sendInLittleEndian(encryptedLength);
+						// this encryptedBuffer has the iv and the data
+						getChannel().writeFully(encryptedBuffer);
+					} else if (buffer == null) {
+						getChannel().transferTo(localFileChannel, position,
+								read);
 					} else {
-						getOut().write(buffer, 0, read);
+						getChannel().writeFully(buffer);
 					}
+					position += read;
+					addBytesTransferred(read);
 
 					/*
 					 * Make an intra-file status call-back if a listener is
@@ -435,9 +520,6 @@ Callable<ParallelTransferResult> {
 				Thread.yield();
 			}
 
-			log.info("final flush of output buffer");
-			getOut().flush();
-
 			log.info("for thread, total read: {}", totalRead);
 			log.info("   total written: {}", totalWritten);
 			log.info("   transferLength: {}", transferLength);
@@ -476,17 +558,10 @@ Callable<ParallelTransferResult> {
 	}
 
 	protected void sendInNetworkOrder(final int value) throws IOException {
-		byte bytes[] = new byte[ConnectionConstants.INT_LENGTH];
-		Host.copyInt(value, bytes);
-		getOut().write(bytes);
-		getOut().flush();
+		getChannel().writeInt(value);
 	}
 
 	protected void sendInLittleEndian(final int value) throws IOException {
-		byte theBytes[] = new byte[ConnectionConstants.INT_LENGTH];
-		int reversed = Integer.reverseBytes(value);
-		Host.copyInt(reversed, theBytes);
-		getOut().write(theBytes);
-		getOut().flush();
+		getChannel().writeInt(Integer.reverseBytes(value));
 	}
 }
@@ -0,0 +1,305 @@
+package org.irods.jargon.core.transfer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import org.irods.jargon.core.connection.PipelineConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Socket for one thread of a parallel transfer, used through NIO so that file
+ * data can move between the socket and a {@code FileChannel} in
+ * {@code ByteBuffer}s, without going through streams.
+ * <p>
+ * The channel is non-blocking underneath, with each thread waiting on its own
+ * {@link Selector}, so that the parallel socket timeout still applies to reads
+ * and writes the way {@code SO_TIMEOUT} applied to the socket streams. File
+ * segments may also be sent from a {@code FileChannel} without a copy buffer,
+ * for puts that are not encrypted. Header
+ * values are read and written in network order.
+ */
+final class ParallelTransferChannel {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(ParallelTransferChannel.class);
+
+	private final SocketChannel socketChannel;
+	private final Selector selector;
+	private final SelectionKey selectionKey;
+	private final long timeoutMillis;
+	private final ByteBuffer headerBuffer = ByteBuffer.allocate(8);
+
+	/**
+	 * Connect to the parallel transfer port of the strategy, applying the tcp
+	 * settings from its {@link PipelineConfiguration}
+	 *
+	 * @param parallelFileTransferStrategy
+	 *            {@link AbstractParallelFileTransferStrategy} with the host,
+	 *            port and settings
+	 * @return {@link ParallelTransferChannel}
+	 * @throws IOException
+	 */
+	static ParallelTransferChannel open(
+			final AbstractParallelFileTransferStrategy parallelFileTransferStrategy)
+			throws IOException {
+
+		PipelineConfiguration pipelineConfiguration = parallelFileTransferStrategy
+				.getPipelineConfiguration();
+		SocketChannel socketChannel = SocketChannel.open();
+
+		try {
+			Socket s = socketChannel.socket();
+			if (pipelineConfiguration.getParallelTcpSendWindowSize() > 0) {
+				s.setSendBufferSize(pipelineConfiguration
+						.getParallelTcpSendWindowSize() * 1024);
+			}
+
+			if (pipelineConfiguration.getParallelTcpReceiveWindowSize() > 0) {
+				s.setReceiveBufferSize(pipelineConfiguration
+						.getParallelTcpReceiveWindowSize() * 1024);
+			}
+
+			s.setPerformancePreferences(
+					pipelineConfiguration
+							.getParallelTcpPerformancePrefsConnectionTime(),
+					pipelineConfiguration
+							.getParallelTcpPerformancePrefsLatency(),
+					pipelineConfiguration
+							.getParallelTcpPerformancePrefsBandwidth());
+
+			s.setKeepAlive(pipelineConfiguration.isParallelTcpKeepAlive());
+
+			// assume reuse, nodelay
+			s.setReuseAddress(true);
+			s.setTcpNoDelay(false);
+
+			InetSocketAddress address = new InetSocketAddress(
+					parallelFileTransferStrategy.getHost(),
+					parallelFileTransferStrategy.getPort());
+			if (address.isUnresolved()) {
+				throw new UnknownHostException(
+						parallelFileTransferStrategy.getHost());
+			}
+			socketChannel.connect(address);
+
+			return new ParallelTransferChannel(socketChannel,
+					parallelFileTransferStrategy
+							.getParallelSocketTimeoutInSecs() * 1000L);
+
+		} catch (IOException e) {
+			socketChannel.close();
+			throw e;
+		}
+	}
+
+	ParallelTransferChannel(final SocketChannel socketChannel,
+			final long timeoutMillis) throws IOException {
+		this.socketChannel = socketChannel;
+		this.timeoutMillis = timeoutMillis;
+		socketChannel.configureBlocking(false);
+		selector = Selector.open();
+		selectionKey = socketChannel.register(selector, 0);
+	}
+
+	/**
+	 * Read until the buffer has no bytes remaining
+	 *
+	 * @param buffer
+	 *            {@code ByteBuffer} to fill up to its limit
+	 * @throws IOException
+	 *             on end of stream, timeout or interrupt
+	 */
+	void readFully(final ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = socketChannel.read(buffer);
+			if (read < 0) {
+				throw new EOFException(
+						"end of stream from iRODS in parallel transfer");
+			}
+			if (read == 0) {
+				await(SelectionKey.OP_READ);
+			}
+		}
+	}
+
+	/**
+	 * Write all remaining bytes of the buffer
+	 *
+	 * @param buffer
+	 *            {@code ByteBuffer} to send
+	 * @throws IOException
+	 *             on timeout or interrupt
+	 */
+	void writeFully(final ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (socketChannel.write(buffer) == 0) {
+				await(SelectionKey.OP_WRITE);
+			}
+		}
+	}
+
+	/**
+	 * Send a segment of a file down the socket, letting the file channel hand
+	 * the data to the socket without copying it through a buffer
+	 *
+	 * @param file
+	 *            {@code FileChannel} to send from
+	 * @param position
+	 *            {@code long} with the position in the file
+	 * @param count
+	 *            {@code long} with the number of bytes to send, which must be
+	 *            in the file
+	 * @throws IOException
+	 *             on timeout or interrupt
+	 */
+	void transferTo(final FileChannel file, final long position,
+			final long count) throws IOException {
+		long done = 0;
+		while (done < count) {
+			long sent = file.transferTo(position + done, count - done,
+					socketChannel);
+			if (sent == 0) {
+				await(SelectionKey.OP_WRITE);
+			}
+			done += sent;
+		}
+	}
+
+	int readInt() throws IOException {
+		headerBuffer.clear();
+		headerBuffer.limit(4);
+		readFully(headerBuffer);
+		return headerBuffer.getInt(0);
+	}
+
+	long readLong() throws IOException {
+		headerBuffer.clear();
+		readFully(headerBuffer);
+		return headerBuffer.getLong(0);
+	}
+
+	void writeInt(final int value) throws IOException {
+		headerBuffer.clear();
+		headerBuffer.putInt(value);
+		headerBuffer.flip();
+		writeFully(headerBuffer);
+	}
+
+	SocketChannel getSocketChannel() {
+		return socketChannel;
+	}
+
+	/**
+	 * View the channel as an {@code InputStream}, for code written against the
+	 * socket streams. Reads wait for data the way {@link #readFully(ByteBuffer)}
+	 * does, so the socket timeout still applies.
+	 *
+	 * @return {@code InputStream} reading from the channel
+	 */
+	InputStream asInputStream() {
+		return new InputStream() {
+
+			@Override
+			public int read() throws IOException {
+				byte[] b = new byte[1];
+				int read = read(b, 0, 1);
+				return read < 0 ? -1 : b[0] & 0xff;
+			}
+
+			@Override
+			public int read(final byte[] b, final int off, final int len)
+					throws IOException {
+				if (len == 0) {
+					return 0;
+				}
+
+				ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+				while (true) {
+					int read = socketChannel.read(buffer);
+					if (read != 0) {
+						return read;
+					}
+					await(SelectionKey.OP_READ);
+				}
+			}
+		};
+	}
+
+	/**
+	 * View the channel as an {@code OutputStream}, for code written against
+	 * the socket streams
+	 *
+	 * @return {@code OutputStream} writing to the channel
+	 */
+	OutputStream asOutputStream() {
+		return new OutputStream() {
+
+			@Override
+			public void write(final int b) throws IOException {
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(final byte[] b, final int off, final int len)
+					throws IOException {
+				writeFully(ByteBuffer.wrap(b, off, len));
+			}
+		};
+	}
+
+	/**
+	 * Wait for the channel to become ready, used when a read or write made no
+	 * progress
+	 */
+	void await(final int operation) throws IOException {
+		if (Thread.interrupted()) {
+			throw new IOException(
+					"interrupted, consider connection corrupted and return IOException to clear");
+		}
+
+		selectionKey.interestOps(operation);
+		int ready = selector.select(timeoutMillis);
+		selector.selectedKeys().clear();
+		selectionKey.interestOps(0);
+
+		if (ready == 0) {
+			if (Thread.interrupted()) {
+				throw new IOException(
+						"interrupted, consider connection corrupted and return IOException to clear");
+			}
+			if (timeoutMillis > 0) {
+				throw new SocketTimeoutException(
+						"timeout in parallel transfer socket");
+			}
+		}
+	}
+
+	/**
+	 * Close the socket and selector, logging and ignoring errors
+	 */
+	void close() {
+		try {
+			selector.close();
+		} catch (IOException e) {
+			log.warn("IOException on close - log and ignore");
+		}
+		try {
+			socketChannel.close();
+		} catch (IOException e) {
+			log.warn("IOException on close - log and ignore");
+		}
+	}
+
+}
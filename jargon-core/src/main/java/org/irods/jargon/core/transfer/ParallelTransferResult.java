@@ -1,14 +1,17 @@
 package org.irods.jargon.core.transfer;
 
 /**
- * represents a return value from a parallel transfer operation. Currently, this
- * is a place holder, but could grow to include performance stats, etc.
+ * represents a return value from a parallel transfer operation, with the
+ * measurements of the thread that are used to tune later transfers.
  *
  * @author Mike Conway - DICE (www.irods.org)
  *
  */
 public class ParallelTransferResult {
 	Exception transferException = null;
+	long bytesTransferred = 0L;
+	long transferNanos = 0L;
+	long connectNanos = 0L;
 
 	/**
 	 * @return the transferException
@@ -17,4 +20,27 @@ public class ParallelTransferResult {
 		return transferException;
 	}
 
+	/**
+	 * @return {@code long} with the file bytes moved by the thread
+	 */
+	public long getBytesTransferred() {
+		return bytesTransferred;
+	}
+
+	/**
+	 * @return {@code long} with the nanoseconds the thread spent moving data,
+	 *         from sending the cookie to the end of the transfer
+	 */
+	public long getTransferNanos() {
+		return transferNanos;
+	}
+
+	/**
+	 * @return {@code long} with the nanoseconds taken to open the socket to
+	 *         the server, roughly one round trip
+	 */
+	public long getConnectNanos() {
+		return connectNanos;
+	}
+
 }
@@ -0,0 +1,173 @@
+package org.irods.jargon.core.transfer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Chooses the number of threads to ask for in a parallel transfer to a host,
+ * from the throughput of earlier parallel transfers to that host.
+ * <p>
+ * iRODS fixes the threads and the segment each one moves when the transfer is
+ * opened, so the count cannot change within a transfer. Instead each finished
+ * transfer is recorded here, and the next transfer to the same host asks for
+ * one thread more or fewer, keeping the direction while the total throughput
+ * improves and turning back when it drops. The first step is down for a host
+ * with a short round trip, where a few streams fill a local network, and up
+ * for one with a long round trip, where each stream is held back by its TCP
+ * window.
+ * <p>
+ * Transfers too short to measure are not recorded. One instance is kept by
+ * the {@code IRODSSession}, and it may be used by many threads.
+ */
+public final class ParallelTransferTuner {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(ParallelTransferTuner.class);
+
+	/**
+	 * Transfers shorter than this are mostly start up, and are not recorded
+	 */
+	static final long MIN_MEASURED_NANOS = 250L * 1000L * 1000L;
+
+	/**
+	 * Round trip below which a host is taken to be on the local network
+	 */
+	static final long LOCAL_NETWORK_CONNECT_NANOS = 2L * 1000L * 1000L;
+
+	/**
+	 * A change in throughput smaller than this fraction is taken as noise
+	 */
+	static final double TOLERANCE = 0.05;
+
+	/**
+	 * Weight of a new measurement against the history for a thread count
+	 */
+	static final double WEIGHT = 0.5;
+
+	/**
+	 * What has been seen of one host
+	 */
+	private static final class HostHistory {
+		private final Map<Integer, Double> throughputByThreads = new HashMap<Integer, Double>();
+		private int lastThreads = 0;
+		private int direction = 0;
+		private int recommended = 0;
+	}
+
+	private final Map<String, HostHistory> histories = new HashMap<String, HostHistory>();
+
+	/**
+	 * Get the number of threads to ask for in the next parallel transfer to the
+	 * host
+	 *
+	 * @param host
+	 *            {@code String} with the iRODS host
+	 * @param maxThreads
+	 *            {@code int} with the most threads to ask for, from the
+	 *            transfer options
+	 * @return {@code int} with the threads to ask for, which is
+	 *         {@code maxThreads} until the host has been measured
+	 */
+	public synchronized int recommendThreads(final String host,
+			final int maxThreads) {
+
+		if (host == null) {
+			throw new IllegalArgumentException("null host");
+		}
+
+		if (maxThreads <= 1) {
+			return maxThreads;
+		}
+
+		HostHistory history = histories.get(host);
+		if (history == null || history.recommended == 0) {
+			return maxThreads;
+		}
+
+		return Math.min(history.recommended, maxThreads);
+	}
+
+	/**
+	 * Record a finished parallel transfer to the host
+	 *
+	 * @param host
+	 *            {@code String} with the iRODS host
+	 * @param numberOfThreads
+	 *            {@code int} with the threads the server used
+	 * @param results
+	 *            {@code List} of {@link ParallelTransferResult} of the threads
+	 */
+	public synchronized void record(final String host,
+			final int numberOfThreads, final List<ParallelTransferResult> results) {
+
+		if (host == null) {
+			throw new IllegalArgumentException("null host");
+		}
+
+		if (results == null) {
+			throw new IllegalArgumentException("null results");
+		}
+
+		if (numberOfThreads <= 0 || results.isEmpty()) {
+			return;
+		}
+
+		long bytes = 0L;
+		long elapsedNanos = 0L;
+		long connectNanos = Long.MAX_VALUE;
+		for (ParallelTransferResult result : results) {
+			bytes += result.getBytesTransferred();
+			elapsedNanos = Math.max(elapsedNanos, result.getTransferNanos());
+			connectNanos = Math.min(connectNanos, result.getConnectNanos());
+		}
+
+		if (elapsedNanos < MIN_MEASURED_NANOS || bytes == 0L) {
+			log.debug("transfer to {} too short to measure", host);
+			return;
+		}
+
+		double throughput = bytes * 1.0e9 / elapsedNanos;
+
+		HostHistory history = histories.get(host);
+		if (history == null) {
+			history = new HostHistory();
+			histories.put(host, history);
+		}
+
+		Double previous = history.throughputByThreads.get(numberOfThreads);
+		if (previous != null) {
+			throughput = WEIGHT * throughput + (1.0 - WEIGHT) * previous;
+		}
+		history.throughputByThreads.put(numberOfThreads, throughput);
+
+		if (history.lastThreads == 0) {
+			history.direction = connectNanos < LOCAL_NETWORK_CONNECT_NANOS ? -1
+					: 1;
+		} else if (history.lastThreads == numberOfThreads) {
+			// held at a bound, or the server ignored the request, try the other way
+			history.direction = -history.direction;
+		} else {
+			double last = history.throughputByThreads.get(history.lastThreads);
+			int moved = Integer.signum(numberOfThreads - history.lastThreads);
+			if (throughput < last * (1.0 - TOLERANCE)) {
+				history.direction = -moved;
+			} else {
+				history.direction = moved;
+			}
+		}
+
+		history.lastThreads = numberOfThreads;
+		history.recommended = Math.max(1, numberOfThreads + history.direction);
+
+		log.info(
+				"parallel transfer to {} with {} threads at {} bytes/sec per stream, next will ask for {}",
+				new Object[] { host, numberOfThreads,
+						(long) (throughput / numberOfThreads),
+						history.recommended });
+	}
+
+}
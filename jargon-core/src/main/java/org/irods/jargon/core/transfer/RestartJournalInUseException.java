@@ -0,0 +1,20 @@
+package org.irods.jargon.core.transfer;
+
+/**
+ * The restart journal in a directory is held by another restart manager, in
+ * this or another JVM
+ *
+ */
+public class RestartJournalInUseException extends
+		FileRestartManagementException {
+
+	private static final long serialVersionUID = -3021574338927704513L;
+
+	/**
+	 * @param message
+	 */
+	public RestartJournalInUseException(final String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,286 @@
+package org.irods.jargon.core.transfer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lets one stream of an encrypted parallel transfer encrypt or decrypt its
+ * chunks on other threads while it carries on with the socket, instead of
+ * doing the crypto and the socket I/O one after the other.
+ * <p>
+ * The stream thread takes a chunk from a fixed ring, fills it or describes it,
+ * and hands it with the work to do to a pool of crypto threads shared by all
+ * transfers, sized to the processors. Chunks are finished in the order they
+ * were handed in, when the ring has no free chunk or when the stream asks for
+ * it, and their buffers are then reused. A stream never holds more than the
+ * ring of buffers, or runs further than the ring ahead of the crypto.
+ * <p>
+ * A pipeline is used by one stream thread, only the {@link ChunkWork} runs on
+ * the crypto threads.
+ */
+final class StagedEncryptionPipeline {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(StagedEncryptionPipeline.class);
+
+	/**
+	 * Number of chunks in the ring of a stream
+	 */
+	static final int DEFAULT_DEPTH = 4;
+
+	private static ExecutorService cryptoPool = null;
+
+	/**
+	 * Buffers and description of one chunk of a stream
+	 */
+	static final class Chunk {
+		ByteBuffer plain = null;
+		ByteBuffer encrypted = null;
+		/**
+		 * Position of the plaintext in the local file
+		 */
+		long position = 0L;
+		/**
+		 * Number of plaintext bytes
+		 */
+		int plainLength = 0;
+		private Future<Void> future = null;
+
+		/**
+		 * Make sure the buffers can hold a chunk of the given sizes, they are
+		 * kept from earlier use if large enough
+		 *
+		 * @param plainCapacity
+		 *            {@code int} with the plaintext size
+		 * @param encryptedCapacity
+		 *            {@code int} with the encrypted size
+		 */
+		void ensureCapacity(final int plainCapacity, final int encryptedCapacity) {
+			if (plain == null || plain.capacity() < plainCapacity) {
+				plain = ByteBuffer.allocateDirect(plainCapacity);
+			}
+			if (encrypted == null || encrypted.capacity() < encryptedCapacity) {
+				encrypted = ByteBuffer.allocateDirect(encryptedCapacity);
+			}
+		}
+	}
+
+	/**
+	 * Crypto work on a chunk, run on a crypto thread
+	 */
+	interface ChunkWork {
+		void process(Chunk chunk) throws IOException, JargonException;
+	}
+
+	/**
+	 * Work on a chunk after its crypto, run on the stream thread in the order
+	 * the chunks were handed in
+	 */
+	interface ChunkCompletion {
+		void complete(Chunk chunk) throws IOException, JargonException;
+	}
+
+	private final int depth;
+	private final ExecutorService executor;
+	private final ArrayDeque<Chunk> free = new ArrayDeque<Chunk>();
+	private final ArrayDeque<Chunk> inFlight = new ArrayDeque<Chunk>();
+	private int allocated = 0;
+
+	/**
+	 * Get the crypto threads shared by all transfers, started when first
+	 * needed
+	 *
+	 * @return {@code ExecutorService}
+	 */
+	static synchronized ExecutorService getCryptoPool() {
+		if (cryptoPool == null) {
+			int threads = Runtime.getRuntime().availableProcessors();
+			log.info("starting {} transfer crypto threads", threads);
+			cryptoPool = Executors.newFixedThreadPool(threads,
+					new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						@Override
+						public Thread newThread(final Runnable r) {
+							Thread thread = new Thread(r,
+									"jargon-transfer-crypto-"
+											+ count.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		}
+		return cryptoPool;
+	}
+
+	/**
+	 * Pipeline using the shared crypto threads
+	 *
+	 * @param depth
+	 *            {@code int} with the number of chunks in the ring
+	 */
+	StagedEncryptionPipeline(final int depth) {
+		this(depth, getCryptoPool());
+	}
+
+	/**
+	 * @param depth
+	 *            {@code int} with the number of chunks in the ring
+	 * @param executor
+	 *            {@code ExecutorService} to run the crypto on
+	 */
+	StagedEncryptionPipeline(final int depth, final ExecutorService executor) {
+		if (depth < 1) {
+			throw new IllegalArgumentException("depth must be >= 1");
+		}
+
+		if (executor == null) {
+			throw new IllegalArgumentException("null executor");
+		}
+
+		this.depth = depth;
+		this.executor = executor;
+	}
+
+	/**
+	 * Take a chunk from the ring, finishing the oldest one handed in if none
+	 * is free
+	 *
+	 * @param completion
+	 *            {@link ChunkCompletion} for the chunk finished, or
+	 *            {@code null}
+	 * @return {@link Chunk} to fill and hand in, its buffers may be
+	 *         {@code null} or left from earlier use
+	 * @throws IOException
+	 * @throws JargonException
+	 */
+	Chunk acquire(final ChunkCompletion completion) throws IOException,
+			JargonException {
+		if (!free.isEmpty()) {
+			return free.poll();
+		}
+
+		if (allocated < depth) {
+			allocated++;
+			return new Chunk();
+		}
+
+		finishOldest(completion);
+		return free.poll();
+	}
+
+	/**
+	 * Hand in a chunk to have its crypto done on a crypto thread
+	 *
+	 * @param chunk
+	 *            {@link Chunk} from {@link #acquire(ChunkCompletion)}
+	 * @param work
+	 *            {@link ChunkWork} to do on it
+	 */
+	void submit(final Chunk chunk, final ChunkWork work) {
+		if (chunk == null) {
+			throw new IllegalArgumentException("null chunk");
+		}
+
+		if (work == null) {
+			throw new IllegalArgumentException("null work");
+		}
+
+		chunk.future = executor.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				work.process(chunk);
+				return null;
+			}
+		});
+		inFlight.add(chunk);
+	}
+
+	/**
+	 * Finish all the chunks handed in, in order
+	 *
+	 * @param completion
+	 *            {@link ChunkCompletion} for each chunk, or {@code null}
+	 * @throws IOException
+	 * @throws JargonException
+	 */
+	void drain(final ChunkCompletion completion) throws IOException,
+			JargonException {
+		while (!inFlight.isEmpty()) {
+			finishOldest(completion);
+		}
+	}
+
+	/**
+	 * Give up on the chunks handed in, after an error in the stream. Crypto
+	 * already running is left to finish, as interrupting it could close the
+	 * local file channel it is using.
+	 */
+	void cancel() {
+		for (Chunk chunk : inFlight) {
+			chunk.future.cancel(false);
+		}
+		inFlight.clear();
+	}
+
+	/**
+	 * @return {@code int} with the number of chunks handed in and not finished
+	 */
+	int getInFlightCount() {
+		return inFlight.size();
+	}
+
+	/**
+	 * Wait for the oldest chunk handed in and complete it, it goes back in the
+	 * ring even if its work failed
+	 */
+	private void finishOldest(final ChunkCompletion completion)
+			throws IOException, JargonException {
+		Chunk chunk = inFlight.poll();
+		try {
+			finish(chunk, completion);
+		} finally {
+			free.add(chunk);
+		}
+	}
+
+	private void finish(final Chunk chunk, final ChunkCompletion completion)
+			throws IOException, JargonException {
+		try {
+			chunk.future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(
+					"interrupted waiting for transfer crypto");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			log.error("error in transfer crypto", cause);
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof JargonException) {
+				throw (JargonException) cause;
+			}
+			throw new JargonException("error in transfer crypto", cause);
+		} finally {
+			chunk.future = null;
+		}
+
+		if (completion != null) {
+			completion.complete(chunk);
+		}
+	}
+
+}
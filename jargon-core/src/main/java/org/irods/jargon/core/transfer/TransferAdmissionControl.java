@@ -0,0 +1,187 @@
+package org.irods.jargon.core.transfer;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the number of transfers running at once against each iRODS host.
+ * Transfers over the limit wait in a queue for their host, without holding a
+ * thread, and are handed to their executor as running transfers for the host
+ * finish, in the order they were submitted.
+ * <p>
+ * One instance is kept by the {@code IRODSSession}, so the limit holds across
+ * all of the asynchronous transfer operations made from that session.
+ */
+public final class TransferAdmissionControl {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(TransferAdmissionControl.class);
+
+	private final int maxTransfersPerHost;
+	private final Map<String, HostGate> gates = new HashMap<String, HostGate>();
+
+	/**
+	 * Transfers running and waiting for one host
+	 */
+	private static final class HostGate {
+		private int running = 0;
+		private final Deque<Admitted> waiting = new ArrayDeque<Admitted>();
+	}
+
+	/**
+	 * A transfer and the executor it should run on
+	 */
+	private static final class Admitted {
+		private final Runnable task;
+		private final Executor executor;
+
+		Admitted(final Runnable task, final Executor executor) {
+			this.task = task;
+			this.executor = executor;
+		}
+	}
+
+	/**
+	 * @param maxTransfersPerHost
+	 *            {@code int} with the most transfers that may run at once
+	 *            against one host, {@code 0} or less for no limit
+	 */
+	public TransferAdmissionControl(final int maxTransfersPerHost) {
+		this.maxTransfersPerHost = maxTransfersPerHost;
+	}
+
+	/**
+	 * Run a transfer on the executor as soon as the host has room for it
+	 *
+	 * @param host
+	 *            {@code String} with the iRODS host the transfer runs against
+	 * @param executor
+	 *            {@code Executor} to run the transfer on
+	 * @param task
+	 *            {@code Runnable} that does the transfer
+	 * @throws RejectedExecutionException
+	 *             if the executor will not take the transfer when it is
+	 *             admitted immediately
+	 */
+	public void submit(final String host, final Executor executor,
+			final Runnable task) {
+
+		if (host == null) {
+			throw new IllegalArgumentException("null host");
+		}
+
+		if (executor == null) {
+			throw new IllegalArgumentException("null executor");
+		}
+
+		if (task == null) {
+			throw new IllegalArgumentException("null task");
+		}
+
+		Admitted admitted = new Admitted(task, executor);
+
+		synchronized (this) {
+			HostGate gate = gates.get(host);
+			if (gate == null) {
+				gate = new HostGate();
+				gates.put(host, gate);
+			}
+
+			if (maxTransfersPerHost > 0 && gate.running >= maxTransfersPerHost) {
+				log.debug("host {} is at its limit, transfer will wait", host);
+				gate.waiting.add(admitted);
+				return;
+			}
+
+			gate.running++;
+		}
+
+		try {
+			dispatch(host, admitted);
+		} catch (RejectedExecutionException e) {
+			finished(host);
+			throw e;
+		}
+	}
+
+	private void dispatch(final String host, final Admitted admitted) {
+		admitted.executor.execute(whenDone(host, admitted.task));
+	}
+
+	private Runnable whenDone(final String host, final Runnable task) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				try {
+					task.run();
+				} finally {
+					finished(host);
+				}
+			}
+		};
+	}
+
+	/**
+	 * A transfer for the host is done, start the next one waiting, if any
+	 */
+	private void finished(final String host) {
+		Admitted next;
+		synchronized (this) {
+			HostGate gate = gates.get(host);
+			next = gate.waiting.poll();
+			if (next == null) {
+				gate.running--;
+				if (gate.running == 0) {
+					gates.remove(host);
+				}
+				return;
+			}
+		}
+
+		try {
+			dispatch(host, next);
+		} catch (RejectedExecutionException e) {
+			log.warn(
+					"executor rejected a waiting transfer for host:{}, running it on this thread",
+					host);
+			whenDone(host, next.task).run();
+		}
+	}
+
+	/**
+	 * @param host
+	 *            {@code String} with the iRODS host
+	 * @return {@code int} with the number of transfers running against the
+	 *         host
+	 */
+	public synchronized int getRunningCount(final String host) {
+		HostGate gate = gates.get(host);
+		return gate == null ? 0 : gate.running;
+	}
+
+	/**
+	 * @param host
+	 *            {@code String} with the iRODS host
+	 * @return {@code int} with the number of transfers waiting for the host
+	 */
+	public synchronized int getWaitingCount(final String host) {
+		HostGate gate = gates.get(host);
+		return gate == null ? 0 : gate.waiting.size();
+	}
+
+	/**
+	 * @return {@code int} with the most transfers that may run at once against
+	 *         one host, {@code 0} or less for no limit
+	 */
+	public int getMaxTransfersPerHost() {
+		return maxTransfersPerHost;
+	}
+
+}
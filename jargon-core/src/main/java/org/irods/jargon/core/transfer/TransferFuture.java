@@ -0,0 +1,47 @@
+package org.irods.jargon.core.transfer;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handle to a transfer that runs asynchronously. The future completes with
+ * the overall {@link TransferStatus} of the transfer, or exceptionally with the
+ * exception that stopped it, and may be composed with the other
+ * {@code CompletableFuture} methods.
+ * <p>
+ * Cancelling the future cancels the transfer through its
+ * {@link TransferControlBlock}, in the same way as setting
+ * {@link TransferControlBlock#setCancelled(boolean)}. A transfer that has not
+ * started will not be run, and one in progress stops at the next point the
+ * transfer checks for cancellation, as it would when cancelled through the
+ * control block. The worker thread is not interrupted.
+ */
+public class TransferFuture extends CompletableFuture<TransferStatus> {
+
+	private final TransferControlBlock transferControlBlock;
+
+	/**
+	 * @param transferControlBlock
+	 *            {@link TransferControlBlock} of the transfer
+	 */
+	public TransferFuture(final TransferControlBlock transferControlBlock) {
+		if (transferControlBlock == null) {
+			throw new IllegalArgumentException("null transferControlBlock");
+		}
+		this.transferControlBlock = transferControlBlock;
+	}
+
+	@Override
+	public boolean cancel(final boolean mayInterruptIfRunning) {
+		transferControlBlock.setCancelled(true);
+		return super.cancel(mayInterruptIfRunning);
+	}
+
+	/**
+	 * @return {@link TransferControlBlock} of the transfer, which may be used to
+	 *         pause it and follow its counts while it runs
+	 */
+	public TransferControlBlock getTransferControlBlock() {
+		return transferControlBlock;
+	}
+
+}
@@ -3,6 +3,7 @@
  */
 package org.irods.jargon.core.transfer.encrypt;
 
+import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
@@ -12,11 +13,13 @@ import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.IvParameterSpec;
 
 import org.irods.jargon.core.connection.NegotiatedClientServerConfiguration;
 import org.irods.jargon.core.connection.PipelineConfiguration;
 import org.irods.jargon.core.exception.ClientServerNegotiationException;
+import org.irods.jargon.core.exception.EncryptionException;
 import org.irods.jargon.core.exception.JargonRuntimeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,6 +53,16 @@ class AesCipherDecryptWrapper extends ParallelDecryptionCipherWrapper {
 	public static final Logger log = LoggerFactory
 			.getLogger(AesCipherDecryptWrapper.class);
 
+	/**
+	 * Length of the initialization vector, and of the unused pad after it
+	 */
+	private static final int IV_LENGTH = 16;
+
+	/**
+	 * Used to decrypt only the last block of a buffer, to find its padding
+	 */
+	private static final String LAST_BLOCK_TRANSFORMATION = "AES/CBC/NoPadding";
+
 	/**
 	 * Default constructor with configuration information needed to set up the
 	 * algorithm
@@ -99,9 +112,12 @@ class AesCipherDecryptWrapper extends ParallelDecryptionCipherWrapper {
 	@Override
 	protected byte[] doDecrypt(final EncryptionBuffer input) {
 		try {
-			getCipher().init(Cipher.DECRYPT_MODE,
+			// the iv from encrypt(byte[]) is followed by the unused pad
+			getCipher().init(
+					Cipher.DECRYPT_MODE,
 					getNegotiatedClientServerConfiguration().getSecretKey(),
-					new IvParameterSpec(input.getInitializationVector()));
+					new IvParameterSpec(input.getInitializationVector(), 0,
+							IV_LENGTH));
 
 			byte[] original = getCipher().doFinal(input.getEncryptedData());
 			return original;
@@ -147,4 +163,108 @@ class AesCipherDecryptWrapper extends ParallelDecryptionCipherWrapper {
 		System.arraycopy(fullBuffer, 32, returned, 0, fullBuffer.length - 32);
 		return returned;
 	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.transfer.encrypt.ParallelDecryptionCipherWrapper
+	 * #doDecrypt(java.nio.ByteBuffer, java.nio.ByteBuffer)
+	 */
+	@Override
+	protected int doDecrypt(final ByteBuffer fullBuffer,
+			final ByteBuffer output) throws EncryptionException {
+
+		if (fullBuffer.remaining() < 2 * IV_LENGTH) {
+			log.error("unusable data in buffer, less than 32 bytes");
+			throw new JargonRuntimeException("unusable data in data buffer");
+		}
+
+		byte[] initializationVector = new byte[IV_LENGTH];
+		fullBuffer.get(initializationVector);
+		// skip the unused part of the iv from iRODS
+		fullBuffer.position(fullBuffer.position() + IV_LENGTH);
+
+		if (!fullBuffer.hasRemaining()) {
+			log.warn("no data in buffer to decrypt, return empty buffer");
+			return 0;
+		}
+
+		try {
+			Cipher cipher = getPooledCipher();
+			cipher.init(Cipher.DECRYPT_MODE,
+					getNegotiatedClientServerConfiguration().getSecretKey(),
+					new IvParameterSpec(initializationVector));
+			return cipher.doFinal(fullBuffer, output);
+
+		} catch (NoSuchAlgorithmException | NoSuchPaddingException
+				| InvalidKeyException | InvalidAlgorithmParameterException
+				| ShortBufferException | IllegalBlockSizeException
+				| BadPaddingException e) {
+			log.error("error during decryption", e);
+			throw new EncryptionException(
+					"Unable to decrypt given negotiated settings", e);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.transfer.encrypt.ParallelDecryptionCipherWrapper
+	 * #doGetDecryptedLength(java.nio.ByteBuffer)
+	 */
+	@Override
+	protected int doGetDecryptedLength(final ByteBuffer fullBuffer)
+			throws EncryptionException {
+
+		int encryptedLength = fullBuffer.remaining() - 2 * IV_LENGTH;
+		if (encryptedLength < 0) {
+			log.error("unusable data in buffer, less than 32 bytes");
+			throw new JargonRuntimeException("unusable data in data buffer");
+		}
+
+		if (encryptedLength == 0) {
+			return 0;
+		}
+
+		if (encryptedLength % IV_LENGTH != 0) {
+			throw new EncryptionException(
+					"encrypted data is not a whole number of blocks");
+		}
+
+		/*
+		 * the padding is all in the last block, which cbc decrypts using the
+		 * block before it, or the iv if there is only one, as its iv
+		 */
+		int lastBlock = fullBuffer.limit() - IV_LENGTH;
+		int previousBlock = encryptedLength == IV_LENGTH ? fullBuffer
+				.position() : lastBlock - IV_LENGTH;
+		byte[] previous = new byte[IV_LENGTH];
+		byte[] last = new byte[IV_LENGTH];
+		ByteBuffer view = fullBuffer.duplicate();
+		view.position(previousBlock);
+		view.get(previous);
+		view.position(lastBlock);
+		view.get(last);
+
+		try {
+			Cipher cipher = getPooledCipher(LAST_BLOCK_TRANSFORMATION);
+			cipher.init(Cipher.DECRYPT_MODE,
+					getNegotiatedClientServerConfiguration().getSecretKey(),
+					new IvParameterSpec(previous));
+			int padding = cipher.doFinal(last)[IV_LENGTH - 1] & 0xff;
+			if (padding < 1 || padding > IV_LENGTH) {
+				throw new EncryptionException("invalid padding in encrypted data");
+			}
+			return encryptedLength - padding;
+
+		} catch (NoSuchAlgorithmException | NoSuchPaddingException
+				| InvalidKeyException | InvalidAlgorithmParameterException
+				| IllegalBlockSizeException | BadPaddingException e) {
+			log.error("error during decryption", e);
+			throw new EncryptionException(
+					"Unable to decrypt given negotiated settings", e);
+		}
+	}
 }
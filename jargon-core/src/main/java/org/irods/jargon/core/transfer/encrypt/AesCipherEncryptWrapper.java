@@ -5,15 +5,19 @@ package org.irods.jargon.core.transfer.encrypt;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.security.AlgorithmParameters;
 import java.security.InvalidKeyException;
+import java.security.InvalidAlgorithmParameterException;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.security.spec.InvalidParameterSpecException;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.IvParameterSpec;
 
@@ -44,6 +48,13 @@ class AesCipherEncryptWrapper extends ParallelEncryptionCipherWrapper {
 			.getLogger(AesCipherEncryptWrapper.class);
 	public static byte[] ivPad = new byte[16];
 
+	/**
+	 * Length of the initialization vector, which is followed by the pad
+	 */
+	private static final int IV_LENGTH = 16;
+
+	private final SecureRandom secureRandom = new SecureRandom();
+
 	/**
 	 * Default constructor with configuration information needed to set up the
 	 * algorithm
@@ -127,4 +138,56 @@ class AesCipherEncryptWrapper extends ParallelEncryptionCipherWrapper {
 		}
 
 	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.transfer.encrypt.ParallelEncryptionCipherWrapper
+	 * #doEncrypt(java.nio.ByteBuffer, java.nio.ByteBuffer)
+	 */
+	@Override
+	protected int doEncrypt(final ByteBuffer input, final ByteBuffer output)
+			throws EncryptionException {
+
+		int start = output.position();
+		try {
+			/*
+			 * each buffer gets its own iv, which is sent ahead of it, as
+			 * iRODS does in rcPartialDataPut
+			 */
+			byte[] initializationVector = new byte[IV_LENGTH];
+			secureRandom.nextBytes(initializationVector);
+			Cipher cipher = getPooledCipher();
+			cipher.init(Cipher.ENCRYPT_MODE,
+					getNegotiatedClientServerConfiguration().getSecretKey(),
+					new IvParameterSpec(initializationVector));
+			output.put(initializationVector);
+			output.put(ivPad);
+			cipher.doFinal(input, output);
+			return output.position() - start;
+
+		} catch (NoSuchAlgorithmException | NoSuchPaddingException
+				| InvalidKeyException | InvalidAlgorithmParameterException
+				| ShortBufferException | IllegalBlockSizeException
+				| BadPaddingException e) {
+			log.error("encryption exception", e);
+			throw new EncryptionException("encryption exception", e);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.transfer.encrypt.ParallelEncryptionCipherWrapper
+	 * #doGetEncryptedLength(int)
+	 */
+	@Override
+	protected int doGetEncryptedLength(final int plainLength) {
+		// cbc with pkcs5 padding always adds a block, full or partial
+		int blockSize = getCipher().getBlockSize();
+		return IV_LENGTH + ivPad.length + (plainLength / blockSize + 1)
+				* blockSize;
+	}
 }
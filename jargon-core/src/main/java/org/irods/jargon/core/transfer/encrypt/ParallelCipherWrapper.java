@@ -3,7 +3,12 @@
  */
 package org.irods.jargon.core.transfer.encrypt;
 
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
 import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
 
 import org.irods.jargon.core.connection.NegotiatedClientServerConfiguration;
 import org.irods.jargon.core.connection.PipelineConfiguration;
@@ -14,12 +19,27 @@ import org.irods.jargon.core.exception.JargonRuntimeException;
  * Wrapper for an implementation that can encrypt or decrypt bytes in a parallel
  * file transfer. Concrete subclasses implement the actual encryption, and the
  * proper encryption method is built using a factory
+ * <p>
+ * Wrappers are created by the thread that sets up the transfer and used by the
+ * transfer thread, so the {@code ByteBuffer} methods of the concrete wrappers
+ * take a {@link Cipher} from {@link #getPooledCipher()}, which keeps one
+ * instance per thread and transformation. Transfer threads come from a shared
+ * executor, so this saves looking up a provider for each transfer. Those
+ * methods keep no state in the wrapper, so one wrapper may be used by several
+ * threads at once.
  *
  * @author Mike Conway - DICE
  *
  */
 abstract class ParallelCipherWrapper {
 
+	private static final ThreadLocal<Map<String, Cipher>> pooledCiphers = new ThreadLocal<Map<String, Cipher>>() {
+		@Override
+		protected Map<String, Cipher> initialValue() {
+			return new HashMap<String, Cipher>();
+		}
+	};
+
 	private Cipher cipher;
 	private PipelineConfiguration pipelineConfiguration;
 	private NegotiatedClientServerConfiguration negotiatedClientServerConfiguration;
@@ -84,4 +104,41 @@ abstract class ParallelCipherWrapper {
 		this.cipher = cipher;
 	}
 
+	/**
+	 * Get the {@link Cipher} for the configured algorithm kept for the calling
+	 * thread. Its state is left from whatever last used it on this thread, so
+	 * it must be initialized for each use.
+	 *
+	 * @return {@link Cipher}
+	 * @throws NoSuchAlgorithmException
+	 * @throws NoSuchPaddingException
+	 */
+	Cipher getPooledCipher() throws NoSuchAlgorithmException,
+			NoSuchPaddingException {
+		return getPooledCipher(pipelineConfiguration
+				.getEncryptionAlgorithmEnum().getCypherKey());
+	}
+
+	/**
+	 * Get the {@link Cipher} for a transformation kept for the calling thread,
+	 * which must be initialized for each use
+	 *
+	 * @param transformation
+	 *            {@code String} with the transformation, as given to
+	 *            {@link Cipher#getInstance(String)}
+	 * @return {@link Cipher}
+	 * @throws NoSuchAlgorithmException
+	 * @throws NoSuchPaddingException
+	 */
+	static Cipher getPooledCipher(final String transformation)
+			throws NoSuchAlgorithmException, NoSuchPaddingException {
+		Map<String, Cipher> ciphers = pooledCiphers.get();
+		Cipher pooled = ciphers.get(transformation);
+		if (pooled == null) {
+			pooled = Cipher.getInstance(transformation);
+			ciphers.put(transformation, pooled);
+		}
+		return pooled;
+	}
+
 }
@@ -3,6 +3,8 @@
  */
 package org.irods.jargon.core.transfer.encrypt;
 
+import java.nio.ByteBuffer;
+
 import org.irods.jargon.core.connection.NegotiatedClientServerConfiguration;
 import org.irods.jargon.core.connection.PipelineConfiguration;
 import org.irods.jargon.core.exception.EncryptionException;
@@ -59,8 +61,68 @@ ParallelCipherWrapper {
 		return doDecrypt(fullBuffer);
 	}
 
+	/**
+	 * Decrypt a complete buffer from iRODS into the output, as
+	 * {@link #decrypt(byte[])} does but without copying out the encryption
+	 * related payload or allocating the result, so that the transfer threads
+	 * can reuse their buffers.
+	 *
+	 * @param fullBuffer
+	 *            {@code ByteBuffer} with the full buffer from iRODS between
+	 *            its position and limit, which is consumed
+	 * @param output
+	 *            {@code ByteBuffer} that gets the decrypted data at its
+	 *            position, with at least as many bytes remaining as the full
+	 *            buffer
+	 * @return {@code int} with the number of bytes put in the output
+	 * @throws EncryptionException
+	 */
+	public int decrypt(final ByteBuffer fullBuffer, final ByteBuffer output)
+			throws EncryptionException {
+		log.debug("decrypt()");
+		if (fullBuffer == null) {
+			throw new IllegalArgumentException("null fullBuffer");
+		}
+		if (output == null) {
+			throw new IllegalArgumentException("null output");
+		}
+		return doDecrypt(fullBuffer, output);
+	}
+
+	/**
+	 * Get the number of bytes a complete buffer from iRODS decrypts to,
+	 * without decrypting all of it, so that a transfer can tell where the data
+	 * ends before the buffer is decrypted on another thread
+	 *
+	 * @param fullBuffer
+	 *            {@code ByteBuffer} with the full buffer from iRODS between
+	 *            its position and limit, which is not changed
+	 * @return {@code int} with the number of plaintext bytes
+	 * @throws EncryptionException
+	 */
+	public int getDecryptedLength(final ByteBuffer fullBuffer)
+			throws EncryptionException {
+		if (fullBuffer == null) {
+			throw new IllegalArgumentException("null fullBuffer");
+		}
+		return doGetDecryptedLength(fullBuffer);
+	}
+
 	protected abstract byte[] doDecrypt(byte[] fullBuffer);
 
+	/**
+	 * Decrypt a full buffer from iRODS into the output buffer
+	 *
+	 * @param fullBuffer
+	 *            {@code ByteBuffer} with the full buffer from iRODS
+	 * @param output
+	 *            {@code ByteBuffer} for the decrypted data
+	 * @return {@code int} with the number of bytes put in the output
+	 * @throws EncryptionException
+	 */
+	protected abstract int doDecrypt(ByteBuffer fullBuffer, ByteBuffer output)
+			throws EncryptionException;
+
 	/**
 	 * Decryption method that will be overriden by the particular algo, and will
 	 * happen after any init is checked
@@ -73,4 +135,15 @@ ParallelCipherWrapper {
 	protected abstract byte[] doDecrypt(EncryptionBuffer input)
 			throws EncryptionException;
 
+	/**
+	 * Plaintext length of a full buffer from iRODS
+	 *
+	 * @param fullBuffer
+	 *            {@code ByteBuffer} with the full buffer from iRODS
+	 * @return {@code int} with the number of plaintext bytes
+	 * @throws EncryptionException
+	 */
+	protected abstract int doGetDecryptedLength(ByteBuffer fullBuffer)
+			throws EncryptionException;
+
 }
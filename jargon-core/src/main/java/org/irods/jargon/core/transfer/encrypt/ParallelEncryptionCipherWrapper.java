@@ -3,6 +3,8 @@
  */
 package org.irods.jargon.core.transfer.encrypt;
 
+import java.nio.ByteBuffer;
+
 import org.irods.jargon.core.connection.NegotiatedClientServerConfiguration;
 import org.irods.jargon.core.connection.PipelineConfiguration;
 import org.irods.jargon.core.exception.EncryptionException;
@@ -43,6 +45,49 @@ public abstract class ParallelEncryptionCipherWrapper extends
 		return doEncrypt(input);
 	}
 
+	/**
+	 * Encrypt the remaining bytes of the input into the output, as the full
+	 * buffer to send to iRODS, including any encryption related payload such
+	 * as an initialization vector. This avoids the copies and allocations of
+	 * {@link #encrypt(byte[])}, so that the transfer threads can reuse their
+	 * buffers.
+	 *
+	 * @param input
+	 *            {@code ByteBuffer} of plaintext data, which is consumed
+	 * @param output
+	 *            {@code ByteBuffer} that gets the encrypted buffer at its
+	 *            position, with at least {@link #getEncryptedLength(int)}
+	 *            bytes remaining
+	 * @return {@code int} with the number of bytes put in the output
+	 * @throws EncryptionException
+	 */
+	public int encrypt(final ByteBuffer input, final ByteBuffer output)
+			throws EncryptionException {
+		log.debug("encrypt()");
+		if (input == null) {
+			throw new IllegalArgumentException("null input");
+		}
+		if (output == null) {
+			throw new IllegalArgumentException("null output");
+		}
+		return doEncrypt(input, output);
+	}
+
+	/**
+	 * Get the most bytes {@link #encrypt(ByteBuffer, ByteBuffer)} will produce
+	 * for a given amount of plaintext, used to size the output buffer
+	 *
+	 * @param plainLength
+	 *            {@code int} with the number of plaintext bytes
+	 * @return {@code int} with the size of the encrypted buffer
+	 */
+	public int getEncryptedLength(final int plainLength) {
+		if (plainLength < 0) {
+			throw new IllegalArgumentException("negative plainLength");
+		}
+		return doGetEncryptedLength(plainLength);
+	}
+
 	/**
 	 * Encrypt the given data
 	 *
@@ -54,4 +99,26 @@ public abstract class ParallelEncryptionCipherWrapper extends
 	protected abstract EncryptionBuffer doEncrypt(byte[] input)
 			throws EncryptionException;
 
+	/**
+	 * Encrypt the given data into the output buffer
+	 *
+	 * @param input
+	 *            {@code ByteBuffer} of plaintext data
+	 * @param output
+	 *            {@code ByteBuffer} for the encrypted buffer
+	 * @return {@code int} with the number of bytes put in the output
+	 * @throws EncryptionException
+	 */
+	protected abstract int doEncrypt(ByteBuffer input, ByteBuffer output)
+			throws EncryptionException;
+
+	/**
+	 * Size of the encrypted buffer for the given plaintext length
+	 *
+	 * @param plainLength
+	 *            {@code int} with the number of plaintext bytes
+	 * @return {@code int} with the size of the encrypted buffer
+	 */
+	protected abstract int doGetEncryptedLength(int plainLength);
+
 }
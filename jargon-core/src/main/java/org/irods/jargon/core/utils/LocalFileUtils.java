@@ -20,6 +20,7 @@ import java.util.Date;
 import java.util.zip.CRC32;
 import java.util.zip.CheckedInputStream;
 
+import org.irods.jargon.core.checksum.LocalFileDigester;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.pub.RuleProcessingAOImpl;
 import org.slf4j.Logger;
@@ -250,46 +251,15 @@ public class LocalFileUtils {
 					"null or empty absolutePathToLocalFile");
 		}
 
-		FileInputStream file;
 		try {
-			file = new FileInputStream(absolutePathToLocalFile);
-		} catch (FileNotFoundException e1) {
+			return LocalFileDigester.digest(new File(absolutePathToLocalFile),
+					MessageDigest.getInstance("SHA-256"));
+		} catch (FileNotFoundException e) {
 			throw new JargonException(
 					"error computing checksum, file not found:"
-							+ absolutePathToLocalFile, e1);
-
-		}
-
-		MessageDigest complete;
-		int numRead;
-		BufferedInputStream in = new BufferedInputStream(file);
-		byte[] buffer = new byte[4096];
-
-		try {
-			complete = MessageDigest.getInstance("SHA-256");
-			do {
-				numRead = in.read(buffer);
-				if (numRead > 0) {
-					complete.update(buffer, 0, numRead);
-				}
-			} while (numRead != -1);
-
-			return complete.digest();
+							+ absolutePathToLocalFile, e);
 		} catch (NoSuchAlgorithmException e) {
-			throw new JargonException("no such algorithm exception for MD5");
-		} catch (Exception e) {
-			throw new JargonException("Error computing MD5 checksum", e);
-		} finally {
-			try {
-				in.close();
-			} catch (IOException e) {
-				// ignore
-			}
-			try {
-				file.close();
-			} catch (IOException e) {
-				// ignore
-			}
+			throw new JargonException("no such algorithm exception for SHA-256");
 		}
 	}
 
@@ -305,46 +275,23 @@ public class LocalFileUtils {
 	public static byte[] computeMD5FileCheckSumViaAbsolutePath(
 			final String absolutePathToLocalFile) throws JargonException {
 
-		FileInputStream file;
-		try {
-			file = new FileInputStream(absolutePathToLocalFile);
-		} catch (FileNotFoundException e1) {
-			throw new JargonException(
-					"error computing checksum, file not found:"
-							+ absolutePathToLocalFile, e1);
+		log.info("computeMD5FileCheckSumViaAbsolutePath()");
 
+		if (absolutePathToLocalFile == null
+				|| absolutePathToLocalFile.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty absolutePathToLocalFile");
 		}
 
-		MessageDigest complete;
-		int numRead;
-		BufferedInputStream in = new BufferedInputStream(file);
-		byte[] buffer = new byte[4096];
-
 		try {
-			complete = MessageDigest.getInstance("MD5");
-			do {
-				numRead = in.read(buffer);
-				if (numRead > 0) {
-					complete.update(buffer, 0, numRead);
-				}
-			} while (numRead != -1);
-
-			return complete.digest();
+			return LocalFileDigester.digest(new File(absolutePathToLocalFile),
+					MessageDigest.getInstance("MD5"));
+		} catch (FileNotFoundException e) {
+			throw new JargonException(
+					"error computing checksum, file not found:"
+							+ absolutePathToLocalFile, e);
 		} catch (NoSuchAlgorithmException e) {
 			throw new JargonException("no such algorithm exception for MD5");
-		} catch (Exception e) {
-			throw new JargonException("Error computing MD5 checksum", e);
-		} finally {
-			try {
-				in.close();
-			} catch (IOException e) {
-				// ignore
-			}
-			try {
-				file.close();
-			} catch (IOException e) {
-				// ignore
-			}
 		}
 	}
 
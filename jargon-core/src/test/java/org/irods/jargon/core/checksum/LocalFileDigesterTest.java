@@ -0,0 +1,127 @@
+package org.irods.jargon.core.checksum;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.junit.Test;
+
+public class LocalFileDigesterTest {
+
+	/**
+	 * Write a file of random bytes, returning the digest of what was written
+	 */
+	private byte[] writeFile(final File file, final long length,
+			final String algorithm) throws Exception {
+		MessageDigest expected = MessageDigest.getInstance(algorithm);
+		Random random = new Random(length);
+		byte[] buffer = new byte[1024 * 1024];
+		OutputStream out = new FileOutputStream(file);
+		try {
+			long remaining = length;
+			while (remaining > 0) {
+				random.nextBytes(buffer);
+				int count = (int) Math.min(buffer.length, remaining);
+				out.write(buffer, 0, count);
+				expected.update(buffer, 0, count);
+				remaining -= count;
+			}
+		} finally {
+			out.close();
+		}
+		return expected.digest();
+	}
+
+	@Test
+	public void testSmallFileStreamed() throws Exception {
+		File file = File.createTempFile("digest", ".dat");
+		try {
+			byte[] expected = writeFile(file, 100000L, "MD5");
+			byte[] actual = LocalFileDigester.digest(file,
+					MessageDigest.getInstance("MD5"));
+			Assert.assertTrue(Arrays.equals(expected, actual));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testLargeFileReadAheadInChunks() throws Exception {
+		File file = File.createTempFile("digest", ".dat");
+		try {
+			// several chunks and a short last one
+			long length = LocalFileDigester.READ_AHEAD_THRESHOLD
+					+ LocalFileDigester.CHUNK_SIZE / 2 + 17;
+			byte[] expected = writeFile(file, length, "SHA-256");
+			byte[] actual = LocalFileDigester.digest(file,
+					MessageDigest.getInstance("SHA-256"));
+			Assert.assertTrue(Arrays.equals(expected, actual));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testEmptyFile() throws Exception {
+		File file = File.createTempFile("digest", ".dat");
+		try {
+			byte[] actual = LocalFileDigester.digest(file,
+					MessageDigest.getInstance("MD5"));
+			Assert.assertTrue(Arrays.equals(MessageDigest.getInstance("MD5")
+					.digest(), actual));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void testMissingFile() throws Exception {
+		LocalFileDigester.digest(new File("/no/such/file/for/digest"),
+				MessageDigest.getInstance("MD5"));
+	}
+
+	@Test
+	public void testStrategyValueFromDigestMatchesFile() throws Exception {
+		File file = File.createTempFile("digest", ".dat");
+		try {
+			byte[] expected = writeFile(file, 5000L, "SHA-256");
+			SHA256LocalChecksumComputerStrategy strategy = new SHA256LocalChecksumComputerStrategy();
+			ChecksumValue fromDigest = strategy
+					.checksumValueFromDigest(expected);
+			ChecksumValue fromFile = strategy
+					.computeChecksumValueForLocalFile(file.getAbsolutePath());
+			Assert.assertEquals(fromFile.getChecksumTransmissionFormat(),
+					fromDigest.getChecksumTransmissionFormat());
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testStrategyWithoutDigestAlgorithm() throws Exception {
+		AbstractChecksumComputeStrategy strategy = new AbstractChecksumComputeStrategy() {
+			@Override
+			public ChecksumValue computeChecksumValueForLocalFile(
+					final String localFileAbsolutePath) {
+				return new ChecksumValue();
+			}
+		};
+
+		Assert.assertNull(strategy.getDigestAlgorithm());
+		Assert.assertNull(strategy.checksumValueFromDigest(new byte[16]));
+		try {
+			strategy.instanceMessageDigest();
+			Assert.fail("expected JargonException");
+		} catch (JargonException e) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+package org.irods.jargon.core.connection;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol.SocketLease;
+import org.irods.jargon.core.exception.JargonRuntimeException;
+import org.junit.Test;
+
+public class AbstractIRODSMidLevelProtocolTest {
+
+	@Test
+	public void testLeaseExcludesOtherThreads() throws Exception {
+		final AbstractIRODSMidLevelProtocol protocol = buildProtocol();
+		final AtomicBoolean acquired = new AtomicBoolean(true);
+
+		SocketLease lease = protocol.leaseSocket();
+		try {
+			Thread other = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					acquired.set(protocol.getSocketLock().tryLock());
+				}
+			});
+			other.start();
+			other.join();
+			Assert.assertFalse("socket should be held by the lease",
+					acquired.get());
+		} finally {
+			lease.close();
+		}
+
+		Assert.assertFalse(protocol.getSocketLock().isLocked());
+	}
+
+	@Test
+	public void testLeaseIsReentrantAndClosesOnce() throws Exception {
+		AbstractIRODSMidLevelProtocol protocol = buildProtocol();
+
+		SocketLease outer = protocol.leaseSocket();
+		try {
+			SocketLease inner = protocol.leaseSocket();
+			Assert.assertEquals(2, protocol.getSocketLock().getHoldCount());
+			inner.close();
+			inner.close();
+			Assert.assertEquals(1, protocol.getSocketLock().getHoldCount());
+		} finally {
+			outer.close();
+		}
+
+		Assert.assertFalse(protocol.getSocketLock().isLocked());
+	}
+
+	@Test
+	public void testMetadataReadableWhileLeased() throws Exception {
+		final AbstractIRODSMidLevelProtocol protocol = buildProtocol();
+		final IRODSAccount irodsAccount = IRODSAccount.instance("host", 1247,
+				"user", "password", "/zone/home/user", "zone", "");
+		protocol.setIrodsAccount(irodsAccount);
+		final AtomicBoolean sameAccount = new AtomicBoolean(false);
+
+		SocketLease lease = protocol.leaseSocket();
+		try {
+			Thread other = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					sameAccount.set(protocol.getIrodsAccount() == irodsAccount);
+				}
+			});
+			other.start();
+			other.join(10000);
+			Assert.assertTrue(sameAccount.get());
+		} finally {
+			lease.close();
+		}
+	}
+
+	@Test
+	public void testReservationRefusesOtherThreads() throws Exception {
+		final AbstractIRODSMidLevelProtocol protocol = buildProtocol();
+		final AtomicBoolean ownerLeased = new AtomicBoolean(false);
+		Thread owner = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				protocol.leaseSocket().close();
+				ownerLeased.set(true);
+			}
+		});
+
+		protocol.reserveSocket(owner);
+		try {
+			protocol.leaseSocket();
+			Assert.fail("expected JargonRuntimeException");
+		} catch (JargonRuntimeException e) {
+			// expected
+		}
+		Assert.assertFalse(protocol.getSocketLock().isLocked());
+
+		owner.start();
+		owner.join(10000);
+		Assert.assertTrue("owner should use the connection", ownerLeased.get());
+
+		protocol.releaseSocketReservation(owner);
+		protocol.leaseSocket().close();
+	}
+
+	private AbstractIRODSMidLevelProtocol buildProtocol() {
+		return new IRODSMidLevelProtocol(mock(AbstractConnection.class),
+				mock(IRODSProtocolManager.class));
+	}
+
+}
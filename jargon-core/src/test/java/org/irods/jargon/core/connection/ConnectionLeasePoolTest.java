@@ -0,0 +1,274 @@
+package org.irods.jargon.core.connection;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.junit.Test;
+import org.mockito.Matchers;
+
+public class ConnectionLeasePoolTest {
+
+	@Test
+	public void testLeaseReusesReturnedConnection() throws Exception {
+		IRODSProtocolManager manager = mock(IRODSProtocolManager.class);
+		IRODSSession irodsSession = new IRODSSession(manager);
+		IRODSAccount irodsAccount = buildAccount("user");
+		AbstractIRODSMidLevelProtocol protocol = mockProtocol(manager,
+				irodsSession);
+		stubConnect(manager, protocol);
+
+		ConnectionLeasePool pool = new ConnectionLeasePool(2, 1000);
+		ConnectionLease lease = pool.lease(irodsAccount, irodsSession);
+		Assert.assertTrue(lease.isNewConnection());
+		Assert.assertEquals(1, pool.getLeasedCount(irodsAccount));
+		lease.close();
+		lease.close();
+		Assert.assertEquals(0, pool.getLeasedCount(irodsAccount));
+		Assert.assertEquals(1, pool.getIdleCount(irodsAccount));
+
+		ConnectionLease again = pool.lease(irodsAccount, irodsSession);
+		Assert.assertFalse(again.isNewConnection());
+		Assert.assertSame(protocol, again.getIrodsProtocol());
+		again.close();
+
+		verify(manager, times(1)).getIRODSProtocol(
+				Matchers.any(IRODSAccount.class),
+				Matchers.any(PipelineConfiguration.class),
+				Matchers.any(IRODSSession.class));
+	}
+
+	@Test
+	public void testInvalidatedConnectionIsDiscarded() throws Exception {
+		IRODSProtocolManager manager = mock(IRODSProtocolManager.class);
+		IRODSSession irodsSession = new IRODSSession(manager);
+		IRODSAccount irodsAccount = buildAccount("user");
+		AbstractIRODSMidLevelProtocol protocol = mockProtocol(manager,
+				irodsSession);
+		stubConnect(manager, protocol);
+
+		ConnectionLeasePool pool = new ConnectionLeasePool(1, 1000);
+		ConnectionLease lease = pool.lease(irodsAccount, irodsSession);
+		lease.invalidate();
+		lease.close();
+
+		Assert.assertEquals(0, pool.getIdleCount(irodsAccount));
+		Assert.assertEquals(0, pool.getLeasedCount(irodsAccount));
+		verify(manager).returnWithForce(protocol);
+	}
+
+	@Test(expected = JargonException.class)
+	public void testLeaseTimesOutWhenExhausted() throws Exception {
+		IRODSProtocolManager manager = mock(IRODSProtocolManager.class);
+		IRODSSession irodsSession = new IRODSSession(manager);
+		IRODSAccount irodsAccount = buildAccount("user");
+		AbstractIRODSMidLevelProtocol protocol = mockProtocol(manager,
+				irodsSession);
+		stubConnect(manager, protocol);
+
+		ConnectionLeasePool pool = new ConnectionLeasePool(1, 10);
+		ConnectionLease lease = pool.lease(irodsAccount, irodsSession);
+		try {
+			pool.lease(irodsAccount, irodsSession);
+		} finally {
+			lease.close();
+		}
+	}
+
+	@Test
+	public void testWaiterGetsReturnedConnection() throws Exception {
+		IRODSProtocolManager manager = mock(IRODSProtocolManager.class);
+		final IRODSSession irodsSession = new IRODSSession(manager);
+		final IRODSAccount irodsAccount = buildAccount("user");
+		AbstractIRODSMidLevelProtocol protocol = mockProtocol(manager,
+				irodsSession);
+		stubConnect(manager, protocol);
+
+		final ConnectionLeasePool pool = new ConnectionLeasePool(1, 10000);
+		ConnectionLease lease = pool.lease(irodsAccount, irodsSession);
+
+		final AtomicReference<AbstractIRODSMidLevelProtocol> leased = new AtomicReference<AbstractIRODSMidLevelProtocol>();
+		final CountDownLatch started = new CountDownLatch(1);
+		Thread waiter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					ConnectionLease other = pool.lease(irodsAccount,
+							irodsSession);
+					leased.set(other.getIrodsProtocol());
+					other.close();
+				} catch (JargonException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		});
+		waiter.start();
+		started.await();
+		lease.close();
+		waiter.join(10000);
+
+		Assert.assertSame(protocol, leased.get());
+	}
+
+	@Test
+	public void testCloseShutsDownIdleConnections() throws Exception {
+		IRODSProtocolManager manager = mock(IRODSProtocolManager.class);
+		IRODSSession irodsSession = new IRODSSession(manager);
+		IRODSAccount irodsAccount = buildAccount("user");
+		AbstractIRODSMidLevelProtocol protocol = mockProtocol(manager,
+				irodsSession);
+		stubConnect(manager, protocol);
+
+		ConnectionLeasePool pool = new ConnectionLeasePool(1, 1000);
+		pool.lease(irodsAccount, irodsSession).close();
+		pool.close();
+
+		Assert.assertEquals(0, pool.getIdleCount(irodsAccount));
+		verify(manager).returnIRODSProtocol(protocol);
+	}
+
+	@Test
+	public void testSessionCurrentConnectionUsesLeaseInScope()
+			throws Exception {
+		IRODSProtocolManager manager = mock(IRODSProtocolManager.class);
+		IRODSSession irodsSession = new IRODSSession(manager);
+		IRODSAccount irodsAccount = buildAccount("user");
+		AbstractIRODSMidLevelProtocol protocol = mockProtocol(manager,
+				irodsSession);
+		stubConnect(manager, protocol);
+		ConnectionLeasePool pool = new ConnectionLeasePool(1, 1000);
+		irodsSession.setConnectionLeasePool(pool);
+
+		try (ConnectionLease lease = irodsSession
+				.leaseConnection(irodsAccount)) {
+			Assert.assertSame(protocol,
+					irodsSession.currentConnection(irodsAccount));
+			try (ConnectionLease nested = irodsSession
+					.leaseConnection(irodsAccount)) {
+				Assert.assertSame(lease, nested);
+			}
+			Assert.assertTrue(lease.isHeld());
+			Assert.assertEquals(1, irodsSession.getIRODSCommandsMap().size());
+		}
+
+		Assert.assertNull(irodsSession.getIRODSCommandsMap());
+		Assert.assertEquals(1, pool.getIdleCount(irodsAccount));
+	}
+
+	@Test
+	public void testSessionCurrentConnectionHeldUntilClose() throws Exception {
+		IRODSProtocolManager manager = mock(IRODSProtocolManager.class);
+		IRODSSession irodsSession = new IRODSSession(manager);
+		IRODSAccount irodsAccount = buildAccount("user");
+		AbstractIRODSMidLevelProtocol protocol = mockProtocol(manager,
+				irodsSession);
+		stubConnect(manager, protocol);
+		ConnectionLeasePool pool = new ConnectionLeasePool(1, 1000);
+		irodsSession.setConnectionLeasePool(pool);
+
+		Assert.assertSame(protocol,
+				irodsSession.currentConnection(irodsAccount));
+		Assert.assertSame(protocol,
+				irodsSession.currentConnection(irodsAccount));
+		Assert.assertEquals(1, pool.getLeasedCount(irodsAccount));
+
+		irodsSession.closeSession(irodsAccount);
+		Assert.assertEquals(0, pool.getLeasedCount(irodsAccount));
+		Assert.assertEquals(1, pool.getIdleCount(irodsAccount));
+		Assert.assertNull(irodsSession.getIRODSCommandsMap());
+	}
+
+	@Test
+	public void testSessionDiscardForErrors() throws Exception {
+		IRODSProtocolManager manager = mock(IRODSProtocolManager.class);
+		IRODSSession irodsSession = new IRODSSession(manager);
+		IRODSAccount irodsAccount = buildAccount("user");
+		AbstractIRODSMidLevelProtocol protocol = mockProtocol(manager,
+				irodsSession);
+		stubConnect(manager, protocol);
+		ConnectionLeasePool pool = new ConnectionLeasePool(1, 1000);
+		irodsSession.setConnectionLeasePool(pool);
+
+		irodsSession.currentConnection(irodsAccount);
+		irodsSession.discardSessionForErrors(irodsAccount);
+
+		Assert.assertEquals(0, pool.getIdleCount(irodsAccount));
+		Assert.assertEquals(0, pool.getLeasedCount(irodsAccount));
+		verify(manager).returnWithForce(protocol);
+	}
+
+	@Test
+	public void testSessionsOnOneThreadKeepTheirOwnLeases() throws Exception {
+		IRODSAccount irodsAccount = buildAccount("user");
+		IRODSProtocolManager manager = mock(IRODSProtocolManager.class);
+		IRODSSession irodsSession = new IRODSSession(manager);
+		AbstractIRODSMidLevelProtocol protocol = mockProtocol(manager,
+				irodsSession);
+		stubConnect(manager, protocol);
+		ConnectionLeasePool pool = new ConnectionLeasePool(1, 1000);
+		irodsSession.setConnectionLeasePool(pool);
+
+		IRODSProtocolManager otherManager = mock(IRODSProtocolManager.class);
+		IRODSSession otherSession = new IRODSSession(otherManager);
+		AbstractIRODSMidLevelProtocol otherProtocol = mockProtocol(
+				otherManager, otherSession);
+		stubConnect(otherManager, otherProtocol);
+		ConnectionLeasePool otherPool = new ConnectionLeasePool(1, 1000);
+		otherSession.setConnectionLeasePool(otherPool);
+
+		Assert.assertSame(protocol,
+				irodsSession.currentConnection(irodsAccount));
+		Assert.assertSame(otherProtocol,
+				otherSession.currentConnection(irodsAccount));
+		Assert.assertSame(protocol,
+				irodsSession.currentConnection(irodsAccount));
+
+		otherSession.closeSession(irodsAccount);
+		Assert.assertEquals(0, otherPool.getLeasedCount(irodsAccount));
+		Assert.assertEquals(1, pool.getLeasedCount(irodsAccount));
+		irodsSession.closeSession(irodsAccount);
+		Assert.assertEquals(0, pool.getLeasedCount(irodsAccount));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadMaxConnections() throws Exception {
+		new ConnectionLeasePool(0, 1000);
+	}
+
+	private IRODSAccount buildAccount(final String userName)
+			throws JargonException {
+		return IRODSAccount.instance("host", 1247, userName, "password",
+				"/zone/home/" + userName, "zone", "");
+	}
+
+	private AbstractIRODSMidLevelProtocol mockProtocol(
+			final IRODSProtocolManager manager, final IRODSSession irodsSession) {
+		PipelineConfiguration pipelineConfiguration = irodsSession
+				.buildPipelineConfigurationBasedOnJargonProperties();
+		AbstractIRODSMidLevelProtocol protocol = mock(AbstractIRODSMidLevelProtocol.class);
+		when(protocol.isConnected()).thenReturn(true);
+		when(protocol.getPipelineConfiguration()).thenReturn(
+				pipelineConfiguration);
+		when(protocol.getConnectTimeInMillis()).thenReturn(
+				System.currentTimeMillis());
+		when(protocol.getIrodsProtocolManager()).thenReturn(manager);
+		return protocol;
+	}
+
+	private void stubConnect(final IRODSProtocolManager manager,
+			final AbstractIRODSMidLevelProtocol protocol) throws Exception {
+		when(
+				manager.getIRODSProtocol(Matchers.any(IRODSAccount.class),
+						Matchers.any(PipelineConfiguration.class),
+						Matchers.any(IRODSSession.class))).thenReturn(protocol);
+	}
+
+}
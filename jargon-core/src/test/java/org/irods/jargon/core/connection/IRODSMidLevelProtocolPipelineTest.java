@@ -0,0 +1,332 @@
+package org.irods.jargon.core.connection;
+
+import static org.mockito.Mockito.mock;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.exception.DuplicateDataException;
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.ModAvuMetadataInp;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.irods.jargon.core.utils.IRODSConstants;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class IRODSMidLevelProtocolPipelineTest {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(IRODSMidLevelProtocolPipelineTest.class);
+
+	/**
+	 * Answers each API request on a local socket as an agent would, in order,
+	 * once a fixed delay has passed since the request arrived, standing in for
+	 * the round trip to a remote agent. Requests are read as they arrive, so
+	 * that requests written ahead are delayed together, as on a network.
+	 */
+	static class MockAgent {
+
+		private final ServerSocket serverSocket;
+		private final long replyDelayMillis;
+		private final Map<Integer, Integer> errorsByRequest = new HashMap<Integer, Integer>();
+		private final BlockingQueue<long[]> pendingReplies = new LinkedBlockingQueue<long[]>();
+		final AtomicInteger requestsRead = new AtomicInteger();
+		final AtomicInteger repliesWritten = new AtomicInteger();
+		volatile int maxRequestsAwaitingReply = 0;
+		private Socket socket;
+
+		MockAgent(final long replyDelayMillis) throws IOException {
+			this.replyDelayMillis = replyDelayMillis;
+			serverSocket = new ServerSocket(0, 1,
+					InetAddress.getLoopbackAddress());
+		}
+
+		void failRequest(final int request, final int errorCode) {
+			errorsByRequest.put(request, errorCode);
+		}
+
+		Socket connect() throws Exception {
+			Socket client = new Socket(InetAddress.getLoopbackAddress(),
+					serverSocket.getLocalPort());
+			socket = serverSocket.accept();
+			socket.setTcpNoDelay(true);
+			client.setTcpNoDelay(true);
+			startReader(new DataInputStream(socket.getInputStream()));
+			startWriter(new DataOutputStream(socket.getOutputStream()));
+			return client;
+		}
+
+		private void startReader(final DataInputStream in) {
+			Thread reader = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						while (true) {
+							byte[] header = new byte[in.readInt()];
+							in.readFully(header);
+							Tag headerTag = Tag.readNextTag(header, "utf-8");
+							in.readFully(new byte[headerTag.getTag("msgLen")
+									.getIntValue()]);
+							int request = requestsRead.getAndIncrement();
+							maxRequestsAwaitingReply = Math.max(
+									maxRequestsAwaitingReply, request + 1
+											- repliesWritten.get());
+							pendingReplies.put(new long[] { request,
+									System.nanoTime() });
+						}
+					} catch (Exception e) {
+						// socket closed
+					}
+				}
+			});
+			reader.setDaemon(true);
+			reader.start();
+		}
+
+		private void startWriter(final DataOutputStream out) {
+			Thread writer = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						while (true) {
+							long[] pending = pendingReplies.take();
+							long due = pending[1] + replyDelayMillis * 1000000L;
+							long wait = due - System.nanoTime();
+							if (wait > 0) {
+								Thread.sleep(wait / 1000000L,
+										(int) (wait % 1000000L));
+							}
+							Integer error = errorsByRequest
+									.get((int) pending[0]);
+							byte[] header = AbstractIRODSMidLevelProtocol
+									.createHeaderBytesFromData(
+											IRODSConstants.RODS_API_REPLY, 0,
+											0, 0, error == null ? 0 : error,
+											"utf-8");
+							repliesWritten.incrementAndGet();
+							out.writeInt(header.length);
+							out.write(header);
+							out.flush();
+						}
+					} catch (Exception e) {
+						// socket closed
+					}
+				}
+			});
+			writer.setDaemon(true);
+			writer.start();
+		}
+
+		void close() throws IOException {
+			if (socket != null) {
+				socket.close();
+			}
+			serverSocket.close();
+		}
+	}
+
+	private MockAgent mockAgent;
+	private IRODSMidLevelProtocol protocol;
+
+	private void startAgent(final long replyDelayMillis) throws Exception {
+		mockAgent = new MockAgent(replyDelayMillis);
+		Socket socket = mockAgent.connect();
+		IRODSAccount irodsAccount = IRODSAccount.instance("localhost", 1247,
+				"user", "password", "/zone/home/user", "zone", "");
+		AbstractConnection connection = new IRODSBasicTCPConnection(
+				irodsAccount, PipelineConfiguration
+						.instance(new SettableJargonProperties()),
+				mock(IRODSProtocolManager.class), socket,
+				mock(IRODSSession.class));
+		protocol = new IRODSMidLevelProtocol(connection,
+				mock(IRODSProtocolManager.class));
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		mockAgent = null;
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (mockAgent != null) {
+			mockAgent.close();
+		}
+	}
+
+	private static List<ModAvuMetadataInp> avuRequests(final int count)
+			throws JargonException {
+		List<ModAvuMetadataInp> requests = new ArrayList<ModAvuMetadataInp>();
+		for (int i = 0; i < count; i++) {
+			requests.add(ModAvuMetadataInp.instanceForAddDataObjectMetadata(
+					"/zone/home/user/file.txt",
+					AvuData.instance("attribute" + i, "value" + i, "unit")));
+		}
+		return requests;
+	}
+
+	static class RecordingReplyHandler implements PipelinedReplyHandler {
+		final List<Integer> indexes = new ArrayList<Integer>();
+		final List<JargonException> errors = new ArrayList<JargonException>();
+
+		@Override
+		public void replyReceived(final int index, final Tag reply,
+				final JargonException error) {
+			indexes.add(index);
+			errors.add(error);
+		}
+	}
+
+	@Test
+	public void testRepliesHandedOverInOrderWithErrors() throws Exception {
+		startAgent(0);
+		mockAgent.failRequest(3, -809000);
+		mockAgent.failRequest(6, -817000);
+		RecordingReplyHandler handler = new RecordingReplyHandler();
+
+		protocol.irodsFunctionPipelined(avuRequests(10), 4, handler);
+
+		List<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < 10; i++) {
+			expected.add(i);
+		}
+		Assert.assertEquals(expected, handler.indexes);
+		for (int i = 0; i < 10; i++) {
+			if (i == 3) {
+				Assert.assertTrue(handler.errors.get(i) instanceof DuplicateDataException);
+			} else if (i == 6) {
+				Assert.assertTrue(handler.errors.get(i) instanceof FileNotFoundException);
+			} else {
+				Assert.assertNull(handler.errors.get(i));
+			}
+		}
+		Assert.assertFalse(protocol.getSocketLock().isLocked());
+
+		// the connection is still in step after the errors
+		protocol.irodsFunction(avuRequests(1).get(0));
+		Assert.assertEquals(11, mockAgent.repliesWritten.get());
+	}
+
+	@Test
+	public void testWindowLimitsRequestsInFlight() throws Exception {
+		startAgent(5);
+		RecordingReplyHandler handler = new RecordingReplyHandler();
+
+		protocol.irodsFunctionPipelined(avuRequests(40), 4, handler);
+
+		Assert.assertEquals(40, handler.indexes.size());
+		Assert.assertTrue("more than window in flight:"
+				+ mockAgent.maxRequestsAwaitingReply,
+				mockAgent.maxRequestsAwaitingReply <= 4);
+		Assert.assertTrue("requests were not written ahead",
+				mockAgent.maxRequestsAwaitingReply > 1);
+	}
+
+	@Test
+	public void testEmptyRequestList() throws Exception {
+		startAgent(0);
+		RecordingReplyHandler handler = new RecordingReplyHandler();
+		protocol.irodsFunctionPipelined(
+				Collections.<ModAvuMetadataInp> emptyList(), 4, handler);
+		Assert.assertTrue(handler.indexes.isEmpty());
+	}
+
+	@Test
+	public void testNullRequestRefusedBeforeAnyIsSent() throws Exception {
+		startAgent(0);
+		List<ModAvuMetadataInp> requests = avuRequests(3);
+		requests.add(1, null);
+
+		try {
+			protocol.irodsFunctionPipelined(requests, 4,
+					new RecordingReplyHandler());
+			Assert.fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		// nothing was written, so the connection is still in step
+		protocol.irodsFunction(avuRequests(1).get(0));
+		Assert.assertEquals(1, mockAgent.repliesWritten.get());
+	}
+
+	@Test
+	public void testHandlerFailureDisconnects() throws Exception {
+		startAgent(0);
+		final RuntimeException failure = new RuntimeException("handler failed");
+
+		try {
+			protocol.irodsFunctionPipelined(avuRequests(10), 4,
+					new PipelinedReplyHandler() {
+						@Override
+						public void replyReceived(final int index,
+								final Tag reply, final JargonException error) {
+							throw failure;
+						}
+					});
+			Assert.fail("expected RuntimeException");
+		} catch (RuntimeException e) {
+			Assert.assertSame(failure, e);
+		}
+
+		Assert.assertFalse("connection left out of step",
+				protocol.getIrodsConnection().isConnected());
+		Assert.assertFalse(protocol.getSocketLock().isLocked());
+	}
+
+	/**
+	 * Throughput of AVU requests against an agent 2ms away, one at a time and
+	 * pipelined
+	 */
+	@Test
+	public void testPipelinedThroughputBenchmark() throws Exception {
+		final long replyDelayMillis = 2;
+		final int count = 200;
+		startAgent(replyDelayMillis);
+		List<ModAvuMetadataInp> requests = avuRequests(count);
+
+		long start = System.nanoTime();
+		for (ModAvuMetadataInp request : requests) {
+			protocol.irodsFunction(request);
+		}
+		long serialNanos = System.nanoTime() - start;
+
+		RecordingReplyHandler handler = new RecordingReplyHandler();
+		start = System.nanoTime();
+		protocol.irodsFunctionPipelined(requests, 32, handler);
+		long pipelinedNanos = System.nanoTime() - start;
+
+		log.info(
+				"{} AVU requests with {}ms replies, serial:{} requests/s, pipelined:{} requests/s",
+				new Object[] { count, replyDelayMillis,
+						count * 1000000000L / serialNanos,
+						count * 1000000000L / pipelinedNanos });
+
+		Assert.assertEquals(count, handler.indexes.size());
+		Assert.assertEquals(Arrays.asList(new JargonException[count]),
+				handler.errors);
+		Assert.assertTrue("pipelining should be well ahead of serial",
+				pipelinedNanos * 4 < serialNanos);
+	}
+
+}
@@ -3,6 +3,8 @@ package org.irods.jargon.core.connection;
 import java.util.Properties;
 import java.util.concurrent.Executor;
 
+import javax.net.ssl.SSLContext;
+
 import junit.framework.Assert;
 
 import org.irods.jargon.core.packinstr.TransferOptions;
@@ -55,6 +57,24 @@ public class IRODSSessionTest {
 
 	}
 
+	@Test
+	public final void testSslContextReusedUntilTrustManagerChanged()
+			throws Exception {
+		SettableJargonProperties settableJargonProperties = new SettableJargonProperties();
+		settableJargonProperties.setBypassSslCertChecks(false);
+		IRODSSession irodsSession = new IRODSSession(settableJargonProperties);
+		SSLContext first = irodsSession.getSslContext();
+		Assert.assertSame("ssl context not reused", first,
+				irodsSession.getSslContext());
+		irodsSession.setX509TrustManager(new TrustAllX509TrustManager());
+		SSLContext second = irodsSession.getSslContext();
+		Assert.assertNotSame("ssl context not rebuilt for trust manager",
+				first, second);
+		Assert.assertSame("ssl context not reused", second,
+				irodsSession.getSslContext());
+
+	}
+
 	@Test
 	public void testGetDefaultJargonProperties() throws Exception {
 		IRODSProtocolManager irodsConnectionManager = IRODSSimpleProtocolManager
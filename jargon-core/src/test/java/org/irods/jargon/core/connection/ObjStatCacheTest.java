@@ -0,0 +1,107 @@
+package org.irods.jargon.core.connection;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.junit.Test;
+
+public class ObjStatCacheTest {
+
+	private IRODSAccount account(final String userName) throws Exception {
+		return IRODSAccount.instance("host", 1247, userName, "password",
+				"/zone/home/" + userName, "zone", "");
+	}
+
+	private ObjStat objStat(final String path) {
+		ObjStat objStat = new ObjStat();
+		objStat.setAbsolutePath(path);
+		return objStat;
+	}
+
+	@Test
+	public void testHitAndMissAreCounted() throws Exception {
+		ObjStatCache cache = new ObjStatCache(60000L, 10);
+		IRODSAccount account = account("test1");
+		Assert.assertNull(cache.getObjStat(account, "/zone/home/test1/a"));
+		ObjStat objStat = objStat("/zone/home/test1/a");
+		cache.putObjStat(account, "/zone/home/test1/a", objStat);
+		Assert.assertSame(objStat,
+				cache.getObjStat(account, "/zone/home/test1/a"));
+		Assert.assertSame(objStat,
+				cache.getObjStat(account, "/zone/home/test1/a/"));
+		Assert.assertEquals(2L, cache.getHitCount());
+		Assert.assertEquals(1L, cache.getMissCount());
+	}
+
+	@Test
+	public void testUsersAreKeptApart() throws Exception {
+		ObjStatCache cache = new ObjStatCache(60000L, 10);
+		cache.putObjStat(account("test1"), "/zone/home/shared",
+				objStat("/zone/home/shared"));
+		Assert.assertNull(cache.getObjStat(account("test2"),
+				"/zone/home/shared"));
+	}
+
+	@Test
+	public void testExpiredEntryIsMissed() throws Exception {
+		ObjStatCache cache = new ObjStatCache(1L, 10);
+		IRODSAccount account = account("test1");
+		cache.putObjStat(account, "/zone/a", objStat("/zone/a"));
+		Thread.sleep(10);
+		Assert.assertNull(cache.getObjStat(account, "/zone/a"));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() throws Exception {
+		ObjStatCache cache = new ObjStatCache(60000L, 2);
+		IRODSAccount account = account("test1");
+		cache.putObjStat(account, "/zone/a", objStat("/zone/a"));
+		cache.putObjStat(account, "/zone/b", objStat("/zone/b"));
+		cache.getObjStat(account, "/zone/a");
+		cache.putObjStat(account, "/zone/c", objStat("/zone/c"));
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(1L, cache.getEvictionCount());
+		Assert.assertNotNull(cache.getObjStat(account, "/zone/a"));
+		Assert.assertNull(cache.getObjStat(account, "/zone/b"));
+	}
+
+	@Test
+	public void testInvalidateClearsPathParentAndChildren() throws Exception {
+		ObjStatCache cache = new ObjStatCache(60000L, 10);
+		IRODSAccount account = account("test1");
+		String[] paths = { "/zone/home", "/zone/home/coll",
+				"/zone/home/coll/file", "/zone/home/coll/sub/file",
+				"/zone/home/collection2", "/zone/other" };
+		for (String path : paths) {
+			cache.putObjStat(account, path, objStat(path));
+		}
+		cache.putListingEntry(account("test2"), "/zone/home/coll/file",
+				new CollectionAndDataObjectListingEntry());
+
+		cache.invalidate("/zone/home/coll");
+
+		Assert.assertNull(cache.getObjStat(account, "/zone/home"));
+		Assert.assertNull(cache.getObjStat(account, "/zone/home/coll"));
+		Assert.assertNull(cache.getObjStat(account, "/zone/home/coll/file"));
+		Assert.assertNull(cache.getObjStat(account,
+				"/zone/home/coll/sub/file"));
+		Assert.assertNull(cache.getListingEntry(account("test2"),
+				"/zone/home/coll/file"));
+		Assert.assertNotNull(cache.getObjStat(account,
+				"/zone/home/collection2"));
+		Assert.assertNotNull(cache.getObjStat(account, "/zone/other"));
+	}
+
+	@Test
+	public void testDisabledCachesNothing() throws Exception {
+		ObjStatCache cache = new ObjStatCache(0L, 10);
+		IRODSAccount account = account("test1");
+		cache.putObjStat(account, "/zone/a", objStat("/zone/a"));
+		Assert.assertFalse(cache.isEnabled());
+		Assert.assertNull(cache.getObjStat(account, "/zone/a"));
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(0L, cache.getMissCount());
+	}
+
+}
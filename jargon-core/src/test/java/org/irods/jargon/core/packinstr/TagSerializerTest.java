@@ -0,0 +1,87 @@
+package org.irods.jargon.core.packinstr;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TagSerializerTest {
+
+	private static final String ENCODING = "utf-8";
+
+	@Test
+	public void testToBytesMatchesParseTag() throws Exception {
+		Tag tag = new Tag("DataObjInp_PI", new Tag[] {
+				new Tag("objPath", "/zone/home/a<b>&\"c`"),
+				new Tag("createMode", 0), new Tag("offset", 123456789012L),
+				Tag.createKeyValueTag("dataType", "generic") });
+		assertSameAsParseTag(tag, ENCODING);
+	}
+
+	@Test
+	public void testToBytesMultiByte() throws Exception {
+		Tag tag = new Tag("STR_PI", new Tag[] { new Tag("myStr",
+				"été 日本 😀 & ü") });
+		assertSameAsParseTag(tag, ENCODING);
+	}
+
+	@Test
+	public void testToBytesUnpairedSurrogate() throws Exception {
+		Tag tag = new Tag("STR_PI", new Tag[] { new Tag("myStr",
+				"a\uD83Db\uDE00") });
+		assertSameAsParseTag(tag, ENCODING);
+	}
+
+	@Test
+	public void testToBytesUnpairedSurrogateInName() throws Exception {
+		Tag tag = new Tag("STR_PI", new Tag[] { new Tag("my\uD83Dx", "a") });
+		assertSameAsParseTag(tag, ENCODING);
+	}
+
+	@Test
+	public void testToBytesNullAndEmptyValues() throws Exception {
+		Tag tag = new Tag("KeyValPair_PI", new Tag[] {
+				new Tag("svalue", (String) null), new Tag("svalue", "") });
+		assertSameAsParseTag(tag, ENCODING);
+	}
+
+	@Test
+	public void testToBytesOtherEncoding() throws Exception {
+		Tag tag = new Tag("STR_PI", new Tag[] { new Tag("myStr",
+				"café <&>") });
+		assertSameAsParseTag(tag, "ISO-8859-1");
+	}
+
+	@Test
+	public void testWriteAtOffset() throws Exception {
+		Tag tag = new Tag("INT_PI", new Tag[] { new Tag("myInt", 42) });
+		TagSerializer serializer = TagSerializer.instance(ENCODING);
+		int length = serializer.byteLength(tag);
+		byte[] target = new byte[length + 10];
+		int end = serializer.write(tag, target, 5);
+		Assert.assertEquals(length + 5, end);
+		Assert.assertEquals(tag.parseTag(), new String(target, 5, length,
+				ENCODING));
+	}
+
+	@Test(expected = UnsupportedEncodingException.class)
+	public void testInstanceBadEncoding() throws Exception {
+		TagSerializer.instance("not-an-encoding");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testByteLengthNullTag() throws Exception {
+		TagSerializer.instance(ENCODING).byteLength(null);
+	}
+
+	private void assertSameAsParseTag(final Tag tag, final String encoding)
+			throws Exception {
+		TagSerializer serializer = TagSerializer.instance(encoding);
+		byte[] expected = tag.parseTag().getBytes(encoding);
+		Assert.assertEquals(expected.length, serializer.byteLength(tag));
+		Assert.assertTrue(Arrays.equals(expected, serializer.toBytes(tag)));
+	}
+
+}
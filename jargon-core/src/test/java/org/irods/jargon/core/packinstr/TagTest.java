@@ -0,0 +1,99 @@
+package org.irods.jargon.core.packinstr;
+
+import java.io.UnsupportedEncodingException;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TagTest {
+
+	private static final String ENCODING = "utf-8";
+
+	@Test
+	public void testReadNextTagNested() throws Exception {
+		String message = "<MsgHeader_PI>\n<type>RODS_API_REPLY</type>\n<msgLen>0</msgLen>\n<errorLen>0</errorLen>\n<bsLen>0</bsLen>\n<intInfo>-808000</intInfo>\n</MsgHeader_PI>\n";
+		Tag tag = Tag.readNextTag(message.getBytes(ENCODING), ENCODING);
+		Assert.assertEquals("MsgHeader_PI", tag.getName());
+		Assert.assertEquals(5, tag.getLength());
+		Assert.assertEquals("RODS_API_REPLY", tag.getTag("type")
+				.getStringValue());
+		Assert.assertEquals(-808000, tag.getTag("intInfo").getIntValue());
+	}
+
+	@Test
+	public void testReadNextTagDeepAndRepeated() throws Exception {
+		String message = "<GenQueryOut_PI><rowCnt>2</rowCnt><attriCnt>1</attriCnt>"
+				+ "<SqlResult_PI><attriInx>403</attriInx><reslen>10</reslen><value>a</value><value>b</value></SqlResult_PI>"
+				+ "</GenQueryOut_PI>";
+		Tag tag = Tag.readNextTag(message.getBytes(ENCODING), ENCODING);
+		Tag sqlResult = tag.getTag("SqlResult_PI");
+		Assert.assertEquals(4, sqlResult.getLength());
+		Assert.assertEquals("a", sqlResult.getTag("value", 0)
+				.getStringValue());
+		Assert.assertEquals("b", sqlResult.getTag("value", 1)
+				.getStringValue());
+	}
+
+	@Test
+	public void testReadNextTagEmptyValue() throws Exception {
+		String message = "<KeyValPair_PI><ssLen>1</ssLen><keyWord>dataType</keyWord><svalue></svalue></KeyValPair_PI>";
+		Tag tag = Tag.readNextTag(message.getBytes(ENCODING), ENCODING);
+		Assert.assertEquals("", tag.getTag("svalue").getStringValue());
+	}
+
+	@Test
+	public void testReadNextTagDecodesEntities() throws Exception {
+		String message = "<STR_PI><myStr>a &amp;&lt;b&gt; &quot;c&quot; &apos; &foo; &amp</myStr></STR_PI>";
+		Tag tag = Tag.readNextTag(message.getBytes(ENCODING), ENCODING);
+		Assert.assertEquals("a &<b> \"c\" ` &foo; &amp", tag.getTag("myStr")
+				.getStringValue());
+	}
+
+	@Test
+	public void testReadNextTagNoDecode() throws Exception {
+		String message = "<STR_PI><myStr>a &amp; b</myStr></STR_PI>";
+		Tag tag = Tag.readNextTag(message.getBytes(ENCODING), false, ENCODING);
+		Assert.assertEquals("a &amp; b", tag.getTag("myStr").getStringValue());
+	}
+
+	@Test
+	public void testReadNextTagMultiByteValue() throws Exception {
+		String value = "été 日本 &amp; ü";
+		String message = "<STR_PI><myStr>" + value + "</myStr></STR_PI>";
+		Tag tag = Tag.readNextTag(message.getBytes(ENCODING), ENCODING);
+		Assert.assertEquals("été 日本 & ü", tag
+				.getTag("myStr").getStringValue());
+	}
+
+	@Test
+	public void testReadNextTagNotAsciiCompatibleEncoding() throws Exception {
+		String message = "<STR_PI><myStr>x &lt; y</myStr></STR_PI>";
+		Tag tag = Tag.readNextTag(message.getBytes("UTF-16"), "UTF-16");
+		Assert.assertEquals("x < y", tag.getTag("myStr").getStringValue());
+	}
+
+	@Test
+	public void testReadNextTagRoundTrip() throws Exception {
+		Tag original = new Tag("DataObjInp_PI", new Tag[] {
+				new Tag("objPath", "/zone/home/a<b>&\"c`"),
+				new Tag("createMode", 0),
+				Tag.createKeyValueTag("dataType", "generic") });
+		Tag tag = Tag.readNextTag(original.parseTag().getBytes(ENCODING),
+				ENCODING);
+		Assert.assertEquals(original.parseTag(), tag.parseTag());
+	}
+
+	@Test
+	public void testReadNextTagNoTag() throws Exception {
+		Assert.assertNull(Tag.readNextTag("no tags here".getBytes(ENCODING),
+				ENCODING));
+		Assert.assertNull(Tag.readNextTag(null, ENCODING));
+	}
+
+	@Test(expected = UnsupportedEncodingException.class)
+	public void testReadNextTagBadEncoding() throws Exception {
+		Tag.readNextTag("<a></a>".getBytes(ENCODING), "not-an-encoding");
+	}
+
+}
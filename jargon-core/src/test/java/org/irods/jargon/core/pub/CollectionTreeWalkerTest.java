@@ -0,0 +1,269 @@
+package org.irods.jargon.core.pub;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.CollectionTreeWalker.ChildLister;
+import org.irods.jargon.core.pub.CollectionTreeWalker.ListingCursor;
+import org.irods.jargon.core.pub.CollectionTreeWalker.WalkOrder;
+import org.irods.jargon.core.pub.domain.ObjStat.SpecColType;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry.ObjectType;
+import org.junit.Test;
+
+public class CollectionTreeWalkerTest {
+
+	/**
+	 * Lists a tree held in memory, given as paths, where a path ending in '/'
+	 * is a collection
+	 */
+	static class MemoryChildLister implements ChildLister {
+
+		private final Map<String, CollectionAndDataObjectListingEntry> entries = new TreeMap<String, CollectionAndDataObjectListingEntry>();
+		int openCursors = 0;
+		int maxOpenCursors = 0;
+
+		MemoryChildLister(final String... paths) {
+			for (String path : paths) {
+				CollectionAndDataObjectListingEntry entry = new CollectionAndDataObjectListingEntry();
+				if (path.endsWith("/")) {
+					String collectionPath = path.substring(0,
+							path.length() - 1);
+					entry.setObjectType(ObjectType.COLLECTION);
+					entry.setParentPath(parentOf(collectionPath));
+					entry.setPathOrName(collectionPath);
+					entry.setSpecColType(SpecColType.NORMAL);
+				} else {
+					entry.setObjectType(ObjectType.DATA_OBJECT);
+					entry.setParentPath(parentOf(path));
+					entry.setPathOrName(path.substring(path.lastIndexOf('/') + 1));
+				}
+				entries.put(path, entry);
+			}
+		}
+
+		void makeSpecial(final String collectionPath) {
+			entries.get(collectionPath + "/").setSpecColType(
+					SpecColType.MOUNTED_COLL);
+		}
+
+		private static String parentOf(final String path) {
+			return path.substring(0, path.lastIndexOf('/'));
+		}
+
+		@Override
+		public ListingCursor listDataObjects(final String collectionPath) {
+			return cursor(collectionPath, ObjectType.DATA_OBJECT);
+		}
+
+		@Override
+		public ListingCursor listCollections(final String collectionPath) {
+			return cursor(collectionPath, ObjectType.COLLECTION);
+		}
+
+		/**
+		 * Like a LIKE on the path with no '/', so that siblings sharing a
+		 * prefix are returned too
+		 */
+		@Override
+		public ListingCursor listCollectionsInSubtree(
+				final String collectionPath) {
+			List<CollectionAndDataObjectListingEntry> children = new ArrayList<CollectionAndDataObjectListingEntry>();
+			for (CollectionAndDataObjectListingEntry entry : entries.values()) {
+				if (entry.getObjectType() == ObjectType.COLLECTION
+						&& entry.getPathOrName().startsWith(collectionPath)
+						&& !entry.getPathOrName().equals(collectionPath)) {
+					children.add(entry);
+				}
+			}
+			Collections.sort(children,
+					new Comparator<CollectionAndDataObjectListingEntry>() {
+						@Override
+						public int compare(
+								final CollectionAndDataObjectListingEntry o1,
+								final CollectionAndDataObjectListingEntry o2) {
+							int result = o1.getParentPath().compareTo(
+									o2.getParentPath());
+							return result != 0 ? result : o1.getPathOrName()
+									.compareTo(o2.getPathOrName());
+						}
+					});
+			return cursor(children);
+		}
+
+		@Override
+		public ListingCursor listDataObjectsInSubtree(
+				final String collectionPath) {
+			List<CollectionAndDataObjectListingEntry> children = new ArrayList<CollectionAndDataObjectListingEntry>();
+			for (CollectionAndDataObjectListingEntry entry : entries.values()) {
+				if (entry.getObjectType() == ObjectType.DATA_OBJECT
+						&& entry.getParentPath().startsWith(collectionPath)
+						&& !entry.getParentPath().equals(collectionPath)) {
+					children.add(entry);
+				}
+			}
+			return cursor(children);
+		}
+
+		private ListingCursor cursor(final String collectionPath,
+				final ObjectType objectType) {
+			List<CollectionAndDataObjectListingEntry> children = new ArrayList<CollectionAndDataObjectListingEntry>();
+			for (CollectionAndDataObjectListingEntry entry : entries.values()) {
+				if (entry.getObjectType() == objectType
+						&& entry.getParentPath().equals(collectionPath)) {
+					children.add(entry);
+				}
+			}
+			return cursor(children);
+		}
+
+		private ListingCursor cursor(
+				final List<CollectionAndDataObjectListingEntry> children) {
+			openCursors++;
+			maxOpenCursors = Math.max(maxOpenCursors, openCursors);
+			final Iterator<CollectionAndDataObjectListingEntry> iterator = children
+					.iterator();
+			return new ListingCursor() {
+
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				@Override
+				public CollectionAndDataObjectListingEntry next() {
+					return iterator.next();
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public void close() {
+					openCursors--;
+				}
+			};
+		}
+	}
+
+	static final String[] TREE = { "/z/a/", "/z/a/f1", "/z/a/b/",
+			"/z/a/b/f2", "/z/a/c/", "/z/a/c/d/", "/z/a/c/d/f3", "/z/a/c/f4",
+			"/z/a/f0", "/z/e/", "/z/e/f5" };
+
+	private List<String> walk(final CollectionTreeWalker walker)
+			throws JargonException {
+		List<String> paths = new ArrayList<String>();
+		try {
+			while (walker.hasNext()) {
+				paths.add(walker.next().getFormattedAbsolutePath());
+			}
+		} finally {
+			walker.close();
+		}
+		return paths;
+	}
+
+	@Test
+	public void testDepthFirst() throws Exception {
+		MemoryChildLister lister = new MemoryChildLister(TREE);
+		CollectionTreeWalker walker = new CollectionTreeWalker(lister, "/z",
+				WalkOrder.DEPTH_FIRST);
+		Assert.assertEquals(Arrays.asList("/z/a", "/z/a/f0", "/z/a/f1",
+				"/z/a/b", "/z/a/b/f2", "/z/a/c", "/z/a/c/f4", "/z/a/c/d",
+				"/z/a/c/d/f3", "/z/e", "/z/e/f5"), walk(walker));
+		Assert.assertEquals(5L, walker.getCollectionCount());
+		Assert.assertEquals(6L, walker.getDataObjectCount());
+		Assert.assertEquals(0, lister.openCursors);
+		Assert.assertEquals(1, lister.maxOpenCursors);
+	}
+
+	@Test
+	public void testBreadthFirst() throws Exception {
+		MemoryChildLister lister = new MemoryChildLister(TREE);
+		CollectionTreeWalker walker = new CollectionTreeWalker(lister, "/z",
+				WalkOrder.BREADTH_FIRST);
+		Assert.assertEquals(Arrays.asList("/z/a", "/z/a/f0", "/z/a/f1",
+				"/z/e", "/z/e/f5", "/z/a/b", "/z/a/b/f2", "/z/a/c",
+				"/z/a/c/f4", "/z/a/c/d", "/z/a/c/d/f3"), walk(walker));
+	}
+
+	@Test
+	public void testChildrenOnlyWhenNotDescending() throws Exception {
+		MemoryChildLister lister = new MemoryChildLister(TREE);
+		CollectionTreeWalker walker = new CollectionTreeWalker(lister, "/z/a",
+				WalkOrder.DEPTH_FIRST, false);
+		Assert.assertEquals(Arrays.asList("/z/a/f0", "/z/a/f1", "/z/a/b",
+				"/z/a/c"), walk(walker));
+	}
+
+	@Test
+	public void testSpecialCollectionNotDescended() throws Exception {
+		MemoryChildLister lister = new MemoryChildLister(TREE);
+		lister.makeSpecial("/z/a/c");
+		CollectionTreeWalker walker = new CollectionTreeWalker(lister, "/z/a",
+				WalkOrder.DEPTH_FIRST);
+		Assert.assertEquals(Arrays.asList("/z/a/f0", "/z/a/f1", "/z/a/b",
+				"/z/a/b/f2", "/z/a/c"), walk(walker));
+	}
+
+	@Test
+	public void testCloseEarlyReleasesListing() throws Exception {
+		MemoryChildLister lister = new MemoryChildLister(TREE);
+		CollectionTreeWalker walker = new CollectionTreeWalker(lister, "/z/a",
+				WalkOrder.DEPTH_FIRST);
+		walker.next();
+		Assert.assertEquals(1, lister.openCursors);
+		walker.close();
+		Assert.assertEquals(0, lister.openCursors);
+		Assert.assertFalse(walker.hasNext());
+	}
+
+	@Test
+	public void testSubtreeQuery() throws Exception {
+		MemoryChildLister lister = new MemoryChildLister(TREE);
+		CollectionTreeWalker walker = new CollectionTreeWalker(lister, "/z",
+				WalkOrder.SUBTREE_QUERY);
+		List<String> paths = walk(walker);
+		Assert.assertEquals(Arrays.asList("/z/a", "/z/e", "/z/a/b", "/z/a/c",
+				"/z/a/c/d"), paths.subList(0, 5));
+		List<String> dataObjects = new ArrayList<String>(paths.subList(5,
+				paths.size()));
+		Collections.sort(dataObjects);
+		Assert.assertEquals(Arrays.asList("/z/a/b/f2", "/z/a/c/d/f3",
+				"/z/a/c/f4", "/z/a/f0", "/z/a/f1", "/z/e/f5"), dataObjects);
+		Assert.assertEquals(5L, walker.getCollectionCount());
+		Assert.assertEquals(6L, walker.getDataObjectCount());
+		Assert.assertEquals(0, lister.openCursors);
+	}
+
+	@Test
+	public void testSubtreeQuerySkipsSiblingsSharingPrefix() throws Exception {
+		MemoryChildLister lister = new MemoryChildLister("/z/a/", "/z/a/f1",
+				"/z/a/b/", "/z/a/b/f2", "/z/ab/", "/z/ab/f3", "/z/ab/c/",
+				"/z/ab/c/f4");
+		CollectionTreeWalker walker = new CollectionTreeWalker(lister, "/z/a",
+				WalkOrder.SUBTREE_QUERY);
+		Assert.assertEquals(Arrays.asList("/z/a/b", "/z/a/f1", "/z/a/b/f2"),
+				walk(walker));
+	}
+
+	@Test
+	public void testEmptyCollection() throws Exception {
+		MemoryChildLister lister = new MemoryChildLister(TREE);
+		CollectionTreeWalker walker = new CollectionTreeWalker(lister,
+				"/z/a/b/f2", WalkOrder.DEPTH_FIRST);
+		Assert.assertTrue(walk(walker).isEmpty());
+	}
+
+}
@@ -0,0 +1,148 @@
+package org.irods.jargon.core.pub;
+
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.exception.JargonException;
+import org.junit.Test;
+
+public class ConcurrentTransferSchedulerTest {
+
+	private IRODSAccount buildAccount() throws Exception {
+		return IRODSAccount.instance("host", 1247, "user", "password",
+				"/zone/home/user", "zone", "");
+	}
+
+	@Test
+	public void testRunsAllTasksOnWorkersAndClosesTheirConnections()
+			throws Exception {
+		IRODSSession irodsSession = mock(IRODSSession.class);
+		IRODSAccount irodsAccount = buildAccount();
+		ConcurrentTransferScheduler scheduler = new ConcurrentTransferScheduler(
+				irodsSession, irodsAccount, 3);
+
+		final AtomicInteger count = new AtomicInteger();
+		final Set<String> threadNames = Collections
+				.synchronizedSet(new HashSet<String>());
+		final Thread caller = Thread.currentThread();
+
+		for (int i = 0; i < 50; i++) {
+			Assert.assertTrue(scheduler
+					.submit(new ConcurrentTransferScheduler.TransferTask() {
+						@Override
+						public void run() throws JargonException {
+							Assert.assertNotSame(caller, Thread.currentThread());
+							threadNames.add(Thread.currentThread().getName());
+							count.incrementAndGet();
+						}
+					}));
+		}
+
+		scheduler.close();
+
+		Assert.assertEquals(50, count.get());
+		Assert.assertTrue(threadNames.size() <= 3);
+		Assert.assertNull(scheduler.getFailure());
+		Assert.assertFalse(scheduler.isStopped());
+		verify(irodsSession, atLeastOnce()).closeSession(irodsAccount);
+	}
+
+	@Test
+	public void testFirstFailureIsKeptAndLaterTasksDropped() throws Exception {
+		IRODSSession irodsSession = mock(IRODSSession.class);
+		ConcurrentTransferScheduler scheduler = new ConcurrentTransferScheduler(
+				irodsSession, buildAccount(), 2);
+
+		final JargonException expected = new JargonException("first failure");
+		scheduler.submit(new ConcurrentTransferScheduler.TransferTask() {
+			@Override
+			public void run() throws JargonException {
+				throw expected;
+			}
+		});
+
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!scheduler.isStopped()
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		final AtomicInteger ranAfterFailure = new AtomicInteger();
+		scheduler.submit(new ConcurrentTransferScheduler.TransferTask() {
+			@Override
+			public void run() throws JargonException {
+				ranAfterFailure.incrementAndGet();
+			}
+		});
+		scheduler.close();
+
+		Assert.assertTrue(scheduler.isStopped());
+		Assert.assertSame(expected, scheduler.getFailure());
+		Assert.assertEquals(0, ranAfterFailure.get());
+	}
+
+	@Test
+	public void testSubmitWaitsWhenWorkersAreFull() throws Exception {
+		IRODSSession irodsSession = mock(IRODSSession.class);
+		final ConcurrentTransferScheduler scheduler = new ConcurrentTransferScheduler(
+				irodsSession, buildAccount(), 2);
+
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger submitted = new AtomicInteger();
+
+		Thread walker = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; i < 6; i++) {
+					scheduler
+					.submit(new ConcurrentTransferScheduler.TransferTask() {
+						@Override
+						public void run() throws JargonException {
+							try {
+								release.await(10, TimeUnit.SECONDS);
+							} catch (InterruptedException e) {
+								throw new JargonException(e);
+							}
+						}
+					});
+					submitted.incrementAndGet();
+				}
+			}
+		});
+		walker.start();
+
+		Thread.sleep(300);
+		Assert.assertEquals("two transfers per worker may be handed out", 4,
+				submitted.get());
+
+		release.countDown();
+		walker.join(10000);
+		scheduler.close();
+		Assert.assertEquals(6, submitted.get());
+	}
+
+	@Test
+	public void testSynchronizedListenerOfNullIsNull() {
+		Assert.assertNull(ConcurrentTransferScheduler
+				.synchronizedListener(null));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOneWorkerIsRejected() throws Exception {
+		new ConcurrentTransferScheduler(mock(IRODSSession.class),
+				buildAccount(), 1);
+	}
+
+}
@@ -0,0 +1,123 @@
+package org.irods.jargon.core.pub;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class ObjStatBatchTest {
+
+	@Test
+	public void testPathsAreGroupedByParent() throws Exception {
+		List<String> singles = new ArrayList<String>();
+		List<ObjStatBatch> batches = ObjStatBatch.batchByParent(Arrays.asList(
+				"/zone/home/a/file1", "/zone/home/b/file2",
+				"/zone/home/a/subdir/"), singles);
+
+		Assert.assertEquals(2, batches.size());
+		Assert.assertTrue(singles.isEmpty());
+
+		ObjStatBatch batch = batches.get(0);
+		Assert.assertEquals("/zone/home/a", batch.getParentPath());
+		Assert.assertEquals(Arrays.asList("file1", "subdir"),
+				batch.getChildNames());
+		Assert.assertEquals(
+				Arrays.asList("/zone/home/a/file1", "/zone/home/a/subdir"),
+				batch.getChildPaths());
+		Assert.assertEquals(
+				Arrays.asList("/zone/home/a/file1", "/zone/home/a/subdir/"),
+				batch.getGivenPaths());
+		Assert.assertEquals("/zone/home/b", batches.get(1).getParentPath());
+	}
+
+	@Test
+	public void testDuplicatePathsAreLookedUpOnce() throws Exception {
+		List<String> singles = new ArrayList<String>();
+		List<ObjStatBatch> batches = ObjStatBatch.batchByParent(Arrays.asList(
+				"/zone/home/a/file1", "/zone/home/a/subdir/",
+				"/zone/home/a/file1", "/zone/home/a/subdir", "/", "/"),
+				singles);
+
+		Assert.assertEquals(1, batches.size());
+		Assert.assertEquals(Arrays.asList("/"), singles);
+
+		ObjStatBatch batch = batches.get(0);
+		Assert.assertEquals(2, batch.size());
+		Assert.assertEquals(Arrays.asList("file1", "subdir"),
+				batch.getChildNames());
+		Assert.assertEquals(Arrays.asList("/zone/home/a/file1"),
+				batch.getGivenPathsForChild(0));
+		Assert.assertEquals(
+				Arrays.asList("/zone/home/a/subdir/", "/zone/home/a/subdir"),
+				batch.getGivenPathsForChild(1));
+		Assert.assertEquals(Arrays.asList("/zone/home/a/file1",
+				"/zone/home/a/subdir/", "/zone/home/a/subdir"),
+				batch.getGivenPaths());
+	}
+
+	@Test
+	public void testTopLevelPathIsUnderRoot() throws Exception {
+		List<String> singles = new ArrayList<String>();
+		List<ObjStatBatch> batches = ObjStatBatch.batchByParent(
+				Arrays.asList("/zone"), singles);
+		Assert.assertEquals(1, batches.size());
+		Assert.assertEquals("/", batches.get(0).getParentPath());
+		Assert.assertEquals("/zone", batches.get(0).getChildPaths().get(0));
+	}
+
+	@Test
+	public void testUnbatchablePathsAreStatedSingly() throws Exception {
+		List<String> singles = new ArrayList<String>();
+		List<ObjStatBatch> batches = ObjStatBatch.batchByParent(
+				Arrays.asList("/", "/zone/home/it's", "relative/path"),
+				singles);
+		Assert.assertTrue(batches.isEmpty());
+		Assert.assertEquals(
+				Arrays.asList("/", "/zone/home/it's", "relative/path"),
+				singles);
+	}
+
+	@Test
+	public void testLargeParentIsSplit() throws Exception {
+		List<String> paths = new ArrayList<String>();
+		int count = ObjStatBatch.MAX_PATHS_PER_BATCH * 2 + 1;
+		for (int i = 0; i < count; i++) {
+			paths.add("/zone/home/a/f" + i);
+		}
+
+		List<ObjStatBatch> batches = ObjStatBatch.batchByParent(paths,
+				new ArrayList<String>());
+
+		Assert.assertEquals(3, batches.size());
+		int total = 0;
+		for (ObjStatBatch batch : batches) {
+			Assert.assertTrue(batch.size() <= ObjStatBatch.MAX_PATHS_PER_BATCH);
+			total += batch.size();
+		}
+		Assert.assertEquals(count, total);
+	}
+
+	@Test
+	public void testLongPathsSplitOnLength() throws Exception {
+		StringBuilder longName = new StringBuilder();
+		for (int i = 0; i < 600; i++) {
+			longName.append('x');
+		}
+
+		List<String> paths = new ArrayList<String>();
+		for (int i = 0; i < 4; i++) {
+			paths.add("/zone/home/a/" + longName + i);
+		}
+
+		List<ObjStatBatch> batches = ObjStatBatch.batchByParent(paths,
+				new ArrayList<String>());
+
+		Assert.assertEquals(2, batches.size());
+		Assert.assertEquals(3, batches.get(0).size());
+		Assert.assertEquals(1, batches.get(1).size());
+	}
+
+}
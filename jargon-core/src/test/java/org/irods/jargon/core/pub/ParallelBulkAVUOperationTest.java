@@ -0,0 +1,101 @@
+package org.irods.jargon.core.pub;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.BulkAVUOperationResponse.ResultStatus;
+import org.irods.jargon.core.pub.ParallelBulkAVUOperation.ObjectAVUOperation;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.junit.Test;
+
+public class ParallelBulkAVUOperationTest {
+
+	static class MemoryAVUOperation implements ObjectAVUOperation {
+
+		final AtomicInteger releases = new AtomicInteger();
+		final String failOn;
+
+		MemoryAVUOperation(final String failOn) {
+			this.failOn = failOn;
+		}
+
+		@Override
+		public List<BulkAVUOperationResponse> apply(final String absolutePath,
+				final List<AvuData> avuData) throws JargonException {
+			if (absolutePath.equals(failOn)) {
+				throw new JargonException("failed on:" + absolutePath);
+			}
+			List<BulkAVUOperationResponse> responses = new ArrayList<BulkAVUOperationResponse>();
+			for (AvuData value : avuData) {
+				responses.add(BulkAVUOperationResponse.instance(
+						ResultStatus.OK, value, absolutePath));
+			}
+			return responses;
+		}
+
+		@Override
+		public void release() {
+			releases.incrementAndGet();
+		}
+	}
+
+	private static Map<String, List<AvuData>> avusForObjects(final int count)
+			throws JargonException {
+		Map<String, List<AvuData>> avuDataByPath = new LinkedHashMap<String, List<AvuData>>();
+		for (int i = 0; i < count; i++) {
+			avuDataByPath.put("/zone/home/user/file" + i, Arrays.asList(
+					AvuData.instance("a", "v" + i, ""),
+					AvuData.instance("b", "v" + i, "")));
+		}
+		return avuDataByPath;
+	}
+
+	@Test
+	public void testEveryObjectIsDoneInOrder() throws Exception {
+		MemoryAVUOperation operation = new MemoryAVUOperation(null);
+		Map<String, List<AvuData>> avuDataByPath = avusForObjects(50);
+
+		Map<String, List<BulkAVUOperationResponse>> responses = new ParallelBulkAVUOperation(
+				operation, 4).run(avuDataByPath);
+
+		Assert.assertEquals(new ArrayList<String>(avuDataByPath.keySet()),
+				new ArrayList<String>(responses.keySet()));
+		for (Map.Entry<String, List<BulkAVUOperationResponse>> entry : responses
+				.entrySet()) {
+			Assert.assertEquals(2, entry.getValue().size());
+			Assert.assertEquals(entry.getKey(), entry.getValue().get(0)
+					.getMessage());
+		}
+		Assert.assertEquals(4, operation.releases.get());
+	}
+
+	@Test
+	public void testNoMoreThreadsThanObjects() throws Exception {
+		MemoryAVUOperation operation = new MemoryAVUOperation(null);
+		new ParallelBulkAVUOperation(operation, 8).run(avusForObjects(3));
+		Assert.assertEquals(3, operation.releases.get());
+	}
+
+	@Test
+	public void testErrorIsThrown() throws Exception {
+		MemoryAVUOperation operation = new MemoryAVUOperation(
+				"/zone/home/user/file7");
+		try {
+			new ParallelBulkAVUOperation(operation, 3)
+					.run(avusForObjects(20));
+			Assert.fail("expected the error");
+		} catch (JargonException e) {
+			Assert.assertEquals("failed on:/zone/home/user/file7",
+					e.getMessage());
+		}
+		Assert.assertEquals(3, operation.releases.get());
+	}
+
+}
@@ -0,0 +1,97 @@
+package org.irods.jargon.core.pub;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.CollectionTreeWalker.EntryHandler;
+import org.irods.jargon.core.pub.CollectionTreeWalker.WalkOrder;
+import org.irods.jargon.core.pub.CollectionTreeWalkerTest.MemoryChildLister;
+import org.irods.jargon.core.pub.ParallelCollectionTreeWalk.SubtreeWalkerSource;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.junit.Test;
+
+public class ParallelCollectionTreeWalkTest {
+
+	static class MemorySubtreeWalkerSource implements SubtreeWalkerSource {
+
+		final AtomicInteger releases = new AtomicInteger();
+		final String failOn;
+
+		MemorySubtreeWalkerSource(final String failOn) {
+			this.failOn = failOn;
+		}
+
+		@Override
+		public CollectionTreeWalker walkSubtree(final String absolutePath)
+				throws JargonException {
+			if (absolutePath.equals(failOn)) {
+				throw new JargonException("failed walking:" + absolutePath);
+			}
+			return new CollectionTreeWalker(new MemoryChildLister(
+					CollectionTreeWalkerTest.TREE), absolutePath,
+					WalkOrder.DEPTH_FIRST);
+		}
+
+		@Override
+		public void release() {
+			releases.incrementAndGet();
+		}
+	}
+
+	static class CollectingHandler implements EntryHandler {
+		final List<String> paths = Collections
+				.synchronizedList(new ArrayList<String>());
+
+		@Override
+		public void handleEntry(final CollectionAndDataObjectListingEntry entry) {
+			paths.add(entry.getFormattedAbsolutePath());
+		}
+	}
+
+	@Test
+	public void testEverySubtreeIsWalked() throws Exception {
+		MemorySubtreeWalkerSource source = new MemorySubtreeWalkerSource(null);
+		CollectingHandler handler = new CollectingHandler();
+		CollectionTreeWalker top = new CollectionTreeWalker(
+				new MemoryChildLister(CollectionTreeWalkerTest.TREE), "/z",
+				WalkOrder.DEPTH_FIRST, false);
+
+		long count = new ParallelCollectionTreeWalk(source, 3).walk(top,
+				handler);
+
+		Assert.assertEquals(11L, count);
+		List<String> sorted = new ArrayList<String>(handler.paths);
+		Collections.sort(sorted);
+		List<String> expected = new ArrayList<String>();
+		for (String path : CollectionTreeWalkerTest.TREE) {
+			expected.add(path.endsWith("/") ? path.substring(0,
+					path.length() - 1) : path);
+		}
+		Collections.sort(expected);
+		Assert.assertEquals(expected, sorted);
+		Assert.assertEquals(3, source.releases.get());
+	}
+
+	@Test
+	public void testErrorInSubtreeIsThrown() throws Exception {
+		MemorySubtreeWalkerSource source = new MemorySubtreeWalkerSource(
+				"/z/e");
+		CollectionTreeWalker top = new CollectionTreeWalker(
+				new MemoryChildLister(CollectionTreeWalkerTest.TREE), "/z",
+				WalkOrder.DEPTH_FIRST, false);
+		try {
+			new ParallelCollectionTreeWalk(source, 2).walk(top,
+					new CollectingHandler());
+			Assert.fail("expected the subtree error");
+		} catch (JargonException e) {
+			Assert.assertEquals("failed walking:/z/e", e.getMessage());
+		}
+		Assert.assertEquals(2, source.releases.get());
+	}
+
+}
@@ -0,0 +1,107 @@
+package org.irods.jargon.core.pub;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class ReadAheadFileInputStreamTest {
+
+	private File createFile(final int size) throws IOException {
+		File file = File.createTempFile("readAhead", ".dat");
+		file.deleteOnExit();
+		byte[] contents = new byte[size];
+		for (int i = 0; i < size; i++) {
+			contents[i] = (byte) (i % 253);
+		}
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(contents);
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	private byte[] expected(final int size) {
+		byte[] contents = new byte[size];
+		for (int i = 0; i < size; i++) {
+			contents[i] = (byte) (i % 253);
+		}
+		return contents;
+	}
+
+	@Test
+	public void testReadsWholeFileLargerThanRing() throws Exception {
+		int size = 1000 * 1000 + 17;
+		File file = createFile(size);
+		ReadAheadFileInputStream stream = new ReadAheadFileInputStream(file,
+				4096, 3);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] temp = new byte[10000];
+		int read;
+		while ((read = stream.read(temp)) != -1) {
+			out.write(temp, 0, read);
+		}
+		stream.close();
+
+		Assert.assertTrue(Arrays.equals(expected(size), out.toByteArray()));
+	}
+
+	@Test
+	public void testSingleByteReads() throws Exception {
+		File file = createFile(300);
+		ReadAheadFileInputStream stream = new ReadAheadFileInputStream(file,
+				64, 2);
+		byte[] contents = expected(300);
+		for (int i = 0; i < 300; i++) {
+			Assert.assertEquals(contents[i] & 0xff, stream.read());
+		}
+		Assert.assertEquals(-1, stream.read());
+		Assert.assertEquals(-1, stream.read(new byte[10], 0, 10));
+		stream.close();
+	}
+
+	@Test
+	public void testEmptyFile() throws Exception {
+		File file = createFile(0);
+		ReadAheadFileInputStream stream = new ReadAheadFileInputStream(file,
+				64, 2);
+		Assert.assertEquals(-1, stream.read());
+		stream.close();
+	}
+
+	@Test
+	public void testCloseBeforeEndStopsReader() throws Exception {
+		File file = createFile(100000);
+		ReadAheadFileInputStream stream = new ReadAheadFileInputStream(file,
+				1024, 2);
+		Assert.assertEquals(0, stream.read());
+		stream.close();
+
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			Assert.assertFalse("reader still running",
+					"jargon-put-read-ahead".equals(thread.getName()));
+		}
+
+		try {
+			stream.read();
+			Assert.fail("read after close");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test(expected = NoSuchFileException.class)
+	public void testMissingFile() throws Exception {
+		new ReadAheadFileInputStream(new File("/no/such/file/readAhead.dat"),
+				1024, 2);
+	}
+
+}
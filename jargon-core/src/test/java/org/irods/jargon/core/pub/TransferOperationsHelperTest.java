@@ -0,0 +1,515 @@
+package org.irods.jargon.core.pub;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.connection.PipelineConfiguration;
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.TransferOptions;
+import org.irods.jargon.core.pub.CollectionTreeWalker.WalkOrder;
+import org.irods.jargon.core.pub.CollectionTreeWalkerTest.MemoryChildLister;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.pub.io.IRODSFileImpl;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.irods.jargon.core.transfer.DefaultTransferControlBlock;
+import org.irods.jargon.core.transfer.TransferControlBlock;
+import org.irods.jargon.core.transfer.TransferStatus;
+import org.irods.jargon.core.transfer.TransferStatus.TransferState;
+import org.irods.jargon.core.transfer.TransferStatusCallbackListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TransferOperationsHelperTest {
+
+	private IRODSSession irodsSession;
+	private AbstractIRODSMidLevelProtocol protocol;
+	private IRODSAccount irodsAccount;
+	private File localDir;
+
+	@Before
+	public void setUp() throws Exception {
+		irodsAccount = IRODSAccount.instance("host", 1247, "user", "password",
+				"/zone/home/user", "zone", "");
+		SettableJargonProperties jargonProperties = new SettableJargonProperties();
+		protocol = mock(AbstractIRODSMidLevelProtocol.class);
+		PipelineConfiguration pipelineConfiguration = PipelineConfiguration
+				.instance(jargonProperties);
+		when(protocol.getPipelineConfiguration()).thenReturn(
+				pipelineConfiguration);
+		when(protocol.getConnectTimeInMillis()).thenReturn(
+				System.currentTimeMillis());
+
+		irodsSession = mock(IRODSSession.class);
+		when(irodsSession.getJargonProperties()).thenReturn(jargonProperties);
+		when(irodsSession.currentConnection(irodsAccount)).thenReturn(protocol);
+
+		localDir = File.createTempFile("transferOperationsHelperTest", "");
+		localDir.delete();
+		localDir.mkdirs();
+	}
+
+	@After
+	public void tearDown() {
+		delete(localDir);
+	}
+
+	@Test
+	public void testConcurrentlyGetReportsFailedFileAndKeepsGoing()
+			throws Exception {
+		IRODSFile root = irodsCollection("/zone/home/user/coll");
+
+		final List<String> retrieved = Collections
+				.synchronizedList(new ArrayList<String>());
+		TransferOperationsHelper helper = new WalkingHelper(
+				"/zone/home/user/coll/a", "/zone/home/user/coll/sub/",
+				"/zone/home/user/coll/sub/b", "/zone/home/user/coll/sub/bad") {
+			@Override
+			void getSingleDataObject(final IRODSFile irodsSourceFile,
+					final File targetLocalFile,
+					final TransferControlBlock transferControlBlock,
+					final TransferStatusCallbackListener listener)
+							throws JargonException {
+				if (irodsSourceFile.getName().equals("bad")) {
+					throw new JargonException("get failed");
+				}
+				retrieved.add(irodsSourceFile.getName());
+			}
+		};
+
+		CollectingListener listener = new CollectingListener();
+		TransferControlBlock transferControlBlock = buildTransferControlBlock();
+
+		helper.concurrentlyGet(root, localDir, listener, transferControlBlock);
+
+		Assert.assertTrue("local directory not made",
+				new File(localDir, "sub").isDirectory());
+		Assert.assertEquals(2, retrieved.size());
+		Assert.assertEquals(2,
+				transferControlBlock.getTotalFilesTransferredSoFar());
+		Assert.assertEquals(1, transferControlBlock.getErrorCount());
+
+		List<TransferStatus> failures = listener
+				.withState(TransferState.FAILURE);
+		Assert.assertEquals(1, failures.size());
+		Assert.assertEquals("/zone/home/user/coll/sub/bad", failures.get(0)
+				.getSourceFileAbsolutePath());
+		Assert.assertEquals("get failed", failures.get(0)
+				.getTransferException().getMessage());
+		Assert.assertEquals(2,
+				listener.withState(TransferState.IN_PROGRESS_COMPLETE_FILE)
+				.size());
+	}
+
+	@Test
+	public void testConcurrentlyGetWithoutListenerRethrowsFailure()
+			throws Exception {
+		IRODSFile root = irodsCollection("/zone/home/user/coll");
+
+		TransferOperationsHelper helper = new WalkingHelper(
+				"/zone/home/user/coll/bad") {
+			@Override
+			void getSingleDataObject(final IRODSFile irodsSourceFile,
+					final File targetLocalFile,
+					final TransferControlBlock transferControlBlock,
+					final TransferStatusCallbackListener listener)
+							throws JargonException {
+				throw new JargonException("get failed");
+			}
+		};
+
+		TransferControlBlock transferControlBlock = buildTransferControlBlock();
+		try {
+			helper.concurrentlyGet(root, localDir, null, transferControlBlock);
+			Assert.fail("expected JargonException");
+		} catch (JargonException e) {
+			// expected
+		}
+		Assert.assertEquals(1, transferControlBlock.getErrorCount());
+	}
+
+	@Test
+	public void testConcurrentlyGetStopsHandingOutFilesWhenCancelled()
+			throws Exception {
+		String[] children = new String[20];
+		for (int i = 0; i < children.length; i++) {
+			children[i] = "/zone/home/user/coll/file" + i;
+		}
+		IRODSFile root = irodsCollection("/zone/home/user/coll");
+
+		final AtomicInteger calls = new AtomicInteger();
+		TransferOperationsHelper helper = new WalkingHelper(children) {
+			@Override
+			void getSingleDataObject(final IRODSFile irodsSourceFile,
+					final File targetLocalFile,
+					final TransferControlBlock transferControlBlock,
+					final TransferStatusCallbackListener listener)
+							throws JargonException {
+				calls.incrementAndGet();
+				transferControlBlock.setCancelled(true);
+			}
+		};
+
+		CollectingListener listener = new CollectingListener();
+		TransferControlBlock transferControlBlock = buildTransferControlBlock();
+
+		helper.concurrentlyGet(root, localDir, listener, transferControlBlock);
+
+		// only a task already past its cancel check can still run
+		Assert.assertTrue("files handed out after cancel", calls.get() <= 2);
+		Assert.assertEquals(1, listener.withState(TransferState.CANCELLED)
+				.size());
+		Assert.assertEquals(0, transferControlBlock.getErrorCount());
+	}
+
+	@Test
+	public void testRecursivelyGetPicksUpWalkAfterSocketRenewal()
+			throws Exception {
+		// connected long ago, so the socket is renewed before every file
+		setSocketRenewalInterval(60);
+		when(protocol.getConnectTimeInMillis()).thenReturn(0L);
+		IRODSFile root = irodsCollection("/zone/home/user/coll");
+
+		final List<String> retrieved = new ArrayList<String>();
+		TransferOperationsHelper helper = new WalkingHelper(
+				"/zone/home/user/coll/a", "/zone/home/user/coll/b",
+				"/zone/home/user/coll/sub/", "/zone/home/user/coll/sub/c",
+				"/zone/home/user/coll/sub/d") {
+			@Override
+			void getSingleDataObject(final IRODSFile irodsSourceFile,
+					final File targetLocalFile,
+					final TransferControlBlock transferControlBlock,
+					final TransferStatusCallbackListener listener)
+							throws JargonException {
+				retrieved.add(irodsSourceFile.getAbsolutePath());
+			}
+		};
+
+		helper.recursivelyGet(root, localDir, null,
+				buildTransferControlBlock());
+
+		Assert.assertEquals(Arrays.asList("/zone/home/user/coll/a",
+				"/zone/home/user/coll/b", "/zone/home/user/coll/sub/c",
+				"/zone/home/user/coll/sub/d"), retrieved);
+		verify(irodsSession, times(4)).currentConnectionCheckRenewalOfSocket(
+				irodsAccount);
+	}
+
+	@Test
+	public void testRecursivelyGetPutsEachFileUnderItsLocalDirectory()
+			throws Exception {
+		IRODSFile root = irodsCollection("/zone/home/user/coll");
+
+		final List<String> retrieved = new ArrayList<String>();
+		TransferOperationsHelper helper = new WalkingHelper(
+				"/zone/home/user/coll/a", "/zone/home/user/coll/sub/",
+				"/zone/home/user/coll/sub/b", "/zone/home/user/coll/sub/deep/",
+				"/zone/home/user/coll/sub/deep/c",
+				"/zone/home/user/collection/d") {
+			@Override
+			void getSingleDataObject(final IRODSFile irodsSourceFile,
+					final File targetLocalFile,
+					final TransferControlBlock transferControlBlock,
+					final TransferStatusCallbackListener listener)
+							throws JargonException {
+				Assert.assertTrue("parent directory not made before its files",
+						targetLocalFile.getParentFile().isDirectory());
+				retrieved.add(targetLocalFile.getAbsolutePath());
+			}
+		};
+
+		TransferControlBlock transferControlBlock = buildTransferControlBlock();
+		helper.recursivelyGet(root, localDir, new CollectingListener(),
+				transferControlBlock);
+
+		Collections.sort(retrieved);
+		Assert.assertEquals(Arrays.asList(
+				new File(localDir, "a").getAbsolutePath(),
+				new File(localDir, "sub/b").getAbsolutePath(),
+				new File(localDir, "sub/deep/c").getAbsolutePath()), retrieved);
+		Assert.assertEquals(3,
+				transferControlBlock.getTotalFilesTransferredSoFar());
+	}
+
+	@Test
+	public void testRecursivelyGetListsSpecialCollections() throws Exception {
+		IRODSFile root = irodsCollection("/zone/home/user/coll");
+		IRODSFile mounted = irodsCollection("/zone/home/user/coll/mnt",
+				irodsDataObject("/zone/home/user/coll/mnt/m"));
+
+		final List<String> retrieved = new ArrayList<String>();
+		WalkingHelper helper = new WalkingHelper("/zone/home/user/coll/a",
+				"/zone/home/user/coll/mnt/") {
+			@Override
+			void getSingleDataObject(final IRODSFile irodsSourceFile,
+					final File targetLocalFile,
+					final TransferControlBlock transferControlBlock,
+					final TransferStatusCallbackListener listener)
+							throws JargonException {
+				retrieved.add(targetLocalFile.getAbsolutePath());
+			}
+		};
+		helper.childLister.makeSpecial("/zone/home/user/coll/mnt");
+		helper.files.put("/zone/home/user/coll/mnt", mounted);
+
+		helper.recursivelyGet(root, localDir, null,
+				buildTransferControlBlock());
+
+		Assert.assertEquals(Arrays.asList(
+				new File(localDir, "a").getAbsolutePath(),
+				new File(localDir, "mnt/m").getAbsolutePath()), retrieved);
+	}
+
+	@Test
+	public void testRecursivelyGetStopsWhenCancelled() throws Exception {
+		IRODSFile root = irodsCollection("/zone/home/user/coll");
+
+		final AtomicInteger calls = new AtomicInteger();
+		TransferOperationsHelper helper = new WalkingHelper(
+				"/zone/home/user/coll/a", "/zone/home/user/coll/b",
+				"/zone/home/user/coll/c") {
+			@Override
+			void getSingleDataObject(final IRODSFile irodsSourceFile,
+					final File targetLocalFile,
+					final TransferControlBlock transferControlBlock,
+					final TransferStatusCallbackListener listener)
+							throws JargonException {
+				calls.incrementAndGet();
+				transferControlBlock.setCancelled(true);
+			}
+		};
+
+		CollectingListener listener = new CollectingListener();
+		helper.recursivelyGet(root, localDir, listener,
+				buildTransferControlBlock());
+
+		Assert.assertEquals(1, calls.get());
+		Assert.assertEquals(1, listener.withState(TransferState.CANCELLED)
+				.size());
+	}
+
+	@Test
+	public void testConcurrentlyPutReportsFailedFileAndKeepsGoing()
+			throws Exception {
+		localFile("a");
+		localFile("b");
+		localFile("bad");
+		IRODSFile target = irodsDataObject("/zone/home/user/target");
+
+		final List<String> stored = Collections
+				.synchronizedList(new ArrayList<String>());
+		TransferOperationsHelper helper = new TransferOperationsHelper(
+				irodsSession, irodsAccount) {
+			@Override
+			void putSingleDataObject(final File sourceFile,
+					final IRODSFile targetIrodsFile,
+					final TransferControlBlock transferControlBlock,
+					final TransferStatusCallbackListener listener)
+							throws JargonException {
+				if (sourceFile.getName().equals("bad")) {
+					throw new JargonException("put failed");
+				}
+				stored.add(sourceFile.getName());
+			}
+		};
+
+		CollectingListener listener = new CollectingListener();
+		TransferControlBlock transferControlBlock = buildTransferControlBlock();
+
+		helper.concurrentlyPut(localDir, target, listener,
+				transferControlBlock);
+
+		Assert.assertEquals(2, stored.size());
+		Assert.assertEquals(2,
+				transferControlBlock.getTotalFilesTransferredSoFar());
+		Assert.assertEquals(1, transferControlBlock.getErrorCount());
+
+		List<TransferStatus> failures = listener
+				.withState(TransferState.FAILURE);
+		Assert.assertEquals(1, failures.size());
+		Assert.assertEquals(new File(localDir, "bad").getAbsolutePath(),
+				failures.get(0).getSourceFileAbsolutePath());
+	}
+
+	@Test
+	public void testConcurrentlyPutCancelledBeforeStartTransfersNothing()
+			throws Exception {
+		localFile("a");
+		localFile("b");
+		IRODSFile target = irodsDataObject("/zone/home/user/target");
+
+		final AtomicInteger calls = new AtomicInteger();
+		TransferOperationsHelper helper = new TransferOperationsHelper(
+				irodsSession, irodsAccount) {
+			@Override
+			void putSingleDataObject(final File sourceFile,
+					final IRODSFile targetIrodsFile,
+					final TransferControlBlock transferControlBlock,
+					final TransferStatusCallbackListener listener)
+							throws JargonException {
+				calls.incrementAndGet();
+			}
+		};
+
+		CollectingListener listener = new CollectingListener();
+		TransferControlBlock transferControlBlock = buildTransferControlBlock();
+		transferControlBlock.setCancelled(true);
+
+		helper.concurrentlyPut(localDir, target, listener,
+				transferControlBlock);
+
+		Assert.assertEquals(0, calls.get());
+		Assert.assertEquals(0,
+				transferControlBlock.getTotalFilesTransferredSoFar());
+		Assert.assertEquals(1, listener.withState(TransferState.CANCELLED)
+				.size());
+	}
+
+	/**
+	 * Reads the tree of a get from memory rather than with GenQuery, where a
+	 * path ending in '/' is a collection
+	 */
+	private class WalkingHelper extends TransferOperationsHelper {
+
+		final MemoryChildLister childLister;
+		final Map<String, IRODSFile> files = new HashMap<String, IRODSFile>();
+
+		WalkingHelper(final String... paths) throws JargonException {
+			super(irodsSession, irodsAccount);
+			childLister = new MemoryChildLister(paths);
+		}
+
+		@Override
+		CollectionTreeWalker openTreeWalk(final IRODSFile irodsSourceFile,
+				final int prefetchDepth) {
+			return new CollectionTreeWalker(childLister,
+					irodsSourceFile.getAbsolutePath(), WalkOrder.SUBTREE_QUERY);
+		}
+
+		@Override
+		IRODSFile irodsFileForEntry(
+				final CollectionAndDataObjectListingEntry entry)
+						throws JargonException {
+			String path = entry.getFormattedAbsolutePath();
+			if (files.containsKey(path)) {
+				return files.get(path);
+			}
+			return entry.isCollection() ? irodsCollection(path)
+					: irodsDataObject(path);
+		}
+	}
+
+	private void setSocketRenewalInterval(final int seconds)
+			throws JargonException {
+		SettableJargonProperties jargonProperties = new SettableJargonProperties();
+		jargonProperties.setSocketRenewalIntervalInSeconds(seconds);
+		when(protocol.getPipelineConfiguration()).thenReturn(
+				PipelineConfiguration.instance(jargonProperties));
+	}
+
+	private TransferControlBlock buildTransferControlBlock()
+			throws JargonException {
+		TransferControlBlock transferControlBlock = DefaultTransferControlBlock
+				.instance();
+		TransferOptions transferOptions = new TransferOptions();
+		transferOptions.setConcurrentFileTransferThreads(2);
+		transferControlBlock.setTransferOptions(transferOptions);
+		return transferControlBlock;
+	}
+
+	private IRODSFile irodsDataObject(final String path)
+			throws JargonException {
+		IRODSFile irodsFile = mock(IRODSFileImpl.class);
+		when(irodsFile.getAbsolutePath()).thenReturn(path);
+		when(irodsFile.getName()).thenReturn(
+				path.substring(path.lastIndexOf('/') + 1));
+		when(irodsFile.getResource()).thenReturn("");
+		when(irodsFile.isDirectory()).thenReturn(false);
+		return irodsFile;
+	}
+
+	private IRODSFile irodsCollection(final String path,
+			final IRODSFile... children) throws JargonException {
+		IRODSFile irodsFile = irodsDataObject(path);
+		when(irodsFile.isDirectory()).thenReturn(true);
+		File[] listing = new File[children.length];
+		for (int i = 0; i < children.length; i++) {
+			listing[i] = (File) children[i];
+		}
+		when(irodsFile.listFiles()).thenReturn(listing);
+		return irodsFile;
+	}
+
+	private void localFile(final String name) throws Exception {
+		FileOutputStream out = new FileOutputStream(new File(localDir, name));
+		try {
+			out.write(name.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+	private static void delete(final File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private static class CollectingListener implements
+	TransferStatusCallbackListener {
+
+		private final List<TransferStatus> statuses = new ArrayList<TransferStatus>();
+
+		@Override
+		public synchronized FileStatusCallbackResponse statusCallback(
+				final TransferStatus transferStatus) throws JargonException {
+			statuses.add(transferStatus);
+			return FileStatusCallbackResponse.CONTINUE;
+		}
+
+		@Override
+		public synchronized void overallStatusCallback(
+				final TransferStatus transferStatus) throws JargonException {
+			statuses.add(transferStatus);
+		}
+
+		@Override
+		public CallbackResponse transferAsksWhetherToForceOperation(
+				final String irodsAbsolutePath, final boolean isCollection) {
+			return CallbackResponse.YES_FOR_ALL;
+		}
+
+		synchronized List<TransferStatus> withState(final TransferState state) {
+			List<TransferStatus> matching = new ArrayList<TransferStatus>();
+			for (TransferStatus status : statuses) {
+				if (status.getTransferState() == state) {
+					matching.add(status);
+				}
+			}
+			return matching;
+		}
+	}
+
+}
@@ -0,0 +1,312 @@
+package org.irods.jargon.core.pub.io;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.io.FileIOOperations.SeekWhenceType;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class RandomAccessBlockCacheTest {
+
+	private static final int FD = 3;
+
+	/**
+	 * Data object on a pretend server, with a file position, counting the
+	 * calls made to it
+	 */
+	private static class ServerFile {
+		byte[] contents;
+		int position = 0;
+		int reads = 0;
+		int writes = 0;
+		int seeks = 0;
+
+		ServerFile(final int size) {
+			contents = new byte[size];
+			for (int i = 0; i < size; i++) {
+				contents[i] = (byte) (i % 251);
+			}
+		}
+
+		FileIOOperations mockOperations() throws Exception {
+			FileIOOperations fileIOOperations = mock(FileIOOperations.class);
+			when(
+					fileIOOperations.fileRead(anyInt(), any(byte[].class),
+							anyInt(), anyInt())).thenAnswer(
+					new Answer<Integer>() {
+						@Override
+						public Integer answer(final InvocationOnMock invocation) {
+							Object[] args = invocation.getArguments();
+							reads++;
+							int count = Math.min((Integer) args[3],
+									contents.length - position);
+							if (count <= 0) {
+								return 0;
+							}
+							System.arraycopy(contents, position,
+									args[1], (Integer) args[2], count);
+							position += count;
+							return count;
+						}
+					});
+			when(
+					fileIOOperations.write(anyInt(), any(byte[].class),
+							anyInt(), anyInt())).thenAnswer(
+					new Answer<Integer>() {
+						@Override
+						public Integer answer(final InvocationOnMock invocation) {
+							Object[] args = invocation.getArguments();
+							writes++;
+							int count = (Integer) args[3];
+							if (position + count > contents.length) {
+								contents = Arrays.copyOf(contents, position
+										+ count);
+							}
+							System.arraycopy(args[1], (Integer) args[2],
+									contents, position, count);
+							position += count;
+							return count;
+						}
+					});
+			when(
+					fileIOOperations.seek(anyInt(), anyLong(),
+							any(SeekWhenceType.class))).thenAnswer(
+					new Answer<Long>() {
+						@Override
+						public Long answer(final InvocationOnMock invocation) {
+							seeks++;
+							position = ((Long) invocation.getArguments()[1])
+									.intValue();
+							return (long) position;
+						}
+					});
+			return fileIOOperations;
+		}
+	}
+
+	@Test
+	public void testSmallReadsAreServedFromPages() throws Exception {
+		ServerFile server = new ServerFile(10000);
+		RandomAccessBlockCache cache = new RandomAccessBlockCache(
+				server.mockOperations(), FD, 10000, 1024, 4, 1);
+
+		byte[] value = new byte[4];
+		for (int position = 0; position < 1024; position += 4) {
+			Assert.assertEquals(4, cache.read(position, value, 0, 4));
+			Assert.assertEquals(server.contents[position], value[0]);
+			Assert.assertEquals(server.contents[position + 3], value[3]);
+		}
+
+		Assert.assertEquals(1, server.reads);
+		Assert.assertEquals(0, server.seeks);
+	}
+
+	@Test
+	public void testReadAheadGrowsWhenReadInOrder() throws Exception {
+		int size = 64 * 1024;
+		ServerFile server = new ServerFile(size);
+		RandomAccessBlockCache cache = new RandomAccessBlockCache(
+				server.mockOperations(), FD, size, 1024, 16, 8);
+
+		byte[] all = new byte[size];
+		byte[] value = new byte[8];
+		for (int position = 0; position < size; position += 8) {
+			Assert.assertEquals(8, cache.read(position, value, 0, 8));
+			System.arraycopy(value, 0, all, position, 8);
+		}
+
+		Assert.assertTrue(Arrays.equals(server.contents, all));
+		// 1 + 2 + 4 pages, then 8 at a time for the other 57
+		Assert.assertEquals(3 + 8, server.reads);
+		Assert.assertEquals(-1, cache.read(size, value, 0, 8));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedPageIsDropped() throws Exception {
+		ServerFile server = new ServerFile(10000);
+		RandomAccessBlockCache cache = new RandomAccessBlockCache(
+				server.mockOperations(), FD, 10000, 1024, 2, 1);
+
+		byte[] value = new byte[1];
+		cache.read(0, value, 0, 1);
+		cache.read(5000, value, 0, 1);
+		cache.read(10, value, 0, 1);
+		cache.read(8000, value, 0, 1);
+		Assert.assertEquals(3, server.reads);
+
+		cache.read(20, value, 0, 1);
+		Assert.assertEquals("page 0 was used more recently than page 4", 3,
+				server.reads);
+		cache.read(5001, value, 0, 1);
+		Assert.assertEquals(4, server.reads);
+	}
+
+	@Test
+	public void testReadAtEndOfFileIsShort() throws Exception {
+		ServerFile server = new ServerFile(1500);
+		RandomAccessBlockCache cache = new RandomAccessBlockCache(
+				server.mockOperations(), FD, 1500, 1024, 4, 4);
+
+		byte[] value = new byte[200];
+		Assert.assertEquals(100, cache.read(1400, value, 0, 200));
+		Assert.assertEquals(server.contents[1499], value[99]);
+		Assert.assertEquals(-1, cache.read(1500, value, 0, 200));
+	}
+
+	@Test
+	public void testWritesAreHeldAndJoinedOnFlush() throws Exception {
+		ServerFile server = new ServerFile(0);
+		RandomAccessBlockCache cache = new RandomAccessBlockCache(
+				server.mockOperations(), FD, 0, 1024, 8, 4);
+
+		byte[] value = new byte[8];
+		for (int position = 0; position < 3000; position += 8) {
+			Arrays.fill(value, (byte) position);
+			cache.write(position, value, 0, 8);
+		}
+
+		Assert.assertEquals(0, server.writes);
+		Assert.assertEquals(0, server.reads);
+		Assert.assertEquals(3000, cache.length());
+
+		cache.flush();
+		Assert.assertEquals(1, server.writes);
+		Assert.assertEquals(3000, server.contents.length);
+		Assert.assertEquals((byte) 2992, server.contents[2999]);
+
+		cache.flush();
+		Assert.assertEquals(1, server.writes);
+	}
+
+	@Test
+	public void testPartialOverwriteKeepsFileData() throws Exception {
+		ServerFile server = new ServerFile(4096);
+		byte[] original = server.contents.clone();
+		RandomAccessBlockCache cache = new RandomAccessBlockCache(
+				server.mockOperations(), FD, 4096, 1024, 8, 1);
+
+		cache.write(1500, new byte[] { 1, 2, 3, 4 }, 0, 4);
+		cache.write(3000, new byte[] { 5, 6 }, 0, 2);
+
+		byte[] read = new byte[6];
+		Assert.assertEquals(6, cache.read(1498, read, 0, 6));
+		Assert.assertEquals(original[1498], read[0]);
+		Assert.assertEquals(1, read[2]);
+		Assert.assertEquals(4, read[5]);
+
+		cache.flush();
+		Assert.assertEquals("not adjacent, so two writes", 2, server.writes);
+		original[1500] = 1;
+		original[1501] = 2;
+		original[1502] = 3;
+		original[1503] = 4;
+		original[3000] = 5;
+		original[3001] = 6;
+		Assert.assertTrue(Arrays.equals(original, server.contents));
+	}
+
+	@Test
+	public void testChangedPageIsWrittenBeforeItIsDropped() throws Exception {
+		ServerFile server = new ServerFile(10000);
+		RandomAccessBlockCache cache = new RandomAccessBlockCache(
+				server.mockOperations(), FD, 10000, 1024, 2, 1);
+
+		cache.write(0, new byte[] { 42 }, 0, 1);
+		byte[] value = new byte[1];
+		cache.read(3000, value, 0, 1);
+		Assert.assertEquals(0, server.writes);
+		cache.read(6000, value, 0, 1);
+		Assert.assertEquals(1, server.writes);
+		Assert.assertEquals(42, server.contents[0]);
+
+		cache.read(0, value, 0, 1);
+		Assert.assertEquals(42, value[0]);
+	}
+
+	@Test
+	public void testRandomAccessFileValuesThroughCache() throws Exception {
+		ServerFile server = new ServerFile(0);
+		FileIOOperations fileIOOperations = server.mockOperations();
+		IRODSFile irodsFile = mock(IRODSFile.class);
+		when(irodsFile.exists()).thenReturn(true);
+		when(irodsFile.isFile()).thenReturn(true);
+		when(irodsFile.getFileDescriptor()).thenReturn(FD);
+		when(irodsFile.length()).thenReturn(0L);
+
+		SettableJargonProperties jargonProperties = new SettableJargonProperties();
+		jargonProperties.setRandomAccessCachePageSize(512);
+		IRODSRandomAccessFile randomAccessFile = new IRODSRandomAccessFile(
+				irodsFile, fileIOOperations, jargonProperties);
+
+		for (int i = 0; i < 200; i++) {
+			randomAccessFile.writeInt(i);
+			randomAccessFile.writeLong(-i);
+		}
+		randomAccessFile.writeBytes("header\r\nnext");
+		randomAccessFile.close();
+		Assert.assertEquals(1, server.writes);
+
+		when(irodsFile.length()).thenReturn((long) server.contents.length);
+		randomAccessFile = new IRODSRandomAccessFile(irodsFile,
+				fileIOOperations, jargonProperties);
+		server.position = 0;
+		server.reads = 0;
+		for (int i = 0; i < 200; i++) {
+			Assert.assertEquals(i, randomAccessFile.readInt());
+			Assert.assertEquals(-i, randomAccessFile.readLong());
+		}
+		Assert.assertEquals("header", randomAccessFile.readLine());
+		Assert.assertEquals("next", randomAccessFile.readLine());
+		Assert.assertNull(randomAccessFile.readLine());
+		Assert.assertTrue(server.reads < 10);
+
+		randomAccessFile.seek(4, SeekWhenceType.SEEK_START);
+		Assert.assertEquals(0L, randomAccessFile.readLong());
+		randomAccessFile.seek(16, SeekWhenceType.SEEK_CURRENT);
+		Assert.assertEquals(-2L, randomAccessFile.readLong());
+		randomAccessFile.seek(0, SeekWhenceType.SEEK_END);
+		Assert.assertEquals(-1, randomAccessFile.read());
+	}
+
+	@Test
+	public void testCloseClosesFileWhenFlushFails() throws Exception {
+		FileIOOperations fileIOOperations = mock(FileIOOperations.class);
+		when(
+				fileIOOperations.write(anyInt(), any(byte[].class), anyInt(),
+						anyInt())).thenThrow(
+				new JargonException("write failed"));
+		IRODSFile irodsFile = mock(IRODSFile.class);
+		when(irodsFile.exists()).thenReturn(true);
+		when(irodsFile.isFile()).thenReturn(true);
+		when(irodsFile.getFileDescriptor()).thenReturn(FD);
+		when(irodsFile.length()).thenReturn(0L);
+
+		SettableJargonProperties jargonProperties = new SettableJargonProperties();
+		jargonProperties.setRandomAccessCachePageSize(512);
+		IRODSRandomAccessFile randomAccessFile = new IRODSRandomAccessFile(
+				irodsFile, fileIOOperations, jargonProperties);
+		randomAccessFile.writeInt(1);
+
+		try {
+			randomAccessFile.close();
+			Assert.fail("expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+		verify(irodsFile).close();
+	}
+
+}
@@ -0,0 +1,229 @@
+package org.irods.jargon.core.query;
+
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.exception.JargonRuntimeException;
+import org.irods.jargon.core.pub.IRODSGenQueryExecutorImpl.QueryCloseBehavior;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class GenQueryResultIteratorTest {
+
+	@Test
+	public void testIterateAllPagesWithPrefetch() throws Exception {
+		iterateAllPages(2);
+	}
+
+	@Test
+	public void testIterateAllPagesNoPrefetch() throws Exception {
+		iterateAllPages(0);
+	}
+
+	@Test
+	public void testCloseEarlyClosesQuery() throws Exception {
+		TranslatedIRODSGenQuery query = mockQuery();
+		GenQueryProcessor processor = endlessProcessor(query);
+
+		GenQueryResultIterator iterator = GenQueryResultIterator.instance(
+				processor, query, 1, null);
+		Assert.assertEquals("a", iterator.next().getColumn(0));
+		iterator.close();
+		iterator.close();
+
+		Assert.assertFalse(iterator.hasNext());
+		verify(processor).closeResults(
+				Matchers.any(IRODSQueryResultSet.class));
+	}
+
+	@Test
+	public void testReadToEndDoesNotCloseQuery() throws Exception {
+		TranslatedIRODSGenQuery query = mockQuery();
+		GenQueryProcessor processor = mockProcessor(query);
+
+		GenQueryResultIterator iterator = GenQueryResultIterator.instance(
+				processor, query, 1, null);
+		while (iterator.hasNext()) {
+			iterator.next();
+		}
+		iterator.close();
+
+		verify(processor, never()).closeResults(
+				Matchers.any(IRODSQueryResultSet.class));
+	}
+
+	@Test(expected = JargonRuntimeException.class)
+	public void testErrorFetchingPage() throws Exception {
+		TranslatedIRODSGenQuery query = mockQuery();
+		IRODSQueryResultSet firstPage = page(query, 1, "a");
+		GenQueryProcessor processor = mock(GenQueryProcessor.class);
+		when(
+				processor.executeTranslatedIRODSQuery(query, 0, 0,
+						QueryCloseBehavior.MANUAL_CLOSE, null)).thenReturn(
+				firstPage);
+		when(
+				processor.executeTranslatedIRODSQuery(query, 1, 0,
+						QueryCloseBehavior.MANUAL_CLOSE, null)).thenThrow(
+				new JargonException("boom"));
+
+		GenQueryResultIterator iterator = GenQueryResultIterator.instance(
+				processor, query, 1, null);
+		try {
+			iterator.next();
+			iterator.next();
+		} finally {
+			iterator.close();
+		}
+	}
+
+	@Test
+	public void testPrefetchReservesConnectionUntilClosed() throws Exception {
+		TranslatedIRODSGenQuery query = mockQuery();
+		GenQueryProcessor processor = mockProcessor(query);
+
+		GenQueryResultIterator iterator = GenQueryResultIterator.instance(
+				processor, query, 1, null);
+		verify(processor).reserveConnection(Matchers.any(Thread.class));
+		iterator.close();
+		verify(processor, atLeastOnce()).releaseConnection(
+				Matchers.any(Thread.class));
+	}
+
+	@Test
+	public void testAbandonedIteratorStopsPrefetchAndClosesQuery()
+			throws Exception {
+		TranslatedIRODSGenQuery query = mockQuery();
+		GenQueryProcessor processor = endlessProcessor(query);
+		final CountDownLatch released = new CountDownLatch(1);
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(final InvocationOnMock invocation) {
+				released.countDown();
+				return null;
+			}
+		}).when(processor).releaseConnection(Matchers.any(Thread.class));
+
+		GenQueryResultIterator iterator = GenQueryResultIterator.instance(
+				processor, query, 1, null, 200);
+		Assert.assertEquals("a", iterator.next().getColumn(0));
+
+		Assert.assertTrue("prefetch did not give up",
+				released.await(10, TimeUnit.SECONDS));
+		verify(processor).closeResults(Matchers.any(IRODSQueryResultSet.class));
+
+		Assert.assertEquals("b", iterator.next().getColumn(0));
+		try {
+			iterator.next();
+			Assert.fail("expected JargonRuntimeException");
+		} catch (JargonRuntimeException e) {
+			// expected
+		}
+		iterator.close();
+		verify(processor, times(1)).closeResults(
+				Matchers.any(IRODSQueryResultSet.class));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativePrefetch() throws Exception {
+		TranslatedIRODSGenQuery query = mockQuery();
+		GenQueryResultIterator.instance(mockProcessor(query), query, -1, null);
+	}
+
+	private void iterateAllPages(final int prefetchDepth) throws Exception {
+		TranslatedIRODSGenQuery query = mockQuery();
+		GenQueryProcessor processor = mockProcessor(query);
+
+		List<String> values = new ArrayList<String>();
+		GenQueryResultIterator iterator = GenQueryResultIterator.instance(
+				processor, query, prefetchDepth, null);
+		try {
+			while (iterator.hasNext()) {
+				values.add(iterator.next().getColumn(0));
+			}
+		} finally {
+			iterator.close();
+		}
+
+		Assert.assertEquals("[a, b, c, d, e]", values.toString());
+	}
+
+	private TranslatedIRODSGenQuery mockQuery() {
+		TranslatedIRODSGenQuery query = mock(TranslatedIRODSGenQuery.class);
+		when(query.getSelectFields()).thenReturn(
+				new ArrayList<GenQuerySelectField>());
+		return query;
+	}
+
+	/**
+	 * three pages, the middle one empty as iRODS may return
+	 */
+	private GenQueryProcessor mockProcessor(
+			final TranslatedIRODSGenQuery query) throws Exception {
+		IRODSQueryResultSet page1 = page(query, 1, "a", "b");
+		IRODSQueryResultSet page2 = page(query, 2);
+		IRODSQueryResultSet page3 = page(query, 0, "c", "d", "e");
+		GenQueryProcessor processor = mock(GenQueryProcessor.class);
+		when(
+				processor.executeTranslatedIRODSQuery(query, 0, 0,
+						QueryCloseBehavior.MANUAL_CLOSE, null)).thenReturn(
+				page1);
+		when(
+				processor.executeTranslatedIRODSQuery(query, 1, 0,
+						QueryCloseBehavior.MANUAL_CLOSE, null)).thenReturn(
+				page2);
+		when(
+				processor.executeTranslatedIRODSQuery(query, 2, 0,
+						QueryCloseBehavior.MANUAL_CLOSE, null)).thenReturn(
+				page3);
+		return processor;
+	}
+
+	/**
+	 * a first page, then pages that always have more
+	 */
+	private GenQueryProcessor endlessProcessor(
+			final TranslatedIRODSGenQuery query) throws Exception {
+		IRODSQueryResultSet firstPage = page(query, 1, "a");
+		IRODSQueryResultSet morePages = page(query, 1, "b");
+		GenQueryProcessor processor = mock(GenQueryProcessor.class);
+		when(
+				processor.executeTranslatedIRODSQuery(query, 0, 0,
+						QueryCloseBehavior.MANUAL_CLOSE, null)).thenReturn(
+				firstPage);
+		when(
+				processor.executeTranslatedIRODSQuery(query, 1, 0,
+						QueryCloseBehavior.MANUAL_CLOSE, null)).thenReturn(
+				morePages);
+		return processor;
+	}
+
+	private IRODSQueryResultSet page(final TranslatedIRODSGenQuery query,
+			final int continuation, final String... values)
+			throws JargonException {
+		List<String> columnNames = new ArrayList<String>();
+		columnNames.add("col");
+		List<IRODSQueryResultRow> rows = new ArrayList<IRODSQueryResultRow>();
+		for (String value : values) {
+			List<String> row = new ArrayList<String>();
+			row.add(value);
+			rows.add(IRODSQueryResultRow.instance(row, columnNames));
+		}
+		return IRODSQueryResultSet.instance(query, rows, continuation, 0);
+	}
+
+}
@@ -0,0 +1,110 @@
+package org.irods.jargon.core.query;
+
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSServerProperties;
+import org.junit.Test;
+
+public class PreparedIRODSGenQueryTest {
+
+	private static final String TEMPLATE = "select COUNT(COLL_NAME), META_COLL_ATTR_NAME where META_COLL_ATTR_UNITS = ? and META_COLL_ATTR_VALUE = 'fixed' and META_COLL_ATTR_NAME like ?";
+
+	@Test
+	public void testBindMatchesTranslationOfLiteralQuery() throws Exception {
+		PreparedIRODSGenQuery prepared = PreparedIRODSGenQuery
+				.prepare(TEMPLATE);
+		Assert.assertEquals(2, prepared.getParameterCount());
+
+		TranslatedIRODSGenQuery bound = prepared.bind(500, "iRODSUserTagging",
+				"%tag%").convertToTranslatedIRODSGenQuery();
+
+		IRODSServerProperties props = IRODSServerProperties.instance(
+				IRODSServerProperties.IcatEnabled.ICAT_ENABLED, 100, "rods4.1",
+				"d", "zone");
+		TranslatedIRODSGenQuery literal = new IRODSGenQueryTranslator(props)
+				.getTranslatedQuery(IRODSGenQuery
+						.instance(
+								"select COUNT(COLL_NAME), META_COLL_ATTR_NAME where META_COLL_ATTR_UNITS = 'iRODSUserTagging' and META_COLL_ATTR_VALUE = 'fixed' and META_COLL_ATTR_NAME like '%tag%'",
+								500));
+
+		Assert.assertEquals(500, bound.getIrodsQuery()
+				.getNumberOfResultsDesired());
+		Assert.assertEquals(literal.isDistinct(), bound.isDistinct());
+		Assert.assertEquals(literal.getSelectFields().size(), bound
+				.getSelectFields().size());
+		List<TranslatedGenQueryCondition> expected = literal
+				.getTranslatedQueryConditions();
+		List<TranslatedGenQueryCondition> actual = bound
+				.getTranslatedQueryConditions();
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertEquals(expected.get(i).toString(), actual.get(i)
+					.toString());
+		}
+	}
+
+	@Test
+	public void testBindingDoesNotChangeThePreparedQuery() throws Exception {
+		PreparedIRODSGenQuery prepared = PreparedIRODSGenQuery
+				.prepare(TEMPLATE);
+		prepared.bind(10, "a", "b");
+		TranslatedIRODSGenQuery second = prepared.bind(10, "c", "d")
+				.convertToTranslatedIRODSGenQuery();
+		Assert.assertEquals("'c'", second.getTranslatedQueryConditions().get(0)
+				.getValue());
+		Assert.assertEquals("'d'", second.getTranslatedQueryConditions().get(2)
+				.getValue());
+	}
+
+	@Test
+	public void testPrepareIsCached() throws Exception {
+		PreparedIRODSGenQuery first = PreparedIRODSGenQuery
+				.prepare("select DATA_NAME where COLL_NAME = ?");
+		long hits = PreparedIRODSGenQuery.getCache().getHitCount();
+		PreparedIRODSGenQuery second = PreparedIRODSGenQuery
+				.prepare("select DATA_NAME where COLL_NAME = ?");
+		Assert.assertSame(first, second);
+		Assert.assertEquals(hits + 1, PreparedIRODSGenQuery.getCache()
+				.getHitCount());
+	}
+
+	@Test
+	public void testQuotedQuestionMarkIsLiteral() throws Exception {
+		PreparedIRODSGenQuery prepared = PreparedIRODSGenQuery
+				.prepare("select DATA_NAME where DATA_NAME = '?' and COLL_NAME = ?");
+		Assert.assertEquals(1, prepared.getParameterCount());
+	}
+
+	@Test(expected = JargonQueryException.class)
+	public void testParameterWithInRejected() throws Exception {
+		PreparedIRODSGenQuery
+				.prepare("select DATA_NAME where DATA_NAME in ?");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWrongNumberOfValues() throws Exception {
+		PreparedIRODSGenQuery.prepare(TEMPLATE).bind(10, "a");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testValueWithQuoteRejected() throws Exception {
+		PreparedIRODSGenQuery.prepare(TEMPLATE).bind(10, "a", "it's");
+	}
+
+	@Test
+	public void testCacheDropsLeastRecentlyUsed() throws Exception {
+		PreparedGenQueryCache cache = new PreparedGenQueryCache(2);
+		PreparedIRODSGenQuery a = PreparedIRODSGenQuery
+				.prepare("select DATA_NAME where COLL_NAME = ?");
+		cache.put("a", a);
+		cache.put("b", a);
+		cache.get("a");
+		cache.put("c", a);
+		Assert.assertEquals(2, cache.size());
+		Assert.assertNotNull(cache.get("a"));
+		Assert.assertNull(cache.get("b"));
+	}
+
+}
@@ -0,0 +1,100 @@
+package org.irods.jargon.core.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.GenQueryOut;
+import org.irods.jargon.core.packinstr.Tag;
+import org.junit.Test;
+
+public class QueryResultProcessingUtilsTest {
+
+	@Test
+	public void testTranslateResponseIntoResultSet() throws Exception {
+		List<String> columnNames = new ArrayList<String>();
+		columnNames.add(RodsGenQueryEnum.COL_COLL_NAME.getName());
+		columnNames.add(RodsGenQueryEnum.COL_DATA_NAME.getName());
+		columnNames.add(RodsGenQueryEnum.COL_DATA_SIZE.getName());
+
+		Tag response = buildResponse(new String[][] {
+				{ "/zone/home/a", "/zone/home/a", "/zone/home/b" },
+				{ "f1", "f2", "f3" }, { "10", "20", "30" } }, 1);
+
+		List<IRODSQueryResultRow> rows = QueryResultProcessingUtils
+				.translateResponseIntoResultSet(response, columnNames, 1, 10);
+
+		Assert.assertEquals(3, rows.size());
+		IRODSQueryResultRow row = rows.get(1);
+		Assert.assertEquals("/zone/home/a", row.getColumn(0));
+		Assert.assertEquals("f2", row.getColumn(1));
+		Assert.assertEquals("f2",
+				row.getColumn(RodsGenQueryEnum.COL_DATA_NAME.getName()));
+		Assert.assertEquals(20L, row.getColumnAsLongOrZero(2));
+		Assert.assertEquals(30, rows.get(2).getColumnAsIntOrZero(
+				RodsGenQueryEnum.COL_DATA_SIZE.getName()));
+		Assert.assertEquals(12, row.getRecordCount());
+		Assert.assertFalse(row.isLastResult());
+
+		List<String> columns = row.getColumnsAsList();
+		Assert.assertEquals(3, columns.size());
+		Assert.assertEquals("20", columns.get(2));
+	}
+
+	@Test(expected = JargonException.class)
+	public void testTranslateResponseUnknownColumnName() throws Exception {
+		List<String> columnNames = new ArrayList<String>();
+		columnNames.add(RodsGenQueryEnum.COL_COLL_NAME.getName());
+
+		Tag response = buildResponse(new String[][] { { "/zone" } }, 0);
+		List<IRODSQueryResultRow> rows = QueryResultProcessingUtils
+				.translateResponseIntoResultSet(response, columnNames, 0, 0);
+		Assert.assertTrue(rows.get(0).isLastResult());
+		rows.get(0).getColumn("not a column");
+	}
+
+	@Test(expected = JargonException.class)
+	public void testTranslateResponseColumnOutOfRange() throws Exception {
+		List<String> columnNames = new ArrayList<String>();
+		columnNames.add(RodsGenQueryEnum.COL_COLL_NAME.getName());
+
+		Tag response = buildResponse(new String[][] { { "/zone" } }, 0);
+		QueryResultProcessingUtils
+				.translateResponseIntoResultSet(response, columnNames, 0, 0)
+				.get(0).getColumn(1);
+	}
+
+	@Test
+	public void testTranslateNullResponse() throws Exception {
+		List<IRODSQueryResultRow> rows = QueryResultProcessingUtils
+				.translateResponseIntoResultSet(null, new ArrayList<String>(),
+						0, 0);
+		Assert.assertTrue(rows.isEmpty());
+	}
+
+	/**
+	 * Build a GenQueryOut_PI laid out as iRODS sends it, one SqlResult_PI per
+	 * attribute
+	 */
+	private Tag buildResponse(final String[][] columns, final int continuation) {
+		int rows = columns[0].length;
+		Tag response = new Tag(GenQueryOut.PI_NAME);
+		response.addTag(GenQueryOut.ROW_CNT, rows);
+		response.addTag(GenQueryOut.ATTRIB_CNT, columns.length);
+		response.addTag(GenQueryOut.CONTINUE_INX, continuation);
+		response.addTag("totalRowCount", 0);
+		for (int j = 0; j < columns.length; j++) {
+			Tag sqlResult = new Tag("SqlResult_PI");
+			sqlResult.addTag("attriInx", 500 + j);
+			sqlResult.addTag("reslen", 100);
+			for (String value : columns[j]) {
+				sqlResult.addTag("value", value);
+			}
+			response.addTag(sqlResult);
+		}
+		return response;
+	}
+
+}
@@ -0,0 +1,221 @@
+/**
+ *
+ */
+package org.irods.jargon.core.transfer;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.irods.jargon.core.transfer.FileRestartInfo.RestartType;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JournalBasedTransferRestartManagerTest {
+
+	private File journalDirectory;
+
+	@Before
+	public void setUp() throws Exception {
+		journalDirectory = File.createTempFile("restart-journal", "");
+		journalDirectory.delete();
+		journalDirectory.mkdirs();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		File[] files = journalDirectory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		journalDirectory.delete();
+	}
+
+	private FileRestartInfoIdentifier identifier(final String irodsPath) {
+		FileRestartInfoIdentifier identifier = new FileRestartInfoIdentifier();
+		identifier.setAbsolutePath(irodsPath);
+		identifier.setIrodsAccountIdentifier("test@host:1247/zone");
+		identifier.setRestartType(RestartType.PUT);
+		return identifier;
+	}
+
+	@Test
+	public void testUpdatesAreRecoveredByNewManager() throws Exception {
+		JournalBasedTransferRestartManager manager = new JournalBasedTransferRestartManager(
+				journalDirectory);
+		FileRestartInfoIdentifier identifier = identifier("/irods/path");
+		manager.retrieveRestartAndBuildIfNotStored(identifier, "/local/path",
+				4);
+		manager.updateOffsetForSegment(identifier, 2, 1000L);
+		manager.updateLengthForSegment(identifier, 2, 300L);
+		manager.updateLengthForSegment(identifier, 2, 200L);
+		manager.incrementRestartAttempts(manager.retrieveRestart(identifier));
+		manager.close();
+
+		JournalBasedTransferRestartManager recovered = new JournalBasedTransferRestartManager(
+				journalDirectory);
+		FileRestartInfo info = recovered.retrieveRestart(identifier);
+		Assert.assertNotNull("restart not recovered", info);
+		Assert.assertEquals("/local/path", info.getLocalAbsolutePath());
+		Assert.assertEquals(1, info.getNumberRestarts());
+		Assert.assertEquals(4, info.getFileRestartDataSegments().size());
+		FileRestartDataSegment segment = info.getFileRestartDataSegments()
+				.get(2);
+		Assert.assertEquals(2, segment.getThreadNumber());
+		Assert.assertEquals(1000L, segment.getOffset());
+		Assert.assertEquals(500L, segment.getLength());
+		recovered.close();
+	}
+
+	@Test
+	public void testDeleteIsRecovered() throws Exception {
+		JournalBasedTransferRestartManager manager = new JournalBasedTransferRestartManager(
+				journalDirectory);
+		FileRestartInfoIdentifier kept = identifier("/irods/kept");
+		FileRestartInfoIdentifier deleted = identifier("/irods/deleted");
+		manager.retrieveRestartAndBuildIfNotStored(kept, "/local/kept", 2);
+		manager.retrieveRestartAndBuildIfNotStored(deleted, "/local/deleted",
+				2);
+		manager.deleteRestart(deleted);
+		manager.close();
+
+		JournalBasedTransferRestartManager recovered = new JournalBasedTransferRestartManager(
+				journalDirectory);
+		Assert.assertNotNull(recovered.retrieveRestart(kept));
+		Assert.assertNull(recovered.retrieveRestart(deleted));
+		recovered.close();
+	}
+
+	@Test
+	public void testTornRecordIsCutOff() throws Exception {
+		JournalBasedTransferRestartManager manager = new JournalBasedTransferRestartManager(
+				journalDirectory);
+		FileRestartInfoIdentifier identifier = identifier("/irods/path");
+		manager.retrieveRestartAndBuildIfNotStored(identifier, "/local/path",
+				2);
+		manager.updateLengthForSegment(identifier, 0, 100L);
+		long goodLength = manager.getJournalFile().length();
+		manager.updateLengthForSegment(identifier, 0, 100L);
+		manager.close();
+
+		// lose the end of the last record, as a crash in the write would
+		RandomAccessFile journal = new RandomAccessFile(
+				manager.getJournalFile(), "rw");
+		journal.setLength(journal.length() - 3);
+		journal.close();
+
+		JournalBasedTransferRestartManager recovered = new JournalBasedTransferRestartManager(
+				journalDirectory);
+		Assert.assertEquals(goodLength, recovered.getJournalFile().length());
+		Assert.assertEquals(100L, recovered.retrieveRestart(identifier)
+				.getFileRestartDataSegments().get(0).getLength());
+
+		// records written after recovery follow the last good one
+		recovered.updateLengthForSegment(identifier, 0, 50L);
+		recovered.close();
+		recovered = new JournalBasedTransferRestartManager(journalDirectory);
+		Assert.assertEquals(150L, recovered.retrieveRestart(identifier)
+				.getFileRestartDataSegments().get(0).getLength());
+		recovered.close();
+	}
+
+	@Test
+	public void testDamagedRecordIsCutOff() throws Exception {
+		JournalBasedTransferRestartManager manager = new JournalBasedTransferRestartManager(
+				journalDirectory);
+		FileRestartInfoIdentifier identifier = identifier("/irods/path");
+		manager.retrieveRestartAndBuildIfNotStored(identifier, "/local/path",
+				2);
+		long goodLength = manager.getJournalFile().length();
+		manager.updateLengthForSegment(identifier, 1, 100L);
+		manager.close();
+
+		RandomAccessFile journal = new RandomAccessFile(
+				manager.getJournalFile(), "rw");
+		journal.seek(journal.length() - 6);
+		journal.write(0xff);
+		journal.close();
+
+		JournalBasedTransferRestartManager recovered = new JournalBasedTransferRestartManager(
+				journalDirectory);
+		Assert.assertEquals(goodLength, recovered.getJournalFile().length());
+		Assert.assertEquals(0L, recovered.retrieveRestart(identifier)
+				.getFileRestartDataSegments().get(1).getLength());
+		recovered.close();
+	}
+
+	@Test
+	public void testCompactionKeepsLiveRestarts() throws Exception {
+		JournalBasedTransferRestartManager manager = new JournalBasedTransferRestartManager(
+				journalDirectory, false, 20);
+		FileRestartInfoIdentifier kept = identifier("/irods/kept");
+		manager.retrieveRestartAndBuildIfNotStored(kept, "/local/kept", 2);
+		for (int i = 0; i < 10; i++) {
+			FileRestartInfoIdentifier done = identifier("/irods/done" + i);
+			manager.retrieveRestartAndBuildIfNotStored(done, "/local/done", 2);
+			manager.deleteRestart(done);
+		}
+		for (int i = 0; i < 50; i++) {
+			manager.updateLengthForSegment(kept, 1, 10L);
+		}
+		manager.close();
+
+		// fewer records than written are left
+		Assert.assertTrue(manager.getJournalFile().length() < 50 * 60);
+		Assert.assertFalse(new File(journalDirectory,
+				JournalBasedTransferRestartManager.JOURNAL_FILE_NAME
+						+ ".compact").exists());
+
+		JournalBasedTransferRestartManager recovered = new JournalBasedTransferRestartManager(
+				journalDirectory);
+		Assert.assertEquals(500L, recovered.retrieveRestart(kept)
+				.getFileRestartDataSegments().get(1).getLength());
+		Assert.assertNull(recovered.retrieveRestart(identifier("/irods/done0")));
+		recovered.close();
+	}
+
+	@Test
+	public void testSecondManagerOnDirectoryIsRefused() throws Exception {
+		JournalBasedTransferRestartManager manager = new JournalBasedTransferRestartManager(
+				journalDirectory);
+		try {
+			new JournalBasedTransferRestartManager(journalDirectory);
+			Assert.fail("expected RestartJournalInUseException");
+		} catch (RestartJournalInUseException e) {
+			// expected
+		}
+
+		FileRestartInfoIdentifier identifier = identifier("/irods/file");
+		manager.retrieveRestartAndBuildIfNotStored(identifier, "/local/file", 2);
+		manager.close();
+
+		JournalBasedTransferRestartManager next = new JournalBasedTransferRestartManager(
+				journalDirectory);
+		Assert.assertNotNull(next.retrieveRestart(identifier));
+		next.close();
+	}
+
+	@Test
+	public void testLockIsKeptThroughCompaction() throws Exception {
+		JournalBasedTransferRestartManager manager = new JournalBasedTransferRestartManager(
+				journalDirectory, false, 20);
+		FileRestartInfoIdentifier identifier = identifier("/irods/file");
+		manager.retrieveRestartAndBuildIfNotStored(identifier, "/local/file", 2);
+		for (int i = 0; i < 50; i++) {
+			manager.updateLengthForSegment(identifier, 1, 10L);
+		}
+
+		try {
+			new JournalBasedTransferRestartManager(journalDirectory);
+			Assert.fail("expected RestartJournalInUseException");
+		} catch (RestartJournalInUseException e) {
+			// expected
+		} finally {
+			manager.close();
+		}
+	}
+
+}
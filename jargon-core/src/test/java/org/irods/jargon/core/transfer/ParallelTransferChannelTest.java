@@ -0,0 +1,169 @@
+package org.irods.jargon.core.transfer;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.StandardOpenOption;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelTransferChannelTest {
+
+	private ServerSocketChannel server;
+	private SocketChannel serverSide;
+	private ParallelTransferChannel channel;
+
+	@Before
+	public void setUp() throws Exception {
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+		SocketChannel client = SocketChannel.open(server.getLocalAddress());
+		serverSide = server.accept();
+		channel = new ParallelTransferChannel(client, 500);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		channel.close();
+		serverSide.close();
+		server.close();
+	}
+
+	@Test
+	public void testReadHeaderInNetworkOrder() throws Exception {
+		ByteBuffer header = ByteBuffer.allocate(12);
+		header.putInt(ParallelGetTransferThread.GET_OPR);
+		header.putLong(1234567890123L);
+		header.flip();
+		serverSide.write(header);
+
+		Assert.assertEquals(ParallelGetTransferThread.GET_OPR,
+				channel.readInt());
+		Assert.assertEquals(1234567890123L, channel.readLong());
+	}
+
+	@Test
+	public void testWriteAndReadFullyLargerThanSocketBuffers()
+			throws Exception {
+		final int size = 4 * 1024 * 1024;
+		final ByteBuffer sent = ByteBuffer.allocateDirect(size);
+		for (int i = 0; i < size; i++) {
+			sent.put((byte) i);
+		}
+		sent.flip();
+
+		Thread echo = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				ByteBuffer relay = ByteBuffer.allocate(8192);
+				try {
+					int total = 0;
+					while (total < size) {
+						relay.clear();
+						total += serverSide.read(relay);
+						relay.flip();
+						while (relay.hasRemaining()) {
+							serverSide.write(relay);
+						}
+					}
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		});
+		echo.start();
+
+		ByteBuffer received = ByteBuffer.allocateDirect(size);
+		channel.writeFully(sent);
+		channel.readFully(received);
+		echo.join(10000);
+
+		sent.flip();
+		received.flip();
+		Assert.assertEquals(sent, received);
+	}
+
+	@Test
+	public void testTransferToSendsFileSegment() throws Exception {
+		File file = File.createTempFile("parallelTransferTo", ".dat");
+		file.deleteOnExit();
+		final int size = 2 * 1024 * 1024;
+		FileChannel fileChannel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			ByteBuffer contents = ByteBuffer.allocate(size);
+			for (int i = 0; i < size; i++) {
+				contents.put((byte) (i % 251));
+			}
+			contents.flip();
+			fileChannel.write(contents, 0);
+
+			final ByteBuffer received = ByteBuffer.allocate(size - 1000);
+			Thread reader = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						while (received.hasRemaining()) {
+							serverSide.read(received);
+						}
+					} catch (Exception e) {
+						throw new RuntimeException(e);
+					}
+				}
+			});
+			reader.start();
+			channel.transferTo(fileChannel, 1000, size - 1000);
+			reader.join(10000);
+
+			received.flip();
+			contents.position(1000);
+			Assert.assertEquals(contents, received);
+		} finally {
+			fileChannel.close();
+		}
+	}
+
+	@Test(expected = SocketTimeoutException.class)
+	public void testReadTimesOut() throws Exception {
+		channel.readInt();
+	}
+
+	@Test(expected = EOFException.class)
+	public void testReadAtEndOfStream() throws Exception {
+		serverSide.write(ByteBuffer.wrap(new byte[] { 0, 0 }));
+		serverSide.close();
+		channel.readInt();
+	}
+
+	@Test
+	public void testStreamViewsOfChannel() throws Exception {
+		channel.asOutputStream().write(new byte[] { 1, 2, 3 }, 0, 3);
+		ByteBuffer received = ByteBuffer.allocate(3);
+		while (received.hasRemaining()) {
+			serverSide.read(received);
+		}
+		Assert.assertEquals(ByteBuffer.wrap(new byte[] { 1, 2, 3 }),
+				(ByteBuffer) received.flip());
+
+		serverSide.write(ByteBuffer.wrap(new byte[] { 4, 5 }));
+		serverSide.close();
+		InputStream in = channel.asInputStream();
+		byte[] b = new byte[2];
+		Assert.assertEquals(2, in.read(b));
+		Assert.assertEquals(4, b[0]);
+		Assert.assertEquals(5, b[1]);
+		Assert.assertEquals(-1, in.read());
+	}
+
+}
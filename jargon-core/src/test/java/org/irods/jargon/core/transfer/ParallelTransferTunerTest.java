@@ -0,0 +1,98 @@
+package org.irods.jargon.core.transfer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class ParallelTransferTunerTest {
+
+	private static final long SECOND = 1000L * 1000L * 1000L;
+	private static final long LAN_CONNECT = 200L * 1000L;
+	private static final long WAN_CONNECT = 80L * 1000L * 1000L;
+
+	/**
+	 * Results for a transfer of the given total throughput split over the
+	 * threads
+	 */
+	private List<ParallelTransferResult> results(final int threads,
+			final long bytesPerSecond, final long connectNanos) {
+		List<ParallelTransferResult> results = new ArrayList<ParallelTransferResult>();
+		for (int i = 0; i < threads; i++) {
+			ParallelTransferResult result = new ParallelTransferResult();
+			result.bytesTransferred = bytesPerSecond / threads;
+			result.transferNanos = SECOND;
+			result.connectNanos = connectNanos;
+			results.add(result);
+		}
+		return results;
+	}
+
+	@Test
+	public void testUnmeasuredHostGetsMax() throws Exception {
+		ParallelTransferTuner tuner = new ParallelTransferTuner();
+		Assert.assertEquals(4, tuner.recommendThreads("host", 4));
+	}
+
+	@Test
+	public void testLocalNetworkStepsDownFirst() throws Exception {
+		ParallelTransferTuner tuner = new ParallelTransferTuner();
+		tuner.record("host", 4, results(4, 100000000L, LAN_CONNECT));
+		Assert.assertEquals(3, tuner.recommendThreads("host", 4));
+
+		// no worse with fewer, keep going down
+		tuner.record("host", 3, results(3, 100000000L, LAN_CONNECT));
+		Assert.assertEquals(2, tuner.recommendThreads("host", 4));
+
+		// worse, go back up
+		tuner.record("host", 2, results(2, 60000000L, LAN_CONNECT));
+		Assert.assertEquals(3, tuner.recommendThreads("host", 4));
+	}
+
+	@Test
+	public void testLongRoundTripStepsUpWhileItHelps() throws Exception {
+		ParallelTransferTuner tuner = new ParallelTransferTuner();
+		tuner.record("host", 4, results(4, 40000000L, WAN_CONNECT));
+		Assert.assertEquals(5, tuner.recommendThreads("host", 16));
+
+		tuner.record("host", 5, results(5, 50000000L, WAN_CONNECT));
+		Assert.assertEquals(6, tuner.recommendThreads("host", 16));
+
+		tuner.record("host", 6, results(6, 40000000L, WAN_CONNECT));
+		Assert.assertEquals(5, tuner.recommendThreads("host", 16));
+	}
+
+	@Test
+	public void testHeldAtMaxTurnsBack() throws Exception {
+		ParallelTransferTuner tuner = new ParallelTransferTuner();
+		tuner.record("host", 4, results(4, 40000000L, WAN_CONNECT));
+		Assert.assertEquals(4, tuner.recommendThreads("host", 4));
+
+		tuner.record("host", 4, results(4, 40000000L, WAN_CONNECT));
+		Assert.assertEquals(3, tuner.recommendThreads("host", 4));
+	}
+
+	@Test
+	public void testShortTransferIsNotRecorded() throws Exception {
+		ParallelTransferTuner tuner = new ParallelTransferTuner();
+		List<ParallelTransferResult> results = results(4, 1000L, LAN_CONNECT);
+		for (ParallelTransferResult result : results) {
+			result.transferNanos = ParallelTransferTuner.MIN_MEASURED_NANOS / 2;
+		}
+		tuner.record("host", 4, results);
+		Assert.assertEquals(4, tuner.recommendThreads("host", 4));
+	}
+
+	@Test
+	public void testHostsAreKeptApart() throws Exception {
+		ParallelTransferTuner tuner = new ParallelTransferTuner();
+		tuner.record("lan", 4, results(4, 100000000L, LAN_CONNECT));
+		tuner.record("wan", 4, results(4, 10000000L, WAN_CONNECT));
+		Assert.assertEquals(3, tuner.recommendThreads("lan", 8));
+		Assert.assertEquals(5, tuner.recommendThreads("wan", 8));
+		Assert.assertEquals(8, tuner.recommendThreads("other", 8));
+	}
+
+}
@@ -0,0 +1,207 @@
+package org.irods.jargon.core.transfer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.junit.Test;
+
+public class StagedEncryptionPipelineTest {
+
+	@Test
+	public void testCompletionInOrderAndRingReused() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		final List<Long> completed = new ArrayList<Long>();
+		final List<StagedEncryptionPipeline.Chunk> chunks = new ArrayList<StagedEncryptionPipeline.Chunk>();
+		StagedEncryptionPipeline.ChunkCompletion completion = new StagedEncryptionPipeline.ChunkCompletion() {
+			@Override
+			public void complete(final StagedEncryptionPipeline.Chunk chunk) {
+				completed.add(chunk.position);
+			}
+		};
+
+		try {
+			StagedEncryptionPipeline pipeline = new StagedEncryptionPipeline(3,
+					executor);
+			for (long i = 0; i < 20; i++) {
+				final long sleep = 19 - i;
+				StagedEncryptionPipeline.Chunk chunk = pipeline
+						.acquire(completion);
+				if (!chunks.contains(chunk)) {
+					chunks.add(chunk);
+				}
+				chunk.position = i;
+				pipeline.submit(chunk, new StagedEncryptionPipeline.ChunkWork() {
+					@Override
+					public void process(
+							final StagedEncryptionPipeline.Chunk chunk) {
+						// later chunks finish their work first
+						try {
+							Thread.sleep(sleep % 4);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+				});
+				Assert.assertTrue(pipeline.getInFlightCount() <= 3);
+			}
+			pipeline.drain(completion);
+			Assert.assertEquals(0, pipeline.getInFlightCount());
+		} finally {
+			executor.shutdown();
+		}
+
+		Assert.assertEquals("ring not reused", 3, chunks.size());
+		Assert.assertEquals(20, completed.size());
+		for (int i = 0; i < 20; i++) {
+			Assert.assertEquals(Long.valueOf(i), completed.get(i));
+		}
+	}
+
+	@Test
+	public void testStreamRunsAheadOfWorkUpToDepth() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger processed = new AtomicInteger();
+		StagedEncryptionPipeline.ChunkWork blocked = new StagedEncryptionPipeline.ChunkWork() {
+			@Override
+			public void process(final StagedEncryptionPipeline.Chunk chunk) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				processed.incrementAndGet();
+			}
+		};
+
+		try {
+			StagedEncryptionPipeline pipeline = new StagedEncryptionPipeline(4,
+					executor);
+			for (int i = 0; i < 4; i++) {
+				pipeline.submit(pipeline.acquire(null), blocked);
+			}
+			Assert.assertEquals(4, pipeline.getInFlightCount());
+			Assert.assertEquals(0, processed.get());
+			release.countDown();
+			pipeline.drain(null);
+			Assert.assertEquals(4, processed.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testWorkErrorsRethrownOnStreamThread() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			StagedEncryptionPipeline pipeline = new StagedEncryptionPipeline(2,
+					executor);
+			pipeline.submit(pipeline.acquire(null), failingWork(new IOException(
+					"io")));
+			try {
+				pipeline.drain(null);
+				Assert.fail("expected IOException");
+			} catch (IOException e) {
+				Assert.assertEquals("io", e.getMessage());
+			}
+
+			pipeline.submit(pipeline.acquire(null), failingWork(new JargonException(
+					"jargon")));
+			try {
+				pipeline.drain(null);
+				Assert.fail("expected JargonException");
+			} catch (JargonException e) {
+				Assert.assertEquals("jargon", e.getMessage());
+			}
+
+			pipeline.submit(pipeline.acquire(null), failingWork(new IllegalStateException(
+					"runtime")));
+			try {
+				pipeline.drain(null);
+				Assert.fail("expected JargonException");
+			} catch (JargonException e) {
+				Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testCancelDropsChunksInFlight() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<Integer> completed = Collections
+				.synchronizedList(new ArrayList<Integer>());
+		try {
+			StagedEncryptionPipeline pipeline = new StagedEncryptionPipeline(2,
+					executor);
+			pipeline.submit(pipeline.acquire(null),
+					new StagedEncryptionPipeline.ChunkWork() {
+						@Override
+						public void process(
+								final StagedEncryptionPipeline.Chunk chunk) {
+							try {
+								release.await();
+							} catch (InterruptedException e) {
+								Thread.currentThread().interrupt();
+							}
+						}
+					});
+			pipeline.cancel();
+			Assert.assertEquals(0, pipeline.getInFlightCount());
+			pipeline.drain(new StagedEncryptionPipeline.ChunkCompletion() {
+				@Override
+				public void complete(final StagedEncryptionPipeline.Chunk chunk) {
+					completed.add(1);
+				}
+			});
+			Assert.assertTrue(completed.isEmpty());
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+		Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testEnsureCapacityKeepsLargeEnoughBuffers() {
+		StagedEncryptionPipeline.Chunk chunk = new StagedEncryptionPipeline.Chunk();
+		chunk.ensureCapacity(100, 132);
+		ByteBuffer plain = chunk.plain;
+		chunk.ensureCapacity(50, 132);
+		Assert.assertSame(plain, chunk.plain);
+		chunk.ensureCapacity(200, 232);
+		Assert.assertEquals(200, chunk.plain.capacity());
+		Assert.assertEquals(232, chunk.encrypted.capacity());
+		Assert.assertTrue(chunk.plain.isDirect());
+	}
+
+	private StagedEncryptionPipeline.ChunkWork failingWork(
+			final Exception exception) {
+		return new StagedEncryptionPipeline.ChunkWork() {
+			@Override
+			public void process(final StagedEncryptionPipeline.Chunk chunk)
+					throws IOException, JargonException {
+				if (exception instanceof IOException) {
+					throw (IOException) exception;
+				} else if (exception instanceof JargonException) {
+					throw (JargonException) exception;
+				}
+				throw (RuntimeException) exception;
+			}
+		};
+	}
+
+}
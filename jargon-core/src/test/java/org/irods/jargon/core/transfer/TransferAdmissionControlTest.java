@@ -0,0 +1,170 @@
+package org.irods.jargon.core.transfer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TransferAdmissionControlTest {
+
+	@Test
+	public void testLimitPerHostAndWaitingOrder() throws Exception {
+		TransferAdmissionControl admissionControl = new TransferAdmissionControl(
+				2);
+		ExecutorService executor = Executors.newCachedThreadPool();
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch firstStarted = new CountDownLatch(2);
+		final CountDownLatch allDone = new CountDownLatch(5);
+		final List<Integer> started = Collections
+				.synchronizedList(new ArrayList<Integer>());
+
+		try {
+			for (int i = 0; i < 5; i++) {
+				final int number = i;
+				admissionControl.submit("host1", executor, new Runnable() {
+					@Override
+					public void run() {
+						started.add(number);
+						firstStarted.countDown();
+						try {
+							release.await();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						allDone.countDown();
+					}
+				});
+			}
+
+			Assert.assertEquals(2, admissionControl.getRunningCount("host1"));
+			Assert.assertEquals(3, admissionControl.getWaitingCount("host1"));
+
+			// the admitted pair must both have started before either finishes
+			Assert.assertTrue(firstStarted.await(10, TimeUnit.SECONDS));
+			Assert.assertEquals(2, started.size());
+			release.countDown();
+			Assert.assertTrue(allDone.await(10, TimeUnit.SECONDS));
+			Assert.assertEquals(5, started.size());
+			Assert.assertTrue(started.subList(0, 2).contains(0));
+			Assert.assertTrue(started.subList(0, 2).contains(1));
+		} finally {
+			executor.shutdown();
+		}
+
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+		Assert.assertEquals(0, admissionControl.getRunningCount("host1"));
+		Assert.assertEquals(0, admissionControl.getWaitingCount("host1"));
+	}
+
+	@Test
+	public void testWaitingTransfersRunInOrder() throws Exception {
+		TransferAdmissionControl admissionControl = new TransferAdmissionControl(
+				1);
+		ExecutorService executor = Executors.newCachedThreadPool();
+		final CountDownLatch allDone = new CountDownLatch(5);
+		final List<Integer> started = Collections
+				.synchronizedList(new ArrayList<Integer>());
+
+		try {
+			for (int i = 0; i < 5; i++) {
+				final int number = i;
+				admissionControl.submit("host1", executor, new Runnable() {
+					@Override
+					public void run() {
+						started.add(number);
+						allDone.countDown();
+					}
+				});
+			}
+
+			Assert.assertTrue(allDone.await(10, TimeUnit.SECONDS));
+			for (int i = 0; i < 5; i++) {
+				Assert.assertEquals(i, started.get(i).intValue());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testHostsAreLimitedSeparately() throws Exception {
+		TransferAdmissionControl admissionControl = new TransferAdmissionControl(
+				1);
+		ExecutorService executor = Executors.newCachedThreadPool();
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch bothStarted = new CountDownLatch(2);
+		Runnable task = new Runnable() {
+			@Override
+			public void run() {
+				bothStarted.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+
+		try {
+			admissionControl.submit("host1", executor, task);
+			admissionControl.submit("host2", executor, task);
+			Assert.assertTrue(bothStarted.await(10, TimeUnit.SECONDS));
+			admissionControl.submit("host1", executor, task);
+			Assert.assertEquals(1, admissionControl.getWaitingCount("host1"));
+			Assert.assertEquals(0, admissionControl.getWaitingCount("host2"));
+		} finally {
+			release.countDown();
+		}
+
+		executor.shutdown();
+		Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		Assert.assertEquals(0, admissionControl.getRunningCount("host1"));
+	}
+
+	@Test
+	public void testNoLimit() throws Exception {
+		TransferAdmissionControl admissionControl = new TransferAdmissionControl(
+				0);
+		ExecutorService executor = Executors.newCachedThreadPool();
+		final CountDownLatch release = new CountDownLatch(1);
+		Runnable task = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+
+		try {
+			for (int i = 0; i < 10; i++) {
+				admissionControl.submit("host1", executor, task);
+			}
+			Assert.assertEquals(10, admissionControl.getRunningCount("host1"));
+			Assert.assertEquals(0, admissionControl.getWaitingCount("host1"));
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testCancelFutureCancelsTransfer() throws Exception {
+		TransferControlBlock transferControlBlock = DefaultTransferControlBlock
+				.instance();
+		TransferFuture future = new TransferFuture(transferControlBlock);
+		Assert.assertTrue(future.cancel(false));
+		Assert.assertTrue(transferControlBlock.isCancelled());
+		Assert.assertTrue(future.isCancelled());
+	}
+
+}
@@ -1,6 +1,11 @@
 package org.irods.jargon.core.transfer.encrypt;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import junit.framework.Assert;
 
@@ -10,6 +15,7 @@ import org.irods.jargon.core.connection.SettableJargonProperties;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.protovalues.EncryptionAlgorithmEnum;
 import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.utils.RandomUtils;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -67,4 +73,179 @@ public class AesCipherDecryptWrapperTest {
 		Assert.assertEquals("didnt match encrypted data", begin, result);
 
 	}
+
+	@Test
+	public void testByteBufferRoundTrip() throws Exception {
+		PipelineConfiguration pipelineConfiguration = aesPipelineConfiguration();
+		NegotiatedClientServerConfiguration config = aesConfiguration(pipelineConfiguration);
+		AesCipherEncryptWrapper wrapper = new AesCipherEncryptWrapper(
+				pipelineConfiguration, config);
+		AesCipherDecryptWrapper decryptWrapper = new AesCipherDecryptWrapper(
+				pipelineConfiguration, config);
+
+		ByteBuffer plain = ByteBuffer.allocateDirect(4096);
+		ByteBuffer encrypted = ByteBuffer.allocateDirect(wrapper
+				.getEncryptedLength(4096));
+		ByteBuffer decrypted = ByteBuffer.allocateDirect(encrypted.capacity());
+
+		// reuse the buffers as a transfer thread does, with a short last chunk
+		int[] lengths = { 4096, 4096, 17, 0 };
+		byte[] previousIv = null;
+		for (int length : lengths) {
+			byte[] source = length == 0 ? new byte[0] : RandomUtils
+					.generateRandomBytesOfLength(length);
+			plain.clear();
+			plain.put(source);
+			plain.flip();
+			encrypted.clear();
+			int encryptedLength = wrapper.encrypt(plain, encrypted);
+			encrypted.flip();
+			Assert.assertEquals(encryptedLength, encrypted.remaining());
+			Assert.assertTrue("encrypted length over estimate",
+					encryptedLength <= wrapper.getEncryptedLength(length));
+
+			byte[] iv = new byte[16];
+			encrypted.duplicate().get(iv);
+			Assert.assertFalse("iv reused",
+					Arrays.equals(iv, previousIv));
+			previousIv = iv;
+
+			decrypted.clear();
+			int decryptedLength = decryptWrapper.decrypt(encrypted, decrypted);
+			decrypted.flip();
+			Assert.assertEquals(length, decryptedLength);
+			byte[] actual = new byte[decrypted.remaining()];
+			decrypted.get(actual);
+			Assert.assertTrue("didnt match encrypted data",
+					Arrays.equals(source, actual));
+		}
+	}
+
+	@Test
+	public void testByteBufferEncryptReadByArrayDecrypt() throws Exception {
+		String begin = "aj;kj;ljlkjfjkdjfiaewjafasdf";
+		PipelineConfiguration pipelineConfiguration = aesPipelineConfiguration();
+		NegotiatedClientServerConfiguration config = aesConfiguration(pipelineConfiguration);
+		AesCipherEncryptWrapper wrapper = new AesCipherEncryptWrapper(
+				pipelineConfiguration, config);
+		ByteBuffer encrypted = ByteBuffer.allocate(wrapper
+				.getEncryptedLength(100));
+		wrapper.encrypt(
+				ByteBuffer.wrap(begin.getBytes(StandardCharsets.UTF_8)),
+				encrypted);
+		byte[] fullBuffer = Arrays.copyOf(encrypted.array(),
+				encrypted.position());
+
+		byte[] decrypted = new AesCipherDecryptWrapper(pipelineConfiguration,
+				config).decrypt(fullBuffer);
+		Assert.assertEquals("didnt match encrypted data", begin, new String(
+				decrypted, StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testByteBufferDecryptOfEmptyBuffer() throws Exception {
+		PipelineConfiguration pipelineConfiguration = aesPipelineConfiguration();
+		NegotiatedClientServerConfiguration config = aesConfiguration(pipelineConfiguration);
+		ByteBuffer fullBuffer = ByteBuffer.allocate(32);
+		int length = new AesCipherDecryptWrapper(pipelineConfiguration, config)
+				.decrypt(fullBuffer, ByteBuffer.allocate(32));
+		Assert.assertEquals(0, length);
+		Assert.assertFalse(fullBuffer.hasRemaining());
+	}
+
+	@Test
+	public void testDecryptedLengthFromLastBlock() throws Exception {
+		PipelineConfiguration pipelineConfiguration = aesPipelineConfiguration();
+		NegotiatedClientServerConfiguration config = aesConfiguration(pipelineConfiguration);
+		AesCipherEncryptWrapper wrapper = new AesCipherEncryptWrapper(
+				pipelineConfiguration, config);
+		AesCipherDecryptWrapper decryptWrapper = new AesCipherDecryptWrapper(
+				pipelineConfiguration, config);
+		ByteBuffer encrypted = ByteBuffer.allocateDirect(wrapper
+				.getEncryptedLength(100));
+
+		for (int length = 0; length <= 100; length++) {
+			encrypted.clear();
+			wrapper.encrypt(ByteBuffer.allocate(length), encrypted);
+			encrypted.flip();
+			int position = encrypted.position();
+			Assert.assertEquals(length,
+					decryptWrapper.getDecryptedLength(encrypted));
+			Assert.assertEquals("buffer changed", position,
+					encrypted.position());
+		}
+	}
+
+	@Test
+	public void testByteBufferWrappersSharedByThreads() throws Exception {
+		PipelineConfiguration pipelineConfiguration = aesPipelineConfiguration();
+		NegotiatedClientServerConfiguration config = aesConfiguration(pipelineConfiguration);
+		final AesCipherEncryptWrapper wrapper = new AesCipherEncryptWrapper(
+				pipelineConfiguration, config);
+		final AesCipherDecryptWrapper decryptWrapper = new AesCipherDecryptWrapper(
+				pipelineConfiguration, config);
+		final List<Throwable> errors = Collections
+				.synchronizedList(new ArrayList<Throwable>());
+
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						ByteBuffer encrypted = ByteBuffer
+								.allocateDirect(wrapper.getEncryptedLength(8192));
+						ByteBuffer decrypted = ByteBuffer
+								.allocateDirect(encrypted.capacity());
+						for (int j = 0; j < 200; j++) {
+							byte[] source = RandomUtils
+									.generateRandomBytesOfLength(8192);
+							encrypted.clear();
+							wrapper.encrypt(ByteBuffer.wrap(source), encrypted);
+							encrypted.flip();
+							decrypted.clear();
+							decryptWrapper.decrypt(encrypted, decrypted);
+							decrypted.flip();
+							byte[] actual = new byte[decrypted.remaining()];
+							decrypted.get(actual);
+							if (!Arrays.equals(source, actual)) {
+								throw new IllegalStateException(
+										"round trip did not match");
+							}
+						}
+					} catch (Throwable e) {
+						errors.add(e);
+					}
+				}
+			});
+			threads[i].start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertTrue("errors:" + errors, errors.isEmpty());
+	}
+
+	private PipelineConfiguration aesPipelineConfiguration() {
+		SettableJargonProperties props = (SettableJargonProperties) irodsFileSystem
+				.getJargonProperties();
+		props.setEncryptionAlgorithmEnum(EncryptionAlgorithmEnum.AES_256_CBC);
+		props.setEncryptionKeySize(EncryptionAlgorithmEnum.AES_256_CBC
+				.getKeySize());
+		props.setEncryptionNumberHashRounds(8);
+		props.setEncryptionSaltSize(8);
+		return PipelineConfiguration.instance(props);
+	}
+
+	private NegotiatedClientServerConfiguration aesConfiguration(
+			final PipelineConfiguration pipelineConfiguration)
+			throws JargonException {
+		NegotiatedClientServerConfiguration config = new NegotiatedClientServerConfiguration(
+				true);
+		AESKeyGenerator generator = new AESKeyGenerator(pipelineConfiguration,
+				config);
+		config.setSecretKey(generator.generateKey());
+		return config;
+	}
 }
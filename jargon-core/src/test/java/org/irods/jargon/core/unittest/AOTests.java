@@ -7,6 +7,7 @@ import org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAOImplForSo
 import org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAOImplTest;
 import org.irods.jargon.core.pub.CollectionAuditAOImplTest;
 import org.irods.jargon.core.pub.CollectionListingUtilsTest;
+import org.irods.jargon.core.pub.CollectionTreeWalkerTest;
 import org.irods.jargon.core.pub.DataObjectAOImplForSoftLinkTest;
 import org.irods.jargon.core.pub.DataObjectAOImplTest;
 import org.irods.jargon.core.pub.DataObjectAuditAOImplTest;
@@ -33,6 +34,9 @@ import org.irods.jargon.core.pub.MountedCollectionAOImplTest;
 import org.irods.jargon.core.pub.MountedFilesystemCollectionAOImplTest;
 import org.irods.jargon.core.pub.MountedFilesystemCollectionAndDataObjectListAndSearchAOImplTest;
 import org.irods.jargon.core.pub.MountedFilesystemsDataTransferOperationsImplTest;
+import org.irods.jargon.core.pub.ObjStatBatchTest;
+import org.irods.jargon.core.pub.ParallelBulkAVUOperationTest;
+import org.irods.jargon.core.pub.ParallelCollectionTreeWalkTest;
 import org.irods.jargon.core.pub.ProtocolExtensionPointImplTest;
 import org.irods.jargon.core.pub.QuotaAOImplTest;
 import org.irods.jargon.core.pub.RemoteExecutionOfCommandsAOImplTest;
@@ -87,7 +91,9 @@ import org.junit.runners.Suite;
 	IRODSFileSystemSingletonWrapperTest.class, ResourceAOHelperTest.class,
 	DataObjectChecksumUtilitiesAOImplTest.class,
 	CollectionListingUtilsTest.class, FederatedDataObjectAOImplTest.class,
-	TrashOperationsTest.class })
+	TrashOperationsTest.class, ObjStatBatchTest.class,
+	CollectionTreeWalkerTest.class, ParallelCollectionTreeWalkTest.class,
+	ParallelBulkAVUOperationTest.class })
 /**
  * Suite to run Access Object tests in org.irods.jargon.pub.*
  * <p>
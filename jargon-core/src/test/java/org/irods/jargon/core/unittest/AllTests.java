@@ -1,8 +1,11 @@
 package org.irods.jargon.core.unittest;
 
 import org.irods.jargon.core.connection.IrodsVersionTest;
+import org.irods.jargon.core.query.GenQueryResultIteratorTest;
 import org.irods.jargon.core.query.IRODSGenQueryTest;
 import org.irods.jargon.core.query.IRODSGenQueryTranslatorTest;
+import org.irods.jargon.core.query.PreparedIRODSGenQueryTest;
+import org.irods.jargon.core.query.QueryResultProcessingUtilsTest;
 import org.irods.jargon.core.query.TranslatedIRODSQueryTest;
 import org.irods.jargon.core.remoteexecute.RemoteExecuteServiceImplTest;
 import org.irods.jargon.core.security.IRODSPasswordUtilitiesTest;
@@ -27,7 +30,9 @@ import org.junit.runners.Suite;
 		IRODSUriUserInfoTest.class, MiscIRODSUtilsTest.class, AuthTests.class,
 		ChecksumTests.class, TransferRestartTests.class, RandomUtilsTest.class,
 		IrodsVersionTest.class, CyberduckProfileBuilderTest.class,
-		SslNegotiationFunctionalTests.class, EncryptedTransferTests.class })
+		SslNegotiationFunctionalTests.class, EncryptedTransferTests.class,
+		QueryResultProcessingUtilsTest.class,
+		GenQueryResultIteratorTest.class, PreparedIRODSGenQueryTest.class })
 /**
  * Suite to run all tests (except long running and functional), further refined by settings in testing.properites.  Some subtests may be shut
  * off by these properties.
@@ -2,6 +2,7 @@ package org.irods.jargon.core.unittest;
 
 import org.irods.jargon.core.checksum.ChecksumManagerImplTest;
 import org.irods.jargon.core.checksum.LocalChecksumComputerFactoryImplTest;
+import org.irods.jargon.core.checksum.LocalFileDigesterTest;
 import org.irods.jargon.core.checksum.MD5LocalChecksumComputerStrategyTest;
 import org.irods.jargon.core.checksum.SHA256LocalChecksumComputerStrategyTest;
 import org.junit.runner.RunWith;
@@ -17,7 +18,7 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({ MD5LocalChecksumComputerStrategyTest.class,
 		SHA256LocalChecksumComputerStrategyTest.class,
 		LocalChecksumComputerFactoryImplTest.class,
-		ChecksumManagerImplTest.class })
+		ChecksumManagerImplTest.class, LocalFileDigesterTest.class })
 public class ChecksumTests {
 
 }
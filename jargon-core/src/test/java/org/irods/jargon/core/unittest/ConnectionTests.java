@@ -1,16 +1,20 @@
 package org.irods.jargon.core.unittest;
 
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocolTest;
 import org.irods.jargon.core.connection.ClientServerNegotationPolicyFromPropertiesBuilderTest;
 import org.irods.jargon.core.connection.ClientServerNegotiationPolicyTest;
+import org.irods.jargon.core.connection.ConnectionLeasePoolTest;
 import org.irods.jargon.core.connection.ConnectionProgressStatusTest;
 import org.irods.jargon.core.connection.DefaultPropertiesJargonConfigTest;
 import org.irods.jargon.core.connection.DiscoveredServerPropertiesCacheTest;
 import org.irods.jargon.core.connection.EnvironmentalInfoAccessorTest;
 import org.irods.jargon.core.connection.IRODSAccountTest;
+import org.irods.jargon.core.connection.IRODSMidLevelProtocolPipelineTest;
 import org.irods.jargon.core.connection.IRODSServerPropertiesTest;
 import org.irods.jargon.core.connection.IRODSSessionTest;
 import org.irods.jargon.core.connection.IRODSSimpleConnectionTest;
 import org.irods.jargon.core.connection.IRODSSimpleProtocolManagerTest;
+import org.irods.jargon.core.connection.ObjStatCacheTest;
 import org.irods.jargon.core.connection.PAMAuthTest;
 import org.irods.jargon.core.connection.PipelineConfigurationTest;
 import org.junit.runner.RunWith;
@@ -26,7 +30,9 @@ import org.junit.runners.Suite;
 	DiscoveredServerPropertiesCacheTest.class, IRODSAccountTest.class,
 	ClientServerNegotationPolicyFromPropertiesBuilderTest.class,
 	ClientServerNegotiationPolicyTest.class,
-	PipelineConfigurationTest.class })
+	PipelineConfigurationTest.class, AbstractIRODSMidLevelProtocolTest.class,
+	ConnectionLeasePoolTest.class, ObjStatCacheTest.class,
+	IRODSMidLevelProtocolPipelineTest.class })
 public class ConnectionTests {
 
 }
@@ -1,5 +1,6 @@
 package org.irods.jargon.core.unittest;
 
+import org.irods.jargon.core.pub.ReadAheadFileInputStreamTest;
 import org.irods.jargon.core.pub.io.ByteCountingCallbackInputStreamWrapperTest;
 import org.irods.jargon.core.pub.io.FederatedIRODSFileImplTest;
 import org.irods.jargon.core.pub.io.FileIOOperationsAOImplTest;
@@ -19,6 +20,7 @@ import org.irods.jargon.core.pub.io.MountedFilesystemIRODSFileImplTest;
 import org.irods.jargon.core.pub.io.MountedFilesystemIRODSFileOutputStreamTest;
 import org.irods.jargon.core.pub.io.PackingIrodsInputStreamTest;
 import org.irods.jargon.core.pub.io.PackingIrodsOutputStreamTest;
+import org.irods.jargon.core.pub.io.RandomAccessBlockCacheTest;
 import org.irods.jargon.core.pub.io.RemoteExecutionBinaryResultInputStreamTest;
 import org.irods.jargon.core.pub.io.SessionClosingIRODSFIleInputStreamTest;
 import org.irods.jargon.core.pub.io.SessionClosingIRODSFileOutputStreamTest;
@@ -41,7 +43,8 @@ import org.junit.runners.Suite;
 		MountedFilesystemIRODSFileImplTest.class,
 		MountedFileSystemIRODSFileInputStreamTest.class,
 		MountedFilesystemIRODSFileOutputStreamTest.class,
-		PackingIrodsOutputStreamTest.class, PackingIrodsInputStreamTest.class })
+		PackingIrodsOutputStreamTest.class, PackingIrodsInputStreamTest.class,
+		RandomAccessBlockCacheTest.class, ReadAheadFileInputStreamTest.class })
 public class FileTests {
 
 }
@@ -28,6 +28,8 @@ import org.irods.jargon.core.packinstr.SSLStartInpTest;
 import org.irods.jargon.core.packinstr.SimpleQueryInpTest;
 import org.irods.jargon.core.packinstr.SpecificQueryInpTest;
 import org.irods.jargon.core.packinstr.StructFileExtAndRegInpTest;
+import org.irods.jargon.core.packinstr.TagSerializerTest;
+import org.irods.jargon.core.packinstr.TagTest;
 import org.irods.jargon.core.packinstr.TransferOptionsTest;
 import org.irods.jargon.core.packinstr.UserAdminInpTest;
 import org.junit.runner.RunWith;
@@ -49,7 +51,8 @@ import org.junit.runners.Suite;
 	DataObjInpForMcollTest.class, DataObjInpForUnmountTest.class,
 	ReconnMsgTest.class, SpecificQueryInpTest.class,
 	PamAuthRequestInpTest.class, SSLStartInpTest.class,
-	SSLEndInpTest.class, AuthReqPluginRequestInpTest.class })
+	SSLEndInpTest.class, AuthReqPluginRequestInpTest.class,
+	TagTest.class, TagSerializerTest.class })
 public class PackingInstructionTests {
 
 }
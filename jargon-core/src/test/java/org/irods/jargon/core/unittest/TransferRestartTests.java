@@ -3,12 +3,14 @@
  */
 package org.irods.jargon.core.unittest;
 
+import org.irods.jargon.core.transfer.JournalBasedTransferRestartManagerTest;
 import org.irods.jargon.core.transfer.MemoryBasedTransferRestartManagerTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses({ MemoryBasedTransferRestartManagerTest.class })
+@Suite.SuiteClasses({ MemoryBasedTransferRestartManagerTest.class,
+		JournalBasedTransferRestartManagerTest.class })
 public class TransferRestartTests {
 
 }
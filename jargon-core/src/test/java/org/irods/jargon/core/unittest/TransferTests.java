@@ -1,7 +1,14 @@
 package org.irods.jargon.core.unittest;
 
+import org.irods.jargon.core.pub.ConcurrentTransferSchedulerTest;
+import org.irods.jargon.core.pub.TransferOperationsHelperTest;
 import org.irods.jargon.core.transfer.DefaultTransferControlBlockTest;
+import org.irods.jargon.core.transfer.ParallelTransferChannelTest;
+import org.irods.jargon.core.transfer.ParallelTransferTunerTest;
+import org.irods.jargon.core.transfer.StagedEncryptionPipelineTest;
+import org.irods.jargon.core.transfer.TransferAdmissionControlTest;
 import org.irods.jargon.core.transfer.TransferStatusTest;
+import org.irods.jargon.core.transfer.encrypt.AesCipherDecryptWrapperTest;
 import org.irods.jargon.core.transfer.encrypt.AesCipherEncryptWrapperTest;
 import org.irods.jargon.core.transfer.encrypt.EncryptionWrapperFactoryTest;
 import org.junit.runner.RunWith;
@@ -10,7 +17,11 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ TransferStatusTest.class,
 	DefaultTransferControlBlockTest.class,
-	EncryptionWrapperFactoryTest.class, AesCipherEncryptWrapperTest.class })
+	EncryptionWrapperFactoryTest.class, AesCipherEncryptWrapperTest.class,
+	ParallelTransferChannelTest.class, ConcurrentTransferSchedulerTest.class,
+	TransferOperationsHelperTest.class, TransferAdmissionControlTest.class,
+	ParallelTransferTunerTest.class, AesCipherDecryptWrapperTest.class,
+	StagedEncryptionPipelineTest.class })
 public class TransferTests {
 
 }
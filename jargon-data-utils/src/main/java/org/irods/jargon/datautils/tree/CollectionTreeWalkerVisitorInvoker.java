@@ -0,0 +1,103 @@
+/**
+ *
+ */
+package org.irods.jargon.datautils.tree;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.CollectionTreeWalker;
+import org.irods.jargon.core.pub.CollectionTreeWalker.WalkOrder;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.irods.jargon.datautils.visitor.AbstractIRODSVisitor;
+import org.irods.jargon.datautils.visitor.AbstractIRODSVisitorInvoker;
+import org.irods.jargon.datautils.visitor.NoMoreItemsException;
+
+/**
+ * Invoker that will walk every collection and data object under a given iRODS
+ * collection (recursively), calling the provided visitor for each.
+ * <p>
+ * This iterator is based on the {@link CollectionTreeWalker}, which reads the
+ * listing of each collection a page at a time as it goes, so that very large
+ * trees can be visited without holding them in memory.
+ */
+public class CollectionTreeWalkerVisitorInvoker extends
+		AbstractIRODSVisitorInvoker<CollectionAndDataObjectListingEntry> {
+
+	private final String irodsAbsolutePath;
+	private final WalkOrder walkOrder;
+	private CollectionTreeWalker collectionTreeWalker = null;
+
+	/**
+	 * Create an invoker that will walk the tree under the given iRODS
+	 * collection, calling the provided visitor class for each entry.
+	 *
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory} that can connect to iRODS
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} used to connect to iRODS
+	 * @param visitor
+	 *            {@link AbstractIRODSVisitor} subclass that will be called for
+	 *            each collection and data object
+	 * @param irodsAbsolutePath
+	 *            {@code String} with the absolute path of the iRODS
+	 *            collection to walk
+	 * @param walkOrder
+	 *            {@link WalkOrder} in which collections are visited
+	 */
+	public CollectionTreeWalkerVisitorInvoker(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount,
+			final AbstractIRODSVisitor<CollectionAndDataObjectListingEntry> visitor,
+			final String irodsAbsolutePath, final WalkOrder walkOrder) {
+		super(irodsAccessObjectFactory, irodsAccount, visitor);
+
+		if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsAbsolutePath");
+		}
+
+		if (walkOrder == null) {
+			throw new IllegalArgumentException("null walkOrder");
+		}
+
+		this.irodsAbsolutePath = irodsAbsolutePath;
+		this.walkOrder = walkOrder;
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.datautils.visitor.AbstractIRODSVisitorInvoker#
+	 * initializeInvoker()
+	 */
+	@Override
+	protected void initializeInvoker() throws JargonException {
+		collectionTreeWalker = getIrodsAccessObjectFactory()
+				.getCollectionAndDataObjectListAndSearchAO(getIrodsAccount())
+				.walkCollectionTree(irodsAbsolutePath, walkOrder);
+	}
+
+	@Override
+	protected CollectionAndDataObjectListingEntry next()
+			throws NoMoreItemsException, JargonException {
+		if (!collectionTreeWalker.hasNext()) {
+			throw new NoMoreItemsException("no more entries in tree");
+		}
+		return collectionTreeWalker.next();
+	}
+
+	@Override
+	protected boolean hasMore() throws JargonException {
+		return collectionTreeWalker.hasNext();
+	}
+
+	@Override
+	public void close() throws JargonException {
+		if (collectionTreeWalker != null) {
+			collectionTreeWalker.close();
+		}
+	}
+
+}
@@ -2,16 +2,24 @@ package org.irods.jargon.datautils.tree;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.List;
 
 import org.irods.jargon.core.checksum.ChecksumValue;
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.exception.JargonRuntimeException;
+import org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAO;
+import org.irods.jargon.core.pub.CollectionTreeWalker;
+import org.irods.jargon.core.pub.CollectionTreeWalker.WalkOrder;
 import org.irods.jargon.core.pub.DataObjectAO;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.pub.domain.ObjStat.SpecColType;
 import org.irods.jargon.core.pub.io.IRODSFile;
 import org.irods.jargon.core.pub.io.IRODSFileFactory;
 import org.irods.jargon.core.pub.io.IRODSFileImpl;
@@ -230,7 +238,7 @@ public class FileTreeDiffUtilityImpl extends AbstractDataUtilsServiceImpl
 		FileTreeModel fileTreeModel = new FileTreeModel(fileTreeNode);
 
 		diffTwoFiles(fileTreeNode, localFileRoot,
-				localFileRoot.getAbsolutePath(), (IRODSFileImpl) rootIRODSFile,
+				localFileRoot.getAbsolutePath(), readIRODSTree(rootIRODSFile),
 				rootIRODSFile.getAbsolutePath(),
 				timestampForLastSynchLeftHandSide,
 				timestampForLastSynchRightHandSide);
@@ -242,6 +250,57 @@ public class FileTreeDiffUtilityImpl extends AbstractDataUtilsServiceImpl
 		return fileTreeModel;
 	}
 
+	/**
+	 * Read the whole iRODS tree with the subtree queries, rather than listing
+	 * each collection and looking up each file as the diff goes. The walk is
+	 * closed before the diff starts, as the diff uses the connection to
+	 * compute checksums. A root that is a special collection is listed as it
+	 * is diffed.
+	 *
+	 * @param rootIRODSFile
+	 *            {@link IRODSFile} for the root collection
+	 * @return {@code File} for the root to diff against
+	 * @throws JargonException
+	 */
+	private File readIRODSTree(final IRODSFile rootIRODSFile)
+			throws JargonException {
+
+		CollectionAndDataObjectListAndSearchAO listAndSearchAO = irodsAccessObjectFactory
+				.getCollectionAndDataObjectListAndSearchAO(irodsAccount);
+		ObjStat objStat = listAndSearchAO
+				.retrieveObjectStatForPath(rootIRODSFile.getAbsolutePath());
+		if (objStat.getSpecColType() != SpecColType.NORMAL) {
+			log.info("root is a special collection, list it as it is diffed");
+			return (IRODSFileImpl) rootIRODSFile;
+		}
+
+		List<ListedIRODSFile> specialCollections = new ArrayList<ListedIRODSFile>();
+		ListedIRODSFile root;
+		CollectionTreeWalker walker = listAndSearchAO.walkCollectionTree(
+				rootIRODSFile.getAbsolutePath(), WalkOrder.SUBTREE_QUERY);
+		try {
+			root = ListedIRODSFile.readTree(rootIRODSFile.getAbsolutePath(),
+					walker, specialCollections);
+		} catch (JargonRuntimeException e) {
+			log.error("error reading iRODS tree", e);
+			if (e.getCause() instanceof JargonException) {
+				throw (JargonException) e.getCause();
+			}
+			throw new JargonException("error reading iRODS tree", e);
+		} finally {
+			walker.close();
+		}
+
+		IRODSFileFactory irodsFileFactory = irodsAccessObjectFactory
+				.getIRODSFileFactory(irodsAccount);
+		for (ListedIRODSFile specialCollection : specialCollections) {
+			specialCollection.setContents((IRODSFileImpl) irodsFileFactory
+					.instanceIRODSFile(specialCollection.getAbsolutePath()));
+		}
+
+		return root;
+	}
+
 	/**
 	 * Given two relative paths, do the diff. This is the recursive call that
 	 * will descend into child directories and update a shared tree model.
@@ -780,7 +839,13 @@ public class FileTreeDiffUtilityImpl extends AbstractDataUtilsServiceImpl
 			dataObjectAO = irodsAccessObjectFactory
 					.getDataObjectAO(irodsAccount);
 		}
-		return dataObjectAO.computeChecksumOnDataObject((IRODSFile) irodsFile);
+		if (irodsFile instanceof IRODSFile) {
+			return dataObjectAO
+					.computeChecksumOnDataObject((IRODSFile) irodsFile);
+		}
+		return dataObjectAO.computeChecksumOnDataObject(irodsAccessObjectFactory
+				.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
+						irodsFile.getAbsolutePath()));
 
 	}
 
@@ -0,0 +1,206 @@
+package org.irods.jargon.datautils.tree;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.irods.jargon.core.pub.domain.ObjStat.SpecColType;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry.ObjectType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A collection or data object of an iRODS tree that was read ahead of a diff,
+ * standing in for the {@code IRODSFile} so that the diff does not list each
+ * collection, and look up each file, with a call to iRODS. The answers are as
+ * of when the tree was read.
+ * <p>
+ * The contents of special collections are not read with the tree, a special
+ * collection lists them from the {@code File} given to
+ * {@link #setContents(File)}.
+ */
+class ListedIRODSFile extends File {
+
+	private static final long serialVersionUID = 1L;
+
+	private static Logger log = LoggerFactory.getLogger(ListedIRODSFile.class);
+
+	private final CollectionAndDataObjectListingEntry entry;
+	private final String absolutePath;
+	private final List<ListedIRODSFile> children = new ArrayList<ListedIRODSFile>();
+	private File contents = null;
+
+	ListedIRODSFile(final CollectionAndDataObjectListingEntry entry) {
+		super(entry.getFormattedAbsolutePath());
+		this.entry = entry;
+		absolutePath = entry.getFormattedAbsolutePath();
+	}
+
+	/**
+	 * Put a tree back together from the entries of a walk, in which each
+	 * collection comes before anything under it
+	 *
+	 * @param rootPath
+	 *            {@code String} with the absolute path of the collection that
+	 *            was walked
+	 * @param entries
+	 *            {@code Iterator} of the
+	 *            {@link CollectionAndDataObjectListingEntry} under the root
+	 * @param specialCollections
+	 *            {@code List} that is given the special collections found,
+	 *            whose contents are not in the walk
+	 * @return {@link ListedIRODSFile} for the root, holding the tree
+	 */
+	static ListedIRODSFile readTree(final String rootPath,
+			final Iterator<CollectionAndDataObjectListingEntry> entries,
+			final List<ListedIRODSFile> specialCollections) {
+
+		String myRootPath = rootPath;
+		if (myRootPath.length() > 1 && myRootPath.endsWith("/")) {
+			myRootPath = myRootPath.substring(0, myRootPath.length() - 1);
+		}
+
+		CollectionAndDataObjectListingEntry rootEntry = new CollectionAndDataObjectListingEntry();
+		rootEntry.setObjectType(ObjectType.COLLECTION);
+		rootEntry.setPathOrName(myRootPath);
+		ListedIRODSFile root = new ListedIRODSFile(rootEntry);
+
+		Map<String, ListedIRODSFile> collections = new HashMap<String, ListedIRODSFile>();
+		collections.put(myRootPath, root);
+
+		while (entries.hasNext()) {
+			CollectionAndDataObjectListingEntry entry = entries.next();
+			ListedIRODSFile parent = collections.get(entry.getParentPath());
+			if (parent == null) {
+				log.warn("no parent read for:{}, ignored",
+						entry.getFormattedAbsolutePath());
+				continue;
+			}
+
+			ListedIRODSFile listedFile = new ListedIRODSFile(entry);
+			parent.children.add(listedFile);
+			if (!entry.isCollection()) {
+				continue;
+			}
+
+			if (entry.getSpecColType() == null
+					|| entry.getSpecColType() == SpecColType.NORMAL) {
+				collections.put(entry.getPathOrName(), listedFile);
+			} else {
+				specialCollections.add(listedFile);
+			}
+		}
+
+		log.info("read {} collections under:{}", collections.size(), rootPath);
+		return root;
+	}
+
+	/**
+	 * Set the file that lists the contents of a collection whose contents were
+	 * not read with the tree
+	 *
+	 * @param contents
+	 *            {@code File}, such as the {@code IRODSFile} for the
+	 *            collection
+	 */
+	void setContents(final File contents) {
+		this.contents = contents;
+	}
+
+	@Override
+	public String getName() {
+		return entry.getNodeLabelDisplayValue();
+	}
+
+	@Override
+	public String getParent() {
+		return entry.getParentPath();
+	}
+
+	@Override
+	public String getPath() {
+		return absolutePath;
+	}
+
+	@Override
+	public String getAbsolutePath() {
+		return absolutePath;
+	}
+
+	@Override
+	public boolean exists() {
+		return true;
+	}
+
+	@Override
+	public boolean isDirectory() {
+		return entry.isCollection();
+	}
+
+	@Override
+	public boolean isFile() {
+		return entry.isDataObject();
+	}
+
+	@Override
+	public long length() {
+		return entry.getDataSize();
+	}
+
+	@Override
+	public long lastModified() {
+		if (entry.getModifiedAt() == null) {
+			return 0L;
+		}
+		return entry.getModifiedAt().getTime();
+	}
+
+	@Override
+	public File[] listFiles() {
+		return listFiles((FileFilter) null);
+	}
+
+	@Override
+	public File[] listFiles(final FileFilter filter) {
+		if (contents != null) {
+			return filter == null ? contents.listFiles() : contents
+					.listFiles(filter);
+		}
+
+		if (!isDirectory()) {
+			return null;
+		}
+
+		List<File> accepted = new ArrayList<File>();
+		for (ListedIRODSFile child : children) {
+			if (filter == null || filter.accept(child)) {
+				accepted.add(child);
+			}
+		}
+		return accepted.toArray(new File[accepted.size()]);
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (!(obj instanceof ListedIRODSFile)) {
+			return false;
+		}
+		return absolutePath.equals(((ListedIRODSFile) obj).absolutePath);
+	}
+
+	@Override
+	public int hashCode() {
+		return absolutePath.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return absolutePath;
+	}
+
+}
@@ -0,0 +1,49 @@
+/**
+ *
+ */
+package org.irods.jargon.datautils.tree;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry.ObjectType;
+import org.irods.jargon.datautils.visitor.AbstractIRODSVisitor;
+import org.irods.jargon.datautils.visitor.AbstractIRODSVisitorInvoker;
+import org.irods.jargon.datautils.visitor.AbstractIRODSVisitorInvoker.VisitorDesiredAction;
+
+/**
+ * For each data object in an iRODS listing, calculate summary statistics that
+ * can be obtained by calling {@code getTreeSummary()} after the iteration
+ * process is complete. The length is taken from the listing entry, so no call
+ * is made to iRODS for each file. Collections are skipped.
+ */
+public class TreeSummarizingListingEntryVisitor extends
+		AbstractIRODSVisitor<CollectionAndDataObjectListingEntry> {
+
+	private final TreeSummary treeSummary = new TreeSummary();
+
+	@Override
+	public VisitorDesiredAction invoke(
+			final CollectionAndDataObjectListingEntry visited,
+			final AbstractIRODSVisitorInvoker<CollectionAndDataObjectListingEntry> abstractIRODSVisitorInvoker)
+			throws JargonException {
+
+		if (visited.getObjectType() == ObjectType.DATA_OBJECT) {
+			treeSummary.processFileInfo(visited.getPathOrName(),
+					visited.getDataSize());
+		}
+		return VisitorDesiredAction.CONTINUE;
+	}
+
+	@Override
+	public void complete() throws JargonException {
+
+	}
+
+	/**
+	 * @return the treeSummary
+	 */
+	public TreeSummary getTreeSummary() {
+		return treeSummary;
+	}
+
+}
@@ -8,6 +8,7 @@ import java.io.FileNotFoundException;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.CollectionTreeWalker.WalkOrder;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 import org.irods.jargon.core.service.AbstractJargonService;
 import org.slf4j.Logger;
@@ -20,7 +21,9 @@ import org.slf4j.LoggerFactory;
  * relative frequency of each size, and a table that gives counts by file
  * extension.
  * <p>
- * This service handles both local and iRODS directories
+ * This service handles both local and iRODS directories. iRODS trees are
+ * walked a page of listings at a time, so large trees do not need a large heap,
+ * and are read with queries over the whole subtree rather than per collection.
  * 
  * @author Mike Conway - DICE
  * 
@@ -65,16 +68,17 @@ public class TreeSummarizingServiceImpl extends AbstractJargonService implements
 			throw new FileNotFoundException("cannot find local file");
 		}
 
-		TreeSummarizingVisitor fileTreeIteratorVisitor = new TreeSummarizingVisitor();
-		FileTreeIteratorVisitorInvoker invoker = new FileTreeIteratorVisitorInvoker(
+		TreeSummarizingListingEntryVisitor listingEntryVisitor = new TreeSummarizingListingEntryVisitor();
+		CollectionTreeWalkerVisitorInvoker invoker = new CollectionTreeWalkerVisitorInvoker(
 				getIrodsAccessObjectFactory(), getIrodsAccount(),
-				fileTreeIteratorVisitor, irodsFile);
+				listingEntryVisitor, irodsFile.getAbsolutePath(),
+				WalkOrder.SUBTREE_QUERY);
 
 		log.info("executing...");
 
 		invoker.execute();
 		log.info("...done");
-		TreeSummary summary = fileTreeIteratorVisitor.getTreeSummary();
+		TreeSummary summary = listingEntryVisitor.getTreeSummary();
 		return summary;
 
 	}
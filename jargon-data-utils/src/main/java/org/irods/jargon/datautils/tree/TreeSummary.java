@@ -59,9 +59,21 @@ public class TreeSummary {
 	}
 
 	public void processFileInfo(final File file) {
+		processFileInfo(file.getName(), file.length());
+	}
+
+	/**
+	 * Add a file to the summary given its name and length, as for an iRODS
+	 * listing entry, which avoids a call to iRODS for the length
+	 *
+	 * @param fileName
+	 *            {@code String} with the name of the file
+	 * @param length
+	 *            {@code long} with the length of the file
+	 */
+	public void processFileInfo(final String fileName, final long length) {
 
-		long length = file.length();
-		String extension = LocalFileUtils.getFileExtension(file.getName()
+		String extension = LocalFileUtils.getFileExtension(fileName
 				.toLowerCase());
 
 		totalBytes += length;
@@ -0,0 +1,120 @@
+package org.irods.jargon.datautils.tree;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.pub.domain.ObjStat.SpecColType;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry.ObjectType;
+import org.irods.jargon.datautils.tree.FileOrDirFilter.FilterFor;
+import org.junit.Test;
+
+public class ListedIRODSFileTest {
+
+	private static CollectionAndDataObjectListingEntry collection(
+			final String path) {
+		CollectionAndDataObjectListingEntry entry = new CollectionAndDataObjectListingEntry();
+		entry.setObjectType(ObjectType.COLLECTION);
+		entry.setParentPath(path.substring(0, path.lastIndexOf('/')));
+		entry.setPathOrName(path);
+		entry.setSpecColType(SpecColType.NORMAL);
+		return entry;
+	}
+
+	private static CollectionAndDataObjectListingEntry dataObject(
+			final String path, final long size) {
+		CollectionAndDataObjectListingEntry entry = new CollectionAndDataObjectListingEntry();
+		entry.setObjectType(ObjectType.DATA_OBJECT);
+		entry.setParentPath(path.substring(0, path.lastIndexOf('/')));
+		entry.setPathOrName(path.substring(path.lastIndexOf('/') + 1));
+		entry.setDataSize(size);
+		entry.setModifiedAt(new Date(1000L));
+		return entry;
+	}
+
+	@Test
+	public void testReadTree() throws Exception {
+		List<CollectionAndDataObjectListingEntry> entries = new ArrayList<CollectionAndDataObjectListingEntry>();
+		entries.add(collection("/zone/coll/sub"));
+		entries.add(collection("/zone/coll/sub/deep"));
+		entries.add(dataObject("/zone/coll/a", 10));
+		entries.add(dataObject("/zone/coll/sub/b", 20));
+		entries.add(dataObject("/zone/coll/sub/deep/c", 30));
+
+		List<ListedIRODSFile> specialCollections = new ArrayList<ListedIRODSFile>();
+		ListedIRODSFile root = ListedIRODSFile.readTree("/zone/coll/",
+				entries.iterator(), specialCollections);
+
+		Assert.assertEquals("/zone/coll", root.getAbsolutePath());
+		Assert.assertTrue(root.isDirectory());
+		Assert.assertTrue(specialCollections.isEmpty());
+
+		File[] files = root.listFiles(new FileOrDirFilter(FilterFor.FILE));
+		Assert.assertEquals(1, files.length);
+		Assert.assertEquals("/zone/coll/a", files[0].getAbsolutePath());
+		Assert.assertEquals("a", files[0].getName());
+		Assert.assertEquals("/zone/coll", files[0].getParent());
+		Assert.assertTrue(files[0].isFile());
+		Assert.assertEquals(10, files[0].length());
+		Assert.assertEquals(1000L, files[0].lastModified());
+
+		File[] dirs = root.listFiles(new FileOrDirFilter(FilterFor.DIR));
+		Assert.assertEquals(1, dirs.length);
+		Assert.assertEquals("sub", dirs[0].getName());
+
+		File[] deep = dirs[0].listFiles(new FileOrDirFilter(FilterFor.DIR));
+		Assert.assertEquals(1, deep.length);
+		Assert.assertEquals("/zone/coll/sub/deep/c",
+				deep[0].listFiles()[0].getAbsolutePath());
+	}
+
+	@Test
+	public void testReadTreeListsSpecialCollectionFromContents()
+			throws Exception {
+		CollectionAndDataObjectListingEntry mounted = collection("/zone/coll/mnt");
+		mounted.setSpecColType(SpecColType.MOUNTED_COLL);
+		List<CollectionAndDataObjectListingEntry> entries = new ArrayList<CollectionAndDataObjectListingEntry>();
+		entries.add(mounted);
+
+		List<ListedIRODSFile> specialCollections = new ArrayList<ListedIRODSFile>();
+		ListedIRODSFile root = ListedIRODSFile.readTree("/zone/coll",
+				entries.iterator(), specialCollections);
+
+		Assert.assertEquals(1, specialCollections.size());
+		Assert.assertEquals(1, root.listFiles().length);
+
+		// any File can list the contents, a local directory will do
+		File contents = File.createTempFile("listedIRODSFileTest", "");
+		contents.delete();
+		contents.mkdirs();
+		File m = new File(contents, "m");
+		m.createNewFile();
+		try {
+			specialCollections.get(0).setContents(contents);
+			File[] listing = specialCollections.get(0).listFiles(
+					new FileOrDirFilter(FilterFor.FILE));
+			Assert.assertEquals(1, listing.length);
+			Assert.assertEquals(m.getAbsolutePath(),
+					listing[0].getAbsolutePath());
+		} finally {
+			m.delete();
+			contents.delete();
+		}
+	}
+
+	@Test
+	public void testReadTreeIgnoresEntryWithoutParent() throws Exception {
+		List<CollectionAndDataObjectListingEntry> entries = new ArrayList<CollectionAndDataObjectListingEntry>();
+		entries.add(dataObject("/zone/other/a", 10));
+
+		ListedIRODSFile root = ListedIRODSFile.readTree("/zone/coll",
+				entries.iterator(), new ArrayList<ListedIRODSFile>());
+
+		Assert.assertEquals(0, root.listFiles().length);
+	}
+
+}
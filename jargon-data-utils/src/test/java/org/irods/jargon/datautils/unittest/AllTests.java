@@ -19,6 +19,7 @@ import org.irods.jargon.datautils.tree.FileTreeDiffEntryTest;
 import org.irods.jargon.datautils.tree.FileTreeDiffUtilityTest;
 import org.irods.jargon.datautils.tree.FileTreeIteratorVisitorInvokerTest;
 import org.irods.jargon.datautils.tree.FileTreeNodeTest;
+import org.irods.jargon.datautils.tree.ListedIRODSFileTest;
 import org.irods.jargon.datautils.tree.TreeSummarizingServiceImplTest;
 import org.irods.jargon.datautils.uploads.UploadsServiceImplTest;
 import org.junit.runner.RunWith;
@@ -37,7 +38,8 @@ import org.junit.runners.Suite;
 		DiffTreePostProcessorTest.class,
 		FileTreeIteratorVisitorInvokerTest.class,
 		TreeSummarizingServiceImplTest.class, LocalTarFileArchiverTest.class,
-		LocalFileGzipCompressorTest.class, ConnectionTesterImplTest.class })
+		LocalFileGzipCompressorTest.class, ConnectionTesterImplTest.class,
+		ListedIRODSFileTest.class })
 public class AllTests {
 
 }
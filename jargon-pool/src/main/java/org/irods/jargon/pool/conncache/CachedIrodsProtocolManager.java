@@ -3,6 +3,9 @@
  */
 package org.irods.jargon.pool.conncache;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSProtocolManager;
@@ -24,6 +27,12 @@ public class CachedIrodsProtocolManager extends IRODSProtocolManager {
 	 */
 	private JargonConnectionCache jargonConnectionCache;
 
+	/**
+	 * Accounts to open connections for when the protocol manager is
+	 * initialized
+	 */
+	private List<IRODSAccount> warmUpAccounts = new ArrayList<IRODSAccount>();
+
 	private Logger log = LoggerFactory.getLogger(CachedIrodsProtocolManager.class);
 
 	/**
@@ -113,15 +122,22 @@ public class CachedIrodsProtocolManager extends IRODSProtocolManager {
 	}
 
 	/**
-	 * Optional method to do any startup when beginning operations of the
-	 * protocol manager. This can be useful if the protocol manager is a pool or
-	 * cache that must do startup tasks before being used.
+	 * Pre-warm the connection cache for the configured warm up accounts, see
+	 * {@link JargonConnectionCache#warmUp(java.util.Collection)}
 	 *
 	 * @throws JargonException
 	 */
 	@Override
 	public synchronized void initialize() throws JargonException {
-		log.debug("initialize called, does nothing by default");
+		log.info("initialize()");
+		if (this.jargonConnectionCache == null) {
+			throw new JargonException("no jargonConnectionCache provided");
+		}
+
+		if (!warmUpAccounts.isEmpty()) {
+			int warmed = this.jargonConnectionCache.warmUp(warmUpAccounts);
+			log.info("warmed up {} of {} accounts", warmed, warmUpAccounts.size());
+		}
 	}
 
 	/**
@@ -139,6 +155,25 @@ public class CachedIrodsProtocolManager extends IRODSProtocolManager {
 		this.jargonConnectionCache = jargonConnectionCache;
 	}
 
+	/**
+	 * @return the accounts connected when the protocol manager is initialized
+	 */
+	public List<IRODSAccount> getWarmUpAccounts() {
+		return warmUpAccounts;
+	}
+
+	/**
+	 * @param warmUpAccounts
+	 *            the accounts to connect when the protocol manager is
+	 *            initialized, up to {@code minIdlePerKey} connections each
+	 */
+	public void setWarmUpAccounts(List<IRODSAccount> warmUpAccounts) {
+		if (warmUpAccounts == null) {
+			throw new IllegalArgumentException("null warmUpAccounts");
+		}
+		this.warmUpAccounts = warmUpAccounts;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
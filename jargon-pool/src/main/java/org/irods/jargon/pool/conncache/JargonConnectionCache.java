@@ -1,8 +1,17 @@
 /**
- * 
+ *
  */
 package org.irods.jargon.pool.conncache;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.apache.commons.pool2.KeyedPooledObjectFactory;
 import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
 import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
@@ -11,8 +20,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Connection cache keeps a pool of managed iRODS connections
- * 
+ * Connection cache keeps a pool of managed iRODS connections, keyed by
+ * {@link IRODSAccount} and configured by a {@link JargonKeyedPoolConfig}.
+ * <p>
+ * On top of the keyed pool, this adds an optional cap on the connections
+ * borrowed at once for each iRODS host, across all accounts on that host, with
+ * borrowers waiting in order for a permit; a {@link #warmUp(Collection)} method
+ * to open connections for known accounts ahead of use; and borrow latency
+ * figures, reported with the pool counts in {@link #getMetrics()}.
+ *
  * @author mconway
  *
  */
@@ -20,24 +36,223 @@ public class JargonConnectionCache extends GenericKeyedObjectPool<IRODSAccount,
 
 	public static final Logger log = LoggerFactory.getLogger(JargonPooledObjectFactory.class);
 
+	private final int maxTotalPerHost;
+	private final JargonPooledObjectFactory jargonPooledObjectFactory;
+	private final ConcurrentHashMap<String, Semaphore> hostPermits = new ConcurrentHashMap<String, Semaphore>();
+
+	private final AtomicLong borrowLatencyTotalNanos = new AtomicLong();
+	private final AtomicLong borrowLatencyMaxNanos = new AtomicLong();
+	private final AtomicLong borrowLatencyCount = new AtomicLong();
+	private final AtomicLong hostWaitTotalNanos = new AtomicLong();
+
 	public JargonConnectionCache(KeyedPooledObjectFactory<IRODSAccount, AbstractIRODSMidLevelProtocol> factory,
 			JargonKeyedPoolConfig config) {
-		super(factory);
-		this.setMaxIdlePerKey(config.getMaxIdlePerKey());
-		this.setMinEvictableIdleTimeMillis(30000);
-		this.setTimeBetweenEvictionRunsMillis(45000);
-		this.setTestOnBorrow(true);
+		super(factory, config);
+		this.maxTotalPerHost = config.getMaxTotalPerHost();
+		if (factory instanceof JargonPooledObjectFactory) {
+			jargonPooledObjectFactory = (JargonPooledObjectFactory) factory;
+			jargonPooledObjectFactory.setValidateWithRoundTrip(config.isValidateWithRoundTrip());
+		} else {
+			jargonPooledObjectFactory = null;
+		}
+	}
+
+	/**
+	 * Open connections for each of the given accounts until
+	 * {@code minIdlePerKey} are idle in the pool, so that the first requests
+	 * for those accounts do not pay for connection and authentication. The
+	 * evictor keeps the accounts topped up to {@code minIdlePerKey} after this.
+	 * An account that can't be connected is logged and skipped.
+	 *
+	 * @param irodsAccounts
+	 *            {@code Collection} of {@link IRODSAccount} to connect
+	 * @return {@code int} with the number of accounts warmed up
+	 */
+	public int warmUp(final Collection<IRODSAccount> irodsAccounts) {
+		log.info("warmUp()");
+		if (irodsAccounts == null) {
+			throw new IllegalArgumentException("null irodsAccounts");
+		}
+
+		int warmed = 0;
+		for (IRODSAccount irodsAccount : irodsAccounts) {
+			try {
+				log.info("warming up connections for:{}", irodsAccount);
+				this.preparePool(irodsAccount);
+				warmed++;
+			} catch (Exception e) {
+				log.warn("unable to warm up connections for:{}", irodsAccount, e);
+			}
+		}
+		return warmed;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.apache.commons.pool2.impl.GenericKeyedObjectPool#borrowObject(java.
+	 * lang.Object, long)
+	 */
+	@Override
+	public AbstractIRODSMidLevelProtocol borrowObject(final IRODSAccount irodsAccount, final long borrowMaxWaitMillis)
+			throws Exception {
+		long start = System.nanoTime();
+		Semaphore permits = acquireHostPermit(irodsAccount, borrowMaxWaitMillis);
+		long hostWaitNanos = System.nanoTime() - start;
+
+		long remainingWaitMillis = borrowMaxWaitMillis;
+		if (borrowMaxWaitMillis > 0) {
+			remainingWaitMillis = Math.max(0, borrowMaxWaitMillis - TimeUnit.NANOSECONDS.toMillis(hostWaitNanos));
+		}
+
+		boolean borrowed = false;
+		try {
+			AbstractIRODSMidLevelProtocol irodsProtocol = super.borrowObject(irodsAccount, remainingWaitMillis);
+			borrowed = true;
+			recordBorrow(System.nanoTime() - start, hostWaitNanos);
+			return irodsProtocol;
+		} finally {
+			if (!borrowed && permits != null) {
+				permits.release();
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.apache.commons.pool2.impl.GenericKeyedObjectPool#returnObject(java.
+	 * lang.Object, java.lang.Object)
+	 */
+	@Override
+	public void returnObject(final IRODSAccount irodsAccount, final AbstractIRODSMidLevelProtocol irodsProtocol) {
+		super.returnObject(irodsAccount, irodsProtocol);
+		releaseHostPermit(irodsAccount);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.apache.commons.pool2.impl.GenericKeyedObjectPool#invalidateObject(
+	 * java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public void invalidateObject(final IRODSAccount irodsAccount, final AbstractIRODSMidLevelProtocol irodsProtocol)
+			throws Exception {
+		super.invalidateObject(irodsAccount, irodsProtocol);
+		releaseHostPermit(irodsAccount);
+	}
+
+	/**
+	 * Take a snapshot of the activity of the pool
+	 *
+	 * @return {@link JargonConnectionCacheMetrics}
+	 */
+	public JargonConnectionCacheMetrics getMetrics() {
+		long count = borrowLatencyCount.get();
+		long meanLatencyNanos = count == 0 ? 0 : borrowLatencyTotalNanos.get() / count;
+		long meanHostWaitNanos = count == 0 ? 0 : hostWaitTotalNanos.get() / count;
+
+		Map<String, Integer> activePerHost = new HashMap<String, Integer>();
+		for (Map.Entry<String, Semaphore> entry : hostPermits.entrySet()) {
+			activePerHost.put(entry.getKey(), maxTotalPerHost - entry.getValue().availablePermits());
+		}
+
+		/*
+		 * the connection check on borrow is done in activateObject, which the
+		 * pool does not count as a borrow validation, so add the failures the
+		 * factory counted
+		 */
+		long destroyedOnBorrow = this.getDestroyedByBorrowValidationCount();
+		if (jargonPooledObjectFactory != null) {
+			destroyedOnBorrow += jargonPooledObjectFactory.getActivationFailureCount();
+		}
+
+		return new JargonConnectionCacheMetrics(this.getBorrowedCount(), this.getReturnedCount(),
+				this.getCreatedCount(), this.getDestroyedCount(), this.getDestroyedByEvictorCount(),
+				destroyedOnBorrow, this.getNumActive(), this.getNumIdle(),
+				this.getNumWaiters(), TimeUnit.NANOSECONDS.toMillis(meanLatencyNanos),
+				TimeUnit.NANOSECONDS.toMillis(borrowLatencyMaxNanos.get()), this.getMeanBorrowWaitTimeMillis(),
+				this.getMaxBorrowWaitTimeMillis(), TimeUnit.NANOSECONDS.toMillis(meanHostWaitNanos), activePerHost);
+	}
+
+	/**
+	 * @return the most connections that may be borrowed at once for one iRODS
+	 *         host, 0 if there is no limit
+	 */
+	public int getMaxTotalPerHost() {
+		return maxTotalPerHost;
 	}
 
 	/*
 	 * (non-Javadoc)
-	 * 
+	 *
 	 * @see org.apache.commons.pool2.impl.GenericKeyedObjectPool#close()
 	 */
 	@Override
 	public void close() {
 		log.info("close()");
-		this.clear();
+		log.info("final metrics:{}", getMetrics());
+		super.close();
+	}
+
+	private Semaphore acquireHostPermit(final IRODSAccount irodsAccount, final long borrowMaxWaitMillis)
+			throws InterruptedException {
+		if (maxTotalPerHost <= 0) {
+			return null;
+		}
+
+		Semaphore permits = hostPermits(irodsAccount);
+		boolean acquired;
+		if (!this.getBlockWhenExhausted()) {
+			acquired = permits.tryAcquire();
+		} else if (borrowMaxWaitMillis < 0) {
+			permits.acquire();
+			acquired = true;
+		} else {
+			acquired = permits.tryAcquire(borrowMaxWaitMillis, TimeUnit.MILLISECONDS);
+		}
+
+		if (!acquired) {
+			log.warn("no connection available for host:{}", irodsAccount.getHost());
+			throw new NoSuchElementException(
+					"Timeout waiting for a connection to host:" + irodsAccount.getHost());
+		}
+		return permits;
+	}
+
+	private void releaseHostPermit(final IRODSAccount irodsAccount) {
+		if (maxTotalPerHost > 0) {
+			hostPermits(irodsAccount).release();
+		}
+	}
+
+	private Semaphore hostPermits(final IRODSAccount irodsAccount) {
+		String host = irodsAccount.getHost();
+		Semaphore permits = hostPermits.get(host);
+		if (permits == null) {
+			Semaphore created = new Semaphore(maxTotalPerHost, true);
+			permits = hostPermits.putIfAbsent(host, created);
+			if (permits == null) {
+				permits = created;
+			}
+		}
+		return permits;
+	}
+
+	private void recordBorrow(final long latencyNanos, final long hostWaitNanos) {
+		borrowLatencyCount.incrementAndGet();
+		borrowLatencyTotalNanos.addAndGet(latencyNanos);
+		hostWaitTotalNanos.addAndGet(hostWaitNanos);
+		long max;
+		while (latencyNanos > (max = borrowLatencyMaxNanos.get())) {
+			if (borrowLatencyMaxNanos.compareAndSet(max, latencyNanos)) {
+				break;
+			}
+		}
 	}
 
 }
@@ -0,0 +1,188 @@
+/**
+ *
+ */
+package org.irods.jargon.pool.conncache;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Point in time snapshot of the activity of a {@link JargonConnectionCache},
+ * obtained from {@link JargonConnectionCache#getMetrics()}.
+ * <p>
+ * Borrow latency is the full time spent in a borrow, including waiting for a
+ * per host permit and creating a new connection, which covers authentication
+ * and SSL negotiation. Borrow wait time is the part spent waiting for an idle
+ * connection in the pool. Churn is the number of connections created and
+ * destroyed, with those destroyed by the evictor, including failed background
+ * validation, counted separately.
+ */
+public class JargonConnectionCacheMetrics {
+
+	private final long borrowedCount;
+	private final long returnedCount;
+	private final long createdCount;
+	private final long destroyedCount;
+	private final long destroyedByEvictorCount;
+	private final long destroyedByBorrowValidationCount;
+	private final int numActive;
+	private final int numIdle;
+	private final int numWaiters;
+	private final long meanBorrowLatencyMillis;
+	private final long maxBorrowLatencyMillis;
+	private final long meanBorrowWaitTimeMillis;
+	private final long maxBorrowWaitTimeMillis;
+	private final long meanHostWaitTimeMillis;
+	private final Map<String, Integer> numActivePerHost;
+
+	JargonConnectionCacheMetrics(final long borrowedCount, final long returnedCount, final long createdCount,
+			final long destroyedCount, final long destroyedByEvictorCount, final long destroyedByBorrowValidationCount,
+			final int numActive, final int numIdle, final int numWaiters, final long meanBorrowLatencyMillis,
+			final long maxBorrowLatencyMillis, final long meanBorrowWaitTimeMillis, final long maxBorrowWaitTimeMillis,
+			final long meanHostWaitTimeMillis, final Map<String, Integer> numActivePerHost) {
+		this.borrowedCount = borrowedCount;
+		this.returnedCount = returnedCount;
+		this.createdCount = createdCount;
+		this.destroyedCount = destroyedCount;
+		this.destroyedByEvictorCount = destroyedByEvictorCount;
+		this.destroyedByBorrowValidationCount = destroyedByBorrowValidationCount;
+		this.numActive = numActive;
+		this.numIdle = numIdle;
+		this.numWaiters = numWaiters;
+		this.meanBorrowLatencyMillis = meanBorrowLatencyMillis;
+		this.maxBorrowLatencyMillis = maxBorrowLatencyMillis;
+		this.meanBorrowWaitTimeMillis = meanBorrowWaitTimeMillis;
+		this.maxBorrowWaitTimeMillis = maxBorrowWaitTimeMillis;
+		this.meanHostWaitTimeMillis = meanHostWaitTimeMillis;
+		this.numActivePerHost = Collections.unmodifiableMap(numActivePerHost);
+	}
+
+	/**
+	 * @return the number of successful borrows
+	 */
+	public long getBorrowedCount() {
+		return borrowedCount;
+	}
+
+	/**
+	 * @return the number of connections returned
+	 */
+	public long getReturnedCount() {
+		return returnedCount;
+	}
+
+	/**
+	 * @return the number of connections created
+	 */
+	public long getCreatedCount() {
+		return createdCount;
+	}
+
+	/**
+	 * @return the number of connections destroyed for any reason
+	 */
+	public long getDestroyedCount() {
+		return destroyedCount;
+	}
+
+	/**
+	 * @return the number of connections destroyed by the evictor, as idle too
+	 *         long or failing background validation
+	 */
+	public long getDestroyedByEvictorCount() {
+		return destroyedByEvictorCount;
+	}
+
+	/**
+	 * @return the number of connections destroyed because they were no longer
+	 *         connected, or were due for renewal, when borrowed
+	 */
+	public long getDestroyedByBorrowValidationCount() {
+		return destroyedByBorrowValidationCount;
+	}
+
+	/**
+	 * @return the number of connections currently borrowed
+	 */
+	public int getNumActive() {
+		return numActive;
+	}
+
+	/**
+	 * @return the number of idle connections in the pool
+	 */
+	public int getNumIdle() {
+		return numIdle;
+	}
+
+	/**
+	 * @return the number of borrowers waiting for an idle connection
+	 */
+	public int getNumWaiters() {
+		return numWaiters;
+	}
+
+	/**
+	 * @return the mean time of a borrow, including any wait and connection
+	 *         creation
+	 */
+	public long getMeanBorrowLatencyMillis() {
+		return meanBorrowLatencyMillis;
+	}
+
+	/**
+	 * @return the longest time of a borrow, including any wait and connection
+	 *         creation
+	 */
+	public long getMaxBorrowLatencyMillis() {
+		return maxBorrowLatencyMillis;
+	}
+
+	/**
+	 * @return the mean time borrowers waited for an idle connection
+	 */
+	public long getMeanBorrowWaitTimeMillis() {
+		return meanBorrowWaitTimeMillis;
+	}
+
+	/**
+	 * @return the longest time a borrower waited for an idle connection
+	 */
+	public long getMaxBorrowWaitTimeMillis() {
+		return maxBorrowWaitTimeMillis;
+	}
+
+	/**
+	 * @return the mean time borrowers waited for a per host permit
+	 */
+	public long getMeanHostWaitTimeMillis() {
+		return meanHostWaitTimeMillis;
+	}
+
+	/**
+	 * @return the number of connections borrowed per host, only tracked when
+	 *         there is a per host limit
+	 */
+	public Map<String, Integer> getNumActivePerHost() {
+		return numActivePerHost;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("JargonConnectionCacheMetrics [borrowedCount=").append(borrowedCount)
+				.append(", returnedCount=").append(returnedCount).append(", createdCount=").append(createdCount)
+				.append(", destroyedCount=").append(destroyedCount).append(", destroyedByEvictorCount=")
+				.append(destroyedByEvictorCount).append(", destroyedByBorrowValidationCount=")
+				.append(destroyedByBorrowValidationCount).append(", numActive=").append(numActive)
+				.append(", numIdle=").append(numIdle).append(", numWaiters=").append(numWaiters)
+				.append(", meanBorrowLatencyMillis=").append(meanBorrowLatencyMillis)
+				.append(", maxBorrowLatencyMillis=").append(maxBorrowLatencyMillis)
+				.append(", meanBorrowWaitTimeMillis=").append(meanBorrowWaitTimeMillis)
+				.append(", maxBorrowWaitTimeMillis=").append(maxBorrowWaitTimeMillis)
+				.append(", meanHostWaitTimeMillis=").append(meanHostWaitTimeMillis).append(", numActivePerHost=")
+				.append(numActivePerHost).append("]");
+		return builder.toString();
+	}
+
+}
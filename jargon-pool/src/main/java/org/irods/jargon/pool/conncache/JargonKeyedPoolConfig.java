@@ -6,17 +6,42 @@ package org.irods.jargon.pool.conncache;
 import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
 
 /**
+ * Configuration of the {@link JargonConnectionCache}. The defaults suit a
+ * server handling many accounts at once:
+ * <ul>
+ * <li>connections are validated by the evictor in the background, with a round
+ * trip to the agent, rather than on every borrow. A borrow only checks that
+ * the connection is still marked connected.</li>
+ * <li>waiting borrowers are served in order ({@code fairness} is on)</li>
+ * <li>no cap on connections per host, see {@link #setMaxTotalPerHost(int)}</li>
+ * </ul>
+ * {@code minIdlePerKey} sets the number of connections per account that are
+ * opened by {@link JargonConnectionCache#warmUp(java.util.Collection)} and
+ * then kept open by the evictor.
+ *
  * @author mconway
  *
  */
 public class JargonKeyedPoolConfig extends GenericKeyedObjectPoolConfig {
 
 	public static final int TIME_30_SECONDS = 30 * 1000;
-	public static final int TIME_60_SECONDS = 30 * 1000;
+	public static final int TIME_60_SECONDS = 60 * 1000;
 	public static final int MAX_IDLE = 3;
 
 	private int maxIdlePerKey = MAX_IDLE;
 
+	/**
+	 * Most connections that may be borrowed at once across all accounts on
+	 * one iRODS host, 0 for no limit
+	 */
+	private int maxTotalPerHost = 0;
+
+	/**
+	 * Whether background validation sends a request to the agent, rather than
+	 * only checking that the connection is marked connected
+	 */
+	private boolean validateWithRoundTrip = true;
+
 	@Override
 	public int getMaxIdlePerKey() {
 		return maxIdlePerKey;
@@ -27,12 +52,54 @@ public class JargonKeyedPoolConfig extends GenericKeyedObjectPoolConfig {
 		this.maxIdlePerKey = maxIdlePerKey;
 	}
 
+	/**
+	 * @return the most connections that may be borrowed at once for one iRODS
+	 *         host, 0 if there is no limit
+	 */
+	public int getMaxTotalPerHost() {
+		return maxTotalPerHost;
+	}
+
+	/**
+	 * @param maxTotalPerHost
+	 *            the most connections that may be borrowed at once for one
+	 *            iRODS host, across all accounts, 0 for no limit
+	 */
+	public void setMaxTotalPerHost(int maxTotalPerHost) {
+		if (maxTotalPerHost < 0) {
+			throw new IllegalArgumentException("maxTotalPerHost must be >= 0");
+		}
+		this.maxTotalPerHost = maxTotalPerHost;
+	}
+
+	/**
+	 * @return whether background validation makes a round trip to the agent
+	 */
+	public boolean isValidateWithRoundTrip() {
+		return validateWithRoundTrip;
+	}
+
+	/**
+	 * @param validateWithRoundTrip
+	 *            {@code true} to have background validation make a round trip
+	 *            to the agent, {@code false} to only check that the connection
+	 *            is marked connected
+	 */
+	public void setValidateWithRoundTrip(boolean validateWithRoundTrip) {
+		this.validateWithRoundTrip = validateWithRoundTrip;
+	}
+
 	public JargonKeyedPoolConfig() {
 		super();
 		setMinEvictableIdleTimeMillis(TIME_60_SECONDS);
 		setSoftMinEvictableIdleTimeMillis(TIME_30_SECONDS);
-		setTestOnReturn(true);
-		setTestOnBorrow(true);
+		setTimeBetweenEvictionRunsMillis(TIME_30_SECONDS);
+		// validate every idle connection on each evictor run
+		setNumTestsPerEvictionRun(-1);
+		setTestOnReturn(false);
+		setTestOnBorrow(false);
+		setTestWhileIdle(true);
+		setFairness(true);
 	}
 
 	@Override
@@ -93,17 +160,17 @@ public class JargonKeyedPoolConfig extends GenericKeyedObjectPoolConfig {
 
 	@Override
 	public boolean getTestOnBorrow() {
-		return false;
+		return super.getTestOnBorrow();
 	}
 
 	@Override
 	public boolean getTestOnCreate() {
-		return false;
+		return super.getTestOnCreate();
 	}
 
 	@Override
 	public boolean getTestOnReturn() {
-		return false;
+		return super.getTestOnReturn();
 	}
 
 	@Override
@@ -1,5 +1,7 @@
 package org.irods.jargon.pool.conncache;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
 import org.apache.commons.pool2.PooledObject;
 import org.apache.commons.pool2.impl.DefaultPooledObject;
@@ -8,9 +10,21 @@ import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSProtocolManager;
 import org.irods.jargon.core.connection.IRODSSession;
 import org.irods.jargon.core.connection.IRODSSimpleProtocolManager;
+import org.irods.jargon.core.packinstr.MiscSvrInfo;
+import org.irods.jargon.core.utils.IRODSConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Creates, checks and destroys the connections held in a
+ * {@link JargonConnectionCache}. A connection is checked cheaply when it is
+ * borrowed, by looking at whether it is still marked connected, and fully in
+ * the background by the evictor, which by default sends a server info request
+ * to the agent.
+ *
+ * @author mconway
+ *
+ */
 public class JargonPooledObjectFactory
 		extends BaseKeyedPooledObjectFactory<IRODSAccount, AbstractIRODSMidLevelProtocol> {
 
@@ -27,6 +41,35 @@ public class JargonPooledObjectFactory
 	 */
 	private IRODSSession irodsSession;
 
+	/**
+	 * Whether {@link #validateObject(IRODSAccount, PooledObject)} makes a round
+	 * trip to the agent, set from the {@link JargonKeyedPoolConfig}
+	 */
+	private volatile boolean validateWithRoundTrip = true;
+
+	/**
+	 * Number of idle connections refused in
+	 * {@link #activateObject(IRODSAccount, PooledObject)}, which the pool then
+	 * destroys
+	 */
+	private final AtomicLong activationFailureCount = new AtomicLong();
+
+	public boolean isValidateWithRoundTrip() {
+		return validateWithRoundTrip;
+	}
+
+	public void setValidateWithRoundTrip(final boolean validateWithRoundTrip) {
+		this.validateWithRoundTrip = validateWithRoundTrip;
+	}
+
+	/**
+	 * @return the number of idle connections refused when borrowed, as no
+	 *         longer connected or due for renewal
+	 */
+	public long getActivationFailureCount() {
+		return activationFailureCount.get();
+	}
+
 	public IRODSSession getIrodsSession() {
 		return irodsSession;
 	}
@@ -73,10 +116,52 @@ public class JargonPooledObjectFactory
 		super.destroyObject(key, p);
 	}
 
+	/**
+	 * Called on each borrow of an idle connection, fails without any i/o if the
+	 * connection is no longer usable so that the pool destroys it and hands
+	 * out another
+	 */
+	@Override
+	public void activateObject(IRODSAccount key, PooledObject<AbstractIRODSMidLevelProtocol> p) throws Exception {
+		AbstractIRODSMidLevelProtocol irodsProtocol = p.getObject();
+		if (!irodsProtocol.isConnected()) {
+			log.warn("pooled connection is no longer connected:{}", key);
+			activationFailureCount.incrementAndGet();
+			throw new IllegalStateException("pooled connection is not connected");
+		}
+
+		int renewalInterval = irodsProtocol.getPipelineConfiguration().getSocketRenewalIntervalInSeconds();
+		if (renewalInterval > 0
+				&& System.currentTimeMillis() > irodsProtocol.getConnectTimeInMillis() + renewalInterval * 1000L) {
+			log.info("pooled connection is due for renewal:{}", key);
+			activationFailureCount.incrementAndGet();
+			throw new IllegalStateException("pooled connection is due for renewal");
+		}
+	}
+
+	/**
+	 * Called by the evictor for idle connections, optionally making a round
+	 * trip to the agent to detect connections that were dropped by the server
+	 * or the network
+	 */
 	@Override
 	public boolean validateObject(IRODSAccount key, PooledObject<AbstractIRODSMidLevelProtocol> p) {
+		AbstractIRODSMidLevelProtocol irodsProtocol = p.getObject();
+		if (!irodsProtocol.isConnected()) {
+			return false;
+		}
 
-		return p.getObject().isConnected();
+		if (!validateWithRoundTrip) {
+			return true;
+		}
+
+		try {
+			irodsProtocol.irodsFunction(IRODSConstants.RODS_API_REQ, "", MiscSvrInfo.API_NBR);
+			return true;
+		} catch (Exception e) {
+			log.warn("pooled connection failed validation, will be destroyed:{}", key, e);
+			return false;
+		}
 	}
 
 }
@@ -0,0 +1,136 @@
+package org.irods.jargon.pool.conncache;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.connection.PipelineConfiguration;
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.junit.Test;
+
+import junit.framework.Assert;
+
+public class JargonConnectionCacheLimitsTest {
+
+	@Test
+	public void testDefaultConfigValidatesInBackground() throws Exception {
+		JargonKeyedPoolConfig config = new JargonKeyedPoolConfig();
+		Assert.assertFalse(config.getTestOnBorrow());
+		Assert.assertFalse(config.getTestOnReturn());
+		Assert.assertTrue(config.getTestWhileIdle());
+		Assert.assertTrue(config.getFairness());
+		Assert.assertEquals(JargonKeyedPoolConfig.TIME_60_SECONDS, config.getMinEvictableIdleTimeMillis());
+		Assert.assertEquals(0, config.getMaxTotalPerHost());
+	}
+
+	@Test
+	public void testPerHostLimitAcrossAccounts() throws Exception {
+		JargonKeyedPoolConfig config = new JargonKeyedPoolConfig();
+		config.setMaxTotalPerHost(2);
+		config.setMaxWaitMillis(50);
+		JargonConnectionCache cache = new JargonConnectionCache(new MockProtocolFactory(), config);
+
+		IRODSAccount user1 = buildAccount("host1", "user1");
+		IRODSAccount user2 = buildAccount("host1", "user2");
+		IRODSAccount otherHost = buildAccount("host2", "user1");
+
+		AbstractIRODSMidLevelProtocol p1 = cache.borrowObject(user1);
+		AbstractIRODSMidLevelProtocol p2 = cache.borrowObject(user2);
+		AbstractIRODSMidLevelProtocol p3 = cache.borrowObject(otherHost);
+
+		try {
+			cache.borrowObject(user1);
+			Assert.fail("should have hit the per host limit");
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+
+		Assert.assertEquals(Integer.valueOf(2), cache.getMetrics().getNumActivePerHost().get("host1"));
+
+		cache.returnObject(user2, p2);
+		AbstractIRODSMidLevelProtocol p4 = cache.borrowObject(user1);
+		cache.returnObject(user1, p4);
+		cache.returnObject(user1, p1);
+		cache.invalidateObject(otherHost, p3);
+
+		JargonConnectionCacheMetrics metrics = cache.getMetrics();
+		Assert.assertEquals(4, metrics.getBorrowedCount());
+		Assert.assertEquals(0, metrics.getNumActive());
+		Assert.assertEquals(Integer.valueOf(0), metrics.getNumActivePerHost().get("host1"));
+		Assert.assertEquals(Integer.valueOf(0), metrics.getNumActivePerHost().get("host2"));
+		Assert.assertTrue(metrics.getMaxBorrowLatencyMillis() >= metrics.getMeanBorrowLatencyMillis());
+		cache.close();
+	}
+
+	@Test
+	public void testWarmUpOpensMinIdle() throws Exception {
+		JargonKeyedPoolConfig config = new JargonKeyedPoolConfig();
+		config.setMinIdlePerKey(2);
+		MockProtocolFactory factory = new MockProtocolFactory();
+		JargonConnectionCache cache = new JargonConnectionCache(factory, config);
+
+		List<IRODSAccount> accounts = new ArrayList<IRODSAccount>();
+		accounts.add(buildAccount("host1", "user1"));
+		accounts.add(buildAccount("host1", "user2"));
+
+		Assert.assertEquals(2, cache.warmUp(accounts));
+		Assert.assertEquals(4, cache.getNumIdle());
+		Assert.assertEquals(4, cache.getMetrics().getCreatedCount());
+
+		cache.borrowObject(accounts.get(0));
+		Assert.assertEquals(4, cache.getMetrics().getCreatedCount());
+		cache.close();
+	}
+
+	@Test
+	public void testDisconnectedConnectionNotHandedOut() throws Exception {
+		JargonKeyedPoolConfig config = new JargonKeyedPoolConfig();
+		MockProtocolFactory factory = new MockProtocolFactory();
+		JargonConnectionCache cache = new JargonConnectionCache(factory, config);
+		IRODSAccount user1 = buildAccount("host1", "user1");
+
+		AbstractIRODSMidLevelProtocol first = cache.borrowObject(user1);
+		cache.returnObject(user1, first);
+		when(first.isConnected()).thenReturn(false);
+
+		AbstractIRODSMidLevelProtocol second = cache.borrowObject(user1);
+		Assert.assertNotSame(first, second);
+		Assert.assertEquals(1, cache.getMetrics().getDestroyedCount());
+		Assert.assertEquals(1, cache.getMetrics().getDestroyedByBorrowValidationCount());
+		cache.close();
+	}
+
+	private IRODSAccount buildAccount(final String host, final String userName) throws Exception {
+		return IRODSAccount.instance(host, 1247, userName, "password", "/zone/home/" + userName, "zone", "");
+	}
+
+	/**
+	 * Factory handing out mock connections that are always connected
+	 */
+	private static class MockProtocolFactory extends JargonPooledObjectFactory {
+
+		private final PipelineConfiguration pipelineConfiguration = PipelineConfiguration
+				.instance(new SettableJargonProperties());
+
+		MockProtocolFactory() throws Exception {
+			setIrodsSession(new IRODSSession());
+		}
+
+		@Override
+		public AbstractIRODSMidLevelProtocol create(final IRODSAccount irodsAccount) throws Exception {
+			AbstractIRODSMidLevelProtocol irodsProtocol = mock(AbstractIRODSMidLevelProtocol.class);
+			when(irodsProtocol.isConnected()).thenReturn(true);
+			when(irodsProtocol.getPipelineConfiguration()).thenReturn(pipelineConfiguration);
+			when(irodsProtocol.getConnectTimeInMillis()).thenReturn(System.currentTimeMillis());
+			when(irodsProtocol.getIrodsAccount()).thenReturn(irodsAccount);
+			return irodsProtocol;
+		}
+	}
+
+}
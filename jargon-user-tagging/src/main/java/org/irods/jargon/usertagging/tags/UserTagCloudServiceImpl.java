@@ -10,10 +10,11 @@ import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
-import org.irods.jargon.core.query.IRODSGenQuery;
+import org.irods.jargon.core.query.AbstractIRODSGenQuery;
 import org.irods.jargon.core.query.IRODSQueryResultRow;
 import org.irods.jargon.core.query.IRODSQueryResultSetInterface;
 import org.irods.jargon.core.query.JargonQueryException;
+import org.irods.jargon.core.query.PreparedIRODSGenQuery;
 import org.irods.jargon.core.query.RodsGenQueryEnum;
 import org.irods.jargon.core.utils.IRODSDataConversionUtil;
 import org.irods.jargon.usertagging.AbstractIRODSTaggingService;
@@ -41,6 +42,31 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 	public static final String AND = " AND ";
 	public static final String QUOTE = "'";
 
+	private static final String COLLECTION_CLOUD_QUERY = "SELECT COUNT("
+			+ RodsGenQueryEnum.COL_COLL_NAME.getName() + ")" + COMMA_SPACE
+			+ RodsGenQueryEnum.COL_META_COLL_ATTR_NAME.getName() + " WHERE "
+			+ RodsGenQueryEnum.COL_META_COLL_ATTR_UNITS.getName() + " = ?"
+			+ AND + RodsGenQueryEnum.COL_META_COLL_ATTR_VALUE.getName()
+			+ " = ?";
+
+	private static final String COLLECTION_CLOUD_SEARCH_QUERY = COLLECTION_CLOUD_QUERY
+			+ AND
+			+ RodsGenQueryEnum.COL_META_COLL_ATTR_NAME.getName()
+			+ " LIKE ?";
+
+	private static final String DATA_OBJECT_CLOUD_QUERY = "SELECT COUNT("
+			+ RodsGenQueryEnum.COL_DATA_NAME.getName() + ")" + COMMA_SPACE
+			+ "COUNT(" + RodsGenQueryEnum.COL_COLL_NAME.getName() + ")"
+			+ COMMA_SPACE + RodsGenQueryEnum.COL_META_DATA_ATTR_NAME.getName()
+			+ " WHERE " + RodsGenQueryEnum.COL_META_DATA_ATTR_UNITS.getName()
+			+ " = ?" + AND
+			+ RodsGenQueryEnum.COL_META_DATA_ATTR_VALUE.getName() + " = ?";
+
+	private static final String DATA_OBJECT_CLOUD_SEARCH_QUERY = DATA_OBJECT_CLOUD_QUERY
+			+ AND
+			+ RodsGenQueryEnum.COL_META_DATA_ATTR_NAME.getName()
+			+ " LIKE ?";
+
 	/**
 	 * Static initializer used to create instances of the service.
 	 * 
@@ -144,37 +170,9 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 			throw new IllegalArgumentException("null searchTagName");
 		}
 
-		// create a GenQuery to get the cloud info
-		StringBuilder sb = new StringBuilder();
-		sb.append("SELECT COUNT(");
-		sb.append(RodsGenQueryEnum.COL_COLL_NAME.getName());
-		sb.append(")");
-		sb.append(COMMA_SPACE);
-		sb.append(RodsGenQueryEnum.COL_META_COLL_ATTR_NAME.getName());
-		sb.append(" WHERE ");
-		sb.append(RodsGenQueryEnum.COL_META_COLL_ATTR_UNITS.getName());
-		sb.append(EQUAL_QUOTE);
-		sb.append(UserTaggingConstants.TAG_AVU_UNIT);
-		sb.append(QUOTE_SPACE);
-		sb.append(AND);
-		sb.append(RodsGenQueryEnum.COL_META_COLL_ATTR_VALUE.getName());
-		sb.append(EQUAL_QUOTE);
-		sb.append(irodsAccount.getUserName());
-		sb.append(QUOTE);
-
-		if (!searchTagName.isEmpty()) {
-			sb.append(' ');
-			sb.append(AND);
-			sb.append(RodsGenQueryEnum.COL_META_COLL_ATTR_NAME.getName());
-			sb.append(" LIKE '%");
-			sb.append(searchTagName);
-			sb.append("%'");
-		}
-
-		String cloudQuery = sb.toString();
-		log.debug("cloud tag query:{}", cloudQuery);
-
-		IRODSGenQuery irodsQuery = IRODSGenQuery.instance(cloudQuery, 2000);
+		AbstractIRODSGenQuery irodsQuery = bindCloudQuery(
+				COLLECTION_CLOUD_QUERY, COLLECTION_CLOUD_SEARCH_QUERY,
+				searchTagName);
 		IRODSGenQueryExecutor irodsGenQueryExecutor = irodsAccessObjectFactory
 				.getIRODSGenQueryExecutor(irodsAccount);
 		IRODSQueryResultSetInterface resultSet;
@@ -223,41 +221,9 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 		log.info("buildTagCloudEntryListForDataObjects, user={}",
 				irodsAccount.getUserName());
 
-		// create a GenQuery to get the cloud info
-		StringBuilder sb = new StringBuilder();
-		sb.append("SELECT COUNT(");
-		sb.append(RodsGenQueryEnum.COL_DATA_NAME.getName());
-		sb.append(')');
-		sb.append(COMMA_SPACE);
-		sb.append("COUNT(");
-		sb.append(RodsGenQueryEnum.COL_COLL_NAME.getName());
-		sb.append(")");
-		sb.append(COMMA_SPACE);
-		sb.append(RodsGenQueryEnum.COL_META_DATA_ATTR_NAME.getName());
-		sb.append(" WHERE ");
-		sb.append(RodsGenQueryEnum.COL_META_DATA_ATTR_UNITS.getName());
-		sb.append(EQUAL_QUOTE);
-		sb.append(UserTaggingConstants.TAG_AVU_UNIT);
-		sb.append(QUOTE_SPACE);
-		sb.append(AND);
-		sb.append(RodsGenQueryEnum.COL_META_DATA_ATTR_VALUE.getName());
-		sb.append(EQUAL_QUOTE);
-		sb.append(irodsAccount.getUserName());
-		sb.append(QUOTE);
-
-		if (!searchTagName.isEmpty()) {
-			sb.append(' ');
-			sb.append(AND);
-			sb.append(RodsGenQueryEnum.COL_META_DATA_ATTR_NAME.getName());
-			sb.append(" LIKE '%");
-			sb.append(searchTagName);
-			sb.append("%'");
-		}
-
-		String cloudQuery = sb.toString();
-		log.debug("cloud tag query:{}", cloudQuery);
-
-		IRODSGenQuery irodsQuery = IRODSGenQuery.instance(cloudQuery, 2000);
+		AbstractIRODSGenQuery irodsQuery = bindCloudQuery(
+				DATA_OBJECT_CLOUD_QUERY, DATA_OBJECT_CLOUD_SEARCH_QUERY,
+				searchTagName);
 		IRODSGenQueryExecutor irodsGenQueryExecutor = irodsAccessObjectFactory
 				.getIRODSGenQueryExecutor(irodsAccount);
 		IRODSQueryResultSetInterface resultSet;
@@ -289,6 +255,41 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 
 	}
 
+	/**
+	 * Bind the tag unit and user name, and the search term if given, to the
+	 * prepared cloud query, so the query text is only parsed once
+	 * 
+	 * @param cloudQuery
+	 *            {@code String} with the query when there is no search term
+	 * @param cloudSearchQuery
+	 *            {@code String} with the query when there is a search term
+	 * @param searchTagName
+	 *            {@code String} with the search term, blank if none
+	 * @return {@link AbstractIRODSGenQuery} ready to run
+	 * @throws JargonException
+	 */
+	private AbstractIRODSGenQuery bindCloudQuery(final String cloudQuery,
+			final String cloudSearchQuery, final String searchTagName)
+			throws JargonException {
+
+		try {
+			if (searchTagName.isEmpty()) {
+				log.debug("cloud tag query:{}", cloudQuery);
+				return PreparedIRODSGenQuery.prepare(cloudQuery).bind(2000,
+						UserTaggingConstants.TAG_AVU_UNIT,
+						irodsAccount.getUserName());
+			} else {
+				log.debug("cloud tag query:{}", cloudSearchQuery);
+				return PreparedIRODSGenQuery.prepare(cloudSearchQuery).bind(
+						2000, UserTaggingConstants.TAG_AVU_UNIT,
+						irodsAccount.getUserName(), "%" + searchTagName + "%");
+			}
+		} catch (JargonQueryException e) {
+			log.error("irods query error", e);
+			throw new JargonException(e);
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 